@@ -53,12 +53,9 @@ public class InternalNetworkManager {
     public String getInternalBridgeUUID (Node node, String bridgeName) {
         try {
             OVSDBConfigService ovsdbTable = (OVSDBConfigService)ServiceHelper.getGlobalInstance(OVSDBConfigService.class, this);
-            Map<String, Table<?>> bridgeTable = ovsdbTable.getRows(node, Bridge.NAME.getName());
-            if (bridgeTable == null) return null;
-            for (String key : bridgeTable.keySet()) {
-                Bridge bridge = (Bridge)bridgeTable.get(key);
-                if (bridge.getName().equals(bridgeName)) return key;
-            }
+            Map<String, Table<?>> bridges = ovsdbTable.getRowsByColumn(node, Bridge.NAME.getName(), "name", bridgeName);
+            if (bridges == null || bridges.isEmpty()) return null;
+            return bridges.keySet().iterator().next();
         } catch (Exception e) {
             logger.error("Error getting Bridge Identifier for {} / {}", node, bridgeName, e);
         }
@@ -11,9 +11,9 @@
 
 package org.opendaylight.ovsdb.neutron;
 
-import java.math.BigInteger;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -59,14 +59,14 @@ public class NodeConfiguration {
             for (Table<?> row : portRows.values()) {
                 Port port = (Port)row;
 
-                BigInteger[] tags = port.getTag().toArray(new BigInteger[0]);
-                if (tags.length == 1)
+                Set<Long> tags = port.getTag();
+                if (tags.size() == 1)
                 {
                     //There is only one tag here
-                    vlan = tags[0].intValue();
+                    vlan = (int)port.getTagValue();
                 }
                 else {
-                   logger.debug("This port has more {} interfaces", tags.length);
+                   logger.debug("This port has more {} interfaces", tags.size());
                    continue;
                 }
 
@@ -13,11 +13,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import org.opendaylight.controller.networkconfig.neutron.NeutronNetwork;
 import org.opendaylight.controller.sal.core.Node;
@@ -29,22 +27,43 @@ import org.opendaylight.ovsdb.lib.notation.UUID;
 import org.opendaylight.ovsdb.lib.table.Interface;
 import org.opendaylight.ovsdb.lib.table.Open_vSwitch;
 import org.opendaylight.ovsdb.lib.table.Port;
+import org.opendaylight.ovsdb.lib.table.internal.ColumnMask;
 import org.opendaylight.ovsdb.lib.table.internal.Table;
 import org.opendaylight.ovsdb.neutron.provider.ProviderNetworkManager;
+import org.opendaylight.ovsdb.plugin.OVSDBColumnSubscriber;
 import org.opendaylight.ovsdb.plugin.OVSDBInventoryListener;
+import org.opendaylight.ovsdb.plugin.OVSDBSnapshotListener;
+import org.opendaylight.ovsdb.plugin.PriorityLaneQueue;
+import org.opendaylight.ovsdb.plugin.RowChange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class SouthboundHandler extends BaseHandler implements OVSDBInventoryListener, IInventoryListener {
+public class SouthboundHandler extends BaseHandler implements OVSDBInventoryListener, OVSDBSnapshotListener, OVSDBColumnSubscriber,
+        IInventoryListener {
     static final Logger logger = LoggerFactory.getLogger(SouthboundHandler.class);
+    /*
+     * Interface and Port updates are only of interest if they touch the configuration,
+     * statistics only updates of these tables are not even notified.
+     */
+    private static final long INTERFACE_COLUMNS = ColumnMask.of(Interface.NAME.getName(),
+            "name", "external_ids", "mac", "ofport", "options", "other_config", "type");
+    private static final long PORT_COLUMNS = ColumnMask.of(Port.NAME.getName(),
+            "name", "external_ids", "mac", "interfaces", "tag", "trunks");
+    private static final String STATISTICS_LANE_CAPACITY = "ovsdb.neutron.statistics.lane.capacity";
+    private static final int defaultStatisticsLaneCapacity = 1024;
     //private Thread eventThread;
     private ExecutorService eventHandler;
-    private BlockingQueue<SouthboundEvent> events;
+    /*
+     * Row additions, deletions and configuration changes go in the high priority lane,
+     * statistics only updates are coalesced per row in the low priority lane.
+     */
+    private PriorityLaneQueue<SouthboundEvent, SouthboundEvent> events;
     List<Node> nodeCache;
 
     void init() {
         eventHandler = Executors.newSingleThreadExecutor();
-        this.events = new LinkedBlockingQueue<SouthboundEvent>();
+        this.events = new PriorityLaneQueue<SouthboundEvent, SouthboundEvent>(
+                Integer.getInteger(STATISTICS_LANE_CAPACITY, defaultStatisticsLaneCapacity));
         nodeCache = new ArrayList<>();
     }
 
@@ -105,8 +124,13 @@ public class SouthboundHandler extends BaseHandler implements OVSDBInventoryList
 
     @Override
     public void rowUpdated(Node node, String tableName, String uuid, Table<?> oldRow, Table<?> newRow) {
-        if (this.isUpdateOfInterest(oldRow, newRow)) {
-            this.enqueueEvent(new SouthboundEvent(node, tableName, uuid, newRow, SouthboundEvent.Action.UPDATE));
+        SouthboundEvent event = new SouthboundEvent(node, tableName, uuid, newRow, SouthboundEvent.Action.UPDATE);
+        if (RowChange.isStatisticsOnly(oldRow)) {
+            // Events are equal regardless of their row, the latest row wins
+            events.offerLow(event, event);
+        } else {
+            events.removeLow(event);
+            this.enqueueEvent(event);
         }
     }
 
@@ -114,43 +138,41 @@ public class SouthboundHandler extends BaseHandler implements OVSDBInventoryList
      * Ignore unneccesary updates to be even considered for processing.
      * (Especially stats update are fast and furious).
      */
-
-    private boolean isUpdateOfInterest(Table<?> oldRow, Table<?> newRow) {
-        if (oldRow == null) return true;
-        if (newRow.getTableName().equals(Interface.NAME)) {
-            // We are NOT interested in Stats only updates
-            Interface oldIntf = (Interface)oldRow;
-            if (oldIntf.getName() == null && oldIntf.getExternal_ids() == null && oldIntf.getMac() == null &&
-                oldIntf.getOfport() == null && oldIntf.getOptions() == null && oldIntf.getOther_config() == null &&
-                oldIntf.getType() == null) {
-                logger.trace("IGNORING Interface Update : "+newRow.toString());
-                return false;
-            }
-        } else if (newRow.getTableName().equals(Port.NAME)) {
-            // We are NOT interested in Stats only updates
-            Port oldPort = (Port)oldRow;
-            if (oldPort.getName() == null && oldPort.getExternal_ids() == null && oldPort.getMac() == null &&
-                oldPort.getInterfaces() == null && oldPort.getTag() == null && oldPort.getTrunks() == null) {
-                logger.trace("IGNORING Port Update : "+newRow.toString());
-                return false;
-            }
-        }
-
-        return true;
+    @Override
+    public long getColumnMask(String tableName) {
+        if (Interface.NAME.getName().equals(tableName)) return INTERFACE_COLUMNS;
+        if (Port.NAME.getName().equals(tableName)) return PORT_COLUMNS;
+        return ColumnMask.ALL;
     }
 
     @Override
     public void rowRemoved(Node node, String tableName, String uuid, Table<?> row) {
+        events.removeLow(new SouthboundEvent(node, tableName, uuid, null, SouthboundEvent.Action.UPDATE));
         this.enqueueEvent(new SouthboundEvent(node, tableName, uuid, row, SouthboundEvent.Action.DELETE));
     }
 
-    private void enqueueEvent (SouthboundEvent event) {
-        try {
-            events.put(event);
-        } catch (InterruptedException e) {
-            logger.error("Thread was interrupted while trying to enqueue event ", e);
+    /*
+     * Only the Interface, Port and Open_vSwitch rows of the initial dump are acted upon,
+     * the rest of the snapshot is not queued at all.
+     */
+    @Override
+    public void initialSnapshotReady(Node node, Map<String, Map<String, Table<?>>> snapshot) {
+        for (String tableName : new String[] {Open_vSwitch.NAME.getName(), Port.NAME.getName(), Interface.NAME.getName()}) {
+            Map<String, Table<?>> rows = snapshot.get(tableName);
+            if (rows == null) continue;
+            logger.debug("Initial snapshot of node {} : {} {} rows", node, rows.size(), tableName);
+            for (Map.Entry<String, Table<?>> row : rows.entrySet()) {
+                this.enqueueEvent(new SouthboundEvent(node, tableName, row.getKey(), row.getValue(), SouthboundEvent.Action.ADD));
+            }
         }
+    }
 
+    private void enqueueEvent (SouthboundEvent event) {
+        events.offerHigh(event);
+    }
+
+    public PriorityLaneQueue.LaneStatistics getEventQueueStatistics() {
+        return events.getStatistics();
     }
 
     public void processNodeUpdate(Node node, SouthboundEvent.Action action) {
@@ -260,18 +282,10 @@ public class SouthboundHandler extends BaseHandler implements OVSDBInventoryList
 
     private String getPortIdForInterface (Node node, String uuid, Interface intf) {
         try {
-            Map<String, Table<?>> ports = this.ovsdbConfigService.getRows(node, Port.NAME.getName());
-            if (ports == null) return null;
+            Map<String, Table<?>> ports = this.ovsdbConfigService.getParentRows(node, Port.NAME.getName(), uuid);
             for (String portUUID : ports.keySet()) {
-                Port port = (Port)ports.get(portUUID);
-                Set<UUID> interfaceUUIDs = port.getInterfaces();
-                logger.trace("Scanning Port {} to identify interface : {} ",port, uuid);
-                for (UUID intfUUID : interfaceUUIDs) {
-                    if (intfUUID.toString().equalsIgnoreCase(uuid)) {
-                        logger.trace("Found Interafce {} -> {}", uuid, portUUID);
-                        return portUUID;
-                    }
-                }
+                logger.trace("Found Interface {} -> {}", uuid, portUUID);
+                return portUUID;
             }
         } catch (Exception e) {
             logger.debug("Failed to add Port tag for for Intf {}",intf, e);
@@ -9,7 +9,6 @@
  */
 package org.opendaylight.ovsdb.neutron;
 
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -220,7 +219,7 @@ public class TenantNetworkManager {
 
             for (Table<?> row : portTable.values()) {
                 Port port = (Port)row;
-                Set<BigInteger> tags = port.getTag();
+                Set<Long> tags = port.getTag();
                 if (tags.contains(internalVlan)) {
                     logger.debug("Tenant Network {} with Segmenation-id {} is present in Node {} / Port {}",
                                   networkId, segmentationId, node, port);
@@ -229,21 +228,18 @@ public class TenantNetworkManager {
             }
              */
             // External-id based more accurate VM Location identification
-            Map<String, Table<?>> ifTable = ovsdbTable.getRows(node, Interface.NAME.getName());
-            if (ifTable == null) {
+            Set<String> ifaceIds = ovsdbTable.getColumnValues(node, Interface.NAME.getName(),
+                                                              "external_ids:" + EXTERNAL_ID_INTERFACE_ID);
+            if (ifaceIds == null) {
                 logger.debug("Interface table is null for Node {} ", node);
                 return false;
             }
 
-            for (Table<?> row : ifTable.values()) {
-                Interface intf = (Interface)row;
-                Map<String, String> externalIds = intf.getExternal_ids();
-                if (externalIds != null && externalIds.get(EXTERNAL_ID_INTERFACE_ID) != null) {
-                    if (this.isInterfacePresentInTenantNetwork(externalIds.get(EXTERNAL_ID_INTERFACE_ID), networkId)) {
-                        logger.debug("Tenant Network {} with Segmentation-id {} is present in Node {} / Interface {}",
-                                      networkId, segmentationId, node, intf);
-                        return true;
-                    }
+            for (String ifaceId : ifaceIds) {
+                if (this.isInterfacePresentInTenantNetwork(ifaceId, networkId)) {
+                    logger.debug("Tenant Network {} with Segmentation-id {} is present in Node {} / Interface {}",
+                                  networkId, segmentationId, node, ifaceId);
+                    return true;
                 }
             }
 
@@ -317,8 +313,8 @@ public class TenantNetworkManager {
         }
         OVSDBConfigService ovsdbTable = (OVSDBConfigService)ServiceHelper.getGlobalInstance(OVSDBConfigService.class, this);
         Port port = new Port();
-        OvsDBSet<BigInteger> tags = new OvsDBSet<BigInteger>();
-        tags.add(BigInteger.valueOf(vlan));
+        OvsDBSet<Long> tags = new OvsDBSet<Long>();
+        tags.add((long)vlan);
         port.setTag(tags);
         ovsdbTable.updateRow(node, Port.NAME.getName(), null, portUUID, port);
         if (enableContainer) this.addPortToTenantNetworkContainer(node, portUUID, network);
@@ -354,16 +350,16 @@ public class TenantNetworkManager {
             for (UUID intfUUID : interfaces) {
                 Interface intf = (Interface)ovsdbTable.getRow(node, Interface.NAME.getName(), intfUUID.toString());
                 if (intf == null) continue;
-                Set<BigInteger> of_ports = intf.getOfport();
+                Set<Long> of_ports = intf.getOfport();
                 if (of_ports == null) continue;
-                for (BigInteger of_port : of_ports) {
+                for (Long of_port : of_ports) {
                     ContainerConfig config = new ContainerConfig();
                     config.setContainer(BaseHandler.convertNeutronIDToKey(network.getID()));
                     logger.debug("Adding Port {} to Container : {}", port.toString(), config.getContainer());
                     List<String> ncList = new ArrayList<String>();
                     Node ofNode = new Node(Node.NodeIDType.OPENFLOW, dpidLong);
                     NodeConnector nc = NodeConnector.fromStringNoNode(Node.NodeIDType.OPENFLOW.toString(),
-                                                                      Long.valueOf(of_port.longValue()).intValue()+"",
+                                                                      of_port.intValue()+"",
                                                                       ofNode);
                     ncList.add(nc.toString());
                     config.addNodeConnectors(ncList);
@@ -387,18 +383,10 @@ public class TenantNetworkManager {
     private Bridge getBridgeIdForPort (Node node, String uuid) {
         OVSDBConfigService ovsdbTable = (OVSDBConfigService)ServiceHelper.getGlobalInstance(OVSDBConfigService.class, this);
         try {
-            Map<String, Table<?>> bridges = ovsdbTable.getRows(node, Bridge.NAME.getName());
-            if (bridges == null) return null;
+            Map<String, Table<?>> bridges = ovsdbTable.getParentRows(node, Bridge.NAME.getName(), uuid);
             for (String bridgeUUID : bridges.keySet()) {
-                Bridge bridge = (Bridge)bridges.get(bridgeUUID);
-                Set<UUID> portUUIDs = bridge.getPorts();
-                logger.trace("Scanning Bridge {} to identify Port : {} ",bridge, uuid);
-                for (UUID portUUID : portUUIDs) {
-                    if (portUUID.toString().equalsIgnoreCase(uuid)) {
-                        logger.trace("Found Port {} -> ", uuid, bridgeUUID);
-                        return bridge;
-                    }
-                }
+                logger.trace("Found Port {} -> {}", uuid, bridgeUUID);
+                return (Bridge)bridges.get(bridgeUUID);
             }
         } catch (Exception e) {
             logger.debug("Failed to get BridgeId port {} in Node {}", uuid, node);
@@ -9,7 +9,6 @@
  */
 package org.opendaylight.ovsdb.neutron.provider;
 
-import java.math.BigInteger;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.List;
@@ -28,7 +27,6 @@ import org.opendaylight.controller.sal.utils.StatusCode;
 import org.opendaylight.controller.switchmanager.ISwitchManager;
 import org.opendaylight.controller.switchmanager.Switch;
 import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
-import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
 import org.opendaylight.ovsdb.lib.notation.UUID;
 import org.opendaylight.ovsdb.lib.table.Bridge;
 import org.opendaylight.ovsdb.lib.table.Interface;
@@ -322,12 +320,12 @@ class OF10ProviderManager extends ProviderNetworkManager {
                 for (Table<?> row : intfs.values()) {
                     Interface patchIntf = (Interface)row;
                     if (patchIntf.getName().equalsIgnoreCase(patchInt)) {
-                        Set<BigInteger> of_ports = patchIntf.getOfport();
+                        Set<Long> of_ports = patchIntf.getOfport();
                         if (of_ports == null || of_ports.size() <= 0) {
                             logger.error("Could NOT Identified Patch port {} on {}", patchInt, node);
                             continue;
                         }
-                        patchOFPort = Long.valueOf(((BigInteger)of_ports.toArray()[0]).longValue()).intValue();
+                        patchOFPort = (int)patchIntf.getOfportValue();
                         logger.debug("Identified Patch port {} -> OF ({}) on {}", patchInt, patchOFPort, node);
                         break;
                     }
@@ -338,12 +336,12 @@ class OF10ProviderManager extends ProviderNetworkManager {
                 for (Table<?> row : intfs.values()) {
                     Interface tunIntf = (Interface)row;
                     if (tunIntf.getName().equals(this.getTunnelName(tunnelType, segmentationId, dst))) {
-                        Set<BigInteger> of_ports = tunIntf.getOfport();
+                        Set<Long> of_ports = tunIntf.getOfport();
                         if (of_ports == null || of_ports.size() <= 0) {
                             logger.warn("Could not Identify Tunnel port {} on {}. Don't panic. It might get converged soon...", tunIntf.getName(), node);
                             continue;
                         }
-                        int tunnelOFPort = Long.valueOf(((BigInteger)of_ports.toArray()[0]).longValue()).intValue();
+                        int tunnelOFPort = (int)tunIntf.getOfportValue();
 
                         if (tunnelOFPort == -1) {
                             logger.warn("Tunnel Port {} on node {}: OFPort = -1 . Don't panic. It might get converged soon...", tunIntf.getName(), node);
@@ -398,12 +396,12 @@ class OF10ProviderManager extends ProviderNetworkManager {
                 for (Table<?> row : intfs.values()) {
                     Interface patchIntf = (Interface)row;
                     if (patchIntf.getName().equalsIgnoreCase(patchInt)) {
-                        Set<BigInteger> of_ports = patchIntf.getOfport();
+                        Set<Long> of_ports = patchIntf.getOfport();
                         if (of_ports == null || of_ports.size() <= 0) {
                             logger.error("Could NOT Identified Patch port {} on {}", patchInt, node);
                             continue;
                         }
-                        patchOFPort = Long.valueOf(((BigInteger)of_ports.toArray()[0]).longValue()).intValue();
+                        patchOFPort = (int)patchIntf.getOfportValue();
                         logger.debug("Identified Patch port {} -> OF ({}) on {}", patchInt, patchOFPort, node);
                         break;
                     }
@@ -414,12 +412,12 @@ class OF10ProviderManager extends ProviderNetworkManager {
                 for (Table<?> row : intfs.values()) {
                     Interface tunIntf = (Interface)row;
                     if (tunIntf.getName().equals(this.getTunnelName(tunnelType, segmentationId, dst))) {
-                        Set<BigInteger> of_ports = tunIntf.getOfport();
+                        Set<Long> of_ports = tunIntf.getOfport();
                         if (of_ports == null || of_ports.size() <= 0) {
                             logger.error("Could NOT Identify Tunnel port {} on {}", tunIntf.getName(), node);
                             continue;
                         }
-                        int tunnelOFPort = Long.valueOf(((BigInteger)of_ports.toArray()[0]).longValue()).intValue();
+                        int tunnelOFPort = (int)tunIntf.getOfportValue();
 
                         if (tunnelOFPort == -1) {
                             logger.error("Could NOT Identify Tunnel port {} -> OF ({}) on {}", tunIntf.getName(), tunnelOFPort, node);
@@ -512,24 +510,21 @@ class OF10ProviderManager extends ProviderNetworkManager {
     }
 
     private boolean isTunnelPresent(Node node, String tunnelName, String bridgeUUID) throws Exception {
-        OVSDBConfigService ovsdbTable = (OVSDBConfigService)ServiceHelper.getGlobalInstance(OVSDBConfigService.class, this);
-        Bridge bridge = (Bridge)ovsdbTable.getRow(node, Bridge.NAME.getName(), bridgeUUID);
-        if (bridge != null) {
-            Set<UUID> ports = bridge.getPorts();
-            for (UUID portUUID : ports) {
-                Port port = (Port)ovsdbTable.getRow(node, Port.NAME.getName(), portUUID.toString());
-                if (port != null && port.getName().equalsIgnoreCase(tunnelName)) return true;
-            }
-        }
-        return false;
+        return this.getTunnelPortUuid(node, tunnelName, bridgeUUID) != null;
     }
 
     private String getTunnelPortUuid(Node node, String tunnelName, String bridgeUUID) throws Exception {
         OVSDBConfigService ovsdbTable = (OVSDBConfigService)ServiceHelper.getGlobalInstance(OVSDBConfigService.class, this);
+        Map<String, Table<?>> ports = ovsdbTable.getRowsByColumn(node, Port.NAME.getName(), "name", tunnelName);
+        if (ports == null) return null;
+        for (String portUUID : ports.keySet()) {
+            if (ovsdbTable.getParentRows(node, Bridge.NAME.getName(), portUUID).containsKey(bridgeUUID)) return portUUID;
+        }
+        // Tunnel names are matched ignoring case, the index only holds the exact names
         Bridge bridge = (Bridge)ovsdbTable.getRow(node, Bridge.NAME.getName(), bridgeUUID);
         if (bridge != null) {
-            Set<UUID> ports = bridge.getPorts();
-            for (UUID portUUID : ports) {
+            Set<UUID> bridgePorts = bridge.getPorts();
+            for (UUID portUUID : bridgePorts) {
                 Port port = (Port)ovsdbTable.getRow(node, Port.NAME.getName(), portUUID.toString());
                 if (port != null && port.getName().equalsIgnoreCase(tunnelName)) return portUUID.toString();
             }
@@ -565,7 +560,7 @@ class OF10ProviderManager extends ProviderNetworkManager {
 
             Port tunnelPort = new Port();
             tunnelPort.setName(portName);
-            StatusWithUuid statusWithUuid = ovsdbTable.insertRow(node, Port.NAME.getName(), bridgeUUID, tunnelPort);
+            StatusWithUuid statusWithUuid = ovsdbTable.insertRow(node, Port.NAME.getName(), bridgeUUID, tunnelPort, true);
             if (!statusWithUuid.isSuccess()) {
                 logger.error("Failed to insert Tunnel port {} in {}", portName, bridgeUUID);
                 return statusWithUuid;
@@ -573,19 +568,11 @@ class OF10ProviderManager extends ProviderNetworkManager {
 
             String tunnelPortUUID = statusWithUuid.getUuid().toString();
             String interfaceUUID = null;
-            int timeout = 6;
-            while ((interfaceUUID == null) && (timeout > 0)) {
-                tunnelPort = (Port)ovsdbTable.getRow(node, Port.NAME.getName(), tunnelPortUUID);
-                OvsDBSet<UUID> interfaces = tunnelPort.getInterfaces();
-                if (interfaces == null || interfaces.size() == 0) {
-                    // Wait for the OVSDB update to sync up the Local cache.
-                    Thread.sleep(500);
-                    timeout--;
-                    continue;
-                }
-                interfaceUUID = interfaces.toArray()[0].toString();
-                Interface intf = (Interface)ovsdbTable.getRow(node, Interface.NAME.getName(), interfaceUUID);
-                if (intf == null) interfaceUUID = null;
+            // The insert returned once its update was applied to the cache, the port and its
+            // interface are inserted by the same transaction
+            Port port = (Port)ovsdbTable.getRow(node, Port.NAME.getName(), tunnelPortUUID);
+            if (port != null && port.getInterfaces() != null && !port.getInterfaces().isEmpty()) {
+                interfaceUUID = port.getInterfaces().iterator().next().toString();
             }
 
             if (interfaceUUID == null) {
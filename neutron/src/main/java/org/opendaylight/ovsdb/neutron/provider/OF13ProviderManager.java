@@ -29,7 +29,6 @@ import org.opendaylight.controller.sal.utils.Status;
 import org.opendaylight.controller.sal.utils.StatusCode;
 import org.opendaylight.controller.switchmanager.ISwitchManager;
 import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
-import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
 import org.opendaylight.ovsdb.lib.notation.UUID;
 import org.opendaylight.ovsdb.lib.table.Bridge;
 import org.opendaylight.ovsdb.lib.table.Interface;
@@ -156,10 +155,17 @@ class OF13ProviderManager extends ProviderNetworkManager {
 
     private boolean isTunnelPresent(Node node, String tunnelName, String bridgeUUID) throws Exception {
         OVSDBConfigService ovsdbTable = (OVSDBConfigService)ServiceHelper.getGlobalInstance(OVSDBConfigService.class, this);
+        Map<String, org.opendaylight.ovsdb.lib.table.internal.Table<?>> ports =
+                ovsdbTable.getRowsByColumn(node, Port.NAME.getName(), "name", tunnelName);
+        if (ports == null) return false;
+        for (String portUUID : ports.keySet()) {
+            if (ovsdbTable.getParentRows(node, Bridge.NAME.getName(), portUUID).containsKey(bridgeUUID)) return true;
+        }
+        // Tunnel names are matched ignoring case, the index only holds the exact names
         Bridge bridge = (Bridge)ovsdbTable.getRow(node, Bridge.NAME.getName(), bridgeUUID);
         if (bridge != null) {
-            Set<UUID> ports = bridge.getPorts();
-            for (UUID portUUID : ports) {
+            Set<UUID> bridgePorts = bridge.getPorts();
+            for (UUID portUUID : bridgePorts) {
                 Port port = (Port)ovsdbTable.getRow(node, Port.NAME.getName(), portUUID.toString());
                 if (port != null && port.getName().equalsIgnoreCase(tunnelName)) return true;
             }
@@ -195,7 +201,7 @@ class OF13ProviderManager extends ProviderNetworkManager {
 
             Port tunnelPort = new Port();
             tunnelPort.setName(portName);
-            StatusWithUuid statusWithUuid = ovsdbTable.insertRow(node, Port.NAME.getName(), bridgeUUID, tunnelPort);
+            StatusWithUuid statusWithUuid = ovsdbTable.insertRow(node, Port.NAME.getName(), bridgeUUID, tunnelPort, true);
             if (!statusWithUuid.isSuccess()) {
                 logger.error("Failed to insert Tunnel port {} in {}", portName, bridgeUUID);
                 return statusWithUuid;
@@ -203,19 +209,11 @@ class OF13ProviderManager extends ProviderNetworkManager {
 
             String tunnelPortUUID = statusWithUuid.getUuid().toString();
             String interfaceUUID = null;
-            int timeout = 6;
-            while ((interfaceUUID == null) && (timeout > 0)) {
-                tunnelPort = (Port)ovsdbTable.getRow(node, Port.NAME.getName(), tunnelPortUUID);
-                OvsDBSet<UUID> interfaces = tunnelPort.getInterfaces();
-                if (interfaces == null || interfaces.size() == 0) {
-                    // Wait for the OVSDB update to sync up the Local cache.
-                    Thread.sleep(500);
-                    timeout--;
-                    continue;
-                }
-                interfaceUUID = interfaces.toArray()[0].toString();
-                Interface intf = (Interface)ovsdbTable.getRow(node, Interface.NAME.getName(), interfaceUUID);
-                if (intf == null) interfaceUUID = null;
+            // The insert returned once its update was applied to the cache, the port and its
+            // interface are inserted by the same transaction
+            Port port = (Port)ovsdbTable.getRow(node, Port.NAME.getName(), tunnelPortUUID);
+            if (port != null && port.getInterfaces() != null && !port.getInterfaces().isEmpty()) {
+                interfaceUUID = port.getInterfaces().iterator().next().toString();
             }
 
             if (interfaceUUID == null) {
@@ -368,12 +366,12 @@ class OF13ProviderManager extends ProviderNetworkManager {
                 return;
             }
 
-            Set<BigInteger> of_ports = intf.getOfport();
+            Set<Long> of_ports = intf.getOfport();
             if (of_ports == null || of_ports.size() <= 0) {
                 logger.error("Could NOT Identify OF value for port {} on {}", intf.getName(), node);
                 return;
             }
-            long localPort = ((BigInteger)of_ports.toArray()[0]).longValue();
+            long localPort = intf.getOfportValue();
 
             Map<String, String> externalIds = intf.getExternal_ids();
             if (externalIds == null) {
@@ -404,12 +402,12 @@ class OF13ProviderManager extends ProviderNetworkManager {
             }
             OVSDBConfigService ovsdbTable = (OVSDBConfigService) ServiceHelper.getGlobalInstance(OVSDBConfigService.class, this);
 
-            Set<BigInteger> of_ports = intf.getOfport();
+            Set<Long> of_ports = intf.getOfport();
             if (of_ports == null || of_ports.size() <= 0) {
                 logger.error("Could NOT Identify OF value for port {} on {}", intf.getName(), node);
                 return;
             }
-            long localPort = ((BigInteger)of_ports.toArray()[0]).longValue();
+            long localPort = intf.getOfportValue();
 
             Map<String, String> externalIds = intf.getExternal_ids();
             if (externalIds == null) {
@@ -423,30 +421,29 @@ class OF13ProviderManager extends ProviderNetworkManager {
                 return;
             }
 
-            Map<String, org.opendaylight.ovsdb.lib.table.internal.Table<?>> intfs = ovsdbTable.getRows(node, Interface.NAME.getName());
+            Map<String, org.opendaylight.ovsdb.lib.table.internal.Table<?>> intfs =
+                    ovsdbTable.getRowsByColumn(node, Interface.NAME.getName(), "name", this.getTunnelName(tunnelType, dst));
             if (intfs != null) {
                 for (org.opendaylight.ovsdb.lib.table.internal.Table<?> row : intfs.values()) {
                     Interface tunIntf = (Interface)row;
-                    if (tunIntf.getName().equals(this.getTunnelName(tunnelType, dst))) {
-                        of_ports = tunIntf.getOfport();
-                        if (of_ports == null || of_ports.size() <= 0) {
-                            logger.error("Could NOT Identify Tunnel port {} on {}", tunIntf.getName(), node);
-                            continue;
-                        }
-                        long tunnelOFPort = ((BigInteger)of_ports.toArray()[0]).longValue();
-
-                        if (tunnelOFPort == -1) {
-                            logger.error("Could NOT Identify Tunnel port {} -> OF ({}) on {}", tunIntf.getName(), tunnelOFPort, node);
-                            return;
-                        }
-                        logger.debug("Identified Tunnel port {} -> OF ({}) on {}", tunIntf.getName(), tunnelOFPort, node);
-
-                        if (!local) {
-                            programRemoteEgressTunnelBridgeRules(node, dpid, segmentationId, attachedMac, tunnelOFPort, localPort);
-                        }
-                        programLocalIngressTunnelBridgeRules(node, dpid, segmentationId, attachedMac, tunnelOFPort, localPort);
+                    of_ports = tunIntf.getOfport();
+                    if (of_ports == null || of_ports.size() <= 0) {
+                        logger.error("Could NOT Identify Tunnel port {} on {}", tunIntf.getName(), node);
+                        continue;
+                    }
+                    long tunnelOFPort = tunIntf.getOfportValue();
+
+                    if (tunnelOFPort == -1) {
+                        logger.error("Could NOT Identify Tunnel port {} -> OF ({}) on {}", tunIntf.getName(), tunnelOFPort, node);
                         return;
                     }
+                    logger.debug("Identified Tunnel port {} -> OF ({}) on {}", tunIntf.getName(), tunnelOFPort, node);
+
+                    if (!local) {
+                        programRemoteEgressTunnelBridgeRules(node, dpid, segmentationId, attachedMac, tunnelOFPort, localPort);
+                    }
+                    programLocalIngressTunnelBridgeRules(node, dpid, segmentationId, attachedMac, tunnelOFPort, localPort);
+                    return;
                 }
             }
         } catch (Exception e) {
@@ -72,6 +72,7 @@ public class OvsdbType {
         }
 
         public String type;
+        @JsonProperty("enum")
         public Object ovsdbEnum;
         public Integer minInteger;
         public Integer maxInteger;
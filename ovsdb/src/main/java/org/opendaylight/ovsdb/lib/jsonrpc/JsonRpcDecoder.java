@@ -58,6 +58,7 @@ public class JsonRpcDecoder extends ByteToMessageDecoder {
     private boolean inS = false;
 
     private int recordsRead;
+    private long bytesRead;
 
     public JsonRpcDecoder(int maxFrameLength) {
         this.maxFrameLength = maxFrameLength;
@@ -103,6 +104,7 @@ public class JsonRpcDecoder extends ByteToMessageDecoder {
 
             if (leftCurlies != 0 && leftCurlies == rightCurlies && !inS) {
                 ByteBuf slice = buf.readSlice(1 + i - buf.readerIndex());
+                bytesRead += slice.readableBytes();
                 JsonParser jp = jacksonJsonFactory.createParser(new ByteBufInputStream(slice));
                 JsonNode root = jp.readValueAsTree();
                 out.add(root);
@@ -127,6 +129,13 @@ public class JsonRpcDecoder extends ByteToMessageDecoder {
         return recordsRead;
     }
 
+    /**
+     * Returns the number of bytes of the records decoded so far.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
     private static void skipSpaces(ByteBuf b) throws IOException {
         while (b.isReadable()) {
             int ch = b.getByte(b.readerIndex()) & 0xFF;
@@ -150,6 +150,10 @@ public class JsonRpcEndpoint {
         request.setMethod(requestJson.get("method").asText());
         logger.trace("Request : {} {}", requestJson.get("method"), requestJson.get("params"));
         OvsdbRPC.Callback callback = requestCallbacks.get(node);
+        if (callback instanceof OvsdbRPC.RawUpdateCallback && request.getMethod().equals("update")) {
+            ((OvsdbRPC.RawUpdateCallback)callback).rawUpdate(node, requestJson.get("params"));
+            return;
+        }
         if (callback != null) {
             Method[] methods = callback.getClass().getDeclaredMethods();
             for (Method m : methods) {
@@ -28,8 +28,15 @@ public class MonitorRequestBuilder implements Params {
     }
 
     public <T extends Table> MonitorRequest<T> monitor(T table) {
+        return monitor(table.getTableName().getName());
+    }
+
+    /**
+     * Monitors every column of a table of the schema, with or without a Table class.
+     */
+    public <T extends Table> MonitorRequest<T> monitor(String tableName) {
         MonitorRequest<T> req = new MonitorRequest<T>();
-        requests.put(table.getTableName().getName(), req);
+        requests.put(tableName, req);
         return req;
     }
 }
@@ -11,6 +11,7 @@ package org.opendaylight.ovsdb.lib.message;
 
 import java.util.List;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import org.opendaylight.controller.sal.core.Node;
@@ -49,4 +50,12 @@ public interface OvsdbRPC {
         // ECHO is handled by JsonRPCEndpoint directly.
         // We can add Echo request here if there is a need for clients to handle it.
     }
+
+    /**
+     * Callback receiving the raw params of the update notifications, so that the rows
+     * can be decoded and applied in one pass instead of going through UpdateNotification.
+     */
+    public static interface RawUpdateCallback extends Callback {
+        public void rawUpdate(Node node, JsonNode params);
+    }
 }
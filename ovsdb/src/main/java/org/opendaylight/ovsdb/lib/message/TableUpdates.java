@@ -9,7 +9,10 @@
  */
 package org.opendaylight.ovsdb.lib.message;
 
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.Maps;
 import org.opendaylight.ovsdb.lib.table.Bridge;
 import org.opendaylight.ovsdb.lib.table.Capability;
@@ -29,6 +32,7 @@ import org.opendaylight.ovsdb.lib.table.Flow_Table;
 import org.opendaylight.ovsdb.lib.table.IPFIX;
 import org.opendaylight.ovsdb.lib.table.internal.Table;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
@@ -36,6 +40,7 @@ import java.util.Set;
 public class TableUpdates extends Response {
 
     Map<Table.Name, TableUpdate> map = Maps.newHashMap();
+    Map<String, JsonNode> schemaUpdates = Maps.newHashMap();
 
     public Set<Table.Name> availableUpdates() {
         return map.keySet();
@@ -50,6 +55,20 @@ public class TableUpdates extends Response {
         map.put(name, update);
     }
 
+    /**
+     * Returns the updates of the tables without a Table class, keyed by table name, in their
+     * JSON form. They are decoded from the schema of the node, see TableUpdatesReader.
+     */
+    @JsonIgnore
+    public Map<String, JsonNode> getSchemaUpdates() {
+        return Collections.unmodifiableMap(schemaUpdates);
+    }
+
+    @JsonAnySetter
+    public void setSchemaUpdate(String tableName, JsonNode update) {
+        schemaUpdates.put(tableName, update);
+    }
+
     @JsonProperty("Interface")
     public TableUpdate<Interface> getInterfaceUpdate() {
         return getUpdate(Interface.NAME);
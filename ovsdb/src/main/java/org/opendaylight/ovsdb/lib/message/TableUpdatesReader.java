@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.lib.message;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
+import org.opendaylight.ovsdb.lib.table.internal.ColumnMask;
+import org.opendaylight.ovsdb.lib.table.internal.ColumnTypes;
+import org.opendaylight.ovsdb.lib.table.internal.LazyColumns;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableCodec;
+import org.opendaylight.ovsdb.lib.table.internal.Tables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Maps;
+
+/**
+ * Walks the table-updates of an update notification and decodes the rows one at a time,
+ * handing each of them over as soon as it is decoded. Unlike UpdateNotification, no
+ * TableUpdates / TableUpdate / Row graph is built for the whole notification.
+ *
+ * The rows of the tables of the schema are decoded by the TableCodec of their table, into a row
+ * of their Table class if they have one and as GenericTable otherwise. Without a schema the
+ * rows of the tables with a Table class are decoded by Jackson.
+ */
+public class TableUpdatesReader {
+    private static final Logger logger = LoggerFactory.getLogger(TableUpdatesReader.class);
+
+    public static interface RowHandler {
+        /**
+         * Hands over a decoded row.
+         *
+         * @param changedColumns the {@link ColumnMask} of the columns named by the fields of the
+         *        old row as sent, i.e. the columns an update changed, NONE without an old row
+         */
+        public void row(Table.Name<?> name, String uuid, Table<?> oldRow, Table<?> newRow, long changedColumns);
+    }
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Map<String, Table<?>> tables = Maps.newHashMap();
+
+    static {
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        for (Table<?> table : Tables.getTables()) {
+            tables.put(table.getTableName().getName(), table);
+        }
+    }
+
+    /**
+     * Reads the params of an update notification, i.e. [json-value, table-updates].
+     *
+     * @return the number of rows handed to the handler
+     */
+    public static int readParams(JsonNode params, RowHandler handler) {
+        return readParams(params, null, false, handler);
+    }
+
+    /**
+     * Reads the params of an update notification, decoding the atoms of the real columns of
+     * the schema as Double.
+     *
+     * @param lazyColumns true to hand over new rows decoding their columns on first access
+     * @return the number of rows handed to the handler
+     */
+    public static int readParams(JsonNode params, DatabaseSchema schema, boolean lazyColumns, RowHandler handler) {
+        if (params == null || !params.isArray() || params.size() != 2) return 0;
+        return read(params.get(1), schema, lazyColumns, handler);
+    }
+
+    /**
+     * Reads a table-updates object, i.e. {table : {uuid : {"old" : row, "new" : row}}}.
+     *
+     * @return the number of rows handed to the handler
+     */
+    public static int read(JsonNode tableUpdates, RowHandler handler) {
+        return read(tableUpdates, null, false, handler);
+    }
+
+    /**
+     * Reads a table-updates object, decoding the atoms of the real columns of the schema as Double.
+     * Old rows, which only hold the columns that changed, are always decoded at once.
+     *
+     * @param lazyColumns true to hand over new rows decoding their columns on first access
+     * @return the number of rows handed to the handler
+     */
+    public static int read(JsonNode tableUpdates, DatabaseSchema schema, boolean lazyColumns, RowHandler handler) {
+        ColumnTypes columnTypes = ColumnTypes.of(schema);
+        int count = 0;
+        Iterator<Map.Entry<String, JsonNode>> tableIter = tableUpdates.fields();
+        while (tableIter.hasNext()) {
+            Map.Entry<String, JsonNode> tableUpdate = tableIter.next();
+            Table<?> table = tables.get(tableUpdate.getKey());
+            if (table == null) {
+                TableCodec codec = TableCodec.of(schema, tableUpdate.getKey());
+                if (codec == null) {
+                    logger.trace("Ignoring update of unknown table {}", tableUpdate.getKey());
+                } else {
+                    count += read(tableUpdate.getValue(), codec, handler);
+                }
+                continue;
+            }
+            TableCodec codec = TableCodec.of(schema, tableUpdate.getKey());
+            Class<? extends Table> tableClass = table.getClass();
+            Iterator<Map.Entry<String, JsonNode>> rowIter = tableUpdate.getValue().fields();
+            while (rowIter.hasNext()) {
+                Map.Entry<String, JsonNode> row = rowIter.next();
+                JsonNode old = row.getValue().get("old");
+                Table<?> oldRow;
+                Table<?> newRow;
+                long changedColumns;
+                if (codec != null) {
+                    changedColumns = codec.getColumnMask(old);
+                    oldRow = decode(old, codec, table, false);
+                    newRow = decode(row.getValue().get("new"), codec, table, lazyColumns);
+                } else {
+                    changedColumns = old != null && old.isObject()
+                            ? ColumnMask.of(tableUpdate.getKey(), old.fieldNames()) : ColumnMask.NONE;
+                    oldRow = decode(old, tableClass, false);
+                    newRow = decode(row.getValue().get("new"), tableClass, lazyColumns);
+                    columnTypes.coerce(tableUpdate.getKey(), oldRow);
+                    columnTypes.coerce(tableUpdate.getKey(), newRow);
+                }
+                handler.row(table.getTableName(), row.getKey(), oldRow, newRow, changedColumns);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int read(JsonNode tableUpdate, TableCodec codec, RowHandler handler) {
+        int count = 0;
+        Iterator<Map.Entry<String, JsonNode>> rowIter = tableUpdate.fields();
+        while (rowIter.hasNext()) {
+            Map.Entry<String, JsonNode> row = rowIter.next();
+            JsonNode old = row.getValue().get("old");
+            handler.row(codec.getName(), row.getKey(), codec.decode(old),
+                        codec.decode(row.getValue().get("new")), codec.getColumnMask(old));
+            count++;
+        }
+        return count;
+    }
+
+    /*
+     * Decodes a row of a table of the schema through its TableCodec into a row of its Table class.
+     */
+    private static Table<?> decode(JsonNode row, TableCodec codec, Table<?> table, boolean lazyColumns) {
+        if (row == null || row.isNull()) return null;
+        if (lazyColumns && row.isObject()) return LazyColumns.defer((ObjectNode)row, table.getClass());
+        return codec.toTable(codec.decode(row), table);
+    }
+
+    private static Table<?> decode(JsonNode row, Class<? extends Table> tableClass, boolean lazyColumns) {
+        if (row == null || row.isNull()) return null;
+        if (lazyColumns && row.isObject()) return LazyColumns.defer((ObjectNode)row, tableClass);
+        try {
+            return objectMapper.treeToValue(row, tableClass);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unable to decode " + tableClass.getSimpleName() + " row", e);
+        }
+    }
+}
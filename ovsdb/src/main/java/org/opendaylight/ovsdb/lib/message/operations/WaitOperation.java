@@ -9,6 +9,72 @@
  */
 package org.opendaylight.ovsdb.lib.message.operations;
 
+import java.util.List;
+
+import org.opendaylight.ovsdb.lib.notation.Condition;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+
 public class WaitOperation extends Operation {
+    public static final String EQUALS = "==";
+    public static final String NOT_EQUALS = "!=";
+
+    Long timeout;
+    String table;
+    List<Condition> where;
+    List<String> columns;
+    String until;
+    List<Table<?>> rows;
 
+    public WaitOperation(String table, List<Condition> where, List<String> columns,
+                         String until, List<Table<?>> rows, Long timeout) {
+        super();
+        super.setOp("wait");
+        this.table = table;
+        this.where = where;
+        this.columns = columns;
+        this.until = until;
+        this.rows = rows;
+        this.timeout = timeout;
+    }
+    public Long getTimeout() {
+        return timeout;
+    }
+    public void setTimeout(Long timeout) {
+        this.timeout = timeout;
+    }
+    public String getTable() {
+        return table;
+    }
+    public void setTable(String table) {
+        this.table = table;
+    }
+    public List<Condition> getWhere() {
+        return where;
+    }
+    public void setWhere(List<Condition> where) {
+        this.where = where;
+    }
+    public List<String> getColumns() {
+        return columns;
+    }
+    public void setColumns(List<String> columns) {
+        this.columns = columns;
+    }
+    public String getUntil() {
+        return until;
+    }
+    public void setUntil(String until) {
+        this.until = until;
+    }
+    public List<Table<?>> getRows() {
+        return rows;
+    }
+    public void setRows(List<Table<?>> rows) {
+        this.rows = rows;
+    }
+    @Override
+    public String toString() {
+        return "WaitOperation [table=" + table + ", where=" + where + ", columns=" + columns
+                + ", until=" + until + ", rows=" + rows + ", timeout=" + timeout + "]";
+    }
 }
@@ -17,17 +17,69 @@ import com.google.common.collect.Maps;
 import org.opendaylight.ovsdb.lib.notation.json.Converter;
 import org.opendaylight.ovsdb.lib.notation.json.OvsDBMapSerializer;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/*
+ * The entries are held in an immutable empty, singleton or small array map until the map is
+ * first changed, then in a hash map. The key, value and entry views of an unchanged map are
+ * read-only.
+ */
 @JsonDeserialize(converter = Converter.MapConverter.class)
 @JsonSerialize(using = OvsDBMapSerializer.class)
 public class OvsDBMap<K, V> extends ForwardingMap<K, V> {
 
-    HashMap<K, V> target = Maps.newHashMap();
+    Map<K, V> target = Collections.emptyMap();
+
+    /**
+     * Returns a map of the keys to the values of the same index, held in the compact form
+     * matching their number.
+     */
+    public static <K, V> OvsDBMap<K, V> copyOf(List<? extends K> keys, List<? extends V> values) {
+        OvsDBMap<K, V> map = new OvsDBMap<K, V>();
+        if (keys.size() == 1) {
+            map.target = Collections.<K, V>singletonMap(keys.get(0), values.get(0));
+        } else if (keys.size() > OvsDBSet.SMALL_SIZE) {
+            map.target = Maps.newHashMapWithExpectedSize(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                map.target.put(keys.get(i), values.get(i));
+            }
+        } else if (!keys.isEmpty()) {
+            map.target = SmallArrayMap.copyOf(keys, values);
+        }
+        return map;
+    }
 
     @Override
     public Map<K, V> delegate() {
         return target;
     }
+
+    private Map<K, V> mutable() {
+        if (!(target instanceof HashMap)) target = Maps.newHashMap(target);
+        return target;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return mutable().put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        mutable().putAll(map);
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!containsKey(key)) return null;
+        return mutable().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        target = Collections.emptyMap();
+    }
 }
@@ -17,16 +17,108 @@ import com.google.common.collect.Sets;
 import org.opendaylight.ovsdb.lib.notation.json.Converter;
 import org.opendaylight.ovsdb.lib.notation.json.OvsDBSetSerializer;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
+/*
+ * Most set columns hold no or a single element. The elements are held in an immutable empty,
+ * singleton or small array set until the set is first changed, then in a hash set.
+ */
 @JsonDeserialize(converter = Converter.SetConverter.class)
 @JsonSerialize(using = OvsDBSetSerializer.class)
 public class OvsDBSet<T> extends ForwardingSet<T> {
+    static final int SMALL_SIZE = 8;
 
-    Set<T> target = Sets.newHashSet();
+    Set<T> target = Collections.emptySet();
+
+    /**
+     * Returns a set of the elements, held in the compact form matching their number.
+     */
+    public static <T> OvsDBSet<T> copyOf(Collection<? extends T> elements) {
+        OvsDBSet<T> set = new OvsDBSet<T>();
+        if (elements.size() == 1) {
+            set.target = Collections.<T>singleton(elements.iterator().next());
+        } else if (elements.size() > SMALL_SIZE) {
+            set.target = Sets.<T>newHashSet(elements);
+        } else if (!elements.isEmpty()) {
+            set.target = SmallArraySet.copyOf(elements);
+        }
+        return set;
+    }
 
     @Override
     public Set<T> delegate() {
         return target;
     }
+
+    private Set<T> mutable() {
+        if (!(target instanceof HashSet)) target = Sets.newHashSet(target);
+        return target;
+    }
+
+    @Override
+    public boolean add(T element) {
+        return mutable().add(element);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends T> elements) {
+        return mutable().addAll(elements);
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        return contains(element) && mutable().remove(element);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> elements) {
+        return mutable().removeAll(elements);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> elements) {
+        return mutable().retainAll(elements);
+    }
+
+    @Override
+    public void clear() {
+        target = Collections.emptySet();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if (target instanceof HashSet) return target.iterator();
+        final Iterator<T> iterator = target.iterator();
+        return new Iterator<T>() {
+            private T last;
+            private boolean removable;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                last = iterator.next();
+                removable = true;
+                return last;
+            }
+
+            /*
+             * The compact set being immutable, the iteration goes on over it while the element
+             * is removed from the hash set replacing it.
+             */
+            @Override
+            public void remove() {
+                if (!removable) throw new IllegalStateException();
+                OvsDBSet.this.remove(last);
+                removable = false;
+            }
+        };
+    }
 }
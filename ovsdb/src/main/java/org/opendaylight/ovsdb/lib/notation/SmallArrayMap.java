@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.lib.notation;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable map of a few entries held in an array of keys and an array of values, looked up
+ * by a linear scan.
+ */
+final class SmallArrayMap<K, V> extends AbstractMap<K, V> {
+    private final Object[] keys;
+    private final Object[] values;
+
+    private SmallArrayMap(Object[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Returns a map of the keys to the values of the same index, the last value wins for a
+     * key given more than once.
+     */
+    static <K, V> SmallArrayMap<K, V> copyOf(List<? extends K> keyList, List<? extends V> valueList) {
+        Object[] keys = new Object[keyList.size()];
+        Object[] values = new Object[keyList.size()];
+        int size = 0;
+        for (int i = 0; i < keys.length; i++) {
+            Object key = keyList.get(i);
+            int index = SmallArraySet.indexOf(keys, size, key);
+            if (index < 0) {
+                index = size++;
+                keys[index] = key;
+            }
+            values[index] = valueList.get(i);
+        }
+        if (size < keys.length) {
+            keys = Arrays.copyOf(keys, size);
+            values = Arrays.copyOf(values, size);
+        }
+        return new SmallArrayMap<K, V>(keys, values);
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return SmallArraySet.indexOf(keys, keys.length, key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int index = SmallArraySet.indexOf(keys, keys.length, key);
+        return index < 0 ? null : (V)values[index];
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public int size() {
+                return keys.length;
+            }
+
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new Iterator<Map.Entry<K, V>>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < keys.length;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Map.Entry<K, V> next() {
+                        if (next == keys.length) throw new NoSuchElementException();
+                        int index = next++;
+                        return new SimpleImmutableEntry<K, V>((K)keys[index], (V)values[index]);
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+}
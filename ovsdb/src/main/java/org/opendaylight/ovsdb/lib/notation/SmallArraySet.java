@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.lib.notation;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of a few elements held in an array, looked up by a linear scan.
+ */
+final class SmallArraySet<E> extends AbstractSet<E> {
+    private final Object[] elements;
+
+    private SmallArraySet(Object[] elements) {
+        this.elements = elements;
+    }
+
+    static <E> SmallArraySet<E> copyOf(Collection<? extends E> collection) {
+        Object[] elements = new Object[collection.size()];
+        int size = 0;
+        for (Object element : collection) {
+            if (indexOf(elements, size, element) < 0) elements[size++] = element;
+        }
+        return new SmallArraySet<E>(size == elements.length ? elements : Arrays.copyOf(elements, size));
+    }
+
+    static int indexOf(Object[] elements, int size, Object element) {
+        for (int i = 0; i < size; i++) {
+            if (element == null ? elements[i] == null : element.equals(elements[i])) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        return indexOf(elements, elements.length, element) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < elements.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (next == elements.length) throw new NoSuchElementException();
+                return (E)elements[next++];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -9,35 +9,127 @@
  */
 package org.opendaylight.ovsdb.lib.notation;
 
+import org.opendaylight.ovsdb.lib.notation.json.UUIDDeserializer;
 import org.opendaylight.ovsdb.lib.notation.json.UUIDSerializer;
-import org.opendaylight.ovsdb.lib.notation.json.UUIDStringConverter;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
-@JsonDeserialize(contentConverter = UUIDStringConverter.class)
+@JsonDeserialize(using = UUIDDeserializer.class)
 @JsonSerialize(using = UUIDSerializer.class)
 /*
- * Handles both uuid and named-uuid.
+ * Handles both uuid and named-uuid. A uuid in the canonical form sent by ovsdb-server,
+ * 8-4-4-4-12 lower case hex digits, is held as two longs, anything else, e.g. the name of
+ * a named-uuid, as the string. The string form of a canonical uuid is built by each call to
+ * toString and not kept, callers needing it more than once keep it themselves.
  */
 public class UUID {
-    String val;
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    private final long mostSigBits;
+    private final long leastSigBits;
+    private final String name;
+    private final boolean canonical;
+    private final int hash;
 
     public UUID(String value) {
-        this.val = value;
+        if (isCanonical(value)) {
+            this.mostSigBits = parseHex(value, 0, 18);
+            this.leastSigBits = parseHex(value, 19, 36);
+            this.name = null;
+            this.canonical = true;
+            this.hash = hash(mostSigBits, leastSigBits);
+        } else {
+            this.mostSigBits = 0;
+            this.leastSigBits = 0;
+            this.name = value;
+            this.canonical = false;
+            this.hash = value == null ? 0 : value.hashCode();
+        }
+    }
+
+    public UUID(long mostSigBits, long leastSigBits) {
+        this.mostSigBits = mostSigBits;
+        this.leastSigBits = leastSigBits;
+        this.name = null;
+        this.canonical = true;
+        this.hash = hash(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Parses a uuid off a character sequence, e.g. the text of a JSON token, without
+     * building an intermediate string for a canonical uuid.
+     */
+    public static UUID parse(CharSequence value) {
+        if (isCanonical(value)) return new UUID(parseHex(value, 0, 18), parseHex(value, 19, 36));
+        return new UUID(value.toString());
+    }
+
+    /**
+     * Returns true if the value is a uuid in the canonical form, held as two longs.
+     */
+    public static boolean isCanonical(CharSequence value) {
+        if (value == null || value.length() != 36) return false;
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+            } else if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns false for a canonical uuid, true for anything else such as a named-uuid.
+     */
+    public boolean isNamed() {
+        return !canonical;
+    }
+
+    public long getMostSignificantBits() {
+        return mostSigBits;
+    }
+
+    public long getLeastSignificantBits() {
+        return leastSigBits;
+    }
+
+    private static long parseHex(CharSequence value, int from, int to) {
+        long bits = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c == '-') continue;
+            bits = (bits << 4) | (c <= '9' ? c - '0' : c - 'a' + 10);
+        }
+        return bits;
+    }
+
+    private static int hash(long mostSigBits, long leastSigBits) {
+        long bits = mostSigBits ^ leastSigBits;
+        return (int)(bits >> 32) ^ (int)bits;
     }
 
     @Override
     public String toString() {
-        return val;
+        if (!canonical) return name;
+        char[] chars = new char[36];
+        int digit = 0;
+        for (int i = 0; i < 36; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                chars[i] = '-';
+                continue;
+            }
+            long bits = digit < 16 ? mostSigBits : leastSigBits;
+            chars[i] = DIGITS[(int)(bits >>> (60 - 4 * (digit++ % 16))) & 0xf];
+        }
+        return new String(chars);
     }
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((val == null) ? 0 : val.hashCode());
-        return result;
+        return hash;
     }
 
     @Override
@@ -49,11 +141,12 @@ public class UUID {
         if (getClass() != obj.getClass())
             return false;
         UUID other = (UUID) obj;
-        if (val == null) {
-            if (other.val != null)
-                return false;
-        } else if (!val.equals(other.val))
+        if (hash != other.hash)
             return false;
-        return true;
+        if (canonical != other.canonical)
+            return false;
+        if (canonical)
+            return mostSigBits == other.mostSigBits && leastSigBits == other.leastSigBits;
+        return name == null ? other.name == null : name.equals(other.name);
     }
 }
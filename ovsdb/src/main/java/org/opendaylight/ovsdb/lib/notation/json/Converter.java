@@ -9,6 +9,10 @@
  */
 package org.opendaylight.ovsdb.lib.notation.json;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.opendaylight.ovsdb.lib.message.TableUpdates;
 import org.opendaylight.ovsdb.lib.message.UpdateNotification;
 import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
@@ -53,15 +57,15 @@ public class Converter {
             if (node.isArray()) {
                 if (node.size() == 2) {
                     if (node.get(0).isTextual() && "map".equals(node.get(0).asText())) {
-                        OvsDBMap<Object, Object> map = new OvsDBMap<Object, Object>();
+                        List<Object> keys = new ArrayList<Object>(node.get(1).size());
+                        List<Object> values = new ArrayList<Object>(node.get(1).size());
                         for (JsonNode pairNode : node.get(1)) {
                             if (pairNode.isArray() && node.size() == 2) {
-                                Object key = atomDeser.deserialize(pairNode.get(0));
-                                Object value = atomDeser.deserialize(pairNode.get(1));
-                                map.put(key, value);
+                                keys.add(atomDeser.deserialize(pairNode.get(0)));
+                                values.add(atomDeser.deserialize(pairNode.get(1)));
                             }
                         }
-                        return map;
+                        return OvsDBMap.copyOf(keys, values);
                     } else if (node.size() == 0) {
                         return null;
                     }
@@ -73,14 +77,14 @@ public class Converter {
 
     static class SetDeser {
         public OvsDBSet<Object> deserialize(JsonNode node) {
-            OvsDBSet<Object> set = new OvsDBSet<Object>();
             if (node.isArray()) {
                 if (node.size() == 2) {
                     if (node.get(0).isTextual() && "set".equals(node.get(0).asText())) {
+                        List<Object> elements = new ArrayList<Object>(node.get(1).size());
                         for (JsonNode atomNode : node.get(1)) {
-                            set.add(atomDeser.deserialize(atomNode));
+                            elements.add(atomDeser.deserialize(atomNode));
                         }
-                        return set;
+                        return OvsDBSet.copyOf(elements);
                     }
                 } else if (node.size() == 0) {
                     return null;
@@ -89,9 +93,9 @@ public class Converter {
             //treat the whole thing as a single Atom
             Object atom = atomDeser.deserialize(node);
             if (null != atom) {
-                set.add(atom);
+                return OvsDBSet.copyOf(Collections.singletonList(atom));
             }
-            return set;
+            return new OvsDBSet<Object>();
         }
     }
 
@@ -112,6 +116,11 @@ public class Converter {
         }
     }
 
+    /*
+     * OVSDB integers are 64-bit and reals are doubles, a number is decoded as a Long or a
+     * Double from the way it is written. An integral real is then decoded as a Long, the
+     * columns of a real type are fixed up from the schema by ColumnTypes.
+     */
     static class AtomDeser {
 
         public Object deserialize(JsonNode node) {
@@ -121,7 +130,9 @@ public class Converter {
                         return node.asBoolean();
                     case NUMBER:
                         if (node.isFloatingPointNumber()) {
-                            return node.decimalValue();
+                            return node.doubleValue();
+                        } else if (node.canConvertToLong()) {
+                            return node.longValue();
                         } else {
                             return node.bigIntegerValue();
                         }
@@ -132,7 +143,7 @@ public class Converter {
 
             if (node.isArray() && node.get(0).isTextual()) {
                 if ("uuid".equals(node.get(0).asText()) || "named-uuid".equals(node.get(0).asText())) {
-                    return new UUID(node.get(1).asText());
+                    return UUID.parse(node.get(1).textValue());
                 }
             }
 
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.lib.notation.json;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+
+import org.opendaylight.ovsdb.lib.notation.UUID;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+/*
+ * Reads a uuid, either the string or the ["uuid", string] / ["named-uuid", string] pair,
+ * off the characters of the token, without building a string for a canonical uuid.
+ */
+public class UUIDDeserializer extends JsonDeserializer<UUID> {
+    @Override
+    public UUID deserialize(JsonParser parser, DeserializationContext context)
+            throws IOException, JsonProcessingException {
+        if (parser.getCurrentToken() == JsonToken.START_ARRAY) {
+            parser.nextToken();
+            parser.nextToken();
+            UUID uuid = parse(parser);
+            if (parser.nextToken() != JsonToken.END_ARRAY) {
+                throw new JsonParseException("Expected the end of the uuid pair", parser.getCurrentLocation());
+            }
+            return uuid;
+        }
+        return parse(parser);
+    }
+
+    private static UUID parse(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.VALUE_STRING) {
+            throw new JsonParseException("Expected a uuid string", parser.getCurrentLocation());
+        }
+        return UUID.parse(CharBuffer.wrap(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+    }
+}
@@ -24,13 +24,18 @@ public class UUIDSerializer extends JsonSerializer<UUID> {
         SerializerProvider provider) throws IOException,
             JsonProcessingException {
         generator.writeStartArray();
-        try {
-            java.util.UUID.fromString(value.toString());
+        String uuid = value.toString();
+        if (!value.isNamed()) {
             generator.writeString("uuid");
-        } catch (IllegalArgumentException ex) {
-            generator.writeString("named-uuid");
+        } else {
+            try {
+                java.util.UUID.fromString(uuid);
+                generator.writeString("uuid");
+            } catch (IllegalArgumentException ex) {
+                generator.writeString("named-uuid");
+            }
         }
-        generator.writeString(value.toString());
+        generator.writeString(uuid);
         generator.writeEndArray();
     }
 }
\ No newline at end of file
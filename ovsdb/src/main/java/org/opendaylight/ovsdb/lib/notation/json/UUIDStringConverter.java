@@ -17,7 +17,7 @@ public class UUIDStringConverter extends StdConverter<String, UUID> {
 
     @Override
     public UUID convert(String value) {
-        return new UUID(value);
+        return UUID.parse(value);
     }
 
 }
@@ -47,119 +47,196 @@ public class Bridge extends Table<Bridge> {
 
 
     public String getName() {
+        decodeColumn("name");
         return name;
     }
 
     public void setName(String name) {
+        decodeColumn("name");
         this.name = name;
     }
 
     public OvsDBSet<UUID> getPorts() {
+        decodeColumn("ports");
         return ports;
     }
 
     public void setPorts(OvsDBSet<UUID> ports) {
+        decodeColumn("ports");
         this.ports = ports;
     }
 
     public OvsDBSet<UUID> getMirrors() {
+        decodeColumn("mirrors");
         return mirrors;
     }
 
     public void setMirrors(OvsDBSet<UUID> mirrors) {
+        decodeColumn("mirrors");
         this.mirrors = mirrors;
     }
 
     public OvsDBSet<UUID> getController() {
+        decodeColumn("controller");
         return controller;
     }
 
     public void setController(OvsDBSet<UUID> controller) {
+        decodeColumn("controller");
         this.controller = controller;
     }
 
     public OvsDBSet<String> getDatapath_id() {
+        decodeColumn("datapath_id");
         return datapath_id;
     }
 
     public void setDatapath_id(OvsDBSet<String> datapath_id) {
+        decodeColumn("datapath_id");
         this.datapath_id = datapath_id;
     }
 
     public String getDatapath_type() {
+        decodeColumn("datapath_type");
         return datapath_type;
     }
 
     public void setDatapath_type(String datapath_type) {
+        decodeColumn("datapath_type");
         this.datapath_type = datapath_type;
     }
 
     public OvsDBSet<String> getFail_mode() {
+        decodeColumn("fail_mode");
         return fail_mode;
     }
 
     public void setFail_mode(OvsDBSet<String> fail_mode) {
+        decodeColumn("fail_mode");
         this.fail_mode = fail_mode;
     }
 
     public void setFlow(OvsDBSet<UUID> sflow){
+        decodeColumn("sflow");
         this.sflow = sflow;
     }
 
     public void setNetflow(OvsDBSet<UUID> netflow){
+        decodeColumn("netflow");
         this.netflow = netflow;
     }
 
     public OvsDBSet<UUID> getSflow() {
+        decodeColumn("sflow");
         return sflow;
     }
 
     public OvsDBSet<UUID> getNetflow() {
+        decodeColumn("netflow");
         return netflow;
     }
 
     public OvsDBMap<String, String> getStatus() {
+        decodeColumn("status");
         return status;
     }
 
     public void setStatus(OvsDBMap<String, String> status) {
+        decodeColumn("status");
         this.status = status;
     }
 
     public Boolean getStp_enable() {
+        decodeColumn("stp_enable");
         return stp_enable;
     }
 
     public OvsDBSet<String> getProtocols() {
+        decodeColumn("protocols");
         return protocols;
     }
 
     public void setProtocols(OvsDBSet<String> protocols) {
+        decodeColumn("protocols");
         this.protocols = protocols;
     }
 
     public void setStp_enable(Boolean stp_enable) {
+        decodeColumn("stp_enable");
         this.stp_enable = stp_enable;
     }
 
     public OvsDBMap<String, String> getOther_config() {
+        decodeColumn("other_config");
         return other_config;
     }
 
     public void setOther_config(OvsDBMap<String, String> other_config) {
+        decodeColumn("other_config");
         this.other_config = other_config;
     }
 
     public OvsDBMap<String, String> getExternal_ids() {
+        decodeColumn("external_ids");
         return external_ids;
     }
 
     public void setExternal_ids(OvsDBMap<String, String> external_ids) {
+        decodeColumn("external_ids");
         this.external_ids = external_ids;
     }
 
+    @Override
+    protected Bridge newRow() {
+        return new Bridge();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "name": return getName();
+            case "ports": return getPorts();
+            case "mirrors": return getMirrors();
+            case "controller": return getController();
+            case "datapath_id": return getDatapath_id();
+            case "datapath_type": return getDatapath_type();
+            case "fail_mode": return getFail_mode();
+            case "sflow": return getSflow();
+            case "netflow": return getNetflow();
+            case "status": return getStatus();
+            case "stp_enable": return getStp_enable();
+            case "protocols": return getProtocols();
+            case "other_config": return getOther_config();
+            case "external_ids": return getExternal_ids();
+            default: return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "name": setName((String)value); return true;
+            case "ports": setPorts((OvsDBSet<UUID>)value); return true;
+            case "mirrors": setMirrors((OvsDBSet<UUID>)value); return true;
+            case "controller": setController((OvsDBSet<UUID>)value); return true;
+            case "datapath_id": setDatapath_id((OvsDBSet<String>)value); return true;
+            case "datapath_type": setDatapath_type((String)value); return true;
+            case "fail_mode": setFail_mode((OvsDBSet<String>)value); return true;
+            case "sflow": setFlow((OvsDBSet<UUID>)value); return true;
+            case "netflow": setNetflow((OvsDBSet<UUID>)value); return true;
+            case "status": setStatus((OvsDBMap<String, String>)value); return true;
+            case "stp_enable": setStp_enable((Boolean)value); return true;
+            case "protocols": setProtocols((OvsDBSet<String>)value); return true;
+            case "other_config": setOther_config((OvsDBMap<String, String>)value); return true;
+            case "external_ids": setExternal_ids((OvsDBMap<String, String>)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "Bridge [name=" + name + ", ports=" + ports + ", controller="
                 + controller + ", datapath_id=" + datapath_id
                 + ", datapath_type=" + datapath_type + ", fail_mode="
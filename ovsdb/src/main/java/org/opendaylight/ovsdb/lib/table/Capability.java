@@ -21,10 +21,12 @@ public class Capability extends Table<Capability> {
 
 
     public OvsDBMap<String, String> getDetails() {
+        decodeColumn("details");
         return details;
     }
 
     public void setDetails(OvsDBMap<String, String> details) {
+        decodeColumn("details");
         this.details = details;
     }
 
@@ -34,8 +36,31 @@ public class Capability extends Table<Capability> {
         return NAME;
     }
 
+    @Override
+    protected Capability newRow() {
+        return new Capability();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "details": return getDetails();
+            default: return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "details": setDetails((OvsDBMap<String, String>)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "Capability [details=" + details + "]";
     }
 }
@@ -19,10 +19,12 @@ public class Controller  extends Table<Controller> {
     private String target;
 
     public String getTarget() {
+        decodeColumn("target");
         return target;
     }
 
     public void setTarget(String target) {
+        decodeColumn("target");
         this.target = target;
     }
 
@@ -32,8 +34,30 @@ public class Controller  extends Table<Controller> {
         return NAME;
     }
 
+    @Override
+    protected Controller newRow() {
+        return new Controller();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "target": return getTarget();
+            default: return null;
+        }
+    }
+
+    @Override
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "target": setTarget((String)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "Controller [target=" + target + "]";
     }
 }
@@ -23,34 +23,42 @@ public class Flow_Sample_Collector_Set extends Table<Flow_Sample_Collector_Set>
     private OvsDBMap<String, String> external_ids;
 
     public Integer getId() {
+        decodeColumn("id");
         return id;
     }
 
     public void setId(Integer id) {
+        decodeColumn("id");
         this.id = id;
     }
 
     public Bridge getBridge() {
+        decodeColumn("bridge");
         return bridge;
     }
 
     public void setBridge(Bridge bridge) {
+        decodeColumn("bridge");
         this.bridge = bridge;
     }
 
     public IPFIX getIpfix() {
+        decodeColumn("ipfix");
         return ipfix;
     }
 
     public void setIpfix(IPFIX ipfix) {
+        decodeColumn("ipfix");
         this.ipfix = ipfix;
     }
 
     public OvsDBMap<String, String> getExternal_ids() {
+        decodeColumn("external_ids");
         return external_ids;
     }
 
     public void setExternal_ids(OvsDBMap<String, String> external_ids) {
+        decodeColumn("external_ids");
         this.external_ids = external_ids;
     }
 
@@ -60,8 +68,37 @@ public class Flow_Sample_Collector_Set extends Table<Flow_Sample_Collector_Set>
         return NAME;
     }
 
+    @Override
+    protected Flow_Sample_Collector_Set newRow() {
+        return new Flow_Sample_Collector_Set();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "id": return getId();
+            case "bridge": return getBridge();
+            case "ipfix": return getIpfix();
+            case "external_ids": return getExternal_ids();
+            default: return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "id": setId((Integer)value); return true;
+            case "bridge": setBridge((Bridge)value); return true;
+            case "ipfix": setIpfix((IPFIX)value); return true;
+            case "external_ids": setExternal_ids((OvsDBMap<String, String>)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "Flow_Sample_Collector_Set [" +
                 "id=" + id +
                 ", bridge=" + bridge +
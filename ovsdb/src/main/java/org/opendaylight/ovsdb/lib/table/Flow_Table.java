@@ -27,26 +27,32 @@ public class Flow_Table extends Table<Flow_Table> {
     }
 
     public Integer getFlow_limit() {
+        decodeColumn("flow_limit");
         return flow_limit;
     }
 
     public void setFlow_limit(Integer flow_limit) {
+        decodeColumn("flow_limit");
         this.flow_limit = flow_limit;
     }
 
     public OvsDBSet<String> getOverflow_policy() {
+        decodeColumn("overflow_policy");
         return overflow_policy;
     }
 
     public void setOverflow_policy(OvsDBSet<String> overflow_policy) {
+        decodeColumn("overflow_policy");
         this.overflow_policy = overflow_policy;
     }
 
     public OvsDBSet<String> getGroups() {
+        decodeColumn("groups");
         return groups;
     }
 
     public void setGroups(OvsDBSet<String> groups) {
+        decodeColumn("groups");
         this.groups = groups;
     }
 
@@ -56,8 +62,35 @@ public class Flow_Table extends Table<Flow_Table> {
         return NAME;
     }
 
+    @Override
+    protected Flow_Table newRow() {
+        return new Flow_Table();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "flow_limit": return getFlow_limit();
+            case "overflow_policy": return getOverflow_policy();
+            case "groups": return getGroups();
+            default: return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "flow_limit": setFlow_limit((Integer)value); return true;
+            case "overflow_policy": setOverflow_policy((OvsDBSet<String>)value); return true;
+            case "groups": setGroups((OvsDBSet<String>)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "Flow_Table [" +
                 "name=" + name +
                 ", flow_limit=" + flow_limit +
@@ -22,69 +22,83 @@ public class IPFIX extends Table<IPFIX> {
     public static final Name<IPFIX> NAME = new Name<IPFIX>("IPFIX") {};
 
     private OvsDBSet<String> targets;
-    private OvsDBSet<Integer> sampling;
-    private OvsDBSet<Integer> obs_domain_id;
-    private OvsDBSet<Integer> obs_point_id;
-    private OvsDBSet<Integer> cache_active_timeout;
-    private OvsDBSet<Integer> cache_max_ﬂows;
+    private OvsDBSet<Long> sampling;
+    private OvsDBSet<Long> obs_domain_id;
+    private OvsDBSet<Long> obs_point_id;
+    private OvsDBSet<Long> cache_active_timeout;
+    private OvsDBSet<Long> cache_max_ﬂows;
     private OvsDBMap<String, String> external_ids;
 
     public IPFIX() {
     }
 
     public OvsDBSet<String> getTargets() {
+        decodeColumn("targets");
         return targets;
     }
 
     public void setTargets(OvsDBSet<String> targets) {
+        decodeColumn("targets");
         this.targets = targets;
     }
 
-    public OvsDBSet<Integer> getSampling() {
+    public OvsDBSet<Long> getSampling() {
+        decodeColumn("sampling");
         return sampling;
     }
 
-    public void setSampling(OvsDBSet<Integer> sampling) {
+    public void setSampling(OvsDBSet<Long> sampling) {
+        decodeColumn("sampling");
         this.sampling = sampling;
     }
 
-    public OvsDBSet<Integer> getObs_domain_id() {
+    public OvsDBSet<Long> getObs_domain_id() {
+        decodeColumn("obs_domain_id");
         return obs_domain_id;
     }
 
-    public void setObs_domain_id(OvsDBSet<Integer> obs_domain_id) {
+    public void setObs_domain_id(OvsDBSet<Long> obs_domain_id) {
+        decodeColumn("obs_domain_id");
         this.obs_domain_id = obs_domain_id;
     }
 
-    public OvsDBSet<Integer> getObs_point_id() {
+    public OvsDBSet<Long> getObs_point_id() {
+        decodeColumn("obs_point_id");
         return obs_point_id;
     }
 
-    public void setObs_point_id(OvsDBSet<Integer> obs_point_id) {
+    public void setObs_point_id(OvsDBSet<Long> obs_point_id) {
+        decodeColumn("obs_point_id");
         this.obs_point_id = obs_point_id;
     }
 
-    public OvsDBSet<Integer> getCache_active_timeout() {
+    public OvsDBSet<Long> getCache_active_timeout() {
+        decodeColumn("cache_active_timeout");
         return cache_active_timeout;
     }
 
-    public void setCache_active_timeout(OvsDBSet<Integer> cache_active_timeout) {
+    public void setCache_active_timeout(OvsDBSet<Long> cache_active_timeout) {
+        decodeColumn("cache_active_timeout");
         this.cache_active_timeout = cache_active_timeout;
     }
 
-    public OvsDBSet<Integer> getCache_max_ﬂows() {
+    public OvsDBSet<Long> getCache_max_ﬂows() {
+        decodeColumn("cache_max_ﬂows");
         return cache_max_ﬂows;
     }
 
-    public void setCache_max_ﬂows(OvsDBSet<Integer> cache_max_ﬂows) {
+    public void setCache_max_ﬂows(OvsDBSet<Long> cache_max_ﬂows) {
+        decodeColumn("cache_max_ﬂows");
         this.cache_max_ﬂows = cache_max_ﬂows;
     }
 
     public OvsDBMap<String, String> getExternal_ids() {
+        decodeColumn("external_ids");
         return external_ids;
     }
 
     public void setExternal_ids(OvsDBMap<String, String> external_ids) {
+        decodeColumn("external_ids");
         this.external_ids = external_ids;
     }
 
@@ -94,8 +108,43 @@ public class IPFIX extends Table<IPFIX> {
         return NAME;
     }
 
+    @Override
+    protected IPFIX newRow() {
+        return new IPFIX();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "targets": return getTargets();
+            case "sampling": return getSampling();
+            case "obs_domain_id": return getObs_domain_id();
+            case "obs_point_id": return getObs_point_id();
+            case "cache_active_timeout": return getCache_active_timeout();
+            case "cache_max_ﬂows": return getCache_max_ﬂows();
+            case "external_ids": return getExternal_ids();
+            default: return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "targets": setTargets((OvsDBSet<String>)value); return true;
+            case "sampling": setSampling((OvsDBSet<Long>)value); return true;
+            case "obs_domain_id": setObs_domain_id((OvsDBSet<Long>)value); return true;
+            case "obs_point_id": setObs_point_id((OvsDBSet<Long>)value); return true;
+            case "cache_active_timeout": setCache_active_timeout((OvsDBSet<Long>)value); return true;
+            case "cache_max_ﬂows": setCache_max_ﬂows((OvsDBSet<Long>)value); return true;
+            case "external_ids": setExternal_ids((OvsDBMap<String, String>)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "IPFIX [" +
                 "targets=" + targets +
                 ", sampling=" + sampling +
@@ -9,8 +9,6 @@
  */
 package org.opendaylight.ovsdb.lib.table;
 
-import java.math.BigInteger;
-
 import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
 import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
 import org.opendaylight.ovsdb.lib.table.internal.Table;
@@ -24,82 +22,120 @@ public class Interface extends Table<Interface> {
     private String name;
     private OvsDBMap<String, String> options;
     private String type;
-    private OvsDBSet<BigInteger> ofport;
+    private OvsDBSet<Long> ofport;
     private OvsDBSet<String> mac;
-    private OvsDBMap<String, Integer> statistics;
+    private OvsDBMap<String, Long> statistics;
     private OvsDBMap<String, String> status;
     private OvsDBMap<String, String> other_config;
     private OvsDBMap<String, String> external_ids;
 
     public String getName() {
+        decodeColumn("name");
         return name;
     }
 
     public void setName(String name) {
+        decodeColumn("name");
         this.name = name;
     }
 
     public OvsDBMap<String, String> getOptions() {
+        decodeColumn("options");
         return options;
     }
 
     public void setOptions(OvsDBMap<String, String> options) {
+        decodeColumn("options");
         this.options = options;
     }
 
     public String getType() {
+        decodeColumn("type");
         return type;
     }
 
     public void setType(String type) {
+        decodeColumn("type");
         this.type = type;
     }
 
-    public OvsDBSet<BigInteger> getOfport() {
+    public OvsDBSet<Long> getOfport() {
+        decodeColumn("ofport");
         return ofport;
     }
 
-    public void setOfport(OvsDBSet<BigInteger> ofport) {
+    public void setOfport(OvsDBSet<Long> ofport) {
+        decodeColumn("ofport");
         this.ofport = ofport;
     }
 
+    /**
+     * Returns the OpenFlow port number, -1 while ovs-vswitchd has not assigned one or if it
+     * failed to create the interface.
+     */
+    @JsonIgnore
+    public long getOfportValue() {
+        OvsDBSet<Long> ofports = getOfport();
+        if (ofports == null || ofports.isEmpty()) return -1;
+        return ofports.iterator().next();
+    }
+
     public OvsDBSet<String> getMac() {
+        decodeColumn("mac");
         return mac;
     }
 
     public void setMac(OvsDBSet<String> mac) {
+        decodeColumn("mac");
         this.mac = mac;
     }
 
-    public OvsDBMap<String, Integer> getStatistics() {
+    public OvsDBMap<String, Long> getStatistics() {
+        decodeColumn("statistics");
         return statistics;
     }
 
-    public void setStatistics(OvsDBMap<String, Integer> statistics) {
+    public void setStatistics(OvsDBMap<String, Long> statistics) {
+        decodeColumn("statistics");
         this.statistics = statistics;
     }
 
+    /**
+     * Returns the value of a counter of the statistics column, 0 if the counter is not reported.
+     */
+    public long getStatisticsValue(String counter) {
+        OvsDBMap<String, Long> counters = getStatistics();
+        Long value = counters != null ? counters.get(counter) : null;
+        return value != null ? value : 0;
+    }
+
     public OvsDBMap<String, String> getStatus() {
+        decodeColumn("status");
         return status;
     }
 
     public void setStatus(OvsDBMap<String, String> status) {
+        decodeColumn("status");
         this.status = status;
     }
 
     public OvsDBMap<String, String> getOther_config() {
+        decodeColumn("other_config");
         return other_config;
     }
 
     public void setOther_config(OvsDBMap<String, String> other_config) {
+        decodeColumn("other_config");
         this.other_config = other_config;
     }
 
     public OvsDBMap<String, String> getExternal_ids() {
+        decodeColumn("external_ids");
         return external_ids;
     }
 
     public void setExternal_ids(OvsDBMap<String, String> external_ids) {
+        decodeColumn("external_ids");
         this.external_ids = external_ids;
     }
 
@@ -109,8 +145,47 @@ public class Interface extends Table<Interface> {
         return NAME;
     }
 
+    @Override
+    protected Interface newRow() {
+        return new Interface();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "name": return getName();
+            case "options": return getOptions();
+            case "type": return getType();
+            case "ofport": return getOfport();
+            case "mac": return getMac();
+            case "statistics": return getStatistics();
+            case "status": return getStatus();
+            case "other_config": return getOther_config();
+            case "external_ids": return getExternal_ids();
+            default: return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "name": setName((String)value); return true;
+            case "options": setOptions((OvsDBMap<String, String>)value); return true;
+            case "type": setType((String)value); return true;
+            case "ofport": setOfport((OvsDBSet<Long>)value); return true;
+            case "mac": setMac((OvsDBSet<String>)value); return true;
+            case "statistics": setStatistics((OvsDBMap<String, Long>)value); return true;
+            case "status": setStatus((OvsDBMap<String, String>)value); return true;
+            case "other_config": setOther_config((OvsDBMap<String, String>)value); return true;
+            case "external_ids": setExternal_ids((OvsDBMap<String, String>)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "Interface [name=" + name + ", options=" + options + ", type="
                 + type + ", ofport=" + ofport + ", mac=" + mac
                 + ", statistics=" + statistics + ", status=" + status
@@ -19,10 +19,12 @@ public class Manager  extends Table<Manager> {
     private String target;
 
     public String getTarget() {
+        decodeColumn("target");
         return target;
     }
 
     public void setTarget(String target) {
+        decodeColumn("target");
         this.target = target;
     }
 
@@ -32,8 +34,30 @@ public class Manager  extends Table<Manager> {
         return NAME;
     }
 
+    @Override
+    protected Manager newRow() {
+        return new Manager();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "target": return getTarget();
+            default: return null;
+        }
+    }
+
+    @Override
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "target": setTarget((String)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "Manager [target=" + target + "]";
     }
 }
@@ -22,73 +22,89 @@ public class Mirror  extends Table<Mirror> {
     private String name;
     private OvsDBSet<UUID> select_src_port;
     private OvsDBSet<UUID> select_dst_port;
-    private OvsDBSet<Integer> select_vlan;
+    private OvsDBSet<Long> select_vlan;
     private OvsDBSet<UUID> output_port;
-    private OvsDBSet<Integer> output_vlan;
-    private OvsDBMap<String, Integer> statistics;
+    private OvsDBSet<Long> output_vlan;
+    private OvsDBMap<String, Long> statistics;
     private OvsDBMap<String, String> external_ids;
 
     public String getName() {
+        decodeColumn("name");
         return name;
     }
 
     public void setName(String name) {
+        decodeColumn("name");
         this.name = name;
     }
 
     public OvsDBSet<UUID> getSelect_src_port() {
+        decodeColumn("select_src_port");
         return select_src_port;
     }
 
     public void setSelect_src_port(OvsDBSet<UUID> select_src_port) {
+        decodeColumn("select_src_port");
         this.select_src_port = select_src_port;
     }
 
     public OvsDBSet<UUID> getSelect_dst_port() {
+        decodeColumn("select_dst_port");
         return select_dst_port;
     }
 
     public void setSelect_dst_port(OvsDBSet<UUID> select_dst_port) {
+        decodeColumn("select_dst_port");
         this.select_dst_port = select_dst_port;
     }
 
-    public OvsDBSet<Integer> getSelect_vlan() {
+    public OvsDBSet<Long> getSelect_vlan() {
+        decodeColumn("select_vlan");
         return select_vlan;
     }
 
-    public void setSelect_vlan(OvsDBSet<Integer> select_vlan) {
+    public void setSelect_vlan(OvsDBSet<Long> select_vlan) {
+        decodeColumn("select_vlan");
         this.select_vlan = select_vlan;
     }
 
     public OvsDBSet<UUID> getOutput_port() {
+        decodeColumn("output_port");
         return output_port;
     }
 
     public void setOutput_port(OvsDBSet<UUID> output_port) {
+        decodeColumn("output_port");
         this.output_port = output_port;
     }
 
-    public OvsDBSet<Integer> getOutput_vlan() {
+    public OvsDBSet<Long> getOutput_vlan() {
+        decodeColumn("output_vlan");
         return output_vlan;
     }
 
-    public void setOutput_vlan(OvsDBSet<Integer> output_vlan) {
+    public void setOutput_vlan(OvsDBSet<Long> output_vlan) {
+        decodeColumn("output_vlan");
         this.output_vlan = output_vlan;
     }
 
-    public OvsDBMap<String, Integer> getStatistics() {
+    public OvsDBMap<String, Long> getStatistics() {
+        decodeColumn("statistics");
         return statistics;
     }
 
-    public void setStatistics(OvsDBMap<String, Integer> statistics) {
+    public void setStatistics(OvsDBMap<String, Long> statistics) {
+        decodeColumn("statistics");
         this.statistics = statistics;
     }
 
     public OvsDBMap<String, String> getExternal_ids() {
+        decodeColumn("external_ids");
         return external_ids;
     }
 
     public void setExternal_ids(OvsDBMap<String, String> external_ids) {
+        decodeColumn("external_ids");
         this.external_ids = external_ids;
     }
 
@@ -98,8 +114,45 @@ public class Mirror  extends Table<Mirror> {
         return NAME;
     }
 
+    @Override
+    protected Mirror newRow() {
+        return new Mirror();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "name": return getName();
+            case "select_src_port": return getSelect_src_port();
+            case "select_dst_port": return getSelect_dst_port();
+            case "select_vlan": return getSelect_vlan();
+            case "output_port": return getOutput_port();
+            case "output_vlan": return getOutput_vlan();
+            case "statistics": return getStatistics();
+            case "external_ids": return getExternal_ids();
+            default: return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "name": setName((String)value); return true;
+            case "select_src_port": setSelect_src_port((OvsDBSet<UUID>)value); return true;
+            case "select_dst_port": setSelect_dst_port((OvsDBSet<UUID>)value); return true;
+            case "select_vlan": setSelect_vlan((OvsDBSet<Long>)value); return true;
+            case "output_port": setOutput_port((OvsDBSet<UUID>)value); return true;
+            case "output_vlan": setOutput_vlan((OvsDBSet<Long>)value); return true;
+            case "statistics": setStatistics((OvsDBMap<String, Long>)value); return true;
+            case "external_ids": setExternal_ids((OvsDBMap<String, String>)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "Mirror [name=" + name + ", select_src_port=" + select_src_port
                 + ", select_dst_port=" + select_dst_port + ", select_vlan="
                 + select_vlan + ", output_port=" + output_port
@@ -21,14 +21,17 @@ public class NetFlow  extends Table<NetFlow> {
     private Integer active_timeout;
 
     public OvsDBSet<String> getTargets() {
+        decodeColumn("targets");
         return targets;
     }
 
     public Integer getActiveTimeout() {
+        decodeColumn("active_timeout");
         return active_timeout;
     }
 
     public void setTargets(OvsDBSet<String> targets) {
+        decodeColumn("targets");
         this.targets = targets;
     }
 
@@ -38,8 +41,32 @@ public class NetFlow  extends Table<NetFlow> {
         return NAME;
     }
 
+    @Override
+    protected NetFlow newRow() {
+        return new NetFlow();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "targets": return getTargets();
+            case "activeTimeout": return getActiveTimeout();
+            default: return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "targets": setTargets((OvsDBSet<String>)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "NetFlow [targets=" + targets + "]";
     }
 }
@@ -45,119 +45,196 @@ public class Open_vSwitch extends Table<Open_vSwitch> {
     }
 
     public OvsDBSet<UUID> getBridges() {
+        decodeColumn("bridges");
         return bridges;
     }
 
     public void setBridges(OvsDBSet<UUID> bridges) {
+        decodeColumn("bridges");
         this.bridges = bridges;
     }
 
     public Integer getCurr_cfg() {
+        decodeColumn("curr_cfg");
         return curr_cfg;
     }
 
     public void setCurr_cfg(Integer curr_cfg) {
+        decodeColumn("curr_cfg");
         this.curr_cfg = curr_cfg;
     }
 
     public OvsDBSet<String> getDb_version() {
+        decodeColumn("db_version");
         return db_version;
     }
 
     public void setDb_version(OvsDBSet<String> db_version) {
+        decodeColumn("db_version");
         this.db_version = db_version;
     }
 
     public OvsDBSet<UUID> getManager_options() {
+        decodeColumn("manager_options");
         return manager_options;
     }
 
     public void setManager_options(OvsDBSet<UUID> manager_options) {
+        decodeColumn("manager_options");
         this.manager_options = manager_options;
     }
 
     public OvsDBMap<String, String> getStatus() {
+        decodeColumn("status");
         return status;
     }
 
     public void setStatus(OvsDBMap<String, String> status) {
+        decodeColumn("status");
         this.status = status;
     }
 
     public Integer getNext_cfg() {
+        decodeColumn("next_cfg");
         return next_cfg;
     }
 
     public void setNext_cfg(Integer next_cfg) {
+        decodeColumn("next_cfg");
         this.next_cfg = next_cfg;
     }
 
     public OvsDBSet<String> getOvs_version() {
+        decodeColumn("ovs_version");
         return ovs_version;
     }
 
     public void setOvs_version(OvsDBSet<String> ovs_version) {
+        decodeColumn("ovs_version");
         this.ovs_version = ovs_version;
     }
 
     public OvsDBSet<UUID> getSsl() {
+        decodeColumn("ssl");
         return ssl;
     }
 
     public void setSsl(OvsDBSet<UUID> ssl) {
+        decodeColumn("ssl");
         this.ssl = ssl;
     }
 
     public OvsDBSet<String> getSystem_type() {
+        decodeColumn("system_type");
         return system_type;
     }
 
     public void setSystem_type(OvsDBSet<String> system_type) {
+        decodeColumn("system_type");
         this.system_type = system_type;
     }
 
     public OvsDBSet<String> getSystem_version() {
+        decodeColumn("system_version");
         return system_version;
     }
 
     public void setSystem_version(OvsDBSet<String> system_version) {
+        decodeColumn("system_version");
         this.system_version = system_version;
     }
 
     public OvsDBMap<String, UUID> getCapabilities() {
+        decodeColumn("capabilities");
         return capabilities;
     }
 
     public void setCapabilities(OvsDBMap<String, UUID> capabilities) {
+        decodeColumn("capabilities");
         this.capabilities = capabilities;
     }
 
     public OvsDBMap<String, String> getOther_config() {
+        decodeColumn("other_config");
         return other_config;
     }
 
     public void setOther_config(OvsDBMap<String, String> other_config) {
+        decodeColumn("other_config");
         this.other_config = other_config;
     }
 
     public OvsDBMap<String, String> getExternal_ids() {
+        decodeColumn("external_ids");
         return external_ids;
     }
 
     public void setExternal_ids(OvsDBMap<String, String> external_ids) {
+        decodeColumn("external_ids");
         this.external_ids = external_ids;
     }
 
     public OvsDBMap<String, Integer> getStatistics() {
+        decodeColumn("statistics");
         return statistics;
     }
 
     public void setStatistics(OvsDBMap<String, Integer> statistics) {
+        decodeColumn("statistics");
         this.statistics = statistics;
     }
 
+    @Override
+    protected Open_vSwitch newRow() {
+        return new Open_vSwitch();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "bridges": return getBridges();
+            case "curr_cfg": return getCurr_cfg();
+            case "db_version": return getDb_version();
+            case "manager_options": return getManager_options();
+            case "status": return getStatus();
+            case "next_cfg": return getNext_cfg();
+            case "ovs_version": return getOvs_version();
+            case "ssl": return getSsl();
+            case "system_type": return getSystem_type();
+            case "system_version": return getSystem_version();
+            case "capabilities": return getCapabilities();
+            case "other_config": return getOther_config();
+            case "external_ids": return getExternal_ids();
+            case "statistics": return getStatistics();
+            default: return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "bridges": setBridges((OvsDBSet<UUID>)value); return true;
+            case "curr_cfg": setCurr_cfg((Integer)value); return true;
+            case "db_version": setDb_version((OvsDBSet<String>)value); return true;
+            case "manager_options": setManager_options((OvsDBSet<UUID>)value); return true;
+            case "status": setStatus((OvsDBMap<String, String>)value); return true;
+            case "next_cfg": setNext_cfg((Integer)value); return true;
+            case "ovs_version": setOvs_version((OvsDBSet<String>)value); return true;
+            case "ssl": setSsl((OvsDBSet<UUID>)value); return true;
+            case "system_type": setSystem_type((OvsDBSet<String>)value); return true;
+            case "system_version": setSystem_version((OvsDBSet<String>)value); return true;
+            case "capabilities": setCapabilities((OvsDBMap<String, UUID>)value); return true;
+            case "other_config": setOther_config((OvsDBMap<String, String>)value); return true;
+            case "external_ids": setExternal_ids((OvsDBMap<String, String>)value); return true;
+            case "statistics": setStatistics((OvsDBMap<String, Integer>)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "Open_vSwitch [bridges=" + bridges + ", curr_cfg=" + curr_cfg
                 + ", db_version=" + db_version + ", manager_options="
                 + manager_options + ", status=" + status + ", next_cfg="
@@ -9,7 +9,7 @@
  */
 package org.opendaylight.ovsdb.lib.table;
 
-import java.math.BigInteger;
+import java.util.Arrays;
 
 import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
 import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
@@ -23,8 +23,8 @@ public class Port extends Table<Port> {
     public static final Name<Port> NAME = new Name<Port>("Port") {};
 
     private String name;
-    private OvsDBSet<BigInteger> tag;
-    private OvsDBSet<BigInteger> trunks;
+    private OvsDBSet<Long> tag;
+    private OvsDBSet<Long> trunks;
     private OvsDBSet<UUID> interfaces;
     private OvsDBSet<String> mac;
     private OvsDBSet<UUID> qos;
@@ -35,66 +35,108 @@ public class Port extends Table<Port> {
     }
 
     public String getName() {
+        decodeColumn("name");
         return name;
     }
 
     public void setName(String name) {
+        decodeColumn("name");
         this.name = name;
     }
 
-    public OvsDBSet<BigInteger> getTag() {
+    public OvsDBSet<Long> getTag() {
+        decodeColumn("tag");
         return tag;
     }
 
-    public void setTag(OvsDBSet<BigInteger> tag) {
+    public void setTag(OvsDBSet<Long> tag) {
+        decodeColumn("tag");
         this.tag = tag;
     }
 
-    public OvsDBSet<BigInteger> getTrunks() {
+    /**
+     * Returns the VLAN tag of an access port, -1 for a trunk port.
+     */
+    @JsonIgnore
+    public long getTagValue() {
+        OvsDBSet<Long> tags = getTag();
+        if (tags == null || tags.isEmpty()) return -1;
+        return tags.iterator().next();
+    }
+
+    public OvsDBSet<Long> getTrunks() {
+        decodeColumn("trunks");
         return trunks;
     }
 
-    public void setTrunks(OvsDBSet<BigInteger> trunks) {
+    public void setTrunks(OvsDBSet<Long> trunks) {
+        decodeColumn("trunks");
         this.trunks = trunks;
     }
 
+    /**
+     * Returns the VLANs trunked by the port in ascending order, none if it trunks all of them.
+     */
+    @JsonIgnore
+    public long[] getTrunksValues() {
+        OvsDBSet<Long> vlans = getTrunks();
+        if (vlans == null) return new long[0];
+        long[] values = new long[vlans.size()];
+        int i = 0;
+        for (Long vlan : vlans) {
+            values[i++] = vlan;
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
     public OvsDBSet<UUID> getInterfaces() {
+        decodeColumn("interfaces");
         return interfaces;
     }
 
     public void setInterfaces(OvsDBSet<UUID> interfaces) {
+        decodeColumn("interfaces");
         this.interfaces = interfaces;
     }
 
     public OvsDBSet<String> getMac() {
+        decodeColumn("mac");
         return mac;
     }
 
     public void setMac(OvsDBSet<String> mac) {
+        decodeColumn("mac");
         this.mac = mac;
     }
 
     public OvsDBSet<UUID> getQos() {
+        decodeColumn("qos");
         return qos;
     }
 
     public void setQos(OvsDBSet<UUID> qos) {
+        decodeColumn("qos");
         this.qos = qos;
     }
 
     public OvsDBMap<String, String> getOther_config() {
+        decodeColumn("other_config");
         return other_config;
     }
 
     public void setOther_config(OvsDBMap<String, String> other_config) {
+        decodeColumn("other_config");
         this.other_config = other_config;
     }
 
     public OvsDBMap<String, String> getExternal_ids() {
+        decodeColumn("external_ids");
         return external_ids;
     }
 
     public void setExternal_ids(OvsDBMap<String, String> external_ids) {
+        decodeColumn("external_ids");
         this.external_ids = external_ids;
     }
 
@@ -104,8 +146,45 @@ public class Port extends Table<Port> {
         return NAME;
     }
 
+    @Override
+    protected Port newRow() {
+        return new Port();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "name": return getName();
+            case "tag": return getTag();
+            case "trunks": return getTrunks();
+            case "interfaces": return getInterfaces();
+            case "mac": return getMac();
+            case "qos": return getQos();
+            case "other_config": return getOther_config();
+            case "external_ids": return getExternal_ids();
+            default: return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "name": setName((String)value); return true;
+            case "tag": setTag((OvsDBSet<Long>)value); return true;
+            case "trunks": setTrunks((OvsDBSet<Long>)value); return true;
+            case "interfaces": setInterfaces((OvsDBSet<UUID>)value); return true;
+            case "mac": setMac((OvsDBSet<String>)value); return true;
+            case "qos": setQos((OvsDBSet<UUID>)value); return true;
+            case "other_config": setOther_config((OvsDBMap<String, String>)value); return true;
+            case "external_ids": setExternal_ids((OvsDBMap<String, String>)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "Port [name=" + name + ", tag=" + tag + ", trunks=" + trunks
                 + ", interfaces=" + interfaces + ", mac=" + mac + ", qos="
                 + qos + ", other_config=" + other_config + ", external_ids="
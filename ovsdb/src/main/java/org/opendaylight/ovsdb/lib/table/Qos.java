@@ -20,7 +20,7 @@ public class Qos extends Table<Qos> {
 
     public static final Name<Qos> NAME = new Name<Qos>("QoS") {};
 
-    private OvsDBMap<Integer, UUID> queues;
+    private OvsDBMap<Long, UUID> queues;
     private String type;
     private OvsDBMap<String, String> other_config;
     private OvsDBMap<String, String> external_ids;
@@ -28,35 +28,43 @@ public class Qos extends Table<Qos> {
     public Qos() {
     }
 
-    public OvsDBMap<Integer, UUID> getQueues() {
+    public OvsDBMap<Long, UUID> getQueues() {
+        decodeColumn("queues");
         return queues;
     }
 
-    public void setQueues(OvsDBMap<Integer, UUID> queues) {
+    public void setQueues(OvsDBMap<Long, UUID> queues) {
+        decodeColumn("queues");
         this.queues = queues;
     }
 
     public String getType() {
+        decodeColumn("type");
         return type;
     }
 
     public void setType(String type) {
+        decodeColumn("type");
         this.type = type;
     }
 
     public OvsDBMap<String, String> getOther_config() {
+        decodeColumn("other_config");
         return other_config;
     }
 
     public void setOther_config(OvsDBMap<String, String> other_config) {
+        decodeColumn("other_config");
         this.other_config = other_config;
     }
 
     public OvsDBMap<String, String> getExternal_ids() {
+        decodeColumn("external_ids");
         return external_ids;
     }
 
     public void setExternal_ids(OvsDBMap<String, String> external_ids) {
+        decodeColumn("external_ids");
         this.external_ids = external_ids;
     }
 
@@ -66,8 +74,37 @@ public class Qos extends Table<Qos> {
         return NAME;
     }
 
+    @Override
+    protected Qos newRow() {
+        return new Qos();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "queues": return getQueues();
+            case "type": return getType();
+            case "other_config": return getOther_config();
+            case "external_ids": return getExternal_ids();
+            default: return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "queues": setQueues((OvsDBMap<Long, UUID>)value); return true;
+            case "type": setType((String)value); return true;
+            case "other_config": setOther_config((OvsDBMap<String, String>)value); return true;
+            case "external_ids": setExternal_ids((OvsDBMap<String, String>)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "Qos [queues=" + queues + ", type=" + type + ", other_config="
                 + other_config + ", external_ids=" + external_ids + "]";
     }
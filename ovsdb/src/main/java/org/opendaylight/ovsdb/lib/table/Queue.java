@@ -20,34 +20,40 @@ public class Queue extends Table<Queue> {
 
     public static final Name<Queue> NAME = new Name<Queue>("Queue") {};
 
-    private OvsDBSet<Integer> dscp;
+    private OvsDBSet<Long> dscp;
     private OvsDBMap<String, String> other_config;
     private OvsDBMap<String, String> external_ids;
 
     public Queue() {
     }
 
-    public OvsDBSet<Integer> getDscp() {
+    public OvsDBSet<Long> getDscp() {
+        decodeColumn("dscp");
         return dscp;
     }
 
-    public void setDscp(OvsDBSet<Integer> dscp) {
+    public void setDscp(OvsDBSet<Long> dscp) {
+        decodeColumn("dscp");
         this.dscp = dscp;
     }
 
     public OvsDBMap<String, String> getOther_config() {
+        decodeColumn("other_config");
         return other_config;
     }
 
     public void setOther_config(OvsDBMap<String, String> other_config) {
+        decodeColumn("other_config");
         this.other_config = other_config;
     }
 
     public OvsDBMap<String, String> getExternal_ids() {
+        decodeColumn("external_ids");
         return external_ids;
     }
 
     public void setExternal_ids(OvsDBMap<String, String> external_ids) {
+        decodeColumn("external_ids");
         this.external_ids = external_ids;
     }
 
@@ -57,8 +63,35 @@ public class Queue extends Table<Queue> {
         return NAME;
     }
 
+    @Override
+    protected Queue newRow() {
+        return new Queue();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "dscp": return getDscp();
+            case "other_config": return getOther_config();
+            case "external_ids": return getExternal_ids();
+            default: return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "dscp": setDscp((OvsDBSet<Long>)value); return true;
+            case "other_config": setOther_config((OvsDBMap<String, String>)value); return true;
+            case "external_ids": setExternal_ids((OvsDBMap<String, String>)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "Queue [dscp=" + dscp + ", other_config=" + other_config
                 + ", external_ids=" + external_ids + "]";
     }
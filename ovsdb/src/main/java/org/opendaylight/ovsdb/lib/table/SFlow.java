@@ -21,15 +21,17 @@ public class SFlow  extends Table<SFlow> {
     private OvsDBSet<String> agent;
     private OvsDBSet<String> targets;
     private OvsDBMap<String, String> external_ids;
-    private OvsDBSet<Integer> header;
-    private OvsDBSet<Integer> polling;
-    private OvsDBSet<Integer> sampling;
+    private OvsDBSet<Long> header;
+    private OvsDBSet<Long> polling;
+    private OvsDBSet<Long> sampling;
 
     public OvsDBSet<String> getTargets() {
+        decodeColumn("targets");
         return targets;
     }
 
     public void setTargets(OvsDBSet<String> targets) {
+        decodeColumn("targets");
         this.targets = targets;
     }
 
@@ -40,47 +42,90 @@ public class SFlow  extends Table<SFlow> {
     }
 
     public OvsDBSet<String> getAgent() {
+        decodeColumn("agent");
         return agent;
     }
 
     public void setAgent(OvsDBSet<String> agent) {
+        decodeColumn("agent");
         this.agent = agent;
     }
 
     public OvsDBMap<String, String> getExternal_ids() {
+        decodeColumn("external_ids");
         return external_ids;
     }
 
     public void setExternal_ids(OvsDBMap<String, String> external_ids) {
+        decodeColumn("external_ids");
         this.external_ids = external_ids;
     }
 
-    public OvsDBSet<Integer> getHeader() {
+    public OvsDBSet<Long> getHeader() {
+        decodeColumn("header");
         return header;
     }
 
-    public void setHeader(OvsDBSet<Integer> header) {
+    public void setHeader(OvsDBSet<Long> header) {
+        decodeColumn("header");
         this.header = header;
     }
 
-    public OvsDBSet<Integer> getPolling() {
+    public OvsDBSet<Long> getPolling() {
+        decodeColumn("polling");
         return polling;
     }
 
-    public void setPolling(OvsDBSet<Integer> polling) {
+    public void setPolling(OvsDBSet<Long> polling) {
+        decodeColumn("polling");
         this.polling = polling;
     }
 
-    public OvsDBSet<Integer> getSampling() {
+    public OvsDBSet<Long> getSampling() {
+        decodeColumn("sampling");
         return sampling;
     }
 
-    public void setSampling(OvsDBSet<Integer> sampling) {
+    public void setSampling(OvsDBSet<Long> sampling) {
+        decodeColumn("sampling");
         this.sampling = sampling;
     }
 
+    @Override
+    protected SFlow newRow() {
+        return new SFlow();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "targets": return getTargets();
+            case "agent": return getAgent();
+            case "external_ids": return getExternal_ids();
+            case "header": return getHeader();
+            case "polling": return getPolling();
+            case "sampling": return getSampling();
+            default: return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "targets": setTargets((OvsDBSet<String>)value); return true;
+            case "agent": setAgent((OvsDBSet<String>)value); return true;
+            case "external_ids": setExternal_ids((OvsDBMap<String, String>)value); return true;
+            case "header": setHeader((OvsDBSet<Long>)value); return true;
+            case "polling": setPolling((OvsDBSet<Long>)value); return true;
+            case "sampling": setSampling((OvsDBSet<Long>)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "SFlow [agent=" + agent + ", targets=" + targets
                 + ", external_ids=" + external_ids + ", header=" + header
                 + ", polling=" + polling + ", sampling=" + sampling + "]";
@@ -24,33 +24,43 @@ public class SSL  extends Table<SSL> {
     private OvsDBMap<String, String> external_ids;
 
     public String getCa_cert() {
+        decodeColumn("ca_cert");
         return ca_cert;
     }
     public void setCa_cert(String ca_cert) {
+        decodeColumn("ca_cert");
         this.ca_cert = ca_cert;
     }
     public OvsDBMap<String, String> getExternal_ids() {
+        decodeColumn("external_ids");
         return external_ids;
     }
     public void setExternal_ids(OvsDBMap<String, String> external_ids) {
+        decodeColumn("external_ids");
         this.external_ids = external_ids;
     }
     public Boolean getBootstrap_ca_cert() {
+        decodeColumn("bootstrap_ca_cert");
         return bootstrap_ca_cert;
     }
     public void setBootstrap_ca_cert(Boolean bootstrap_ca_cert) {
+        decodeColumn("bootstrap_ca_cert");
         this.bootstrap_ca_cert = bootstrap_ca_cert;
     }
     public String getCertificate() {
+        decodeColumn("certificate");
         return certificate;
     }
     public void setCertificate(String certificate) {
+        decodeColumn("certificate");
         this.certificate = certificate;
     }
     public String getPrivate_key() {
+        decodeColumn("private_key");
         return private_key;
     }
     public void setPrivate_key(String private_key) {
+        decodeColumn("private_key");
         this.private_key = private_key;
     }
 
@@ -60,8 +70,39 @@ public class SSL  extends Table<SSL> {
         return NAME;
     }
 
+    @Override
+    protected SSL newRow() {
+        return new SSL();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        switch (column) {
+            case "ca_cert": return getCa_cert();
+            case "external_ids": return getExternal_ids();
+            case "bootstrap_ca_cert": return getBootstrap_ca_cert();
+            case "certificate": return getCertificate();
+            case "private_key": return getPrivate_key();
+            default: return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean setColumnValue(String column, Object value) {
+        switch (column) {
+            case "ca_cert": setCa_cert((String)value); return true;
+            case "external_ids": setExternal_ids((OvsDBMap<String, String>)value); return true;
+            case "bootstrap_ca_cert": setBootstrap_ca_cert((Boolean)value); return true;
+            case "certificate": setCertificate((String)value); return true;
+            case "private_key": setPrivate_key((String)value); return true;
+            default: return false;
+        }
+    }
+
     @Override
     public String toString() {
+        decodeColumns();
         return "SSL [ca_cert=" + ca_cert + ", bootstrap_ca_cert="
                 + bootstrap_ca_cert + ", certificate=" + certificate
                 + ", private_key=" + private_key + ", external_ids="
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.lib.table.internal;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Sets of columns of a table as a bit mask. Columns are numbered in the order of their names
+ * among the columns of the Table class, or among the columns of the schema the first TableCodec
+ * of a table without a Table class is built from. Columns past the 63rd, if any, share the last
+ * bit, a mask matching one of them matches them all.
+ */
+public final class ColumnMask {
+    public static final long NONE = 0L;
+    public static final long ALL = -1L;
+
+    private static final int MAX_ID = 63;
+
+    private static final ConcurrentMap<String, Columns> tableColumns = Maps.newConcurrentMap();
+
+    static {
+        for (Table<?> table : Tables.getTables()) {
+            Set<String> names = TableColumns.getGetters(table.getClass()).keySet();
+            tableColumns.put(table.getTableName().getName(), new Columns(names.toArray(new String[names.size()])));
+        }
+    }
+
+    private ColumnMask() {
+    }
+
+    /*
+     * Numbers the columns of a table without a Table class, once.
+     */
+    static void register(String tableName, String[] columns) {
+        if (!tableColumns.containsKey(tableName)) tableColumns.putIfAbsent(tableName, new Columns(columns.clone()));
+    }
+
+    /**
+     * Returns the mask of the given columns of a table. Unknown columns are ignored.
+     */
+    public static long of(String tableName, String... columns) {
+        Columns tableCols = tableColumns.get(tableName);
+        if (tableCols == null) return NONE;
+        long mask = NONE;
+        for (String column : columns) {
+            mask |= tableCols.getBit(column);
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the mask of the columns named by the fields of a row as sent by the OVSDB server.
+     * For the old row of an update these are the columns that changed.
+     */
+    public static long of(String tableName, Iterator<String> fieldNames) {
+        Columns tableCols = tableColumns.get(tableName);
+        if (tableCols == null) return ALL;
+        long mask = NONE;
+        while (fieldNames.hasNext()) {
+            mask |= tableCols.getBit(fieldNames.next());
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the mask of the columns holding a value, for the rows that were not decoded from
+     * an update, e.g. built by a merge or a reconciliation.
+     */
+    public static long present(Table<?> row) {
+        Columns columns = tableColumns.get(row.getTableName().getName());
+        if (columns == null) return ALL;
+        long mask = NONE;
+        for (int id = 0; id < columns.names.length; id++) {
+            if (row.getColumnValue(columns.names[id]) != null) mask |= bit(id);
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the names of the columns of a table in a mask.
+     */
+    public static Set<String> getColumnNames(String tableName, long mask) {
+        Set<String> names = new TreeSet<String>();
+        Columns columns = tableColumns.get(tableName);
+        if (columns == null) return names;
+        for (int id = 0; id < columns.names.length; id++) {
+            if ((mask & bit(id)) != 0) names.add(columns.names[id]);
+        }
+        return names;
+    }
+
+    private static long bit(int id) {
+        return 1L << Math.min(id, MAX_ID);
+    }
+
+    private static class Columns {
+        final String[] names;
+        final Map<String, Long> bits;
+
+        Columns(String[] names) {
+            this.names = names;
+            ImmutableMap.Builder<String, Long> builder = ImmutableMap.builder();
+            for (int id = 0; id < names.length; id++) {
+                builder.put(names[id], bit(id));
+            }
+            bits = builder.build();
+        }
+
+        long getBit(String column) {
+            Long bit = bits.get(column);
+            return bit != null ? bit : NONE;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.lib.table.internal;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.opendaylight.ovsdb.lib.database.ColumnSchema;
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
+import org.opendaylight.ovsdb.lib.database.OvsdbType;
+import org.opendaylight.ovsdb.lib.database.TableSchema;
+import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
+import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
+
+import com.google.common.collect.Maps;
+
+/**
+ * The atom types of the columns of a database schema, as far as decoding needs them. The
+ * decoder turns JSON integers into Long and JSON reals into Double, but JSON does not tell an
+ * integral real from an integer : the atoms of a real column decoded as Long are converted
+ * to Double here.
+ */
+public class ColumnTypes {
+    private static final Map<DatabaseSchema, ColumnTypes> cache =
+            Collections.synchronizedMap(new WeakHashMap<DatabaseSchema, ColumnTypes>());
+    private static final ColumnTypes NONE = new ColumnTypes(Collections.<String, List<RealColumn>>emptyMap());
+
+    private final Map<String, List<RealColumn>> realColumns;
+
+    private static class RealColumn {
+        final String name;
+        final boolean key;
+        final boolean value;
+
+        RealColumn(String name, boolean key, boolean value) {
+            this.name = name;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private ColumnTypes(Map<String, List<RealColumn>> realColumns) {
+        this.realColumns = realColumns;
+    }
+
+    /**
+     * Returns the column types of a schema, worked out once per schema.
+     */
+    public static ColumnTypes of(DatabaseSchema schema) {
+        if (schema == null || schema.getTables() == null) return NONE;
+        ColumnTypes types = cache.get(schema);
+        if (types == null) {
+            types = new ColumnTypes(findRealColumns(schema));
+            cache.put(schema, types);
+        }
+        return types;
+    }
+
+    private static Map<String, List<RealColumn>> findRealColumns(DatabaseSchema schema) {
+        Map<String, List<RealColumn>> realColumns = Maps.newHashMap();
+        for (Map.Entry<String, TableSchema> table : schema.getTables().entrySet()) {
+            if (table.getValue().getColumns() == null) continue;
+            List<RealColumn> columns = new ArrayList<RealColumn>();
+            for (Map.Entry<String, ColumnSchema> column : table.getValue().getColumns().entrySet()) {
+                OvsdbType type = column.getValue().getType();
+                if (type == null) continue;
+                boolean key = isReal(type.key);
+                boolean value = isReal(type.value);
+                if (key || value) columns.add(new RealColumn(column.getKey(), key, value));
+            }
+            if (!columns.isEmpty()) realColumns.put(table.getKey(), columns);
+        }
+        return realColumns;
+    }
+
+    private static boolean isReal(OvsdbType.BaseType type) {
+        return type != null && "real".equals(type.type);
+    }
+
+    /**
+     * Converts in place the numeric atoms of the real columns of a decoded row to Double.
+     *
+     * @return the row
+     */
+    public <T extends Table<?>> T coerce(String tableName, T row) {
+        if (row == null) return null;
+        List<RealColumn> columns = realColumns.get(tableName);
+        if (columns == null) return row;
+
+        Map<String, Method> setters = TableColumns.getSetters(row.getClass());
+        for (RealColumn column : columns) {
+            Object value = TableColumns.getColumn(row, column.name);
+            Method setter = setters.get(column.name);
+            if (value == null || setter == null) continue;
+            Object coerced = coerce(column, value);
+            if (coerced == value || !setter.getParameterTypes()[0].isInstance(coerced)) continue;
+            row.setColumnValue(column.name, coerced);
+        }
+        return row;
+    }
+
+    private static Object coerce(RealColumn column, Object value) {
+        if (value instanceof OvsDBMap) {
+            Map<?, ?> map = (Map<?, ?>)value;
+            List<Object> keys = new ArrayList<Object>(map.size());
+            List<Object> values = new ArrayList<Object>(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                keys.add(column.key ? toDouble(entry.getKey()) : entry.getKey());
+                values.add(column.value ? toDouble(entry.getValue()) : entry.getValue());
+            }
+            return OvsDBMap.copyOf(keys, values);
+        } else if (value instanceof OvsDBSet) {
+            List<Object> elements = new ArrayList<Object>(((OvsDBSet<?>)value).size());
+            for (Object element : (OvsDBSet<?>)value) {
+                elements.add(toDouble(element));
+            }
+            return OvsDBSet.copyOf(elements);
+        } else if (column.key && value instanceof Number && !(value instanceof Double)) {
+            return toDouble(value);
+        }
+        return value;
+    }
+
+    private static Object toDouble(Object atom) {
+        if (atom instanceof Number && !(atom instanceof Double)) return ((Number)atom).doubleValue();
+        return atom;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.lib.table.internal;
+
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Maps;
+
+/**
+ * A row of any table of a database schema. The columns are held in an array indexed the way
+ * the TableCodec of the table orders them, a column not set holds null. The row is written
+ * as an OVSDB row holding the columns that are set.
+ */
+public class GenericTable extends Table<GenericTable> {
+    private static final ConcurrentMap<String, Name<GenericTable>> names = Maps.newConcurrentMap();
+
+    private final TableCodec codec;
+    private final Object[] values;
+
+    GenericTable(TableCodec codec) {
+        this.codec = codec;
+        this.values = new Object[codec.getColumnCount()];
+    }
+
+    /**
+     * Returns the name of a table of rows held as GenericTable, the same instance for a given
+     * table name.
+     */
+    public static Name<GenericTable> nameOf(String tableName) {
+        Name<GenericTable> name = names.get(tableName);
+        if (name != null) return name;
+        name = new Name<GenericTable>(tableName) {};
+        Name<GenericTable> existing = names.putIfAbsent(tableName, name);
+        return existing != null ? existing : name;
+    }
+
+    @Override
+    public Name<GenericTable> getTableName() {
+        return codec.getName();
+    }
+
+    public TableCodec codec() {
+        return codec;
+    }
+
+    /**
+     * Returns the value of a column, null if the column is not set or not in the table.
+     */
+    public Object get(String column) {
+        int index = codec.indexOf(column);
+        return index < 0 ? null : values[index];
+    }
+
+    public Object get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Sets the value of a column, an OvsDBSet, an OvsDBMap or an atom of the type of the column.
+     */
+    public void set(String column, Object value) {
+        int index = codec.indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("No column " + column + " in table " + codec.getName().getName());
+        }
+        values[index] = value;
+    }
+
+    public void set(int index, Object value) {
+        values[index] = value;
+    }
+
+    @Override
+    protected GenericTable newRow() {
+        return codec.newRow();
+    }
+
+    @Override
+    protected Object getColumnValue(String column) {
+        return get(column);
+    }
+
+    @Override
+    protected boolean setColumnValue(String column, Object value) {
+        int index = codec.indexOf(column);
+        if (index < 0) return false;
+        values[index] = value;
+        return true;
+    }
+
+    @JsonValue
+    public JsonNode toJson() {
+        return codec.encode(this);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(codec.getName().getName()).append(" [");
+        boolean first = true;
+        for (int index = 0; index < values.length; index++) {
+            if (values[index] == null) continue;
+            if (!first) builder.append(", ");
+            builder.append(codec.getColumn(index)).append('=').append(values[index]);
+            first = false;
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.lib.table.internal;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Lazy decoding of the rows of the Table classes. A lazily decoded row is created empty and
+ * keeps its columns in their JSON form, each column is decoded on the first call to its getter
+ * or setter, the same way it would have been decoded along with the whole row.
+ *
+ * It pays off for rows kept as Table objects of which only a few columns are read, most
+ * consumers read the name, external_ids and ofport of an Interface. Reading every column, as
+ * ColumnarTableCache and TableColumns.getPresentColumns do, ends up decoding all of them.
+ */
+public class LazyColumns {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    static {
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Returns a module making an ObjectMapper decode the rows of the Table classes lazily,
+     * wherever they appear in the decoded value.
+     */
+    public static Module module() {
+        SimpleModule module = new SimpleModule("LazyColumns", Version.unknownVersion());
+        for (Table<?> table : Tables.getTables()) {
+            addDeserializer(module, table.getClass());
+        }
+        return module;
+    }
+
+    private static <T extends Table> void addDeserializer(SimpleModule module, Class<T> tableClass) {
+        module.addDeserializer(tableClass, new RowDeserializer<T>(tableClass));
+    }
+
+    /**
+     * Returns a row of the table class keeping the columns of the JSON row to be decoded on
+     * first access.
+     */
+    public static <T extends Table> T defer(ObjectNode row, Class<T> tableClass) {
+        T table;
+        try {
+            table = tableClass.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException("Unable to create a " + tableClass.getSimpleName() + " row", e);
+        }
+        table.deferColumns(row);
+        return table;
+    }
+
+    /*
+     * Decodes a single column into the row through the row deserializer, so that the column
+     * goes through the same setter and converter as when the whole row is decoded.
+     */
+    static void decode(Table<?> row, String column, JsonNode value) {
+        ObjectNode columns = objectMapper.createObjectNode();
+        columns.set(column, value);
+        try {
+            objectMapper.readerForUpdating(row).readValue(columns);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to decode column " + column + " of " + row.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static class RowDeserializer<T extends Table> extends StdDeserializer<T> {
+        private static final long serialVersionUID = 1L;
+        private final Class<T> tableClass;
+
+        RowDeserializer(Class<T> tableClass) {
+            super(tableClass);
+            this.tableClass = tableClass;
+        }
+
+        @Override
+        public T deserialize(JsonParser parser, DeserializationContext context)
+                throws IOException, JsonProcessingException {
+            JsonNode row = parser.readValueAsTree();
+            if (!row.isObject()) {
+                throw new JsonMappingException("Expected a " + tableClass.getSimpleName() + " row, got " + row);
+            }
+            return defer((ObjectNode)row, tableClass);
+        }
+    }
+}
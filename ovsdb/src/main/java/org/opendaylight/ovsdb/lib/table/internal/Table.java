@@ -9,8 +9,94 @@
  */
 package org.opendaylight.ovsdb.lib.table.internal;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Lists;
+
 public abstract class Table<E extends Table> {
+    /*
+     * The columns of a lazily decoded row still in their JSON form, null once they are all decoded
+     */
+    private volatile ObjectNode pendingColumns;
+
     public abstract Name<E> getTableName();
+
+    /**
+     * Keeps the columns of the row in their JSON form, each column is decoded by the first
+     * call to its getter or setter.
+     */
+    public void deferColumns(ObjectNode columns) {
+        pendingColumns = columns.size() > 0 ? columns : null;
+    }
+
+    /**
+     * Returns true if some columns of the row are not decoded yet.
+     */
+    public boolean hasPendingColumns() {
+        return pendingColumns != null;
+    }
+
+    /**
+     * Returns the JSON form of a column not decoded yet, null if the column is decoded or
+     * not set. It does not decode the column.
+     */
+    public JsonNode getPendingColumn(String column) {
+        if (pendingColumns == null) return null;
+        synchronized (this) {
+            ObjectNode pending = pendingColumns;
+            return pending != null ? pending.get(column) : null;
+        }
+    }
+
+    /**
+     * Decodes every column still in its JSON form.
+     */
+    public void decodeColumns() {
+        ObjectNode pending = pendingColumns;
+        if (pending == null) return;
+        synchronized (this) {
+            for (String column : Lists.newArrayList(pending.fieldNames())) {
+                decodePendingColumn(column);
+            }
+        }
+    }
+
+    /**
+     * Decodes a column still in its JSON form, called first thing by the getter and setter
+     * of every column.
+     */
+    protected final void decodeColumn(String column) {
+        if (pendingColumns != null) decodePendingColumn(column);
+    }
+
+    /*
+     * pendingColumns is cleared once the last column is set, a thread reading it as null
+     * sees every column decoded.
+     */
+    private synchronized void decodePendingColumn(String column) {
+        ObjectNode pending = pendingColumns;
+        if (pending == null) return;
+        JsonNode value = pending.remove(column);
+        if (value != null) LazyColumns.decode(this, column, value);
+        if (pending.size() == 0) pendingColumns = null;
+    }
+    /**
+     * Returns an empty row of the same table.
+     */
+    protected abstract E newRow();
+
+    /**
+     * Returns the value of a column, null if the column is not set or not known to the Table
+     * class. The columns are read through their getters without reflection.
+     */
+    protected abstract Object getColumnValue(String column);
+
+    /**
+     * Sets a column to a value of the type of its setter. Returns false if the Table class has
+     * no setter for the column.
+     */
+    protected abstract boolean setColumnValue(String column, Object value);
+
     @Override
     public abstract String toString();
     public Column<E> getColumns() {
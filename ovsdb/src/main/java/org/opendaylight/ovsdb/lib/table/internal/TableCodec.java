@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.lib.table.internal;
+
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.opendaylight.ovsdb.lib.database.ColumnSchema;
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
+import org.opendaylight.ovsdb.lib.database.OvsdbType;
+import org.opendaylight.ovsdb.lib.database.TableSchema;
+import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
+import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
+import org.opendaylight.ovsdb.lib.notation.UUID;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Decodes and encodes the rows of a table from its TableSchema. The columns of the table are
+ * sorted by name and numbered once, a row is decoded into a GenericTable holding its columns
+ * in an array in that order, each column decoded by the type the schema gives it : integer
+ * atoms as Long, real atoms as Double, uuid atoms as UUID, sets as OvsDBSet and maps as OvsDBMap.
+ *
+ * The Table classes are typed views of the same rows, a GenericTable is turned into a row of a
+ * Table class and back through the column accessors of the class, without reflection. Only
+ * the types the setters take are looked up once per class.
+ */
+public class TableCodec {
+    private static final JsonNodeFactory factory = JsonNodeFactory.instance;
+    private static final Map<DatabaseSchema, Map<String, TableCodec>> cache =
+            Collections.synchronizedMap(new WeakHashMap<DatabaseSchema, Map<String, TableCodec>>());
+
+    private enum Atom { INTEGER, REAL, BOOLEAN, STRING, UUID, ANY }
+    private enum Kind { SCALAR, SET, MAP }
+
+    private final Table.Name<GenericTable> name;
+    private final TableSchema schema;
+    private final String[] columns;
+    private final Map<String, Integer> indexes;
+    private final Kind[] kinds;
+    private final Atom[] keys;
+    private final Atom[] values;
+    private final String[] refTables;
+    private final long[] columnBits;
+    private final ConcurrentMap<Class<?>, Class<?>[]> columnTypes = Maps.newConcurrentMap();
+
+    TableCodec(String tableName, TableSchema schema) {
+        this.name = GenericTable.nameOf(tableName);
+        this.schema = schema;
+
+        Map<String, ColumnSchema> columnSchemas = new TreeMap<String, ColumnSchema>();
+        if (schema.getColumns() != null) columnSchemas.putAll(schema.getColumns());
+
+        int count = columnSchemas.size();
+        columns = new String[count];
+        kinds = new Kind[count];
+        keys = new Atom[count];
+        values = new Atom[count];
+        refTables = new String[count];
+        ImmutableMap.Builder<String, Integer> indexBuilder = ImmutableMap.builder();
+        int index = 0;
+        for (Map.Entry<String, ColumnSchema> column : columnSchemas.entrySet()) {
+            columns[index] = column.getKey();
+            indexBuilder.put(column.getKey(), index);
+            OvsdbType type = column.getValue() != null ? column.getValue().getType() : null;
+            if (type == null) {
+                kinds[index] = Kind.SCALAR;
+                keys[index] = Atom.ANY;
+            } else {
+                keys[index] = atom(type.key);
+                values[index] = type.value != null ? atom(type.value) : null;
+                refTables[index] = type.key != null ? type.key.refTable : null;
+                if (type.value != null) {
+                    kinds[index] = Kind.MAP;
+                } else if (isScalar(type)) {
+                    kinds[index] = Kind.SCALAR;
+                } else {
+                    kinds[index] = Kind.SET;
+                }
+            }
+            index++;
+        }
+        indexes = indexBuilder.build();
+
+        ColumnMask.register(tableName, columns);
+        columnBits = new long[count];
+        for (index = 0; index < count; index++) {
+            columnBits[index] = ColumnMask.of(tableName, columns[index]);
+        }
+    }
+
+    /**
+     * Returns the codecs of the tables of a schema, built once per schema.
+     */
+    public static Map<String, TableCodec> of(DatabaseSchema schema) {
+        if (schema == null || schema.getTables() == null) return Collections.emptyMap();
+        Map<String, TableCodec> codecs = cache.get(schema);
+        if (codecs == null) {
+            ImmutableMap.Builder<String, TableCodec> builder = ImmutableMap.builder();
+            for (Map.Entry<String, TableSchema> table : schema.getTables().entrySet()) {
+                builder.put(table.getKey(), new TableCodec(table.getKey(), table.getValue()));
+            }
+            codecs = builder.build();
+            cache.put(schema, codecs);
+        }
+        return codecs;
+    }
+
+    /**
+     * Returns the codec of a table of a schema, null if the table is not in the schema.
+     */
+    public static TableCodec of(DatabaseSchema schema, String tableName) {
+        return of(schema).get(tableName);
+    }
+
+    private static Atom atom(OvsdbType.BaseType type) {
+        if (type == null || type.type == null) return Atom.ANY;
+        if (type.type.equals("integer")) return Atom.INTEGER;
+        if (type.type.equals("real")) return Atom.REAL;
+        if (type.type.equals("boolean")) return Atom.BOOLEAN;
+        if (type.type.equals("string")) return Atom.STRING;
+        if (type.type.equals("uuid")) return Atom.UUID;
+        return Atom.ANY;
+    }
+
+    /*
+     * A column holding exactly one atom, min and max default to 1
+     */
+    private static boolean isScalar(OvsdbType type) {
+        boolean minOne = type.min == null || type.min.intValue() == 1;
+        boolean maxOne = type.max == null || (type.max instanceof Number && ((Number)type.max).intValue() == 1);
+        return minOne && maxOne;
+    }
+
+    public Table.Name<GenericTable> getName() {
+        return name;
+    }
+
+    public TableSchema getSchema() {
+        return schema;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public String getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * Returns the index of a column in the rows of the table, -1 if the column is not in the table.
+     */
+    public int indexOf(String column) {
+        Integer index = indexes.get(column);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns the table referenced by the uuids of a column, null if the column holds no reference.
+     */
+    public String getRefTable(int index) {
+        return refTables[index];
+    }
+
+    /**
+     * Returns the {@link ColumnMask} of the columns named by the fields of an OVSDB row, without
+     * decoding their values. For the old row of an update these are the columns that changed.
+     */
+    public long getColumnMask(JsonNode row) {
+        long mask = ColumnMask.NONE;
+        if (row == null || !row.isObject()) return mask;
+        Iterator<String> fields = row.fieldNames();
+        while (fields.hasNext()) {
+            Integer index = indexes.get(fields.next());
+            if (index != null) mask |= columnBits[index];
+        }
+        return mask;
+    }
+
+    /**
+     * Returns an empty row of the table.
+     */
+    public GenericTable newRow() {
+        return new GenericTable(this);
+    }
+
+    /**
+     * Decodes an OVSDB row. Columns not in the table are ignored.
+     */
+    public GenericTable decode(JsonNode row) {
+        if (row == null || row.isNull()) return null;
+        if (!row.isObject()) {
+            throw new IllegalArgumentException("Expected a " + name.getName() + " row, got " + row);
+        }
+        GenericTable table = new GenericTable(this);
+        Iterator<Map.Entry<String, JsonNode>> fields = row.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            Integer index = indexes.get(field.getKey());
+            if (index == null) continue;
+            table.set(index, decodeColumn(index, field.getValue()));
+        }
+        return table;
+    }
+
+    private Object decodeColumn(int index, JsonNode node) {
+        switch (kinds[index]) {
+            case MAP:
+                if (!isTagged(node, "map")) {
+                    throw new IllegalArgumentException("Expected a map in column " + columns[index] + ", got " + node);
+                }
+                JsonNode pairs = node.get(1);
+                List<Object> mapKeys = new ArrayList<Object>(pairs.size());
+                List<Object> mapValues = new ArrayList<Object>(pairs.size());
+                for (JsonNode pair : pairs) {
+                    mapKeys.add(decodeAtom(keys[index], pair.get(0)));
+                    mapValues.add(decodeAtom(values[index], pair.get(1)));
+                }
+                return OvsDBMap.copyOf(mapKeys, mapValues);
+            case SET:
+                if (!isTagged(node, "set")) {
+                    return OvsDBSet.copyOf(Collections.singletonList(decodeAtom(keys[index], node)));
+                }
+                List<Object> elements = new ArrayList<Object>(node.get(1).size());
+                for (JsonNode element : node.get(1)) {
+                    elements.add(decodeAtom(keys[index], element));
+                }
+                return OvsDBSet.copyOf(elements);
+            default:
+                return decodeAtom(keys[index], node);
+        }
+    }
+
+    private static boolean isTagged(JsonNode node, String tag) {
+        return node.isArray() && node.size() == 2 && tag.equals(node.get(0).asText()) && node.get(1).isArray();
+    }
+
+    private static Object decodeAtom(Atom atom, JsonNode node) {
+        if (node.isArray() && node.size() == 2) {
+            String tag = node.get(0).asText();
+            if (tag.equals("uuid") || tag.equals("named-uuid")) return UUID.parse(node.get(1).asText());
+        }
+        switch (atom) {
+            case INTEGER:
+                if (node.isIntegralNumber()) return node.canConvertToLong() ? node.longValue() : node.bigIntegerValue();
+                break;
+            case REAL:
+                if (node.isNumber()) return node.doubleValue();
+                break;
+            case BOOLEAN:
+                if (node.isBoolean()) return node.booleanValue();
+                break;
+            case STRING:
+                if (node.isTextual()) return node.textValue();
+                break;
+            default:
+                if (node.isBoolean()) return node.booleanValue();
+                if (node.isFloatingPointNumber()) return node.doubleValue();
+                if (node.isIntegralNumber()) return node.canConvertToLong() ? node.longValue() : node.bigIntegerValue();
+                if (node.isTextual()) return node.textValue();
+        }
+        throw new IllegalArgumentException("Expected a " + atom.name().toLowerCase() + " atom, got " + node);
+    }
+
+    /**
+     * Encodes a row of the table as an OVSDB row holding the columns that are set.
+     */
+    public ObjectNode encode(GenericTable row) {
+        ObjectNode node = factory.objectNode();
+        for (int index = 0; index < columns.length; index++) {
+            Object value = row.get(index);
+            if (value != null) node.set(columns[index], encodeValue(value));
+        }
+        return node;
+    }
+
+    private static JsonNode encodeValue(Object value) {
+        if (value instanceof Map) {
+            ArrayNode pairs = factory.arrayNode();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                pairs.add(factory.arrayNode().add(encodeAtom(entry.getKey())).add(encodeAtom(entry.getValue())));
+            }
+            return factory.arrayNode().add("map").add(pairs);
+        }
+        if (value instanceof Collection) {
+            ArrayNode elements = factory.arrayNode();
+            for (Object element : (Collection<?>)value) {
+                elements.add(encodeAtom(element));
+            }
+            return factory.arrayNode().add("set").add(elements);
+        }
+        return encodeAtom(value);
+    }
+
+    private static JsonNode encodeAtom(Object atom) {
+        if (atom instanceof UUID) {
+            UUID uuid = (UUID)atom;
+            return factory.arrayNode().add(uuid.isNamed() ? "named-uuid" : "uuid").add(uuid.toString());
+        }
+        if (atom instanceof Long || atom instanceof Integer) return factory.numberNode(((Number)atom).longValue());
+        if (atom instanceof BigInteger) return factory.numberNode((BigInteger)atom);
+        if (atom instanceof Number) return factory.numberNode(((Number)atom).doubleValue());
+        if (atom instanceof Boolean) return factory.booleanNode((Boolean)atom);
+        return factory.textNode(String.valueOf(atom));
+    }
+
+    /**
+     * Returns a row of the Table class of a given row, e.g. a row of Tables, holding the columns
+     * of a row of the table. Columns the Table class has no setter for are left out.
+     */
+    public Table<?> toTable(GenericTable row, Table<?> prototype) {
+        Table<?> table = prototype.newRow();
+        Class<?>[] types = columnTypes(prototype.getClass());
+        for (int index = 0; index < types.length; index++) {
+            Object value = row.get(index);
+            if (value == null || types[index] == null) continue;
+            value = adapt(types[index], value);
+            if (value != null) table.setColumnValue(columns[index], value);
+        }
+        return table;
+    }
+
+    /**
+     * Returns a GenericTable holding the columns of a row of a Table class.
+     */
+    public GenericTable fromTable(Table<?> table) {
+        if (table instanceof GenericTable) return (GenericTable)table;
+        GenericTable row = new GenericTable(this);
+        for (int index = 0; index < columns.length; index++) {
+            row.set(index, table.getColumnValue(columns[index]));
+        }
+        return row;
+    }
+
+    /*
+     * The types the setters of a Table class take, by column index, null for the columns
+     * without a setter. They are looked up once per class.
+     */
+    private Class<?>[] columnTypes(Class<?> tableClass) {
+        Class<?>[] types = columnTypes.get(tableClass);
+        if (types == null) {
+            Map<String, Method> setters = TableColumns.getSetters(tableClass);
+            types = new Class<?>[columns.length];
+            for (int index = 0; index < columns.length; index++) {
+                Method setter = setters.get(columns[index]);
+                if (setter != null) types[index] = setter.getParameterTypes()[0];
+            }
+            columnTypes.putIfAbsent(tableClass, types);
+        }
+        return types;
+    }
+
+    /*
+     * A few columns of the Table classes are declared with a narrower type than the atoms
+     * decoded from the schema, e.g. Integer for an integer column.
+     */
+    private static Object adapt(Class<?> type, Object value) {
+        if (type.isInstance(value)) return value;
+        if (value instanceof Number) {
+            if (type == Integer.class) return ((Number)value).intValue();
+            if (type == Long.class) return ((Number)value).longValue();
+            if (type == Double.class) return ((Number)value).doubleValue();
+            if (type == BigInteger.class) return BigInteger.valueOf(((Number)value).longValue());
+        }
+        return null;
+    }
+}
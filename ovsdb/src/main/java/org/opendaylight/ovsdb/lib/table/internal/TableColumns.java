@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.lib.table.internal;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Access to the columns of the Table classes. A column named foo_bar is read through the
+ * getFoo_bar getter and written through the setFoo_bar setter. The getters and setters are
+ * looked up by reflection once per class to list the columns, the values are read and written
+ * through the column accessors of the rows. The columns of a GenericTable row are read from
+ * the row itself.
+ */
+public class TableColumns {
+    private static final ConcurrentMap<Class<?>, Map<String, Method>> getters = Maps.newConcurrentMap();
+    private static final ConcurrentMap<Class<?>, Map<String, Method>> setters = Maps.newConcurrentMap();
+
+    /**
+     * Returns the column getters of a Table class keyed by column name, sorted by column name.
+     */
+    public static Map<String, Method> getGetters(Class<?> tableClass) {
+        Map<String, Method> columns = getters.get(tableClass);
+        if (columns != null) return columns;
+
+        columns = new TreeMap<String, Method>();
+        for (Method method : tableClass.getMethods()) {
+            String name = method.getName();
+            if (!name.startsWith("get") || name.length() < 4 || method.getParameterTypes().length != 0) continue;
+            if (Modifier.isStatic(method.getModifiers()) || method.isAnnotationPresent(JsonIgnore.class)) continue;
+            if (method.getDeclaringClass() == Table.class || method.getDeclaringClass() == Object.class) continue;
+            if (name.equals("getTableName") || name.equals("getColumns")) continue;
+            columns.put(Character.toLowerCase(name.charAt(3)) + name.substring(4), method);
+        }
+        columns = Collections.unmodifiableMap(columns);
+        Map<String, Method> existing = getters.putIfAbsent(tableClass, columns);
+        return existing != null ? existing : columns;
+    }
+
+    /**
+     * Returns the column setters of a Table class keyed by column name, sorted by column name.
+     * Columns without a setter taking the type returned by their getter are left out.
+     */
+    public static Map<String, Method> getSetters(Class<?> tableClass) {
+        Map<String, Method> columns = setters.get(tableClass);
+        if (columns != null) return columns;
+
+        columns = new TreeMap<String, Method>();
+        for (Map.Entry<String, Method> getter : getGetters(tableClass).entrySet()) {
+            String name = "set" + getter.getValue().getName().substring(3);
+            try {
+                columns.put(getter.getKey(), tableClass.getMethod(name, getter.getValue().getReturnType()));
+            } catch (NoSuchMethodException e) {
+                continue;
+            }
+        }
+        columns = Collections.unmodifiableMap(columns);
+        Map<String, Method> existing = setters.putIfAbsent(tableClass, columns);
+        return existing != null ? existing : columns;
+    }
+
+    public static Set<String> getColumnNames(Class<?> tableClass) {
+        return getGetters(tableClass).keySet();
+    }
+
+    /**
+     * Returns the names of the columns of a row, the columns of its table for a GenericTable row.
+     */
+    public static Set<String> getColumnNames(Table<?> row) {
+        if (row instanceof GenericTable) {
+            TableCodec codec = ((GenericTable)row).codec();
+            Set<String> columns = Sets.newLinkedHashSet();
+            for (int index = 0; index < codec.getColumnCount(); index++) {
+                columns.add(codec.getColumn(index));
+            }
+            return columns;
+        }
+        return getColumnNames(row.getClass());
+    }
+
+    /**
+     * Returns an empty row of the Table class of a row.
+     */
+    public static Table<?> newRow(Table<?> row) {
+        return row.newRow();
+    }
+
+    /**
+     * Returns the value of a column, null if the column is not set or not known to the Table class.
+     */
+    public static Object getColumn(Table<?> row, String column) {
+        return row.getColumnValue(column);
+    }
+
+    /**
+     * Sets a column to a value of the type of its setter, returns false if the Table class has
+     * no setter for the column.
+     */
+    public static boolean setColumn(Table<?> row, String column, Object value) {
+        return row.setColumnValue(column, value);
+    }
+
+    /**
+     * Returns the names of the columns holding a value. For the old row of an update these are
+     * the columns that changed.
+     */
+    public static Set<String> getPresentColumns(Table<?> row) {
+        Set<String> present = Sets.newHashSet();
+        if (row instanceof GenericTable) {
+            GenericTable genericRow = (GenericTable)row;
+            for (int index = 0; index < genericRow.codec().getColumnCount(); index++) {
+                if (genericRow.get(index) != null) present.add(genericRow.codec().getColumn(index));
+            }
+            return present;
+        }
+        for (String column : getColumnNames(row.getClass())) {
+            if (row.getColumnValue(column) != null) present.add(column);
+        }
+        return present;
+    }
+
+    /**
+     * Returns a row holding the old value of the columns that differ between two rows of the
+     * same table, as the old row of an update, or null if both rows hold the same values.
+     * Columns only set in the new row are left out.
+     */
+    public static Table<?> getChangedColumns(Table<?> oldRow, Table<?> newRow) {
+        if (oldRow instanceof GenericTable && newRow instanceof GenericTable) {
+            GenericTable oldGeneric = (GenericTable)oldRow;
+            GenericTable newGeneric = (GenericTable)newRow;
+            GenericTable changed = null;
+            for (int index = 0; index < oldGeneric.codec().getColumnCount(); index++) {
+                Object oldValue = oldGeneric.get(index);
+                if (oldValue == null || oldValue.equals(newGeneric.get(oldGeneric.codec().getColumn(index)))) continue;
+                if (changed == null) changed = oldGeneric.codec().newRow();
+                changed.set(index, oldValue);
+            }
+            return changed;
+        }
+        if (oldRow.getClass() != newRow.getClass()) return oldRow;
+        Table<?> changed = null;
+        for (String column : getSetters(oldRow.getClass()).keySet()) {
+            Object oldValue = oldRow.getColumnValue(column);
+            if (oldValue == null || oldValue.equals(newRow.getColumnValue(column))) continue;
+            if (changed == null) changed = oldRow.newRow();
+            changed.setColumnValue(column, oldValue);
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the old row of two successive updates of a row, holding the columns changed by
+     * either of them with their value from before the first one.
+     */
+    public static Table<?> mergeOldColumns(Table<?> older, Table<?> newer) {
+        if (older == null) return newer;
+        if (newer == null) return older;
+        if (older instanceof GenericTable && newer instanceof GenericTable) {
+            GenericTable olderGeneric = (GenericTable)older;
+            GenericTable newerGeneric = (GenericTable)newer;
+            GenericTable merged = olderGeneric.codec().newRow();
+            for (int index = 0; index < olderGeneric.codec().getColumnCount(); index++) {
+                Object value = olderGeneric.get(index);
+                if (value == null) value = newerGeneric.get(olderGeneric.codec().getColumn(index));
+                if (value != null) merged.set(index, value);
+            }
+            return merged;
+        }
+        if (older.getClass() != newer.getClass()) return older;
+        Table<?> merged = older.newRow();
+        for (String column : getSetters(older.getClass()).keySet()) {
+            Object value = older.getColumnValue(column);
+            if (value == null) value = newer.getColumnValue(column);
+            if (value != null) merged.setColumnValue(column, value);
+        }
+        return merged;
+    }
+}
@@ -115,6 +115,14 @@ public class Activator extends ComponentActivatorAbstractBase {
                     .setCallbacks("setPluginOutInventoryServices",
                             "unsetPluginOutInventoryServices")
                     .setRequired(true));
+            c.add(createServiceDependency()
+                    .setService(OVSDBInventoryListener.class)
+                    .setCallbacks("setInventoryListener", "unsetInventoryListener")
+                    .setRequired(false));
+            c.add(createServiceDependency()
+                    .setService(OVSDBBatchListener.class)
+                    .setCallbacks("setBatchListener", "unsetBatchListener")
+                    .setRequired(false));
         }
 
         if (imp.equals(NodeFactory.class)) {
@@ -0,0 +1,422 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import org.opendaylight.ovsdb.lib.message.operations.Operation;
+import org.opendaylight.ovsdb.lib.message.operations.OperationResult;
+import org.opendaylight.ovsdb.lib.message.operations.SelectOperation;
+import org.opendaylight.ovsdb.lib.message.operations.WaitOperation;
+import org.opendaylight.ovsdb.lib.notation.Condition;
+import org.opendaylight.ovsdb.lib.notation.Function;
+import org.opendaylight.ovsdb.lib.notation.UUID;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableColumns;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Evaluates the conditions of select and wait operations against the rows cached for a node,
+ * with the semantics of the OVSDB protocol: the ordering functions compare integers and reals,
+ * == and != compare whole values, includes and excludes test the elements of a set or the
+ * pairs of a map, a scalar being a set of one element.
+ *
+ * Conditions on an indexed column (see {@link NodeDB}) and on _uuid look the rows up rather
+ * than scanning the table. A query is only answered from the cache when the table is cached
+ * and every column it refers to is known to the rows of the cache, otherwise it is left to the
+ * server.
+ */
+public class CacheQuery {
+    private static final Logger logger = LoggerFactory.getLogger(CacheQuery.class);
+    private static final String UUID_COLUMN = "_uuid";
+    private static final String VERSION_COLUMN = "_version";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    static {
+        objectMapper.setSerializationInclusion(Include.NON_NULL);
+    }
+
+    /*
+     * Unwinds the evaluation of a query that cannot be answered from the cache
+     */
+    private static final class NotCached extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        NotCached(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    private CacheQuery() {
+    }
+
+    /**
+     * Returns true if the transaction holds only selects and waits, the ones the cache may answer.
+     */
+    public static boolean isReadOnly(List<Operation> operations) {
+        for (Operation operation : operations) {
+            if (!(operation instanceof SelectOperation) && !(operation instanceof WaitOperation)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Executes the operations of a transaction against the cache, returning their results in
+     * the form the server would. Returns null if the transaction holds anything but selects and
+     * waits, or if one of them cannot be answered from the cache.
+     */
+    public static List<OperationResult> execute(NodeDB db, List<Operation> operations) {
+        if (!isReadOnly(operations)) return null;
+        List<OperationResult> results = new ArrayList<OperationResult>(operations.size());
+        // Holding the batch lock, the operations see the rows of a single update
+        db.beginBatch();
+        try {
+            for (Operation operation : operations) {
+                if (operation instanceof SelectOperation) {
+                    results.add(select(db, (SelectOperation)operation));
+                } else {
+                    results.add(wait(db, (WaitOperation)operation));
+                }
+            }
+        } catch (NotCached e) {
+            logger.trace("Transaction left to the server : {}", e.getMessage());
+            return null;
+        } catch (RuntimeException e) {
+            logger.debug("Failed to evaluate a transaction against the cache, leaving it to the server", e);
+            return null;
+        } finally {
+            db.endBatch();
+        }
+        return results;
+    }
+
+    /**
+     * Returns the rows of a table matching every condition, keyed by uuid, or null if the
+     * conditions cannot be evaluated against the cache.
+     */
+    public static Map<String, Table<?>> select(NodeDB db, String tableName, List<Condition> where) {
+        try {
+            return rows(db, tableName, where);
+        } catch (NotCached e) {
+            return null;
+        }
+    }
+
+    private static OperationResult select(NodeDB db, SelectOperation select) throws NotCached {
+        Map<String, Table<?>> rows = rows(db, select.getTable(), select.getWhere());
+        ArrayList<Object> result = new ArrayList<Object>(rows.size());
+        for (Map.Entry<String, Table<?>> row : rows.entrySet()) {
+            List<String> columns = select.getColumns();
+            if (columns == null) {
+                columns = new ArrayList<String>(TableColumns.getColumnNames(row.getValue()));
+                columns.add(UUID_COLUMN);
+            }
+            Map<String, Object> projected = new LinkedHashMap<String, Object>();
+            for (String column : columns) {
+                if (column.equals(UUID_COLUMN)) {
+                    projected.put(column, Arrays.asList("uuid", row.getKey()));
+                    continue;
+                }
+                Object value = column(row.getKey(), row.getValue(), column);
+                projected.put(column, objectMapper.convertValue(value, Object.class));
+            }
+            result.add(projected);
+        }
+        OperationResult operationResult = new OperationResult();
+        operationResult.setRows(result);
+        return operationResult;
+    }
+
+    /*
+     * A wait whose condition does not hold yet is only answered locally when it would time out
+     * right away, the server does the waiting otherwise.
+     */
+    private static OperationResult wait(NodeDB db, WaitOperation wait) throws NotCached {
+        boolean equal;
+        if (WaitOperation.EQUALS.equals(wait.getUntil())) {
+            equal = true;
+        } else if (WaitOperation.NOT_EQUALS.equals(wait.getUntil())) {
+            equal = false;
+        } else {
+            throw new NotCached("wait until " + wait.getUntil());
+        }
+        List<String> columns = wait.getColumns() != null ? wait.getColumns() : Collections.<String>emptyList();
+        List<List<Object>> actual = new ArrayList<List<Object>>();
+        for (Map.Entry<String, Table<?>> row : rows(db, wait.getTable(), wait.getWhere()).entrySet()) {
+            List<Object> values = new ArrayList<Object>(columns.size());
+            for (String column : columns) {
+                values.add(normalize(column(row.getKey(), row.getValue(), column)));
+            }
+            actual.add(values);
+        }
+        List<List<Object>> expected = new ArrayList<List<Object>>();
+        if (wait.getRows() != null) {
+            for (Table<?> row : wait.getRows()) {
+                List<Object> values = new ArrayList<Object>(columns.size());
+                for (String column : columns) {
+                    Object value = TableColumns.getColumn(row, column);
+                    if (value == null) throw new NotCached("wait on a row without " + column);
+                    values.add(normalize(value));
+                }
+                expected.add(values);
+            }
+        }
+        OperationResult result = new OperationResult();
+        if (sameRows(actual, expected) == equal) return result;
+        if (wait.getTimeout() == null || wait.getTimeout() != 0) throw new NotCached("wait");
+        result.setError("timed out");
+        result.setDetails("\"wait\" timed out");
+        return result;
+    }
+
+    private static Map<String, Table<?>> rows(NodeDB db, String tableName, List<Condition> where) throws NotCached {
+        ConcurrentMap<String, Table<?>> tableCache = db.getTableCache(tableName);
+        if (tableCache == null) throw new NotCached("table " + tableName);
+        if (where == null) where = Collections.emptyList();
+        Map<String, Table<?>> rows = new LinkedHashMap<String, Table<?>>();
+        Set<String> uuids = lookup(db, tableCache, tableName, where);
+        if (uuids != null) {
+            for (String uuid : uuids) {
+                Table<?> row = tableCache.get(uuid);
+                if (row != null && matchesAll(uuid, row, where)) rows.put(uuid, row);
+            }
+            return rows;
+        }
+        for (Map.Entry<String, Table<?>> row : tableCache.entrySet()) {
+            if (matchesAll(row.getKey(), row.getValue(), where)) rows.put(row.getKey(), row.getValue());
+        }
+        return rows;
+    }
+
+    /*
+     * Returns the uuids of the rows a condition on _uuid or on an indexed column narrows the
+     * query to, the fewest of them, or null if the table is to be scanned.
+     */
+    private static Set<String> lookup(NodeDB db, Map<String, Table<?>> tableCache, String tableName,
+                                      List<Condition> where) {
+        Set<String> best = null;
+        for (Condition condition : where) {
+            Function function = condition.getFunction();
+            if (function != Function.EQUALS && function != Function.INCLUDES) continue;
+            Object value = normalize(condition.getValue());
+            Set<String> uuids = null;
+            if (condition.getColumn().equals(UUID_COLUMN)) {
+                if (!(value instanceof List) || ((List<?>)value).size() != 1) continue;
+                String uuid = ((List<?>)value).get(0).toString();
+                uuids = tableCache.containsKey(uuid) ? Collections.singleton(uuid) : Collections.<String>emptySet();
+            } else if (value instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                    Set<String> keyUuids = db.getIndexedUuids(tableName,
+                            ColumnIndex.spec(condition.getColumn(), entry.getKey().toString()), entry.getValue().toString());
+                    if (keyUuids != null && (uuids == null || keyUuids.size() < uuids.size())) uuids = keyUuids;
+                }
+            } else if (((List<?>)value).size() == 1) {
+                uuids = db.getIndexedUuids(tableName, condition.getColumn(), ((List<?>)value).get(0).toString());
+            }
+            if (uuids != null && (best == null || uuids.size() < best.size())) best = uuids;
+        }
+        return best;
+    }
+
+    /**
+     * Returns true if the row matches every condition.
+     *
+     * @throws IllegalArgumentException if a condition cannot be evaluated against the row
+     */
+    public static boolean matches(String uuid, Table<?> row, List<Condition> where) {
+        try {
+            return matchesAll(uuid, row, where);
+        } catch (NotCached e) {
+            throw new IllegalArgumentException(e.getMessage());
+        }
+    }
+
+    private static boolean matchesAll(String uuid, Table<?> row, List<Condition> where) throws NotCached {
+        for (Condition condition : where) {
+            Object column = normalize(column(uuid, row, condition.getColumn()));
+            if (!evaluate(condition.getFunction(), column, normalize(condition.getValue()))) return false;
+        }
+        return true;
+    }
+
+    private static Object column(String uuid, Table<?> row, String column) throws NotCached {
+        if (column.equals(UUID_COLUMN)) return new UUID(uuid);
+        if (column.equals(VERSION_COLUMN) || !TableColumns.getColumnNames(row).contains(column)) {
+            throw new NotCached("column " + column);
+        }
+        Object value = TableColumns.getColumn(row, column);
+        if (value == null) throw new NotCached("column " + column + " not cached");
+        return value;
+    }
+
+    private static boolean evaluate(Function function, Object column, Object value) throws NotCached {
+        switch (function) {
+        case LESS_THAN:
+            return compare(column, value) < 0;
+        case LESS_THAN_OR_EQUALS:
+            return compare(column, value) <= 0;
+        case GREATER_THAN:
+            return compare(column, value) > 0;
+        case GREATER_THAN_OR_EQUALS:
+            return compare(column, value) >= 0;
+        case EQUALS:
+            return sameValue(column, value);
+        case NOT_EQUALS:
+            return !sameValue(column, value);
+        case INCLUDES:
+            return contains(column, value, true);
+        case EXCLUDES:
+            return contains(column, value, false);
+        default:
+            throw new NotCached("function " + function);
+        }
+    }
+
+    /*
+     * Values are normalized to a list of atoms for scalars and sets, or to a map of atoms
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> map = new LinkedHashMap<Object, Object>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                map.put(atom(entry.getKey()), atom(entry.getValue()));
+            }
+            return map;
+        }
+        if (value instanceof Collection) {
+            List<Object> atoms = new ArrayList<Object>(((Collection<?>)value).size());
+            for (Object element : (Collection<?>)value) {
+                atoms.add(atom(element));
+            }
+            return atoms;
+        }
+        return Collections.singletonList(atom(value));
+    }
+
+    private static Object atom(Object value) {
+        if (value instanceof UUID) return value.toString();
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte
+                || value instanceof BigInteger) {
+            return ((Number)value).longValue();
+        }
+        if (value instanceof Float || value instanceof BigDecimal) return ((Number)value).doubleValue();
+        return value;
+    }
+
+    private static boolean atomEquals(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            if (a instanceof Long && b instanceof Long) return a.equals(b);
+            return ((Number)a).doubleValue() == ((Number)b).doubleValue();
+        }
+        return a != null && a.equals(b);
+    }
+
+    private static int compare(Object column, Object value) throws NotCached {
+        Number a = number(column);
+        Number b = number(value);
+        if (a instanceof Long && b instanceof Long) return ((Long)a).compareTo((Long)b);
+        return Double.compare(a.doubleValue(), b.doubleValue());
+    }
+
+    private static Number number(Object value) throws NotCached {
+        if (value instanceof List && ((List<?>)value).size() == 1 && ((List<?>)value).get(0) instanceof Number) {
+            return (Number)((List<?>)value).get(0);
+        }
+        throw new NotCached("ordering of " + value);
+    }
+
+    private static boolean sameValue(Object column, Object value) throws NotCached {
+        if (column instanceof Map && value instanceof Map) {
+            Map<?, ?> columnMap = (Map<?, ?>)column;
+            Map<?, ?> valueMap = (Map<?, ?>)value;
+            return columnMap.size() == valueMap.size() && contains(column, value, true);
+        }
+        if (column instanceof List && value instanceof List) {
+            return contains(column, value, true) && contains(value, column, true);
+        }
+        throw new NotCached("comparison of " + column + " and " + value);
+    }
+
+    /*
+     * With all true, returns true if the column holds every element or pair of the value, with
+     * all false, returns true if it holds none of them.
+     */
+    private static boolean contains(Object column, Object value, boolean all) throws NotCached {
+        if (column instanceof Map && value instanceof Map) {
+            for (Map.Entry<?, ?> pair : ((Map<?, ?>)value).entrySet()) {
+                if (containsPair((Map<?, ?>)column, pair) != all) return false;
+            }
+            return true;
+        }
+        if (column instanceof List && value instanceof List) {
+            for (Object element : (List<?>)value) {
+                if (containsAtom((List<?>)column, element) != all) return false;
+            }
+            return true;
+        }
+        throw new NotCached("inclusion of " + value + " in " + column);
+    }
+
+    private static boolean containsAtom(List<?> atoms, Object atom) {
+        for (Object element : atoms) {
+            if (atomEquals(element, atom)) return true;
+        }
+        return false;
+    }
+
+    private static boolean containsPair(Map<?, ?> map, Map.Entry<?, ?> pair) {
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (atomEquals(entry.getKey(), pair.getKey()) && atomEquals(entry.getValue(), pair.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Compares the rows as multisets of projected rows, the way the server does for a wait.
+     */
+    private static boolean sameRows(List<List<Object>> actual, List<List<Object>> expected) throws NotCached {
+        if (actual.size() != expected.size()) return false;
+        List<List<Object>> unmatched = new ArrayList<List<Object>>(expected);
+        for (List<Object> row : actual) {
+            boolean found = false;
+            for (int i = 0; i < unmatched.size() && !found; i++) {
+                if (sameRow(row, unmatched.get(i))) {
+                    unmatched.remove(i);
+                    found = true;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    private static boolean sameRow(List<Object> a, List<Object> b) throws NotCached {
+        for (int i = 0; i < a.size(); i++) {
+            if (!sameValue(a.get(i), b.get(i))) return false;
+        }
+        return true;
+    }
+}
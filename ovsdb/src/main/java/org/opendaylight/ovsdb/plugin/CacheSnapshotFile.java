@@ -0,0 +1,510 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
+import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
+import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
+import org.opendaylight.ovsdb.lib.notation.UUID;
+import org.opendaylight.ovsdb.lib.table.internal.GenericTable;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableCodec;
+import org.opendaylight.ovsdb.lib.table.internal.Tables;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Maps;
+
+/**
+ * Binary snapshot of the caches of the nodes, written periodically so that a restarted
+ * controller holds the rows of the nodes before they connect again.
+ *
+ * The file starts with a magic number and the version of the format, a file of another
+ * version is ignored. It then holds the schemas of the nodes, as their JSON, each written
+ * once, and for every node its rows. A row is its uuid followed by its columns, each as the
+ * index of the column among the columns of the table in the schema and a tagged binary
+ * value. The file ends with the CRC32 of its content.
+ *
+ * The file is written through memory-mapped regions to a temporary file renamed once complete,
+ * and read through a mapping of the whole file.
+ */
+public class CacheSnapshotFile {
+    static final int MAGIC = 0x4f56534e;
+    static final int FORMAT_VERSION = 1;
+    private static final int REGION_SIZE = 1 << 20;
+
+    private static final byte STRING = 0;
+    private static final byte INTEGER = 1;
+    private static final byte REAL = 2;
+    private static final byte TRUE = 3;
+    private static final byte FALSE = 4;
+    private static final byte UUID_ATOM = 5;
+    private static final byte NAMED_UUID = 6;
+    private static final byte BIG_INTEGER = 7;
+    private static final byte SET = 8;
+    private static final byte MAP = 9;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Map<String, Table<?>> prototypes = Maps.newHashMap();
+
+    static {
+        objectMapper.setSerializationInclusion(Include.NON_NULL);
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        for (Table<?> table : Tables.getTables()) {
+            prototypes.put(table.getTableName().getName(), table);
+        }
+    }
+
+    /**
+     * The cache of a node as read from a snapshot file.
+     */
+    public static final class NodeCache {
+        private final Node node;
+        private final DatabaseSchema schema;
+        private final Map<String, ConcurrentMap<String, Table<?>>> tables;
+
+        NodeCache(Node node, DatabaseSchema schema, Map<String, ConcurrentMap<String, Table<?>>> tables) {
+            this.node = node;
+            this.schema = schema;
+            this.tables = tables;
+        }
+
+        public Node getNode() {
+            return node;
+        }
+
+        public DatabaseSchema getSchema() {
+            return schema;
+        }
+
+        public Map<String, ConcurrentMap<String, Table<?>>> getTables() {
+            return tables;
+        }
+    }
+
+    private CacheSnapshotFile() {
+    }
+
+    /**
+     * Writes the caches of the nodes, as of their last applied update. Nodes without a schema
+     * are left out.
+     *
+     * @return the size of the file
+     */
+    public static long write(File file, Map<Node, NodeDB> dbs) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        CRC32 crc = new CRC32();
+        long size;
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw")) {
+            raf.setLength(0);
+            MappedWriter writer = new MappedWriter(raf.getChannel(), crc);
+
+            Map<DatabaseSchema, Integer> schemas = new IdentityHashMap<DatabaseSchema, Integer>();
+            Map<Node, NodeSnapshot> snapshots = new LinkedHashMap<Node, NodeSnapshot>();
+            Map<Node, DatabaseSchema> nodeSchemas = Maps.newHashMap();
+            for (Map.Entry<Node, NodeDB> entry : dbs.entrySet()) {
+                DatabaseSchema schema = entry.getValue().getSchema();
+                if (schema == null) continue;
+                if (!schemas.containsKey(schema)) schemas.put(schema, schemas.size());
+                nodeSchemas.put(entry.getKey(), schema);
+                snapshots.put(entry.getKey(), entry.getValue().peekSnapshot());
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+            writeVarint(out, schemas.size());
+            DatabaseSchema[] ordered = new DatabaseSchema[schemas.size()];
+            for (Map.Entry<DatabaseSchema, Integer> schema : schemas.entrySet()) {
+                ordered[schema.getValue()] = schema.getKey();
+            }
+            for (DatabaseSchema schema : ordered) {
+                writeSchema(out, schema);
+            }
+            writeVarint(out, snapshots.size());
+            writer.write(bytes);
+
+            for (Map.Entry<Node, NodeSnapshot> entry : snapshots.entrySet()) {
+                DatabaseSchema schema = nodeSchemas.get(entry.getKey());
+                writeNode(out, entry.getKey(), schemas.get(schema), schema, entry.getValue());
+                writer.write(bytes);
+            }
+            size = writer.finish();
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return size;
+    }
+
+    private static void writeNode(DataOutputStream out, Node node, int schemaIndex, DatabaseSchema schema,
+                                  NodeSnapshot snapshot) throws IOException {
+        writeString(out, node.getType());
+        writeString(out, node.getNodeIDString());
+        writeVarint(out, schemaIndex);
+        Map<String, Map<String, Table<?>>> tables = new LinkedHashMap<String, Map<String, Table<?>>>();
+        for (String tableName : snapshot.getTableNames()) {
+            if (TableCodec.of(schema, tableName) != null) tables.put(tableName, snapshot.getRows(tableName));
+        }
+        writeTables(out, schema, tables);
+    }
+
+    /*
+     * Writes the rows of tables described by the schema, also the encoding of the spilled caches.
+     */
+    static void writeTables(DataOutputStream out, DatabaseSchema schema,
+                            Map<String, ? extends Map<String, Table<?>>> tables) throws IOException {
+        writeVarint(out, tables.size());
+        for (Map.Entry<String, ? extends Map<String, Table<?>>> table : tables.entrySet()) {
+            String tableName = table.getKey();
+            TableCodec codec = TableCodec.of(schema, tableName);
+            Map<String, Table<?>> rows = table.getValue();
+            writeString(out, tableName);
+            writeVarint(out, rows.size());
+            for (Map.Entry<String, Table<?>> row : rows.entrySet()) {
+                writeAtom(out, new UUID(row.getKey()));
+                writeRow(out, codec, row.getValue());
+            }
+        }
+    }
+
+    /*
+     * Writes the columns of a row that hold a value.
+     */
+    static void writeRow(DataOutputStream out, TableCodec codec, Table<?> row) throws IOException {
+        GenericTable columns = codec.fromTable(row);
+        int count = 0;
+        for (int index = 0; index < codec.getColumnCount(); index++) {
+            if (columns.get(index) != null) count++;
+        }
+        writeVarint(out, count);
+        for (int index = 0; index < codec.getColumnCount(); index++) {
+            Object value = columns.get(index);
+            if (value == null) continue;
+            writeVarint(out, index);
+            writeValue(out, value);
+        }
+    }
+
+    /**
+     * Reads the caches of the nodes, empty if the file is missing or of another format.
+     *
+     * @throws IOException if the file cannot be read or is corrupted
+     */
+    public static List<NodeCache> read(File file) throws IOException {
+        List<NodeCache> caches = new ArrayList<NodeCache>();
+        if (!file.exists()) return caches;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) throw new IOException("Snapshot file " + file + " too large");
+            if (length < 20) throw new IOException("Snapshot file " + file + " truncated");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (buffer.getInt(0) != MAGIC) throw new IOException(file + " is not a snapshot file");
+            if (buffer.getInt(4) != FORMAT_VERSION) return caches;
+
+            int contentLength = (int)length - 4;
+            CRC32 crc = new CRC32();
+            byte[] chunk = new byte[64 * 1024];
+            ByteBuffer content = buffer.duplicate();
+            content.limit(contentLength);
+            while (content.hasRemaining()) {
+                int n = Math.min(chunk.length, content.remaining());
+                content.get(chunk, 0, n);
+                crc.update(chunk, 0, n);
+            }
+            if ((int)crc.getValue() != buffer.getInt(contentLength)) {
+                throw new IOException("Snapshot file " + file + " is corrupted");
+            }
+
+            ByteBuffer in = buffer.duplicate();
+            in.limit(contentLength);
+            in.position(16);
+            try {
+                DatabaseSchema[] schemas = new DatabaseSchema[readVarint(in)];
+                for (int i = 0; i < schemas.length; i++) {
+                    schemas[i] = readSchema(in);
+                }
+                int nodes = readVarint(in);
+                for (int i = 0; i < nodes; i++) {
+                    caches.add(readNode(in, schemas));
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException | ConstructionException e) {
+                throw new IOException("Snapshot file " + file + " is corrupted", e);
+            }
+        }
+        return caches;
+    }
+
+    private static NodeCache readNode(ByteBuffer in, DatabaseSchema[] schemas) throws ConstructionException {
+        Node node = new Node(readString(in), readString(in));
+        DatabaseSchema schema = schemas[readVarint(in)];
+        return new NodeCache(node, schema, readTables(in, schema));
+    }
+
+    static Map<String, ConcurrentMap<String, Table<?>>> readTables(ByteBuffer in, DatabaseSchema schema) {
+        int tableCount = readVarint(in);
+        Map<String, ConcurrentMap<String, Table<?>>> tables = Maps.newHashMap();
+        for (int t = 0; t < tableCount; t++) {
+            String tableName = readString(in);
+            TableCodec codec = TableCodec.of(schema, tableName);
+            if (codec == null) throw new IllegalArgumentException("Table " + tableName + " not in the schema");
+            int rowCount = readVarint(in);
+            ConcurrentMap<String, Table<?>> rows = new ConcurrentHashMap<String, Table<?>>(rowCount * 4 / 3 + 1);
+            for (int r = 0; r < rowCount; r++) {
+                String uuid = readAtom(in).toString();
+                rows.put(uuid, readRow(in, codec));
+            }
+            tables.put(tableName, rows);
+        }
+        return tables;
+    }
+
+    /*
+     * Reads a row written by writeRow, as a Table object when the table has a Table class.
+     */
+    static Table<?> readRow(ByteBuffer in, TableCodec codec) {
+        GenericTable row = codec.newRow();
+        int columns = readVarint(in);
+        for (int c = 0; c < columns; c++) {
+            int index = readVarint(in);
+            if (index >= codec.getColumnCount()) {
+                throw new IllegalArgumentException("Column " + index + " of " + codec.getName().getName());
+            }
+            row.set(index, readValue(in));
+        }
+        Table<?> table = prototypes.get(codec.getName().getName());
+        return table != null ? codec.toTable(row, table) : row;
+    }
+
+    /*
+     * Appends the content of the buffer to the file through mapped regions, updating the CRC.
+     */
+    private static final class MappedWriter {
+        private final FileChannel channel;
+        private final CRC32 crc;
+        private MappedByteBuffer region;
+        private long regionStart;
+
+        MappedWriter(FileChannel channel, CRC32 crc) {
+            this.channel = channel;
+            this.crc = crc;
+        }
+
+        void write(ByteArrayOutputStream bytes) throws IOException {
+            byte[] array = bytes.toByteArray();
+            crc.update(array, 0, array.length);
+            put(array);
+            bytes.reset();
+        }
+
+        private void put(byte[] array) throws IOException {
+            int offset = 0;
+            while (offset < array.length) {
+                if (region == null || !region.hasRemaining()) {
+                    if (region != null) region.force();
+                    regionStart = region == null ? 0 : regionStart + region.capacity();
+                    region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, REGION_SIZE);
+                }
+                int n = Math.min(array.length - offset, region.remaining());
+                region.put(array, offset, n);
+                offset += n;
+            }
+        }
+
+        long finish() throws IOException {
+            ByteBuffer trailer = ByteBuffer.allocate(4);
+            trailer.putInt((int)crc.getValue());
+            put(trailer.array());
+            long size = regionStart + region.position();
+            region.force();
+            channel.truncate(size);
+            return size;
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>)value;
+            out.writeByte(MAP);
+            writeVarint(out, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeAtom(out, entry.getKey());
+                writeAtom(out, entry.getValue());
+            }
+        } else if (value instanceof Collection) {
+            Collection<?> set = (Collection<?>)value;
+            out.writeByte(SET);
+            writeVarint(out, set.size());
+            for (Object element : set) {
+                writeAtom(out, element);
+            }
+        } else {
+            writeAtom(out, value);
+        }
+    }
+
+    private static void writeAtom(DataOutputStream out, Object atom) throws IOException {
+        if (atom instanceof UUID) {
+            UUID uuid = (UUID)atom;
+            if (uuid.isNamed()) {
+                out.writeByte(NAMED_UUID);
+                writeString(out, uuid.toString());
+            } else {
+                out.writeByte(UUID_ATOM);
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+            }
+        } else if (atom instanceof Long || atom instanceof Integer || atom instanceof Short || atom instanceof Byte) {
+            long value = ((Number)atom).longValue();
+            out.writeByte(INTEGER);
+            writeVarlong(out, (value << 1) ^ (value >> 63));
+        } else if (atom instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeString(out, atom.toString());
+        } else if (atom instanceof Number) {
+            out.writeByte(REAL);
+            out.writeDouble(((Number)atom).doubleValue());
+        } else if (atom instanceof Boolean) {
+            out.writeByte((Boolean)atom ? TRUE : FALSE);
+        } else {
+            out.writeByte(STRING);
+            writeString(out, String.valueOf(atom));
+        }
+    }
+
+    private static Object readValue(ByteBuffer in) {
+        byte tag = in.get(in.position());
+        if (tag == MAP) {
+            in.get();
+            int size = readVarint(in);
+            List<Object> keys = new ArrayList<Object>(size);
+            List<Object> values = new ArrayList<Object>(size);
+            for (int i = 0; i < size; i++) {
+                keys.add(readAtom(in));
+                values.add(readAtom(in));
+            }
+            return OvsDBMap.copyOf(keys, values);
+        }
+        if (tag == SET) {
+            in.get();
+            int size = readVarint(in);
+            List<Object> elements = new ArrayList<Object>(size);
+            for (int i = 0; i < size; i++) {
+                elements.add(readAtom(in));
+            }
+            return OvsDBSet.copyOf(elements);
+        }
+        return readAtom(in);
+    }
+
+    private static Object readAtom(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+        case STRING:
+            return readString(in);
+        case INTEGER:
+            long value = readVarlong(in);
+            return (value >>> 1) ^ -(value & 1);
+        case REAL:
+            return in.getDouble();
+        case TRUE:
+            return Boolean.TRUE;
+        case FALSE:
+            return Boolean.FALSE;
+        case UUID_ATOM:
+            return new UUID(in.getLong(), in.getLong());
+        case NAMED_UUID:
+            return new UUID(readString(in));
+        case BIG_INTEGER:
+            return new BigInteger(readString(in));
+        default:
+            throw new IllegalArgumentException("Unknown value tag " + tag);
+        }
+    }
+
+    static void writeSchema(DataOutputStream out, DatabaseSchema schema) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(schema);
+        writeVarint(out, json.length);
+        out.write(json);
+    }
+
+    static DatabaseSchema readSchema(ByteBuffer in) throws IOException {
+        byte[] json = new byte[readVarint(in)];
+        in.get(json);
+        return objectMapper.readValue(json, DatabaseSchema.class);
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[readVarint(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeVarint(DataOutputStream out, int value) throws IOException {
+        writeVarlong(out, value & 0xffffffffL);
+    }
+
+    private static void writeVarlong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int)((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int)value);
+    }
+
+    static int readVarint(ByteBuffer in) {
+        long value = readVarlong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) throw new IllegalArgumentException("Invalid length " + value);
+        return (int)value;
+    }
+
+    private static long readVarlong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long)(b & 0x7f) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Invalid varint");
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bounded journal of the changes applied to the cache of a node. Every update applied in full
+ * is appended with the next sequence number of the node, the oldest updates are dropped once
+ * the journal holds more row changes than its capacity.
+ *
+ * A consumer keeps the sequence number it is at and asks for the changes since then. When
+ * some of them were dropped, or were applied without being journaled such as the initial dump,
+ * the consumer starts over from a {@link NodeSnapshot} and its sequence number.
+ */
+public final class ChangeJournal {
+    private final int capacity;
+    private final ArrayDeque<Entry> entries = new ArrayDeque<Entry>();
+    private int size;
+    /*
+     * The journal holds every change after firstSequence up to lastSequence
+     */
+    private long firstSequence;
+    private long lastSequence;
+
+    private static final class Entry {
+        final long sequence;
+        final List<RowChange> changes;
+
+        Entry(long sequence, List<RowChange> changes) {
+            this.sequence = sequence;
+            this.changes = changes;
+        }
+    }
+
+    /**
+     * The changes of a node between two sequence numbers.
+     */
+    public static final class Changes {
+        private final long fromSequence;
+        private final long sequence;
+        private final List<RowChange> changes;
+
+        Changes(long fromSequence, long sequence, List<RowChange> changes) {
+            this.fromSequence = fromSequence;
+            this.sequence = sequence;
+            this.changes = changes;
+        }
+
+        /**
+         * Returns the sequence number the changes apply to.
+         */
+        public long getFromSequence() {
+            return fromSequence;
+        }
+
+        /**
+         * Returns the sequence number the node is at once the changes are applied, the one to
+         * resume from.
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Returns the changes in the order they were applied.
+         */
+        public List<RowChange> getChanges() {
+            return changes;
+        }
+
+        @Override
+        public String toString() {
+            return "Changes [fromSequence=" + fromSequence + ", sequence=" + sequence
+                    + ", changes=" + changes.size() + "]";
+        }
+    }
+
+    ChangeJournal(int capacity, long sequence) {
+        this.capacity = capacity;
+        this.firstSequence = sequence;
+        this.lastSequence = sequence;
+    }
+
+    /**
+     * Appends the changes of an update, the sequence number increasing with every update.
+     */
+    synchronized void append(long sequence, List<RowChange> changes) {
+        entries.addLast(new Entry(sequence, Collections.unmodifiableList(changes)));
+        size += changes.size();
+        lastSequence = sequence;
+        while (size > capacity && !entries.isEmpty()) {
+            Entry oldest = entries.removeFirst();
+            size -= oldest.changes.size();
+            firstSequence = oldest.sequence;
+        }
+    }
+
+    /**
+     * Drops every change, the node reached the sequence number through changes that are not
+     * journaled.
+     */
+    synchronized void truncate(long sequence) {
+        entries.clear();
+        size = 0;
+        firstSequence = sequence;
+        lastSequence = sequence;
+    }
+
+    /**
+     * Returns the changes after a sequence number, null if some of them are no longer in the
+     * journal or the sequence number is not one of this journal.
+     */
+    public synchronized Changes since(long sequence) {
+        if (sequence < firstSequence || sequence > lastSequence) return null;
+        List<RowChange> changes = new ArrayList<RowChange>();
+        for (Entry entry : entries) {
+            if (entry.sequence > sequence) changes.addAll(entry.changes);
+        }
+        return new Changes(sequence, lastSequence, Collections.unmodifiableList(changes));
+    }
+
+    public synchronized long getFirstSequence() {
+        return firstSequence;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Returns the number of row changes in the journal.
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
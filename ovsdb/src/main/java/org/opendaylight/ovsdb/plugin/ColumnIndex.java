@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.opendaylight.ovsdb.lib.table.Bridge;
+import org.opendaylight.ovsdb.lib.table.Interface;
+import org.opendaylight.ovsdb.lib.table.Port;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableColumns;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Secondary index of the rows of a table by the value of one of their columns. For a map
+ * column the index is on the value of a given key, written column:key (e.g. external_ids:iface-id),
+ * for a set column every element of the set is indexed.
+ *
+ * Values are indexed by their string form. The index is updated by a single writer at a time,
+ * the update thread of the node, and can be read concurrently.
+ */
+class ColumnIndex {
+    /**
+     * Indexes of every node unless configured otherwise, written table/column or table/column:key.
+     */
+    static final List<String> DEFAULT_INDEXES = Collections.unmodifiableList(Arrays.asList(
+            Bridge.NAME.getName() + "/name",
+            Port.NAME.getName() + "/name",
+            Interface.NAME.getName() + "/name",
+            Interface.NAME.getName() + "/ofport",
+            Interface.NAME.getName() + "/external_ids:iface-id"));
+
+    private final String tableName;
+    private final String column;
+    private final String mapKey;
+    private final ConcurrentMap<String, Set<String>> entries = Maps.newConcurrentMap();
+
+    ColumnIndex(String tableName, String column, String mapKey) {
+        this.tableName = tableName;
+        this.column = column;
+        this.mapKey = mapKey;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Returns the column as given to the lookups, i.e. column or column:key.
+     */
+    public String getSpec() {
+        return spec(column, mapKey);
+    }
+
+    static String spec(String column, String mapKey) {
+        return mapKey == null ? column : column + ":" + mapKey;
+    }
+
+    /**
+     * Returns an empty index for a column written table/column or table/column:key.
+     */
+    static ColumnIndex parse(String qualifiedSpec) {
+        int slash = qualifiedSpec.indexOf('/');
+        if (slash <= 0 || slash == qualifiedSpec.length() - 1) {
+            throw new IllegalArgumentException("Invalid index " + qualifiedSpec + ", expecting table/column or table/column:key");
+        }
+        String tableName = qualifiedSpec.substring(0, slash);
+        String spec = qualifiedSpec.substring(slash + 1);
+        int separator = spec.indexOf(':');
+        if (separator < 0) return new ColumnIndex(tableName, spec, null);
+        if (separator == 0 || separator == spec.length() - 1) {
+            throw new IllegalArgumentException("Invalid index " + qualifiedSpec + ", expecting table/column or table/column:key");
+        }
+        return new ColumnIndex(tableName, spec.substring(0, separator), spec.substring(separator + 1));
+    }
+
+    synchronized void update(String uuid, Table<?> oldRow, Table<?> newRow) {
+        Set<String> oldValues = oldRow != null ? values(oldRow, column, mapKey) : Collections.<String>emptySet();
+        Set<String> newValues = newRow != null ? values(newRow, column, mapKey) : Collections.<String>emptySet();
+        for (String value : oldValues) {
+            if (newValues.contains(value)) continue;
+            Set<String> uuids = entries.get(value);
+            if (uuids == null) continue;
+            uuids.remove(uuid);
+            if (uuids.isEmpty()) entries.remove(value);
+        }
+        for (String value : newValues) {
+            Set<String> uuids = entries.get(value);
+            if (uuids == null) {
+                uuids = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+                entries.put(value, uuids);
+            }
+            uuids.add(uuid);
+        }
+    }
+
+    /**
+     * Returns the uuids of the rows holding the value.
+     */
+    public Set<String> get(String value) {
+        Set<String> uuids = entries.get(value);
+        if (uuids == null) return Collections.emptySet();
+        return Collections.unmodifiableSet(uuids);
+    }
+
+    /**
+     * Returns the values held by at least one row.
+     */
+    public Set<String> getValues() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Returns the string form of the values of a column of a row, for a column given as
+     * column or column:key.
+     */
+    static Set<String> values(Table<?> row, String spec) {
+        int separator = spec.indexOf(':');
+        if (separator < 0) return values(row, spec, null);
+        return values(row, spec.substring(0, separator), spec.substring(separator + 1));
+    }
+
+    static Set<String> values(Table<?> row, String column, String mapKey) {
+        Object value = TableColumns.getColumn(row, column);
+        if (value == null) return Collections.emptySet();
+        if (mapKey != null) {
+            if (!(value instanceof Map)) return Collections.emptySet();
+            value = ((Map<?, ?>)value).get(mapKey);
+            if (value == null) return Collections.emptySet();
+        }
+        if (value instanceof Collection) {
+            Set<String> values = new HashSet<String>();
+            for (Object element : (Collection<?>)value) {
+                if (element != null) values.add(element.toString());
+            }
+            return values;
+        }
+        return Collections.singleton(value.toString());
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnIndex [" + tableName + "." + getSpec() + ", values=" + entries.size() + "]";
+    }
+}
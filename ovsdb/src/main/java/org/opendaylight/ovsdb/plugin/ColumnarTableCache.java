@@ -0,0 +1,726 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.lang.reflect.Method;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
+import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
+import org.opendaylight.ovsdb.lib.notation.UUID;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableColumns;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Maps;
+
+/**
+ * Table cache holding the rows of a table column by column rather than as Table objects.
+ * Strings are interned across all the nodes, integers and reals are held as primitive longs
+ * and doubles, uuids as pairs of longs and sets and maps as flat arrays. Rows are found by the
+ * two longs of their uuid in an open addressing index rather than by the uuid string. Every
+ * read materializes a new Table object, changing it does not change the cache.
+ *
+ * Values are encoded after their runtime type and decoded back to the same type, whatever the
+ * type the Table class declares for the column.
+ *
+ * Reads and writes synchronize on the cache. Iterators are weakly consistent, they return the
+ * rows present when the iterator was created that have not been removed since.
+ */
+class ColumnarTableCache extends AbstractMap<String, Table<?>> implements ConcurrentMap<String, Table<?>> {
+    private static final Interner<String> strings = Interners.newWeakInterner();
+    private static final ConcurrentMap<Class<?>, Layout> layouts = Maps.newConcurrentMap();
+    private static final int INITIAL_CAPACITY = 16;
+
+    /*
+     * Markers of the values held in the long column of a slot, or of an empty collection.
+     */
+    private enum Packed {
+        INTEGER, LONG, DOUBLE, SINGLE_LONG, EMPTY
+    }
+
+    private final Layout layout;
+    private final SlotIndex slots = new SlotIndex();
+    private int capacity = INITIAL_CAPACITY;
+    /*
+     * Per column and slot : the encoded value or set, or the keys of a map
+     */
+    private final Object[][] values;
+    /*
+     * Per column and slot : the values of a map
+     */
+    private final Object[][] mapValues;
+    /*
+     * Per column and slot : the primitive value, allocated on first use
+     */
+    private final long[][] longs;
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private int nextSlot;
+
+    private ColumnarTableCache(Layout layout) {
+        this.layout = layout;
+        int columnCount = layout.names.length;
+        this.values = new Object[columnCount][];
+        this.mapValues = new Object[columnCount][];
+        this.longs = new long[columnCount][];
+        for (int c = 0; c < columnCount; c++) {
+            values[c] = new Object[INITIAL_CAPACITY];
+            if (layout.kinds[c] == Kind.MAP) mapValues[c] = new Object[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Returns an empty cache for the rows of a Table class, or null if the class cannot be
+     * materialized, i.e. lacks a public no-argument constructor or a column has no setter.
+     */
+    static ColumnarTableCache create(Class<?> tableClass) {
+        Layout layout = layouts.get(tableClass);
+        if (layout == null) {
+            layout = Layout.of(tableClass);
+            if (layout == null) return null;
+            Layout existing = layouts.putIfAbsent(tableClass, layout);
+            if (existing != null) layout = existing;
+        }
+        return new ColumnarTableCache(layout);
+    }
+
+    @Override
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object uuid) {
+        return slots.get(key(uuid)) >= 0;
+    }
+
+    @Override
+    public synchronized Table<?> get(Object uuid) {
+        int slot = slots.get(key(uuid));
+        if (slot < 0) return null;
+        return materialize(slot);
+    }
+
+    @Override
+    public synchronized Table<?> put(String uuid, Table<?> row) {
+        checkClass(row);
+        UUID key = new UUID(uuid);
+        int slot = slots.get(key);
+        Table<?> oldRow = null;
+        if (slot < 0) {
+            slot = allocate(key);
+        } else {
+            oldRow = materialize(slot);
+        }
+        for (int c = 0; c < layout.names.length; c++) {
+            encode(c, slot, layout.read(c, row));
+        }
+        return oldRow;
+    }
+
+    /**
+     * Writes a row without materializing the row it replaces, for the cache of a node to keep
+     * its indexes. Returns null if the row is new, otherwise a row holding the previous values
+     * of the columns that changed, as the old row of an update does. The row returned when no
+     * column changed is shared and must not be changed.
+     */
+    synchronized Table<?> update(String uuid, Table<?> row) {
+        checkClass(row);
+        UUID key = new UUID(uuid);
+        int slot = slots.get(key);
+        if (slot < 0) {
+            slot = allocate(key);
+            for (int c = 0; c < layout.names.length; c++) {
+                encode(c, slot, layout.read(c, row));
+            }
+            return null;
+        }
+        Table<?> changed = null;
+        for (int c = 0; c < layout.names.length; c++) {
+            Object value = values[c][slot];
+            Object mapValue = mapValues[c] != null ? mapValues[c][slot] : null;
+            long primitive = longs[c] != null ? longs[c][slot] : 0;
+            encode(c, slot, layout.read(c, row));
+            if (isUnchanged(c, slot, value, mapValue, primitive)) continue;
+            if (changed == null) changed = layout.newRow();
+            Object oldValue = decode(c, value, mapValue, primitive);
+            if (oldValue != null) layout.write(c, changed, oldValue);
+        }
+        return changed != null ? changed : layout.unchanged;
+    }
+
+    @Override
+    public synchronized Table<?> remove(Object uuid) {
+        int slot = slots.remove(key(uuid));
+        if (slot < 0) return null;
+        Table<?> oldRow = materialize(slot);
+        release(slot);
+        return oldRow;
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (int c = 0; c < layout.names.length; c++) {
+            Arrays.fill(values[c], null);
+            if (mapValues[c] != null) Arrays.fill(mapValues[c], null);
+        }
+        slots.clear();
+        freeCount = 0;
+        nextSlot = 0;
+    }
+
+    @Override
+    public synchronized Table<?> putIfAbsent(String uuid, Table<?> row) {
+        int slot = slots.get(key(uuid));
+        if (slot >= 0) return materialize(slot);
+        return put(uuid, row);
+    }
+
+    @Override
+    public synchronized boolean remove(Object uuid, Object row) {
+        int slot = slots.get(key(uuid));
+        if (slot < 0 || !matches(slot, row)) return false;
+        remove(uuid);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean replace(String uuid, Table<?> oldRow, Table<?> newRow) {
+        int slot = slots.get(key(uuid));
+        if (slot < 0 || !matches(slot, oldRow)) return false;
+        put(uuid, newRow);
+        return true;
+    }
+
+    @Override
+    public synchronized Table<?> replace(String uuid, Table<?> row) {
+        if (slots.get(key(uuid)) < 0) return null;
+        return put(uuid, row);
+    }
+
+    @Override
+    public Set<Map.Entry<String, Table<?>>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Table<?>>>() {
+            @Override
+            public Iterator<Map.Entry<String, Table<?>>> iterator() {
+                return new RowIterator();
+            }
+
+            @Override
+            public int size() {
+                return ColumnarTableCache.this.size();
+            }
+        };
+    }
+
+    private void checkClass(Table<?> row) {
+        if (row.getClass() != layout.tableClass) {
+            throw new IllegalArgumentException("Row of " + row.getClass() + " in a cache of " + layout.tableClass);
+        }
+    }
+
+    private int allocate(UUID key) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (nextSlot == capacity) grow();
+            slot = nextSlot++;
+        }
+        slots.put(key, slot);
+        return slot;
+    }
+
+    private static UUID key(Object uuid) {
+        if (uuid instanceof String) return new UUID((String)uuid);
+        if (uuid instanceof UUID) return (UUID)uuid;
+        return null;
+    }
+
+    private void release(int slot) {
+        for (int c = 0; c < layout.names.length; c++) {
+            values[c][slot] = null;
+            if (mapValues[c] != null) mapValues[c][slot] = null;
+        }
+        if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void grow() {
+        capacity *= 2;
+        for (int c = 0; c < layout.names.length; c++) {
+            values[c] = Arrays.copyOf(values[c], capacity);
+            if (mapValues[c] != null) mapValues[c] = Arrays.copyOf(mapValues[c], capacity);
+            if (longs[c] != null) longs[c] = Arrays.copyOf(longs[c], capacity);
+        }
+    }
+
+    private void setLong(int column, int slot, long value) {
+        if (longs[column] == null) longs[column] = new long[capacity];
+        longs[column][slot] = value;
+    }
+    private void encode(int column, int slot, Object value) {
+        if (mapValues[column] != null) mapValues[column][slot] = null;
+        if (value == null) {
+            values[column][slot] = null;
+            return;
+        }
+        switch (layout.kinds[column]) {
+            case SET:
+                Collection<?> set = (Collection<?>)value;
+                if (set.isEmpty()) {
+                    values[column][slot] = Packed.EMPTY;
+                } else if (set.size() == 1 && set.iterator().next() instanceof Long) {
+                    setLong(column, slot, (Long)set.iterator().next());
+                    values[column][slot] = Packed.SINGLE_LONG;
+                } else {
+                    values[column][slot] = Atoms.encode(set);
+                }
+                break;
+            case MAP:
+                Map<?, ?> map = (Map<?, ?>)value;
+                if (map.isEmpty()) {
+                    values[column][slot] = Packed.EMPTY;
+                } else {
+                    values[column][slot] = Atoms.encode(map.keySet());
+                    mapValues[column][slot] = Atoms.encode(map.values());
+                }
+                break;
+            default:
+                if (value instanceof String) {
+                    values[column][slot] = strings.intern((String)value);
+                } else if (value instanceof Integer) {
+                    setLong(column, slot, (Integer)value);
+                    values[column][slot] = Packed.INTEGER;
+                } else if (value instanceof Long) {
+                    setLong(column, slot, (Long)value);
+                    values[column][slot] = Packed.LONG;
+                } else if (value instanceof Double) {
+                    setLong(column, slot, Double.doubleToRawLongBits((Double)value));
+                    values[column][slot] = Packed.DOUBLE;
+                } else {
+                    values[column][slot] = value;
+                }
+                break;
+        }
+    }
+
+    private Object decode(int column, int slot) {
+        return decode(column, values[column][slot], mapValues[column] != null ? mapValues[column][slot] : null,
+                      longs[column] != null ? longs[column][slot] : 0);
+    }
+
+    private Object decode(int column, Object value, Object mapValue, long primitive) {
+        if (value == null) return null;
+        if (value == Packed.INTEGER) return (int)primitive;
+        if (value == Packed.LONG) return primitive;
+        if (value == Packed.DOUBLE) return Double.longBitsToDouble(primitive);
+        switch (layout.kinds[column]) {
+            case SET:
+                if (value == Packed.EMPTY) return new OvsDBSet<Object>();
+                if (value == Packed.SINGLE_LONG) {
+                    return OvsDBSet.copyOf(Collections.singletonList(primitive));
+                }
+                return OvsDBSet.copyOf(Atoms.list(value));
+            case MAP:
+                if (value == Packed.EMPTY) return new OvsDBMap<Object, Object>();
+                return OvsDBMap.copyOf(Atoms.list(value), Atoms.list(mapValue));
+            default:
+                return value;
+        }
+    }
+
+    /*
+     * True if a column of a slot holds the encoding it held before it was written, compared
+     * without decoding either of them.
+     */
+    private boolean isUnchanged(int column, int slot, Object value, Object mapValue, long primitive) {
+        Object current = values[column][slot];
+        if (current == Packed.EMPTY) return value == Packed.EMPTY;
+        if (current instanceof Packed) return current == value && longs[column][slot] == primitive;
+        if (!Atoms.equal(current, value)) return false;
+        return mapValues[column] == null || Atoms.equal(mapValues[column][slot], mapValue);
+    }
+
+    private Table<?> materialize(int slot) {
+        Table<?> row = layout.newRow();
+        for (int c = 0; c < layout.names.length; c++) {
+            Object value = decode(c, slot);
+            if (value != null) layout.write(c, row, value);
+        }
+        return row;
+    }
+
+    private boolean matches(int slot, Object row) {
+        if (row == null || row.getClass() != layout.tableClass) return false;
+        for (int c = 0; c < layout.names.length; c++) {
+            if (!Objects.equal(decode(c, slot), layout.read(c, (Table<?>)row))) return false;
+        }
+        return true;
+    }
+
+    private class RowIterator implements Iterator<Map.Entry<String, Table<?>>> {
+        private final UUID[] keys;
+        private int next;
+        private Map.Entry<String, Table<?>> nextEntry;
+        private String lastKey;
+
+        RowIterator() {
+            synchronized (ColumnarTableCache.this) {
+                keys = slots.keys();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextEntry == null && next < keys.length) {
+                UUID key = keys[next++];
+                Table<?> row = get(key);
+                if (row != null) nextEntry = new SimpleImmutableEntry<String, Table<?>>(key.toString(), row);
+            }
+            return nextEntry != null;
+        }
+
+        @Override
+        public Map.Entry<String, Table<?>> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Map.Entry<String, Table<?>> entry = nextEntry;
+            nextEntry = null;
+            lastKey = entry.getKey();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) throw new IllegalStateException();
+            ColumnarTableCache.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    private enum Kind {
+        SCALAR, SET, MAP
+    }
+
+    /*
+     * Columns of a Table class, in the order of their names, read and written through the
+     * column accessors of the class. Only the kinds of the columns are looked up by reflection,
+     * once per class.
+     */
+    private static class Layout {
+        final Class<?> tableClass;
+        final String[] names;
+        final Kind[] kinds;
+        final Table<?> prototype;
+        /*
+         * Returned by update() when no column changed
+         */
+        final Table<?> unchanged;
+
+        private Layout(Class<?> tableClass, Table<?> prototype, String[] names, Kind[] kinds) {
+            this.tableClass = tableClass;
+            this.prototype = prototype;
+            this.names = names;
+            this.kinds = kinds;
+            this.unchanged = newRow();
+        }
+
+        static Layout of(Class<?> tableClass) {
+            Table<?> prototype;
+            try {
+                prototype = (Table<?>)tableClass.getConstructor().newInstance();
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                return null;
+            }
+            Map<String, Method> getters = TableColumns.getGetters(tableClass);
+            int count = getters.size();
+            String[] names = new String[count];
+            Kind[] kinds = new Kind[count];
+            int c = 0;
+            for (Map.Entry<String, Method> getter : getters.entrySet()) {
+                names[c] = getter.getKey();
+                if (!TableColumns.setColumn(prototype, names[c], null)) return null;
+                Class<?> type = getter.getValue().getReturnType();
+                kinds[c] = Map.class.isAssignableFrom(type) ? Kind.MAP
+                         : Collection.class.isAssignableFrom(type) ? Kind.SET : Kind.SCALAR;
+                c++;
+            }
+            return new Layout(tableClass, prototype, names, kinds);
+        }
+
+        Table<?> newRow() {
+            return TableColumns.newRow(prototype);
+        }
+
+        Object read(int column, Table<?> row) {
+            return TableColumns.getColumn(row, names[column]);
+        }
+
+        void write(int column, Table<?> row, Object value) {
+            TableColumns.setColumn(row, names[column], value);
+        }
+    }
+
+    /*
+     * Slots of the rows by uuid : open addressing with linear probing over the two longs of the
+     * canonical uuids, without a boxed key or slot per row. Named uuids, which have no bits, are
+     * kept aside in a HashMap.
+     */
+    private static class SlotIndex {
+        private long[] bits = new long[INITIAL_CAPACITY * 2];
+        /*
+         * Per entry : the slot plus one, 0 for an empty entry
+         */
+        private int[] entries = new int[INITIAL_CAPACITY];
+        private int size;
+        private final Map<String, Integer> named = Maps.newHashMap();
+
+        int size() {
+            return size + named.size();
+        }
+
+        /*
+         * Returns the slot of a uuid, -1 if it has none
+         */
+        int get(UUID uuid) {
+            if (uuid == null) return -1;
+            if (uuid.isNamed()) {
+                Integer slot = named.get(uuid.toString());
+                return slot != null ? slot : -1;
+            }
+            int entry = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            return entry >= 0 ? entries[entry] - 1 : -1;
+        }
+
+        /*
+         * Adds a uuid that has no slot yet
+         */
+        void put(UUID uuid, int slot) {
+            if (uuid.isNamed()) {
+                named.put(uuid.toString(), slot);
+                return;
+            }
+            if ((size + 1) * 2 > entries.length) resize(entries.length * 2);
+            insert(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), slot + 1);
+            size++;
+        }
+
+        /*
+         * Removes a uuid, returns its slot or -1 if it had none. The entries following it in
+         * its run are shifted back, no tombstone is left.
+         */
+        int remove(UUID uuid) {
+            if (uuid == null) return -1;
+            if (uuid.isNamed()) {
+                Integer slot = named.remove(uuid.toString());
+                return slot != null ? slot : -1;
+            }
+            int hole = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            if (hole < 0) return -1;
+            int slot = entries[hole] - 1;
+            int mask = entries.length - 1;
+            for (int i = (hole + 1) & mask; entries[i] != 0; i = (i + 1) & mask) {
+                int home = index(bits[i * 2], bits[i * 2 + 1], mask);
+                boolean reachable = hole <= i ? hole < home && home <= i : hole < home || home <= i;
+                if (reachable) continue;
+                bits[hole * 2] = bits[i * 2];
+                bits[hole * 2 + 1] = bits[i * 2 + 1];
+                entries[hole] = entries[i];
+                hole = i;
+            }
+            entries[hole] = 0;
+            size--;
+            return slot;
+        }
+
+        void clear() {
+            Arrays.fill(entries, 0);
+            size = 0;
+            named.clear();
+        }
+
+        UUID[] keys() {
+            UUID[] keys = new UUID[size()];
+            int k = 0;
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i] != 0) keys[k++] = new UUID(bits[i * 2], bits[i * 2 + 1]);
+            }
+            for (String name : named.keySet()) {
+                keys[k++] = new UUID(name);
+            }
+            return keys;
+        }
+
+        private int find(long most, long least) {
+            int mask = entries.length - 1;
+            for (int i = index(most, least, mask); entries[i] != 0; i = (i + 1) & mask) {
+                if (bits[i * 2] == most && bits[i * 2 + 1] == least) return i;
+            }
+            return -1;
+        }
+
+        private void insert(long most, long least, int entry) {
+            int mask = entries.length - 1;
+            int i = index(most, least, mask);
+            while (entries[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            bits[i * 2] = most;
+            bits[i * 2 + 1] = least;
+            entries[i] = entry;
+        }
+
+        private void resize(int length) {
+            long[] oldBits = bits;
+            int[] oldEntries = entries;
+            bits = new long[length * 2];
+            entries = new int[length];
+            for (int i = 0; i < oldEntries.length; i++) {
+                if (oldEntries[i] != 0) insert(oldBits[i * 2], oldBits[i * 2 + 1], oldEntries[i]);
+            }
+        }
+
+        private static int index(long most, long least, int mask) {
+            long hash = (most ^ least) * 0x9E3779B97F4A7C15L;
+            return (int)(hash >>> 32) & mask;
+        }
+    }
+
+    /*
+     * Flat arrays of atoms : String[] for strings, long[] for integers, double[] for reals,
+     * Uuids for uuids and Object[] for anything else or a mix.
+     */
+    private static class Atoms {
+        static Object encode(Collection<?> atoms) {
+            boolean allStrings = true;
+            boolean allLongs = true;
+            boolean allDoubles = true;
+            boolean allUuids = true;
+            for (Object atom : atoms) {
+                allStrings &= atom instanceof String;
+                allLongs &= atom instanceof Long;
+                allDoubles &= atom instanceof Double;
+                allUuids &= atom instanceof UUID && !((UUID)atom).isNamed();
+            }
+            int i = 0;
+            if (allStrings) {
+                String[] encoded = new String[atoms.size()];
+                for (Object atom : atoms) {
+                    encoded[i++] = strings.intern((String)atom);
+                }
+                return encoded;
+            }
+            if (allLongs) {
+                long[] encoded = new long[atoms.size()];
+                for (Object atom : atoms) {
+                    encoded[i++] = (Long)atom;
+                }
+                return encoded;
+            }
+            if (allDoubles) {
+                double[] encoded = new double[atoms.size()];
+                for (Object atom : atoms) {
+                    encoded[i++] = (Double)atom;
+                }
+                return encoded;
+            }
+            if (allUuids) {
+                Uuids encoded = new Uuids(atoms.size());
+                for (Object atom : atoms) {
+                    encoded.set(i++, (UUID)atom);
+                }
+                return encoded;
+            }
+            Object[] encoded = new Object[atoms.size()];
+            for (Object atom : atoms) {
+                encoded[i++] = atom instanceof String ? strings.intern((String)atom) : atom;
+            }
+            return encoded;
+        }
+
+        static boolean equal(Object atoms, Object other) {
+            if (atoms == other) return true;
+            if (atoms == null || other == null) return false;
+            if (atoms instanceof long[] && other instanceof long[]) return Arrays.equals((long[])atoms, (long[])other);
+            if (atoms instanceof double[] && other instanceof double[]) {
+                return Arrays.equals((double[])atoms, (double[])other);
+            }
+            if (atoms instanceof Object[] && other instanceof Object[]) {
+                return Arrays.equals((Object[])atoms, (Object[])other);
+            }
+            if (atoms instanceof Uuids && other instanceof Uuids) return ((Uuids)atoms).sameAs((Uuids)other);
+            return atoms.equals(other);
+        }
+
+        static int size(Object atoms) {
+            if (atoms instanceof long[]) return ((long[])atoms).length;
+            if (atoms instanceof double[]) return ((double[])atoms).length;
+            if (atoms instanceof Uuids) return ((Uuids)atoms).size();
+            return ((Object[])atoms).length;
+        }
+
+        static List<Object> list(Object atoms) {
+            List<Object> list = new ArrayList<Object>(size(atoms));
+            for (int i = 0; i < size(atoms); i++) {
+                list.add(get(atoms, i));
+            }
+            return list;
+        }
+
+        static Object get(Object atoms, int index) {
+            if (atoms instanceof long[]) return ((long[])atoms)[index];
+            if (atoms instanceof double[]) return ((double[])atoms)[index];
+            if (atoms instanceof Uuids) return ((Uuids)atoms).get(index);
+            return ((Object[])atoms)[index];
+        }
+    }
+
+    /*
+     * Canonical uuids as two longs each
+     */
+    private static class Uuids {
+        private final long[] bits;
+
+        Uuids(int size) {
+            bits = new long[size * 2];
+        }
+
+        int size() {
+            return bits.length / 2;
+        }
+
+        void set(int index, UUID uuid) {
+            bits[index * 2] = uuid.getMostSignificantBits();
+            bits[index * 2 + 1] = uuid.getLeastSignificantBits();
+        }
+
+        UUID get(int index) {
+            return new UUID(bits[index * 2], bits[index * 2 + 1]);
+        }
+
+        boolean sameAs(Uuids other) {
+            return Arrays.equals(bits, other.bits);
+        }
+    }
+}
@@ -9,16 +9,20 @@
  */
 package org.opendaylight.ovsdb.plugin;
 
-import java.math.BigInteger;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.osgi.framework.console.CommandInterpreter;
 import org.eclipse.osgi.framework.console.CommandProvider;
@@ -29,8 +33,11 @@ import org.opendaylight.controller.sal.networkconfig.bridgedomain.ConfigConstant
 import org.opendaylight.controller.sal.networkconfig.bridgedomain.IPluginInBridgeDomainConfigService;
 import org.opendaylight.controller.sal.utils.Status;
 import org.opendaylight.controller.sal.utils.StatusCode;
+import org.opendaylight.ovsdb.lib.database.ColumnSchema;
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
 import org.opendaylight.ovsdb.lib.database.OVSInstance;
 import org.opendaylight.ovsdb.lib.database.OvsdbType;
+import org.opendaylight.ovsdb.lib.database.TableSchema;
 import org.opendaylight.ovsdb.lib.message.TransactBuilder;
 import org.opendaylight.ovsdb.lib.message.operations.DeleteOperation;
 import org.opendaylight.ovsdb.lib.message.operations.InsertOperation;
@@ -47,17 +54,11 @@ import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
 import org.opendaylight.ovsdb.lib.notation.UUID;
 import org.opendaylight.ovsdb.lib.table.Bridge;
 import org.opendaylight.ovsdb.lib.table.Controller;
-import org.opendaylight.ovsdb.lib.table.IPFIX;
 import org.opendaylight.ovsdb.lib.table.Interface;
 import org.opendaylight.ovsdb.lib.table.Manager;
-import org.opendaylight.ovsdb.lib.table.Mirror;
-import org.opendaylight.ovsdb.lib.table.NetFlow;
 import org.opendaylight.ovsdb.lib.table.Open_vSwitch;
 import org.opendaylight.ovsdb.lib.table.Port;
-import org.opendaylight.ovsdb.lib.table.Qos;
 import org.opendaylight.ovsdb.lib.table.Queue;
-import org.opendaylight.ovsdb.lib.table.SFlow;
-import org.opendaylight.ovsdb.lib.table.SSL;
 import org.opendaylight.ovsdb.lib.table.internal.Table;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
@@ -65,6 +66,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 
 public class ConfigurationService implements IPluginInBridgeDomainConfigService, OVSDBConfigService,
@@ -72,6 +75,8 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
 {
     private static final Logger logger = LoggerFactory
             .getLogger(ConfigurationService.class);
+    private static final String OVSDB_TRANSACT_SYNC_TIMEOUT = "ovsdb.transact.syncTimeoutMillis";
+    private static final int defaultTransactSyncTimeout = 5000;
 
     IConnectionServiceInternal connectionService;
     InventoryServiceInternal inventoryServiceInternal;
@@ -234,7 +239,7 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
                                                     addBridgeRequest,
                                                     updateCfgVerRequest)));
 
-            ListenableFuture<List<OperationResult>> transResponse = connection.getRpc().transact(transaction);
+            ListenableFuture<List<OperationResult>> transResponse = transact(node, transaction);
             List<OperationResult> tr = transResponse.get();
             List<Operation> requests = transaction.getRequests();
             Status status = new Status(StatusCode.SUCCESS);
@@ -311,7 +316,7 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
 
                     OvsDBMap<String, String> options = null;
                     String type = null;
-                    OvsDBSet<BigInteger> tags = null;
+                    OvsDBSet<Long> tags = null;
                     if (configs != null) {
                         type = (String) configs.get(ConfigConstants.TYPE);
                         Map<String, String> customConfigs = (Map<String, String>) configs.get(ConfigConstants.CUSTOM);
@@ -332,8 +337,8 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
                             if (options == null) options = new OvsDBMap<String, String>();
                             options.put("remote_ip", (String)configs.get(ConfigConstants.DEST_IP));
                         } else if (type.equalsIgnoreCase(OvsdbType.PortType.VLAN.name())) {
-                            tags = new OvsDBSet<BigInteger>();
-                            tags.add(BigInteger.valueOf(Integer.parseInt((String)configs.get(ConfigConstants.VLAN))));
+                            tags = new OvsDBSet<Long>();
+                            tags.add(Long.parseLong((String)configs.get(ConfigConstants.VLAN)));
                         } else if (type.equalsIgnoreCase(OvsdbType.PortType.PATCH.name())) {
                             interfaceRow.setType(type.toLowerCase());
                         }
@@ -358,7 +363,7 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
                     transaction.addOperations(new ArrayList<Operation>
                             (Arrays.asList(addBrMutRequest, addPortRequest, addIntfRequest)));
 
-                    ListenableFuture<List<OperationResult>> transResponse = connection.getRpc().transact(transaction);
+                    ListenableFuture<List<OperationResult>> transResponse = transact(node, transaction);
                     List<OperationResult> tr = transResponse.get();
                     List<Operation> requests = transaction.getRequests();
                     Status status = new Status(StatusCode.SUCCESS);
@@ -521,7 +526,7 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
             TransactBuilder transaction = new TransactBuilder();
             transaction.addOperations(new ArrayList<Operation>(Arrays.asList(delPortRequest)));
 
-            ListenableFuture<List<OperationResult>> transResponse = connection.getRpc().transact(transaction);
+            ListenableFuture<List<OperationResult>> transResponse = transact(node, transaction);
             List<OperationResult> tr = transResponse.get();
             List<Operation> requests = transaction.getRequests();
             Status status = new Status(StatusCode.SUCCESS);
@@ -617,7 +622,7 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
             TransactBuilder transaction = new TransactBuilder();
             transaction.addOperations(new ArrayList<Operation>(Arrays.asList(delBrRequest)));
 
-            ListenableFuture<List<OperationResult>> transResponse = connection.getRpc().transact(transaction);
+            ListenableFuture<List<OperationResult>> transResponse = transact(node, transaction);
             List<OperationResult> tr = transResponse.get();
             List<Operation> requests = transaction.getRequests();
             Status status = new Status(StatusCode.SUCCESS);
@@ -689,55 +694,139 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
     @Override
     public StatusWithUuid insertRow(Node node, String tableName, String parent_uuid, Table<?> row) {
         logger.debug("tableName : {}, parent_uuid : {} Row : {}", tableName, parent_uuid, row.toString());
-        StatusWithUuid statusWithUUID = null;
-
-        // Schema based Table handling will help fix this static Table handling.
+        return insertSchemaRow(node, row.getTableName().getName(), parent_uuid, row);
+    }
 
-        if (row.getTableName().getName().equalsIgnoreCase("Bridge")) {
-            statusWithUUID = insertBridgeRow(node, parent_uuid, (Bridge)row);
-        }
-        else if (row.getTableName().getName().equalsIgnoreCase("Capability")) {
-            return new StatusWithUuid(StatusCode.NOTIMPLEMENTED, "Insert operation for this Table is not implemented yet.");
-        }
-        else if (row.getTableName().getName().equalsIgnoreCase("Controller")) {
-            statusWithUUID = insertControllerRow(node, parent_uuid, (Controller)row);
-        }
-        else if (row.getTableName().getName().equalsIgnoreCase("Interface")) {
-            statusWithUUID = insertInterfaceRow(node, parent_uuid, (Interface)row);
-        }
-        else if (row.getTableName().getName().equalsIgnoreCase("Manager")) {
-            statusWithUUID = insertManagerRow(node, parent_uuid, (Manager)row);
-        }
-        else if (row.getTableName().getName().equalsIgnoreCase("Mirror")) {
-            statusWithUUID = insertMirrorRow(node, parent_uuid, (Mirror)row);
-        }
-        else if (row.getTableName().getName().equalsIgnoreCase("NetFlow")) {
-            statusWithUUID = insertNetFlowRow(node, parent_uuid, (NetFlow)row);
-        }
-        else if (row.getTableName().getName().equalsIgnoreCase("Open_vSwitch")) {
-            statusWithUUID = insertOpen_vSwitchRow(node, (Open_vSwitch)row);
-        }
-        else if (row.getTableName().getName().equalsIgnoreCase("Port")) {
-            statusWithUUID = insertPortRow(node, parent_uuid, (Port)row);
-        }
-        else if (row.getTableName().getName().equalsIgnoreCase("QoS")) {
-            statusWithUUID = insertQosRow(node, parent_uuid, (Qos)row);
+    /*
+     * Inserts a row of any table of the schema. The new row is added to the set column of the
+     * parent row referencing its table. Without a parent, a row of a root table is inserted on its
+     * own and any other row goes to the single row of the table referencing it, e.g. a Bridge to
+     * the Open_vSwitch row. A root row referenced by a map column, e.g. a Queue, is inserted on its
+     * own as the map needs a key for it.
+     */
+    private StatusWithUuid insertSchemaRow(Node node, String tableName, String parent_uuid, Table<?> row) {
+        DatabaseSchema schema = inventoryServiceInternal.getDatabaseSchema(node);
+        if (schema == null || schema.getTables() == null || schema.getTables().get(tableName) == null) {
+            return new StatusWithUuid(StatusCode.NOTFOUND, "Table "+tableName+" not supported");
         }
-        else if (row.getTableName().getName().equalsIgnoreCase("Queue")) {
-            statusWithUUID = insertQueueRow(node, parent_uuid, (Queue)row);
+        boolean isRoot = Boolean.TRUE.equals(schema.getTables().get(tableName).getIsRoot());
+        try {
+            String[] parent = null;
+            List<String[]> parents = findParentColumns(node, schema, tableName, parent_uuid);
+            if (parents.size() > 1) {
+                StringBuilder columns = new StringBuilder();
+                for (String[] candidate : parents) {
+                    if (columns.length() > 0) columns.append(", ");
+                    columns.append(candidate[0]).append('.').append(candidate[1]);
+                }
+                return new StatusWithUuid(StatusCode.BADREQUEST, "More than one column may reference the "+tableName
+                                                                 +" row : "+columns);
+            } else if (!parents.isEmpty()) {
+                parent = parents.get(0);
+            } else if (parent_uuid != null) {
+                return new StatusWithUuid(StatusCode.NOTFOUND, "No row with UUID "+parent_uuid+" referencing table "+tableName);
+            } else if (!isRoot) {
+                return new StatusWithUuid(StatusCode.BADREQUEST, "A row of table "+tableName+" needs a parent row");
+            }
+            if (parent != null && parent[2] != null && !isRoot) {
+                return new StatusWithUuid(StatusCode.BADREQUEST, "Column "+parent[0]+"."+parent[1]
+                                                                 +" is a map, a "+tableName+" row cannot be added to it");
+            }
+
+            TransactBuilder transaction = new TransactBuilder();
+            // A controller is shared by the bridges with the same target
+            String existing = row instanceof Controller ? findController(node, (Controller)row) : null;
+            UUID rowUuid = new UUID(existing != null ? existing : "new_row");
+            int insertIndex = -1;
+            if (existing == null) {
+                if (row instanceof Port) addDefaultInterface(transaction, (Port)row);
+                InsertOperation addRowRequest = new InsertOperation(tableName, rowUuid.toString(), row);
+                transaction.addOperation(addRowRequest);
+                insertIndex = transaction.getRequests().indexOf(addRowRequest);
+            }
+            if (parent != null && parent[2] == null) {
+                Mutation mutation = new Mutation(parent[1], Mutator.INSERT, rowUuid);
+                List<Mutation> mutations = new ArrayList<Mutation>();
+                mutations.add(mutation);
+                Condition condition = new Condition("_uuid", Function.EQUALS, new UUID(parent[3]));
+                List<Condition> where = new ArrayList<Condition>();
+                where.add(condition);
+                transaction.addOperation(new MutateOperation(parent[0], where, mutations));
+            }
+
+            StatusWithUuid status = _insertTableRow(node, transaction, insertIndex, tableName, tableName);
+            if (status.isSuccess() && existing != null) {
+                // We won't get the uuid from the transact, so we set it here
+                status = new StatusWithUuid(status.getCode(), rowUuid);
+            }
+            return status;
+        } catch (Exception e) {
+            logger.error("Error in insertSchemaRow(): ",e);
         }
-        else if (row.getTableName().getName().equalsIgnoreCase("sFlow")) {
-            statusWithUUID = insertSflowRow(node, parent_uuid, (SFlow)row);
+        return new StatusWithUuid(StatusCode.INTERNALERROR);
+    }
+
+    /*
+     * Returns the table, column, map value type (null for a set) and parent row uuid of every
+     * column that may reference a new row of the table. With a parent uuid, these are the columns
+     * of the table holding that row, without one the columns of the tables of at most one row
+     * holding a row, e.g. Open_vSwitch.
+     */
+    private List<String[]> findParentColumns(Node node, DatabaseSchema schema, String tableName, String parent_uuid) {
+        List<String[]> parents = new ArrayList<String[]>();
+        for (Map.Entry<String, TableSchema> parentTable : schema.getTables().entrySet()) {
+            if (parentTable.getValue().getColumns() == null) continue;
+            Map<String, Table<?>> parentRows = inventoryServiceInternal.getTableCache(node, parentTable.getKey());
+            if (parentRows == null) continue;
+            String parentUuid = parent_uuid;
+            if (parentUuid == null) {
+                Integer maxRows = parentTable.getValue().getMaxRows();
+                if (maxRows == null || maxRows != 1 || parentRows.size() != 1) continue;
+                parentUuid = parentRows.keySet().iterator().next();
+            } else if (parentRows.get(parentUuid) == null) {
+                continue;
+            }
+            for (Map.Entry<String, ColumnSchema> column : parentTable.getValue().getColumns().entrySet()) {
+                OvsdbType type = column.getValue().getType();
+                if (type == null) continue;
+                if ((type.key != null && tableName.equals(type.key.refTable)) ||
+                    (type.value != null && tableName.equals(type.value.refTable))) {
+                    parents.add(new String[] {parentTable.getKey(), column.getKey(),
+                                              type.value != null ? type.value.type : null, parentUuid});
+                }
+            }
         }
-        else if (row.getTableName().getName().equalsIgnoreCase("IPFIX")) {
-            statusWithUUID = insertIpFixRow(node, parent_uuid, (IPFIX) row);
+        if (parent_uuid == null && Boolean.TRUE.equals(schema.getTables().get(tableName).getIsRoot())) {
+            // A root row without a parent is inserted on its own
+            parents.clear();
         }
-        else if (row.getTableName().getName().equalsIgnoreCase("SSL")) {
-            statusWithUUID = insertSSLRow(node, parent_uuid, (SSL)row);
+        return parents;
+    }
+
+    private String findController(Node node, Controller row) {
+        Map<String, Table<?>> controllerCache = inventoryServiceInternal.getTableCache(node, Controller.NAME.getName());
+        if (controllerCache == null) return null;
+        for (Map.Entry<String, Table<?>> controller : controllerCache.entrySet()) {
+            if (((Controller)controller.getValue()).getTarget().equals(row.getTarget())) return controller.getKey();
         }
-        return statusWithUUID;
+        return null;
     }
 
+    /*
+     * Default OVS schema is to have 1 or more interface part of a port. Hence an interface named
+     * after the port is inserted along with a port added without one.
+     */
+    private void addDefaultInterface(TransactBuilder transaction, Port portRow) {
+        if (portRow.getInterfaces() != null && !portRow.getInterfaces().isEmpty()) return;
+        String newInterface = "new_interface";
+        Interface interfaceRow = new Interface();
+        interfaceRow.setName(portRow.getName());
+        transaction.addOperation(new InsertOperation(Interface.NAME.getName(), newInterface, interfaceRow));
+
+        OvsDBSet<UUID> interfaces = new OvsDBSet<UUID>();
+        interfaces.add(new UUID(newInterface));
+        portRow.setInterfaces(interfaces);
+    }
 
     @Override
     public Status updateRow (Node node, String tableName, String parentUUID, String rowUUID, Table<?> row) {
@@ -768,7 +857,7 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
             transaction.addOperations(new ArrayList<Operation>(
                                       Arrays.asList(updateRequest)));
 
-            ListenableFuture<List<OperationResult>> transResponse = connection.getRpc().transact(transaction);
+            ListenableFuture<List<OperationResult>> transResponse = transact(node, transaction);
             List<OperationResult> tr = transResponse.get();
             List<Operation> requests = transaction.getRequests();
             Status status = new Status(StatusCode.SUCCESS);
@@ -798,50 +887,113 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
     }
 
     @Override
-    public Status deleteRow(Node node, String tableName, String uuid) {
-        if (tableName.equalsIgnoreCase("Bridge")) {
-            return deleteBridgeRow(node, uuid);
-        }
-        else if (tableName.equalsIgnoreCase("Capbility")) {
-            return new Status(StatusCode.NOTIMPLEMENTED, "Delete operation for this Table is not implemented yet.");
-        }
-        else if (tableName.equalsIgnoreCase("Controller")) {
-            return deleteControllerRow(node, uuid);
-        }
-        else if (tableName.equalsIgnoreCase("Interface")) {
-            return deleteInterfaceRow(node, uuid);
-        }
-        else if (tableName.equalsIgnoreCase("Manager")) {
-            return deleteManagerRow(node, uuid);
-        }
-        else if (tableName.equalsIgnoreCase("Mirror")) {
-            return deleteMirrorRow(node, uuid);
-        }
-        else if (tableName.equalsIgnoreCase("NetFlow")) {
-            return deleteNetFlowRow(node, uuid);
-        }
-        else if (tableName.equalsIgnoreCase("Open_vSwitch")) {
-            return deleteOpen_vSwitchRow(node, uuid);
+    public StatusWithUuid insertRow(Node node, String tableName, String parentUUID, Table<?> row, boolean readYourWrites) {
+        StatusWithUuid status = insertRow(node, tableName, parentUUID, row);
+        if (readYourWrites && status != null && status.isSuccess()) syncUpdates(node);
+        return status;
+    }
+
+    @Override
+    public Status updateRow(Node node, String tableName, String parentUUID, String rowUUID, Table<?> row, boolean readYourWrites) {
+        Status status = updateRow(node, tableName, parentUUID, rowUUID, row);
+        if (readYourWrites && status != null && status.isSuccess()) syncUpdates(node);
+        return status;
+    }
+
+    @Override
+    public Status deleteRow(Node node, String tableName, String uuid, boolean readYourWrites) {
+        Status status = deleteRow(node, tableName, uuid);
+        if (readYourWrites && status != null && status.isSuccess()) syncUpdates(node);
+        return status;
+    }
+
+    /*
+     * The server sends the updates caused by a transaction before its reply, waiting for the
+     * updates already received from the node to be applied is enough to read our own writes.
+     * Returns false if they are not applied in time.
+     */
+    private boolean syncUpdates(Node node) {
+        if (connectionService == null) return false;
+        try {
+            connectionService.syncUpdates(node).get(Integer.getInteger(OVSDB_TRANSACT_SYNC_TIMEOUT, defaultTransactSyncTimeout),
+                                                    TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Updates of node {} not applied to the cache after a transaction", node, e);
         }
-        else if (tableName.equalsIgnoreCase("Port")) {
-            return deletePortRow(node, uuid);
+        return false;
+    }
+
+    @Override
+    public ListenableFuture<Table<?>> watchRow(Node node, String tableName, String uuid,
+                                               Predicate<Table<?>> predicate, long timeout, TimeUnit unit) throws Exception {
+        if (inventoryServiceInternal == null) {
+            throw new Exception("Inventory Service is Unavailable.");
         }
-        else if (tableName.equalsIgnoreCase("QoS")) {
-            return deleteQosRow(node, uuid);
+        return inventoryServiceInternal.watchRow(node, tableName, uuid, predicate, timeout, unit);
+    }
+
+    @Override
+    public Status deleteRow(Node node, String tableName, String uuid) {
+        return deleteSchemaRow(node, tableName, uuid);
+    }
+
+    /*
+     * Deletes a row of any table of the schema. The row is removed from the set columns of the
+     * rows referencing it, then a row of a root table is deleted and any other row is garbage
+     * collected by the server. The row of a table of a single row, e.g. Open_vSwitch, is kept.
+     */
+    private Status deleteSchemaRow(Node node, String tableName, String uuid) {
+        DatabaseSchema schema = inventoryServiceInternal.getDatabaseSchema(node);
+        if (schema == null || schema.getTables() == null || schema.getTables().get(tableName) == null) {
+            return new Status(StatusCode.NOTFOUND, "Table "+tableName+" not supported");
         }
-        else if (tableName.equalsIgnoreCase("Queue")) {
-            return deleteQueueRow(node, uuid);
+        TableSchema tableSchema = schema.getTables().get(tableName);
+        if (tableSchema.getMaxRows() != null && tableSchema.getMaxRows() == 1) {
+            return new Status(StatusCode.NOTIMPLEMENTED, "delete operation for this Table is not implemented yet.");
         }
-        else if (tableName.equalsIgnoreCase("sFlow")) {
-            return deleteSflowRow(node, uuid);
+        Map<String, Table<?>> rows = inventoryServiceInternal.getTableCache(node, tableName);
+        if (rows == null || uuid == null || rows.get(uuid) == null) {
+            return new Status(StatusCode.NOTFOUND, "");
         }
-        else if (tableName.equalsIgnoreCase("IPFIX")) {
-            return deleteIpFixRow(node, uuid);
+        boolean isRoot = Boolean.TRUE.equals(tableSchema.getIsRoot());
+
+        UUID rowUuid = new UUID(uuid);
+        TransactBuilder transaction = new TransactBuilder();
+        Set<String> parentColumns = new HashSet<String>();
+        for (ReferenceIndex.Reference parent : inventoryServiceInternal.getParents(node, uuid)) {
+            if (!parentColumns.add(parent.getTableName() + "." + parent.getColumn())) continue;
+            TableSchema parentTable = schema.getTables().get(parent.getTableName());
+            ColumnSchema column = parentTable != null && parentTable.getColumns() != null
+                                  ? parentTable.getColumns().get(parent.getColumn()) : null;
+            if (column == null) continue;
+            if (column.getType() != null && column.getType().value != null) {
+                // The row is a value of a map, e.g. a Queue, left to the map key owner
+                if (isRoot) continue;
+                return new Status(StatusCode.BADREQUEST, "Column "+parent.getTableName()+"."+parent.getColumn()
+                                                         +" is a map, the "+tableName+" row cannot be removed from it");
+            }
+
+            Mutation mutator = new Mutation(parent.getColumn(), Mutator.DELETE, rowUuid);
+            List<Mutation> mutations = new ArrayList<Mutation>();
+            mutations.add(mutator);
+            // INCLUDES condition ensures that it captures all rows in the parent table (ie duplicates) that have the child UUID
+            Condition condition = new Condition(parent.getColumn(), Function.INCLUDES, rowUuid);
+            List<Condition> where = new ArrayList<Condition>();
+            where.add(condition);
+            transaction.addOperation(new MutateOperation(parent.getTableName(), where, mutations));
         }
-        else if (tableName.equalsIgnoreCase("SSL")) {
-            return deleteSSLRow(node, uuid);
+        if (isRoot) {
+            Condition condition = new Condition("_uuid", Function.EQUALS, rowUuid);
+            List<Condition> where = new ArrayList<Condition>();
+            where.add(condition);
+            transaction.addOperation(new DeleteOperation(tableName, where));
+        } else if (transaction.getRequests().isEmpty()) {
+            return new Status(StatusCode.NOTFOUND, "No row referencing "+tableName+" row "+uuid);
         }
-        return new Status(StatusCode.NOTFOUND, "Table "+tableName+" not supported");
+        return _deleteTableRows(node, transaction, uuid);
     }
 
     @Override
@@ -871,6 +1023,22 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
         }
     }
 
+    @Override
+    public NodeSnapshot getSnapshot(Node node) throws Exception {
+        if (inventoryServiceInternal == null) {
+            throw new Exception("Inventory Service is Unavailable.");
+        }
+        return inventoryServiceInternal.getSnapshot(node);
+    }
+
+    @Override
+    public ChangeJournal.Changes getChangesSince(Node node, long sequence) throws Exception {
+        if (inventoryServiceInternal == null) {
+            throw new Exception("Inventory Service is Unavailable.");
+        }
+        return inventoryServiceInternal.getChangesSince(node, sequence);
+    }
+
     @Override
     public String getSerializedRows(Node node, String tableName) throws Exception{
         try{
@@ -896,578 +1064,145 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
     }
 
     @Override
-    public List<String> getTables(Node node) {
-        ConcurrentMap<String, ConcurrentMap<String, Table<?>>> cache  = inventoryServiceInternal.getCache(node);
-        if (cache == null) return null;
-        return new ArrayList<String>(cache.keySet());
-    }
-
-    private StatusWithUuid insertBridgeRow(Node node, String open_VSwitch_uuid, Bridge bridgeRow) {
-
-        String insertErrorMsg = "bridge";
-        String rowName=bridgeRow.getName();
-
-        try{
-            Map<String, Table<?>> ovsTable = inventoryServiceInternal.getTableCache(node, Open_vSwitch.NAME.getName());
-
-            if (ovsTable == null) {
-                return new StatusWithUuid(StatusCode.NOTFOUND, "There are no Open_vSwitch instance in the Open_vSwitch table");
+    public ListenableFuture<List<OperationResult>> transact(Node node, TransactBuilder transaction) throws Exception {
+        if (inventoryServiceInternal != null && connectionService != null
+                && CacheQuery.isReadOnly(transaction.getRequests())) {
+            /*
+             * A write of the caller may still be queued on the update stripe of the node, the cache
+             * answers once the updates received so far are applied and the node if they are not in
+             * time. On the update thread of the node the cache answers at once.
+             */
+            if (syncUpdates(node)) {
+                List<OperationResult> local = transactLocally(node, transaction);
+                if (local != null) return Futures.immediateFuture(local);
             }
-
-            String newBridge = "new_bridge";
-
-            Operation addSwitchRequest = null;
-
-            String ovsTableUUID = open_VSwitch_uuid;
-            if (ovsTableUUID == null) ovsTableUUID = (String) ovsTable.keySet().toArray()[0];
-            UUID bridgeUuid = new UUID(newBridge);
-            Mutation bm = new Mutation("bridges", Mutator.INSERT, bridgeUuid);
-            List<Mutation> mutations = new ArrayList<Mutation>();
-            mutations.add(bm);
-
-            UUID uuid = new UUID(ovsTableUUID);
-            Condition condition = new Condition("_uuid", Function.EQUALS, uuid);
-            List<Condition> where = new ArrayList<Condition>();
-            where.add(condition);
-            addSwitchRequest = new MutateOperation(Open_vSwitch.NAME.getName(), where, mutations);
-
-            InsertOperation addBridgeRequest = new InsertOperation(Bridge.NAME.getName(), newBridge, bridgeRow);
-
-            TransactBuilder transaction = new TransactBuilder();
-            transaction.addOperations(new ArrayList<Operation>(
-                                      Arrays.asList(addSwitchRequest,
-                                                    addBridgeRequest)));
-
-            int bridgeInsertIndex = transaction.getRequests().indexOf(addBridgeRequest);
-
-            return _insertTableRow(node,transaction,bridgeInsertIndex,insertErrorMsg,rowName);
-
-        } catch(Exception e){
-            logger.error("Error in insertBridgeRow(): ",e);
         }
-        return new StatusWithUuid(StatusCode.INTERNALERROR);
+        return transactRemotely(node, transaction);
     }
 
-
-    private StatusWithUuid insertPortRow(Node node, String bridge_uuid, Port portRow) {
-
-        String insertErrorMsg = "port";
-        String rowName=portRow.getName();
-
-        try{
-            Map<String, Table<?>> brTable = inventoryServiceInternal.getTableCache(node, Bridge.NAME.getName());
-            if (brTable == null ||  brTable.get(bridge_uuid) == null) {
-                return new StatusWithUuid(StatusCode.NOTFOUND, "Bridge with UUID "+bridge_uuid+" Not found");
-            }
-            String newPort = "new_port";
-            UUID portUUID = new UUID(newPort);
-            Mutation bm = new Mutation("ports", Mutator.INSERT, portUUID);
-            List<Mutation> mutations = new ArrayList<Mutation>();
-            mutations.add(bm);
-
-            UUID uuid = new UUID(bridge_uuid);
-            Condition condition = new Condition("_uuid", Function.EQUALS, uuid);
-            List<Condition> where = new ArrayList<Condition>();
-            where.add(condition);
-            Operation addBrMutRequest = new MutateOperation(Bridge.NAME.getName(), where, mutations);
-
-            // Default OVS schema is to have 1 or more interface part of Bridge. Hence it is mandatory to
-            // Insert an Interface in a Port add case
-
-            String newInterface = "new_interface";
-            Interface interfaceRow = new Interface();
-            interfaceRow.setName(portRow.getName());
-            InsertOperation addIntfRequest = new InsertOperation(Interface.NAME.getName(),
-                    newInterface, interfaceRow);
-
-            OvsDBSet<UUID> interfaces = new OvsDBSet<UUID>();
-            UUID interfaceid = new UUID(newInterface);
-            interfaces.add(interfaceid);
-            portRow.setInterfaces(interfaces);
-
-            InsertOperation addPortRequest = new InsertOperation(Port.NAME.getName(), newPort, portRow);
-
-            TransactBuilder transaction = new TransactBuilder();
-            transaction.addOperations(new ArrayList<Operation>
-            (Arrays.asList(addBrMutRequest, addPortRequest, addIntfRequest)));
-            int portInsertIndex = transaction.getRequests().indexOf(addPortRequest);
-
-            return _insertTableRow(node,transaction,portInsertIndex,insertErrorMsg,rowName);
-
-            } catch (Exception e) {
-            logger.error("Error in insertPortRow(): ",e);
+    /*
+     * Returns the results of the transaction answered from the cache, null if it cannot be
+     */
+    private List<OperationResult> transactLocally(Node node, TransactBuilder transaction) {
+        List<OperationResult> results = inventoryServiceInternal.transactLocally(node, transaction.getRequests());
+        if (results == null) return null;
+        List<Operation> requests = transaction.getRequests();
+        for (int i = 0; i < results.size(); i++) {
+            requests.get(i).setResult(results.get(i));
         }
-        return new StatusWithUuid(StatusCode.INTERNALERROR);
+        return results;
     }
 
-    private StatusWithUuid insertInterfaceRow(Node node, String port_uuid, Interface interfaceRow) {
-
-        String insertErrorMsg = "interface";
-        String rowName=interfaceRow.getName();
-
-        try{
-
-            // Interface table must have entry in Port table, checking port table for port
-            Map<String, Table<?>> portTable = inventoryServiceInternal.getTableCache(node, Port.NAME.getName());
-            if (portTable == null ||  portTable.get(port_uuid) == null) {
-                return new StatusWithUuid(StatusCode.NOTFOUND, "Port with UUID "+port_uuid+" Not found");
-            }
-            // MUTATOR, need to insert the interface UUID to LIST of interfaces in PORT TABLE for port_uuid
-            String newInterface = "new_interface";
-            UUID interfaceUUID = new UUID(newInterface);
-            Mutation portTableMutation = new Mutation("interfaces", Mutator.INSERT, interfaceUUID); // field name to append is "interfaces"
-            List<Mutation> mutations = new ArrayList<Mutation>();
-            mutations.add(portTableMutation);
-
-            // Create the Operation which will be used in Transact to perform the PORT TABLE mutation
-            UUID uuid = new UUID(port_uuid);
-            Condition condition = new Condition("_uuid", Function.EQUALS, uuid);
-            List<Condition> where = new ArrayList<Condition>();
-            where.add(condition);
-            Operation addPortMutationRequest = new MutateOperation(Port.NAME.getName(), where, mutations);
-
-            // Create the interface row request
-            InsertOperation addIntfRequest = new InsertOperation(Interface.NAME.getName(),newInterface, interfaceRow);
-
-            // Transaction to insert/modify tables - validate using "sudo ovsdb-client dump" on host running OVSDB process
-            TransactBuilder transaction = new TransactBuilder();
-            transaction.addOperations(new ArrayList<Operation>(Arrays.asList(addIntfRequest,addPortMutationRequest)));
-
-            // Check the results. Iterates over the results of the Array of transaction Operations, and reports STATUS
-            int interfaceInsertIndex = transaction.getRequests().indexOf(addIntfRequest);
-
-            return _insertTableRow(node,transaction,interfaceInsertIndex,insertErrorMsg,rowName);
-
-        } catch (Exception e) {
-            logger.error("Error in insertInterfaceRow(): ",e);
+    private ListenableFuture<List<OperationResult>> transactRemotely(Node node, TransactBuilder transaction) throws Exception {
+        Connection connection = this.getConnection(node);
+        if (connection == null) {
+            throw new Exception("Node " + node + " is not connected");
         }
-        return new StatusWithUuid(StatusCode.INTERNALERROR);
+        return connection.getRpc().transact(transaction);
     }
 
-    private StatusWithUuid insertOpen_vSwitchRow(Node node, Open_vSwitch row) {
-        return new StatusWithUuid(StatusCode.NOTIMPLEMENTED, "Insert operation for this Table is not implemented yet.");
+    @Override
+    public List<String> getTables(Node node) {
+        ConcurrentMap<String, ConcurrentMap<String, Table<?>>> cache  = inventoryServiceInternal.getCache(node);
+        if (cache == null) return null;
+        return new ArrayList<String>(cache.keySet());
     }
 
-    private StatusWithUuid insertControllerRow(Node node, String bridge_uuid, Controller row) {
-
-        String insertErrorMsg = "controller";
-        String rowName=row.getTableName().toString();
-
-        try{
-
-            Map<String, Table<?>> brTable = inventoryServiceInternal.getTableCache(node, Bridge.NAME.getName());
-            if (brTable == null ||  brTable.get(bridge_uuid) == null) {
-                return new StatusWithUuid(StatusCode.NOTFOUND, "Bridge with UUID "+bridge_uuid+" Not found");
-            }
-
-            Map<String, Table<?>> controllerCache = inventoryServiceInternal.getTableCache(node, Controller.NAME.getName());
-
-            String uuid_name = "new_controller";
-            boolean controllerExists = false;
-            if (controllerCache != null) {
-                for (String uuid : controllerCache.keySet()) {
-                    Controller controller = (Controller)controllerCache.get(uuid);
-                    if (controller.getTarget().equals(row.getTarget())) {
-                        uuid_name = uuid;
-                        controllerExists = true;
-                        break;
-                    }
-                }
-            }
-
-            UUID controllerUUID = new UUID(uuid_name);
-            Mutation bm = new Mutation("controller", Mutator.INSERT, controllerUUID);
-            List<Mutation> mutations = new ArrayList<Mutation>();
-            mutations.add(bm);
-
-            UUID uuid = new UUID(bridge_uuid);
-            Condition condition = new Condition("_uuid", Function.EQUALS, uuid);
-            List<Condition> where = new ArrayList<Condition>();
-            where.add(condition);
-            Operation addBrMutRequest = new MutateOperation(Bridge.NAME.getName(), where, mutations);
-            InsertOperation addControllerRequest = null;
-
-            TransactBuilder transaction = new TransactBuilder();
-            transaction.addOperation(addBrMutRequest);
-            int portInsertIndex = -1;
-            if (!controllerExists) {
-                addControllerRequest = new InsertOperation(Controller.NAME.getName(), uuid_name, row);
-                transaction.addOperation(addControllerRequest);
-                portInsertIndex = transaction.getRequests().indexOf(addControllerRequest);
-            }
-
-            StatusWithUuid status = _insertTableRow(node,transaction,portInsertIndex,insertErrorMsg,rowName);
-            if (status.isSuccess() && controllerExists) {
-                // We won't get the uuid from the transact, so we set it here
-                status = new StatusWithUuid(status.getCode(), controllerUUID);
-            }
-            return status;
-
-        } catch (Exception e) {
-            logger.error("Error in insertControllerRow(): ",e);
+    @Override
+    public Map<String, Table<?>> getRowsByColumn(Node node, String tableName, String column, String value) throws Exception {
+        if (inventoryServiceInternal == null) {
+            throw new Exception("Inventory Service is Unavailable.");
         }
-        return new StatusWithUuid(StatusCode.INTERNALERROR);
-    }
-
-    private StatusWithUuid insertSSLRow(Node node, String parent_uuid, SSL row) {
-        String insertErrorMsg = "SSL";
-        String rowName=row.NAME.getName();
-
-        try{
-            Map<String, Table<?>> ovsTable = inventoryServiceInternal.getTableCache(node, Open_vSwitch.NAME.getName());
-
-            if (ovsTable == null) {
-                return new StatusWithUuid(StatusCode.NOTFOUND, "There are no Open_vSwitch instance in the Open_vSwitch table");
+        Map<String, Table<?>> ovsTable = inventoryServiceInternal.getTableCache(node, tableName);
+        if (ovsTable == null) return null;
+        Map<String, Table<?>> rows = new HashMap<String, Table<?>>();
+        Set<String> uuids = inventoryServiceInternal.getIndexedUuids(node, tableName, column, value);
+        if (uuids != null) {
+            for (String uuid : uuids) {
+                Table<?> row = ovsTable.get(uuid);
+                if (row != null) rows.put(uuid, row);
             }
-
-            String newSSL = "new_SSL";
-
-            Operation addOpen_vSwitchRequest = null;
-
-            String ovsTableUUID = parent_uuid;
-            if (ovsTableUUID == null) ovsTableUUID = (String) ovsTable.keySet().toArray()[0];
-            UUID sslUuid = new UUID(newSSL);
-            Mutation sslMutation = new Mutation("ssl", Mutator.INSERT, sslUuid);
-            List<Mutation> mutations = new ArrayList<Mutation>();
-            mutations.add(sslMutation);
-
-            UUID uuid = new UUID(ovsTableUUID);
-            Condition condition = new Condition("_uuid", Function.EQUALS, uuid);
-            List<Condition> where = new ArrayList<Condition>();
-            where.add(condition);
-            addOpen_vSwitchRequest = new MutateOperation(Open_vSwitch.NAME.getName(), where, mutations);
-
-            InsertOperation addSSLRequest = new InsertOperation(SSL.NAME.getName(), newSSL, row);
-
-            TransactBuilder transaction = new TransactBuilder();
-            transaction.addOperations(new ArrayList<Operation>(
-                                      Arrays.asList(addSSLRequest,
-                                                    addOpen_vSwitchRequest)));
-
-            int sslInsertIndex = transaction.getRequests().indexOf(addSSLRequest);
-
-            return _insertTableRow(node,transaction,sslInsertIndex,insertErrorMsg,rowName);
-
-        } catch(Exception e){
-            logger.error("Error in insertSSLRow(): ",e);
+            return rows;
         }
-        return new StatusWithUuid(StatusCode.INTERNALERROR);
-    }
-
-        private StatusWithUuid insertIpFixRow(Node node, String parent_uuid, IPFIX row) {
-
-        String insertErrorMsg = "ipfix";
-        String rowName=row.NAME.getName();
-
-        try{
-            Map<String, Table<?>> brTable = inventoryServiceInternal.getTableCache(node, Bridge.NAME.getName());
-            if (brTable == null ||  brTable.get(parent_uuid) == null) {
-                return new StatusWithUuid(StatusCode.NOTFOUND, "Bridge with UUID "+parent_uuid+" Not found");
-            }
-
-            if (parent_uuid == null) {
-                return new StatusWithUuid(StatusCode.BADREQUEST, "Require parent Bridge UUID.");
+        for (Map.Entry<String, Table<?>> entry : ovsTable.entrySet()) {
+            if (ColumnIndex.values(entry.getValue(), column).contains(value)) {
+                rows.put(entry.getKey(), entry.getValue());
             }
-
-            UUID uuid = new UUID(parent_uuid);
-            String newIpFix = "new_ipfix";
-            Operation addBridgeRequest = null;
-            UUID ipfixUuid = new UUID(newIpFix);
-            Mutation ipfixMutation = new Mutation("ipfix", Mutator.INSERT, ipfixUuid);
-            List<Mutation> mutations = new ArrayList<Mutation>();
-            mutations.add(ipfixMutation);
-
-            Condition condition = new Condition("_uuid", Function.EQUALS, uuid);
-            List<Condition> where = new ArrayList<Condition>();
-            where.add(condition);
-            addBridgeRequest = new MutateOperation(Bridge.NAME.getName(), where, mutations);
-            InsertOperation addIpFixRequest = new InsertOperation(IPFIX.NAME.getName(), newIpFix, row);
-
-            TransactBuilder transaction = new TransactBuilder();
-            transaction.addOperations(
-                    new ArrayList<Operation>(Arrays.asList(addIpFixRequest,addBridgeRequest)));
-            int ipfixInsertIndex = transaction.getRequests().indexOf(addIpFixRequest);
-
-            return _insertTableRow(node,transaction,ipfixInsertIndex,insertErrorMsg,rowName);
-
-        } catch (Exception e) {
-            logger.error("Error in insertInterfaceRow(): ",e);
         }
-        return new StatusWithUuid(StatusCode.INTERNALERROR);
+        return rows;
     }
 
-    private StatusWithUuid insertSflowRow(Node node, String parent_uuid, SFlow row) {
-
-        String insertErrorMsg = "sFlow";
-        String rowName=row.NAME.getName();
-
-        try{
-            Map<String, Table<?>> brTable = inventoryServiceInternal.getTableCache(node, Bridge.NAME.getName());
-            if (brTable == null ||  brTable.get(parent_uuid) == null) {
-                return new StatusWithUuid(StatusCode.NOTFOUND, "Bridge with UUID "+parent_uuid+" Not found");
-            }
-
-            if (parent_uuid == null) {
-                return new StatusWithUuid(StatusCode.BADREQUEST, "Require parent Bridge UUID.");
-            }
-
-            UUID uuid = new UUID(parent_uuid);
-
-            String newSflow = "new_sflow";
-
-            Operation addBridgeRequest = null;
-
-            UUID sflowUuid = new UUID(newSflow);
-            Mutation sflowMutation = new Mutation("sflow", Mutator.INSERT, sflowUuid);
-            List<Mutation> mutations = new ArrayList<Mutation>();
-            mutations.add(sflowMutation);
-
-            Condition condition = new Condition("_uuid", Function.EQUALS, uuid);
-            List<Condition> where = new ArrayList<Condition>();
-            where.add(condition);
-            addBridgeRequest = new MutateOperation(Bridge.NAME.getName(), where, mutations);
-
-            InsertOperation addSflowRequest = new InsertOperation(SFlow.NAME.getName(), newSflow, row);
-
-            TransactBuilder transaction = new TransactBuilder();
-            transaction.addOperations(new ArrayList<Operation>(
-                                      Arrays.asList(addSflowRequest,
-                                                    addBridgeRequest)));
-
-            int sflowInsertIndex = transaction.getRequests().indexOf(addSflowRequest);
-
-
-            return _insertTableRow(node,transaction,sflowInsertIndex,insertErrorMsg,rowName);
-
-        } catch (Exception e) {
-            logger.error("Error in insertInterfaceRow(): ",e);
+    @Override
+    public Set<GlobalRowIndex.Location> findRows(String column, String value) throws Exception {
+        if (inventoryServiceInternal == null) {
+            throw new Exception("Inventory Service is Unavailable.");
         }
-        return new StatusWithUuid(StatusCode.INTERNALERROR);
+        return inventoryServiceInternal.findRows(column, value);
     }
 
-    private StatusWithUuid insertQueueRow(Node node, String parent_uuid, Queue row) {
-        String insertErrorMsg = "Queue";
-        String rowName=row.NAME.getName();
-
-        try{
-            Map<String, Table<?>> qosTable = inventoryServiceInternal.getTableCache(node, Qos.NAME.getName());
-            if (qosTable == null ||  qosTable.get(parent_uuid) == null) {
-                return new StatusWithUuid(StatusCode.NOTFOUND, "QoS with UUID "+parent_uuid+" Not found");
-            }
-
-            if (parent_uuid == null) {
-                return new StatusWithUuid(StatusCode.BADREQUEST, "Require parent QoS UUID.");
-            }
-
-            // NOTE: Queue Table is "isroot" meaning it can have a hanging reference. This is different from
-            // standing insertRow due to the parent column type being a map, where one of the items may not be known
-            // at time of insert. Therefore this is a simple insert, rather than mutate/insert.
-            String newQueue = "new_queue";
-            InsertOperation addQueueRequest = new InsertOperation(Queue.NAME.getName(), newQueue, row);
-
-            TransactBuilder transaction = new TransactBuilder();
-            transaction.addOperations(new ArrayList<Operation>(Arrays.asList(addQueueRequest)));
-
-            int queueInsertIndex = transaction.getRequests().indexOf(addQueueRequest);
-
-            return _insertTableRow(node,transaction,queueInsertIndex,insertErrorMsg,rowName);
-
-        } catch (Exception e) {
-            logger.error("Error in insertQueueRow(): ",e);
+    @Override
+    public Set<String> getColumnValues(Node node, String tableName, String column) throws Exception {
+        if (inventoryServiceInternal == null) {
+            throw new Exception("Inventory Service is Unavailable.");
         }
-        return new StatusWithUuid(StatusCode.INTERNALERROR);    }
-
-    private StatusWithUuid insertQosRow(Node node, String parent_uuid, Qos row) {
-        String insertErrorMsg = "Qos";
-        String rowName=row.NAME.getName();
-
-        try{
-
-            String newQos = "new_qos";
-
-            // QoS Table "isroot" meaning it can have hanging references. If parent_uuid is not supplied in API call this becomes a simple
-            // insert operation, rather than the typical mutate/insert parent/child insert.
-            if (parent_uuid != null) {
-                // Port (parent) table check for UUID existance.
-                Map<String, Table<?>> portTable = inventoryServiceInternal.getTableCache(node, Port.NAME.getName());
-                if (portTable == null ||  portTable.get(parent_uuid) == null) {
-                    return new StatusWithUuid(StatusCode.NOTFOUND, "Port with UUID "+parent_uuid+" Not found");
-                }
-
-                UUID qosUuid = new UUID(newQos);
-                Mutation qosMutation = new Mutation("qos", Mutator.INSERT, qosUuid);
-                List<Mutation> mutations = new ArrayList<Mutation>();
-                mutations.add(qosMutation);
-
-                Operation addPortRequest = null;
-                UUID uuid = new UUID(parent_uuid);
-                Condition condition = new Condition("_uuid", Function.EQUALS, uuid);
-                List<Condition> where = new ArrayList<Condition>();
-                where.add(condition);
-                addPortRequest = new MutateOperation(Port.NAME.getName(), where, mutations);
-
-                InsertOperation addQosRequest = new InsertOperation(Qos.NAME.getName(), newQos, row);
-
-                TransactBuilder transaction = new TransactBuilder();
-                transaction.addOperations(new ArrayList<Operation>(Arrays.asList(addQosRequest,addPortRequest)));
-
-                int qosInsertIndex = transaction.getRequests().indexOf(addQosRequest);
-
-                return _insertTableRow(node,transaction,qosInsertIndex,insertErrorMsg,rowName);
-
-            } else {
-                InsertOperation addQosRequest = new InsertOperation(Qos.NAME.getName(), newQos, row);
-
-                TransactBuilder transaction = new TransactBuilder();
-                transaction.addOperations(new ArrayList<Operation>(Arrays.asList(addQosRequest)));
-
-                int qosInsertIndex = transaction.getRequests().indexOf(addQosRequest);
-
-                return _insertTableRow(node,transaction,qosInsertIndex,insertErrorMsg,rowName);
-            }
-
-        } catch (Exception e) {
-            logger.error("Error in insertQosRow(): ",e);
+        Map<String, Table<?>> ovsTable = inventoryServiceInternal.getTableCache(node, tableName);
+        if (ovsTable == null) return null;
+        Set<String> values = inventoryServiceInternal.getIndexedValues(node, tableName, column);
+        if (values != null) return new HashSet<String>(values);
+        values = new HashSet<String>();
+        for (Table<?> row : ovsTable.values()) {
+            values.addAll(ColumnIndex.values(row, column));
         }
-        return new StatusWithUuid(StatusCode.INTERNALERROR);
+        return values;
     }
 
-
-    private StatusWithUuid insertNetFlowRow(Node node, String parent_uuid, NetFlow row) {
-        String insertErrorMsg = "netFlow";
-        String rowName=row.NAME.getName();
-
-        try{
-            Map<String, Table<?>> brTable = inventoryServiceInternal.getTableCache(node, Bridge.NAME.getName());
-            if (brTable == null ||  brTable.get(parent_uuid) == null) {
-                return new StatusWithUuid(StatusCode.NOTFOUND, "Bridge with UUID "+parent_uuid+" Not found");
-            }
-
-            if (parent_uuid == null) {
-                return new StatusWithUuid(StatusCode.BADREQUEST, "Require parent Bridge UUID.");
-            }
-
-            UUID uuid = new UUID(parent_uuid);
-            String newNetflow = "new_netflow";
-
-            Operation addBridgeRequest = null;
-
-            UUID netFlowUuid = new UUID(newNetflow);
-            Mutation netFlowMutation = new Mutation("netflow", Mutator.INSERT, netFlowUuid);
-            List<Mutation> mutations = new ArrayList<Mutation>();
-            mutations.add(netFlowMutation);
-
-            Condition condition = new Condition("_uuid", Function.EQUALS, uuid);
-            List<Condition> where = new ArrayList<Condition>();
-            where.add(condition);
-            addBridgeRequest = new MutateOperation(Bridge.NAME.getName(), where, mutations);
-
-            InsertOperation addNetflowRequest = new InsertOperation(NetFlow.NAME.getName(), newNetflow, row);
-
-            TransactBuilder transaction = new TransactBuilder();
-            transaction.addOperations(new ArrayList<Operation>(
-                                      Arrays.asList(addNetflowRequest,
-                                                    addBridgeRequest)));
-
-            int netflowInsertIndex = transaction.getRequests().indexOf(addNetflowRequest);
-
-
-            return _insertTableRow(node,transaction,netflowInsertIndex,insertErrorMsg,rowName);
-
-        } catch (Exception e) {
-            logger.error("Error in insertNetFlowRow(): ",e);
+    @Override
+    public void addIndex(String tableName, String column) throws Exception {
+        if (inventoryServiceInternal == null) {
+            throw new Exception("Inventory Service is Unavailable.");
         }
-        return new StatusWithUuid(StatusCode.INTERNALERROR);
+        inventoryServiceInternal.addIndex(tableName, column);
     }
 
-    private StatusWithUuid insertMirrorRow(Node node, String parent_uuid, Mirror row) {
-        String insertErrorMsg = "mirror";
-        String rowName=row.NAME.getName();
-
-        try{
-            Map<String, Table<?>> brTable = inventoryServiceInternal.getTableCache(node, Bridge.NAME.getName());
-            if (brTable == null ||  brTable.get(parent_uuid) == null) {
-                return new StatusWithUuid(StatusCode.NOTFOUND, "Bridge with UUID "+parent_uuid+" Not found");
-            }
-
-            if (parent_uuid == null) {
-                return new StatusWithUuid(StatusCode.BADREQUEST, "Require parent Bridge UUID.");
-            }
-
-            UUID uuid = new UUID(parent_uuid);
-            String newMirror = "new_mirror";
-
-            Operation addBridgeRequest = null;
-
-            UUID mirrorUuid = new UUID(newMirror);
-            Mutation mirrorMutation = new Mutation("mirrors", Mutator.INSERT, mirrorUuid);
-            List<Mutation> mutations = new ArrayList<Mutation>();
-            mutations.add(mirrorMutation);
-
-            Condition condition = new Condition("_uuid", Function.EQUALS, uuid);
-            List<Condition> where = new ArrayList<Condition>();
-            where.add(condition);
-            addBridgeRequest = new MutateOperation(Bridge.NAME.getName(), where, mutations);
-
-            InsertOperation addMirrorRequest = new InsertOperation(Mirror.NAME.getName(), newMirror, row);
-
-            TransactBuilder transaction = new TransactBuilder();
-            transaction.addOperations(new ArrayList<Operation>(
-                                      Arrays.asList(addBridgeRequest, addMirrorRequest)));
-
-            int mirrorInsertIndex = transaction.getRequests().indexOf(addMirrorRequest);
-
-            return _insertTableRow(node,transaction,mirrorInsertIndex,insertErrorMsg,rowName);
-
-            } catch (Exception e) {
-            logger.error("Error in insertMirrorRow(): ",e);
+    @Override
+    public Map<String, Table<?>> getParentRows(Node node, String parentTableName, String uuid) throws Exception {
+        if (inventoryServiceInternal == null) {
+            throw new Exception("Inventory Service is Unavailable.");
         }
-        return new StatusWithUuid(StatusCode.INTERNALERROR);
+        Map<String, Table<?>> rows = new HashMap<String, Table<?>>();
+        for (ReferenceIndex.Reference parent : inventoryServiceInternal.getParents(node, uuid)) {
+            if (parentTableName != null && !parentTableName.equals(parent.getTableName())) continue;
+            String parentUuid = parent.getUuid();
+            Table<?> row = inventoryServiceInternal.getRow(node, parent.getTableName(), parentUuid);
+            if (row != null) rows.put(parentUuid, row);
+        }
+        return rows;
     }
 
-    private StatusWithUuid insertManagerRow(Node node, String parent_uuid, Manager row) {
-        String insertErrorMsg = "manager";
-        String rowName=row.NAME.getName();
-
-        try{
-            Map<String, Table<?>> ovsTable = inventoryServiceInternal.getTableCache(node, Open_vSwitch.NAME.getName());
-
-            if (ovsTable == null) {
-                return new StatusWithUuid(StatusCode.NOTFOUND, "There are no Open_vSwitch instance in the Open_vSwitch table");
+    @Override
+    public Map<String, Table<?>> getChildRows(Node node, String uuid, String column) throws Exception {
+        if (inventoryServiceInternal == null) {
+            throw new Exception("Inventory Service is Unavailable.");
+        }
+        Map<String, Table<?>> rows = new HashMap<String, Table<?>>();
+        for (ReferenceIndex.Reference child : inventoryServiceInternal.getChildren(node, uuid)) {
+            if (column != null && !column.equals(child.getColumn())) continue;
+            String childUuid = child.getUuid();
+            Table<?> row = null;
+            if (child.getTableName() != null) {
+                row = inventoryServiceInternal.getRow(node, child.getTableName(), childUuid);
+            } else {
+                // No schema to tell the referenced table, uuids are unique across tables
+                ConcurrentMap<String, ConcurrentMap<String, Table<?>>> cache = inventoryServiceInternal.getCache(node);
+                if (cache == null) break;
+                for (Map<String, Table<?>> table : cache.values()) {
+                    row = table.get(childUuid);
+                    if (row != null) break;
+                }
             }
-
-            String newManager = "new_manager";
-
-            Operation addSwitchRequest = null;
-
-            String ovsTableUUID = parent_uuid;
-            if (ovsTableUUID == null) ovsTableUUID = (String) ovsTable.keySet().toArray()[0];
-            UUID managerUuid = new UUID(newManager);
-            Mutation managerMutation = new Mutation("manager_options", Mutator.INSERT, managerUuid);
-            List<Mutation> mutations = new ArrayList<Mutation>();
-            mutations.add(managerMutation);
-
-            UUID uuid = new UUID(ovsTableUUID);
-            Condition condition = new Condition("_uuid", Function.EQUALS, uuid);
-            List<Condition> where = new ArrayList<Condition>();
-            where.add(condition);
-            addSwitchRequest = new MutateOperation(Open_vSwitch.NAME.getName(), where, mutations);
-
-            InsertOperation addManagerRequest = new InsertOperation(Manager.NAME.getName(), newManager, row);
-
-            TransactBuilder transaction = new TransactBuilder();
-            transaction.addOperations(new ArrayList<Operation>(
-                                      Arrays.asList(addSwitchRequest,
-                                                    addManagerRequest)));
-
-            int managerInsertIndex = transaction.getRequests().indexOf(addManagerRequest);
-
-            return _insertTableRow(node,transaction,managerInsertIndex,insertErrorMsg,rowName);
-
-        } catch(Exception e){
-            logger.error("Error in insertManagerRow(): ",e);
+            if (row != null) rows.put(childUuid, row);
         }
-        return new StatusWithUuid(StatusCode.INTERNALERROR);
+        return rows;
     }
 
     private StatusWithUuid _insertTableRow(Node node, TransactBuilder transaction, Integer insertIndex, String insertErrorMsg,String rowName){
@@ -1484,7 +1219,7 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
                 return new StatusWithUuid(StatusCode.NOSERVICE, "Connection to ovsdb-server not available");
             }
 
-            ListenableFuture<List<OperationResult>> transResponse = connection.getRpc().transact(transaction);
+            ListenableFuture<List<OperationResult>> transResponse = transact(node, transaction);
             List<OperationResult> tr = transResponse.get();
             List<Operation> requests = transaction.getRequests();
             StatusWithUuid status = new StatusWithUuid(StatusCode.SUCCESS);
@@ -1522,127 +1257,7 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
     }
 
 
-    private Status deleteBridgeRow(Node node, String uuid) {
-        // Set up variables for generic _deleteTableRow()
-        String parentTableName=Open_vSwitch.NAME.getName();
-        String childTableName=Bridge.NAME.getName();
-        String parentColumn = "bridges";
-
-        return _deleteTableRow(node,uuid,parentTableName,childTableName,parentColumn);
-    }
-
-    private Status deletePortRow(Node node, String uuid) {
-        // Set up variables for generic _deleteTableRow()
-        String parentTableName=Bridge.NAME.getName();
-        String childTableName=Port.NAME.getName();
-        String parentColumn = "ports";
-
-        return _deleteTableRow(node,uuid,parentTableName,childTableName,parentColumn);
-    }
-
-    private Status deleteInterfaceRow(Node node, String uuid) {
-        // Since Port<-Interface tables have a 1:n relationship, need to test if this is the last interface
-        // assigned to a port before attempting delete.
-        Map<String, Table<?>> portTable = inventoryServiceInternal.getTableCache(node, Port.NAME.getName());
-        Map<String, Table<?>> interfaceTable = inventoryServiceInternal.getTableCache(node, Interface.NAME.getName());
-        // Check that the UUID exists
-        if (portTable == null || interfaceTable == null || uuid == null || interfaceTable.get(uuid) == null) {
-            return new Status(StatusCode.NOTFOUND, "");
-        }
-
-        // Since the above past, it's safe to use the generic _deleteTableRow method
-        // Set up variables for generic _deleteTableRow()
-        String parentTableName=Port.NAME.getName();
-        String childTableName=Interface.NAME.getName();
-        String parentColumn = "interfaces";
-
-        return _deleteTableRow(node,uuid,parentTableName,childTableName,parentColumn);
-    }
-
-    private Status deleteControllerRow(Node node, String uuid) {
-        // Set up variables for generic _deleteTableRow()
-        String parentTableName=Bridge.NAME.getName();
-        String childTableName=Controller.NAME.getName();
-        String parentColumn = "controller";
-
-        return _deleteTableRow(node,uuid,parentTableName,childTableName,parentColumn);
-    }
-
-    private Status deleteOpen_vSwitchRow(Node node, String uuid) {
-        return new Status(StatusCode.NOTIMPLEMENTED, "delete operation for this Table is not implemented yet.");
-    }
-
-    private Status deleteSSLRow(Node node, String uuid) {
-        // Set up variables for generic _deleteTableRow()
-        String parentTableName=Open_vSwitch.NAME.getName();
-        String childTableName=SSL.NAME.getName();
-        String parentColumn = "ssl";
-
-        return _deleteTableRow(node,uuid,parentTableName,childTableName,parentColumn);
-    }
-
-    private Status deleteSflowRow(Node node, String uuid) {
-        // Set up variables for generic _deleteTableRow()
-        String parentTableName=Bridge.NAME.getName();
-        String childTableName=SFlow.NAME.getName();
-        String parentColumn = "sflow";
-
-        return _deleteTableRow(node,uuid,parentTableName,childTableName,parentColumn);
-    }
-
-    private Status deleteIpFixRow(Node node, String uuid) {
-        // Set up variables for generic _deleteTableRow()
-        String parentTableName=Bridge.NAME.getName();
-        String childTableName=IPFIX.NAME.getName();
-        String parentColumn = "ipfix";
-
-        return _deleteTableRow(node,uuid,parentTableName,childTableName,parentColumn);
-    }
-
-    private Status deleteQueueRow(Node node, String uuid) {
-        // Set up variables for _deleteRootTableRow()
-        // This doesn't do a mutate on parent, but simply deletes row
-        String childTableName=Queue.NAME.getName();
-
-        return _deleteRootTableRow(node,uuid,childTableName);
-    }
-
-    private Status deleteQosRow(Node node, String uuid) {
-        // Set up variables for generic _deleteTableRow()
-        String parentTableName=Port.NAME.getName();
-        String childTableName=Qos.NAME.getName();
-        String parentColumn = "qos";
-
-        return _deleteTableRow(node,uuid,parentTableName,childTableName,parentColumn);
-    }
-
-    private Status deleteNetFlowRow(Node node, String uuid) {
-        // Set up variables for generic _deleteTableRow()
-        String parentTableName=Bridge.NAME.getName();
-        String childTableName=NetFlow.NAME.getName();
-        String parentColumn = "netflow";
-
-        return _deleteTableRow(node,uuid,parentTableName,childTableName,parentColumn);
-    }
-
-    private Status deleteMirrorRow(Node node, String uuid) {
-        // Set up variables for generic _deleteTableRow()
-        String parentTableName=Bridge.NAME.getName();
-        String childTableName=Mirror.NAME.getName();
-        String parentColumn = "mirrors";
-        return _deleteTableRow(node,uuid,parentTableName,childTableName,parentColumn);
-    }
-
-    private Status deleteManagerRow(Node node, String uuid) {
-        // Set up variables for generic _deleteTableRow()
-        String parentTableName=Open_vSwitch.NAME.getName();
-        String childTableName=Manager.NAME.getName();
-        String parentColumn = "manager_options";
-
-        return _deleteTableRow(node,uuid,parentTableName,childTableName,parentColumn);
-    }
-
-    private Status _deleteTableRow(Node node,String uuid,String parentTableName, String childTableName, String parentColumn) {
+    private Status _deleteTableRows(Node node, TransactBuilder transaction, String uuid) {
         try {
             // Check there is a connectionService
             if (connectionService == null) {
@@ -1656,37 +1271,10 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
                 return new Status(StatusCode.NOSERVICE, "Connection to ovsdb-server not available");
             }
 
-            // Remove from Parent and Child
-            Map<String, Table<?>> parentTable = inventoryServiceInternal.getTableCache(node, parentTableName);
-            Map<String, Table<?>> childTable = inventoryServiceInternal.getTableCache(node, childTableName);
-
-            // Check that the UUID exists
-            if (parentTable == null || childTable == null || uuid == null || childTable.get(uuid) == null) {
-                return new Status(StatusCode.NOTFOUND, "");
-            }
-
-            // Initialise the actual request var
-            Operation delRequest = null;
-
-            // Prepare the mutator to remove the child UUID from the parentColumn list in the parent TABLE
-            UUID rowUuid = new UUID(uuid);
-            Mutation mutator = new Mutation(parentColumn, Mutator.DELETE, rowUuid);
-            List<Mutation> mutations = new ArrayList<Mutation>();
-            mutations.add(mutator);
-
             Status status = new Status(StatusCode.SUCCESS);
 
-            // INCLUDES condition ensures that it captures all rows in the parent table (ie duplicates) that have the child UUID
-            Condition condition = new Condition(parentColumn, Function.INCLUDES, rowUuid);
-            List<Condition> where = new ArrayList<Condition>();
-            where.add(condition);
-            delRequest = new MutateOperation(parentTableName, where, mutations);
-
-            TransactBuilder transaction = new TransactBuilder();
-            transaction.addOperations(new ArrayList<Operation>(Arrays.asList(delRequest)));
-
             // This executes the transaction.
-            ListenableFuture<List<OperationResult>> transResponse = connection.getRpc().transact(transaction);
+            ListenableFuture<List<OperationResult>> transResponse = transact(node, transaction);
 
             // Pull the responses
             List<OperationResult> tr = transResponse.get();
@@ -1708,71 +1296,7 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
             }
             return status;
         } catch (Exception e) {
-            logger.error("Error in _deleteTableRow",e);
-        }
-        return new Status(StatusCode.INTERNALERROR);
-    }
-
-    private Status _deleteRootTableRow(Node node,String uuid,String TableName) {
-        try {
-            // Check there is a connectionService
-            if (connectionService == null) {
-                logger.error("Couldn't refer to the ConnectionService");
-                return new Status(StatusCode.NOSERVICE);
-            }
-
-            // Establish the connection
-            Connection connection = this.getConnection(node);
-            if (connection == null) {
-                return new Status(StatusCode.NOSERVICE, "Connection to ovsdb-server not available");
-            }
-
-            Map<String, Table<?>> table = inventoryServiceInternal.getTableCache(node, TableName);
-
-            // Check that the UUID exists
-            if (table == null || table.get(uuid) == null) {
-                return new Status(StatusCode.NOTFOUND, "");
-            }
-
-            // Initialise the actual request var
-            Operation delRequest = null;
-
-            UUID rowUuid = new UUID(uuid);
-
-            Status status = new Status(StatusCode.SUCCESS);
-
-            Condition condition = new Condition("_uuid", Function.EQUALS, rowUuid);
-            List<Condition> where = new ArrayList<Condition>();
-            where.add(condition);
-            delRequest = new DeleteOperation(TableName, where);
-
-            TransactBuilder transaction = new TransactBuilder();
-            transaction.addOperations(new ArrayList<Operation>(Arrays.asList(delRequest)));
-
-            // This executes the transaction.
-            ListenableFuture<List<OperationResult>> transResponse = connection.getRpc().transact(transaction);
-
-            // Pull the responses
-            List<OperationResult> tr = transResponse.get();
-            List<Operation> requests = transaction.getRequests();
-
-            for (int i = 0; i < tr.size(); i++) {
-                if (i < requests.size()) requests.get(i).setResult(tr.get(i));
-                if (tr.get(i) != null && tr.get(i).getError() != null && tr.get(i).getError().trim().length() > 0) {
-                    OperationResult result = tr.get(i);
-                    status = new Status(StatusCode.BADREQUEST, result.getError() + " : " + result.getDetails());
-                }
-            }
-
-            if (tr.size() > requests.size()) {
-                OperationResult result = tr.get(tr.size() - 1);
-                logger.error("Error deleting: {}\n Error : {}\n Details : {}",
-                        uuid, result.getError(), result.getDetails());
-                status = new Status(StatusCode.BADREQUEST, result.getError() + " : " + result.getDetails());
-            }
-            return status;
-        } catch (Exception e) {
-            logger.error("Error in _deleteRootTableRow",e);
+            logger.error("Error in _deleteTableRows",e);
         }
         return new Status(StatusCode.INTERNALERROR);
     }
@@ -2064,6 +1588,34 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
         inventoryServiceInternal.printCache(node);
     }
 
+    public void _printUpdateQueues (CommandInterpreter ci) {
+        Map<Node, NodeUpdateExecutor.QueueStatistics> stats = connectionService.getUpdateQueueStatistics();
+        for (Map.Entry<Node, NodeUpdateExecutor.QueueStatistics> entry : stats.entrySet()) {
+            ci.println(entry.getKey() + " : " + entry.getValue());
+        }
+        ci.println("Statistics lane : " + inventoryServiceInternal.getStatisticsLaneStatistics());
+    }
+
+    public void _printNoisyNodes (CommandInterpreter ci) {
+        int count = 10;
+        String countString = ci.nextArgument();
+        if (countString != null) {
+            try {
+                count = Integer.parseInt(countString);
+            } catch (NumberFormatException e) {
+                ci.println("Invalid count "+countString);
+                return;
+            }
+        }
+        for (NodeUpdateAccounting.UsageStatistics usage : inventoryServiceInternal.getNoisiestNodes(count)) {
+            ci.println(usage);
+        }
+    }
+
+    public void _printSpilledCaches (CommandInterpreter ci) {
+        ci.println(inventoryServiceInternal.getSpillStatistics());
+    }
+
     public void _forceConnect (CommandInterpreter ci) {
         String force = ci.nextArgument();
         if (force.equalsIgnoreCase("YES")) {
@@ -2090,7 +1642,10 @@ public class ConfigurationService implements IPluginInBridgeDomainConfigService,
         help.append("\t deletePort <Node> <BridgeName> <PortName>                       - Delete Port\n");
         help.append("\t addPortVlan <Node> <BridgeName> <PortName> <vlan>               - Add Port, Vlan\n");
         help.append("\t addTunnel <Node> <Bridge> <Port> <tunnel-type> <remote-ip>      - Add Tunnel\n");
-        help.append("\t printCache <Node>                                               - Prints Table Cache");
+        help.append("\t printCache <Node>                                               - Prints Table Cache\n");
+        help.append("\t printUpdateQueues                                               - Prints Update Queue Statistics\n");
+        help.append("\t printNoisyNodes [<count>]                                       - Prints the Nodes sending the most Updates\n");
+        help.append("\t printSpilledCaches                                              - Prints the Caches spilled off-heap");
         return help.toString();
     }
 }
@@ -39,6 +39,8 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.opendaylight.controller.clustering.services.IClusterGlobalServices;
 import org.opendaylight.controller.sal.connection.ConnectionConstants;
@@ -60,6 +62,7 @@ import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
 import org.opendaylight.ovsdb.lib.table.Bridge;
 import org.opendaylight.ovsdb.lib.table.Controller;
 import org.opendaylight.ovsdb.lib.table.Open_vSwitch;
+import org.opendaylight.ovsdb.lib.table.internal.LazyColumns;
 import org.opendaylight.ovsdb.lib.table.internal.Table;
 import org.opendaylight.ovsdb.lib.table.internal.Tables;
 import org.slf4j.Logger;
@@ -67,7 +70,10 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 
 
@@ -75,17 +81,24 @@ import com.google.common.util.concurrent.ListenableFuture;
  * Represents the openflow plugin component in charge of programming the flows
  * the flow programming and relay them to functional modules above SAL.
  */
-public class ConnectionService implements IPluginInConnectionService, IConnectionServiceInternal, OvsdbRPC.Callback {
+public class ConnectionService implements IPluginInConnectionService, IConnectionServiceInternal, OvsdbRPC.RawUpdateCallback {
     protected static final Logger logger = LoggerFactory.getLogger(ConnectionService.class);
 
     // Properties that can be set in config.ini
     private static final String OVSDB_LISTENPORT = "ovsdb.listenPort";
     private static final String OVSDB_AUTOCONFIGURECONTROLLER = "ovsdb.autoconfigurecontroller";
+    private static final String OVSDB_UPDATE_THREADS = "ovsdb.update.threads";
+    private static final String OVSDB_UPDATE_HIGH_WATERMARK = "ovsdb.update.highWatermark";
+    private static final String OVSDB_UPDATE_LOW_WATERMARK = "ovsdb.update.lowWatermark";
+    private static final String OVSDB_UPDATE_QUEUE_CAPACITY = "ovsdb.update.queueCapacity";
+    private static final String OVSDB_CACHE_LAZY_COLUMNS = "ovsdb.cache.lazyColumns";
     protected static final String OPENFLOW_10 = "1.0";
     protected static final String OPENFLOW_13 = "1.3";
 
     private static final Integer defaultOvsdbPort = 6640;
     private static final boolean defaultAutoConfigureController = true;
+    private static final int defaultUpdateHighWatermark = 256;
+    private static final int defaultUpdateLowWatermark = 64;
 
     private static Integer ovsdbListenPort = defaultOvsdbPort;
     private static boolean autoConfigureController = defaultAutoConfigureController;
@@ -93,6 +106,8 @@ public class ConnectionService implements IPluginInConnectionService, IConnectio
     private List<ChannelHandler> handlers = null;
     private InventoryServiceInternal inventoryServiceInternal;
     private Channel serverListenChannel = null;
+    private NodeUpdateExecutor updateExecutor;
+    private boolean lazyColumns;
 
     public InventoryServiceInternal getInventoryServiceInternal() {
         return inventoryServiceInternal;
@@ -120,6 +135,15 @@ public class ConnectionService implements IPluginInConnectionService, IConnectio
         // Keep the default value if the property is not set
         if (System.getProperty(OVSDB_AUTOCONFIGURECONTROLLER) != null)
             autoConfigureController = Boolean.getBoolean(OVSDB_AUTOCONFIGURECONTROLLER);
+
+        int updateThreads = Integer.getInteger(OVSDB_UPDATE_THREADS, Runtime.getRuntime().availableProcessors());
+        int highWatermark = Integer.getInteger(OVSDB_UPDATE_HIGH_WATERMARK, defaultUpdateHighWatermark);
+        int lowWatermark = Integer.getInteger(OVSDB_UPDATE_LOW_WATERMARK, defaultUpdateLowWatermark);
+        int queueCapacity = Integer.getInteger(OVSDB_UPDATE_QUEUE_CAPACITY, NodeUpdateExecutor.DEFAULT_QUEUE_CAPACITY);
+        updateExecutor = new NodeUpdateExecutor(updateThreads, highWatermark, lowWatermark, queueCapacity);
+        inventoryServiceInternal.setUpdateExecutor(updateExecutor);
+        updateExecutor.setReadHold(deferredNodes);
+        lazyColumns = Boolean.getBoolean(OVSDB_CACHE_LAZY_COLUMNS);
     }
 
     /**
@@ -148,6 +172,8 @@ public class ConnectionService implements IPluginInConnectionService, IConnectio
             connection.disconnect();
         }
         serverListenChannel.disconnect();
+        inventoryServiceInternal.setUpdateExecutor(null);
+        updateExecutor.shutdown();
     }
 
     @Override
@@ -253,6 +279,8 @@ public class ConnectionService implements IPluginInConnectionService, IConnectio
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         objectMapper.setSerializationInclusion(Include.NON_NULL);
+        // The rows of the monitor reply, among others, then decode their columns on first access
+        if (lazyColumns) objectMapper.registerModule(LazyColumns.module());
 
         JsonRpcEndpoint factory = new JsonRpcEndpoint(objectMapper, channel);
         JsonRpcServiceBinderHandler binderHandler = new JsonRpcServiceBinderHandler(factory);
@@ -292,10 +320,17 @@ public class ConnectionService implements IPluginInConnectionService, IConnectio
         return node;
     }
 
-    public void channelClosed(Node node) throws Exception {
+    public void channelClosed(final Node node) throws Exception {
         logger.info("Connection to Node : {} closed", node);
         disconnect(node);
-        inventoryServiceInternal.removeNode(node);
+        // Run on the stripe of the node once its pending updates are skipped, so that they do
+        // not resurrect the node once removed
+        updateExecutor.removeNode(node, new Runnable() {
+            @Override
+            public void run() {
+                inventoryServiceInternal.removeNode(node);
+            }
+        });
     }
 
     private void initializeInventoryForNewNode (Connection connection) throws InterruptedException, ExecutionException {
@@ -316,12 +351,14 @@ public class ConnectionService implements IPluginInConnectionService, IConnectio
 
         MonitorRequestBuilder monitorReq = new MonitorRequestBuilder();
         for (Table<?> table : Tables.getTables()) {
-            if (databaseSchema.getTables().keySet().contains(table.getTableName().getName())) {
-                monitorReq.monitor(table);
-            } else {
+            if (!databaseSchema.getTables().keySet().contains(table.getTableName().getName())) {
                 logger.debug("We know about table {} but it is not in the schema of {}", table.getTableName().getName(), connection.getNode().getNodeIDString());
             }
         }
+        // The tables without a Table class are monitored as well, their rows are decoded from the schema
+        for (String tableName : databaseSchema.getTables().keySet()) {
+            monitorReq.monitor(tableName);
+        }
 
         ListenableFuture<TableUpdates> monResponse = connection.getRpc().monitor(monitorReq);
         TableUpdates updates = monResponse.get();
@@ -332,9 +369,7 @@ public class ConnectionService implements IPluginInConnectionService, IConnectio
             /* FIXME: This should be cause for alarm */
             throw new RuntimeException("Failed to setup a monitor in OVSDB");
         }
-        UpdateNotification monitor = new UpdateNotification();
-        monitor.setUpdate(updates);
-        this.update(connection.getNode(), monitor);
+        this.applyInitialUpdate(connection.getNode(), updates).get();
         if (autoConfigureController) {
             this.updateOFControllers(connection.getNode());
         }
@@ -529,7 +564,120 @@ public class ConnectionService implements IPluginInConnectionService, IConnectio
     @Override
     public void update(Node node, UpdateNotification updateNotification) {
         if (updateNotification == null) return;
-        inventoryServiceInternal.processTableUpdates(node, updateNotification.getUpdate());
+        applyUpdate(node, updateNotification);
+    }
+
+    @Override
+    public void rawUpdate(final Node node, final JsonNode params) {
+        if (params == null) return;
+        Connection connection = this.getConnection(node);
+        if (connection == null) {
+            // Closed while the update was read, the node is being removed
+            logger.debug("Node {} is disconnected, dropping its update", node);
+            return;
+        }
+        final Channel channel = connection.getChannel();
+        if (channel != null) {
+            NodeUpdateAccounting accounting = inventoryServiceInternal.getUpdateAccounting();
+            JsonRpcDecoder decoder = channel.pipeline().get(JsonRpcDecoder.class);
+            boolean overBudget = accounting.recordNotification(node, decoder != null ? decoder.getBytesRead() : 0);
+            if (overBudget && accounting.getOverBudgetAction() == NodeUpdateAccounting.OverBudgetAction.DEFER
+                    && channel.config().isAutoRead()) {
+                // Stop reading from the node for the rest of its window
+                logger.debug("Node {} is over its update budget, deferring reads", node);
+                channel.config().setAutoRead(false);
+                scheduleDeferredResume(node, channel);
+            }
+        }
+        updateExecutor.execute(node, channel, new Runnable() {
+            @Override
+            public void run() {
+                inventoryServiceInternal.processUpdateNotification(node, params);
+            }
+        });
+    }
+
+    /*
+     * The reads of a node over its budget are held until the end of its window, the update
+     * executor leaves them suspended once the backlog of the node is drained.
+     */
+    private final Predicate<Node> deferredNodes = new Predicate<Node>() {
+        @Override
+        public boolean apply(Node node) {
+            NodeUpdateAccounting accounting = inventoryServiceInternal.getUpdateAccounting();
+            return accounting.getOverBudgetAction() == NodeUpdateAccounting.OverBudgetAction.DEFER
+                   && accounting.isOverBudget(node);
+        }
+    };
+
+    /*
+     * Resumes the reads of a node at the end of its window, checking again at the end of the
+     * next one while the node is still over budget or its backlog is not drained.
+     */
+    private void scheduleDeferredResume(final Node node, final Channel channel) {
+        NodeUpdateAccounting accounting = inventoryServiceInternal.getUpdateAccounting();
+        channel.eventLoop().schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (!channel.isActive()) return;
+                // Checked first, it rolls the window of the node
+                boolean deferred = deferredNodes.apply(node);
+                if (deferred || updateExecutor.isPaused(node)) {
+                    scheduleDeferredResume(node, channel);
+                } else {
+                    logger.debug("Node {} is back within its update budget, resuming reads", node);
+                    channel.config().setAutoRead(true);
+                }
+            }
+        }, Math.max(1, accounting.getWindowRemainingNanos(node)), TimeUnit.NANOSECONDS);
+    }
+
+    private Future<?> applyUpdate(final Node node, final UpdateNotification updateNotification) {
+        Connection connection = this.getConnection(node);
+        if (connection == null) {
+            logger.debug("Node {} is disconnected, dropping its update", node);
+            return Futures.immediateFuture(null);
+        }
+        return updateExecutor.execute(node, connection.getChannel(), new Runnable() {
+            @Override
+            public void run() {
+                inventoryServiceInternal.processTableUpdates(node, updateNotification.getUpdate());
+            }
+        });
+    }
+
+    private Future<?> applyInitialUpdate(final Node node, final TableUpdates updates) {
+        Connection connection = this.getConnection(node);
+        if (connection == null) {
+            logger.debug("Node {} is disconnected, dropping its update", node);
+            return Futures.immediateFuture(null);
+        }
+        return updateExecutor.execute(node, connection.getChannel(), new Runnable() {
+            @Override
+            public void run() {
+                inventoryServiceInternal.processInitialTableUpdates(node, updates);
+            }
+        });
+    }
+
+    @Override
+    public ListenableFuture<Void> syncUpdates(Node node) {
+        if (updateExecutor.inStripeOf(node)) {
+            // Called while applying an update of the node, the ones queued after it cannot be waited for
+            return Futures.immediateFuture(null);
+        }
+        // The updates of a node are applied in order, this runs once those queued before it are
+        // done and fails if the node is removed meanwhile
+        return updateExecutor.execute(node, null, new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    @Override
+    public Map<Node, NodeUpdateExecutor.QueueStatistics> getUpdateQueueStatistics() {
+        return updateExecutor.getQueueStatistics();
     }
 
     @Override
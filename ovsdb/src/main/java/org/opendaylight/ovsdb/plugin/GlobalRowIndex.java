@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.ovsdb.lib.table.Interface;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableColumns;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Index of the rows of every node by the values of their external_ids, written
+ * external_ids:key (e.g. external_ids:iface-id or external_ids:attached-mac), and of the
+ * interfaces by name. It tells which nodes hold a VM interface without going through the
+ * tables of each node.
+ *
+ * Values are indexed by their string form. Every node updates the index from its own update
+ * thread, the updates of different nodes being concurrent, and it can be read concurrently.
+ */
+public class GlobalRowIndex {
+    static final String EXTERNAL_IDS = "external_ids";
+    static final String NAME = "name";
+
+    /*
+     * Locations of the rows by column, given as name or external_ids:key, then by value
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, Set<Location>>> entries = Maps.newConcurrentMap();
+
+    /**
+     * A row of a node.
+     */
+    public static final class Location {
+        private final Node node;
+        private final String tableName;
+        private final String uuid;
+
+        Location(Node node, String tableName, String uuid) {
+            this.node = node;
+            this.tableName = tableName;
+            this.uuid = uuid;
+        }
+
+        public Node getNode() {
+            return node;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public String getUuid() {
+            return uuid;
+        }
+
+        @Override
+        public int hashCode() {
+            return (node.hashCode() * 31 + tableName.hashCode()) * 31 + uuid.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Location)) return false;
+            Location other = (Location)obj;
+            return node.equals(other.node) && tableName.equals(other.tableName) && uuid.equals(other.uuid);
+        }
+
+        @Override
+        public String toString() {
+            return "Location [node=" + node + ", table=" + tableName + ", uuid=" + uuid + "]";
+        }
+    }
+
+    void update(Node node, String tableName, String uuid, Table<?> oldRow, Table<?> newRow) {
+        Map<String, Set<String>> oldValues = values(tableName, oldRow);
+        Map<String, Set<String>> newValues = values(tableName, newRow);
+        if (oldValues.isEmpty() && newValues.isEmpty()) return;
+        Location location = new Location(node, tableName, uuid);
+        for (Map.Entry<String, Set<String>> column : oldValues.entrySet()) {
+            Set<String> kept = newValues.get(column.getKey());
+            for (String value : column.getValue()) {
+                if (kept == null || !kept.contains(value)) remove(column.getKey(), value, location);
+            }
+        }
+        for (Map.Entry<String, Set<String>> column : newValues.entrySet()) {
+            Set<String> previous = oldValues.get(column.getKey());
+            for (String value : column.getValue()) {
+                if (previous == null || !previous.contains(value)) add(column.getKey(), value, location);
+            }
+        }
+    }
+
+    /**
+     * Returns the rows whose column, given as external_ids:key or name for the interfaces,
+     * holds the value.
+     */
+    public Set<Location> get(String column, String value) {
+        ConcurrentMap<String, Set<Location>> values = entries.get(column);
+        if (values == null) return Collections.emptySet();
+        Set<Location> locations = values.get(value);
+        if (locations == null) return Collections.emptySet();
+        return Collections.unmodifiableSet(locations);
+    }
+
+    private static Map<String, Set<String>> values(String tableName, Table<?> row) {
+        if (row == null) return Collections.emptyMap();
+        Map<String, Set<String>> values = Maps.newHashMap();
+        Object externalIds = TableColumns.getColumn(row, EXTERNAL_IDS);
+        if (externalIds instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)externalIds).entrySet()) {
+                if (entry.getKey() == null || entry.getValue() == null) continue;
+                values.put(ColumnIndex.spec(EXTERNAL_IDS, entry.getKey().toString()),
+                           Collections.singleton(entry.getValue().toString()));
+            }
+        }
+        if (Interface.NAME.getName().equals(tableName)) {
+            Set<String> names = ColumnIndex.values(row, NAME, null);
+            if (!names.isEmpty()) values.put(NAME, new HashSet<String>(names));
+        }
+        return values;
+    }
+
+    /*
+     * An emptied set is removed under its lock, an add retries if its set was removed meanwhile.
+     */
+    private void add(String column, String value, Location location) {
+        ConcurrentMap<String, Set<Location>> values = entries.get(column);
+        if (values == null) {
+            values = Maps.newConcurrentMap();
+            ConcurrentMap<String, Set<Location>> existing = entries.putIfAbsent(column, values);
+            if (existing != null) values = existing;
+        }
+        while (true) {
+            Set<Location> locations = values.get(value);
+            if (locations == null) {
+                locations = Collections.newSetFromMap(new ConcurrentHashMap<Location, Boolean>());
+                Set<Location> existing = values.putIfAbsent(value, locations);
+                if (existing != null) locations = existing;
+            }
+            synchronized (locations) {
+                if (values.get(value) != locations) continue;
+                locations.add(location);
+                return;
+            }
+        }
+    }
+
+    private void remove(String column, String value, Location location) {
+        ConcurrentMap<String, Set<Location>> values = entries.get(column);
+        if (values == null) return;
+        Set<Location> locations = values.get(value);
+        if (locations == null) return;
+        synchronized (locations) {
+            locations.remove(location);
+            if (locations.isEmpty()) values.remove(value, locations);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GlobalRowIndex [columns=" + entries.keySet() + "]";
+    }
+}
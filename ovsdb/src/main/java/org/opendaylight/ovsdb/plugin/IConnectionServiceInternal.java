@@ -16,9 +16,18 @@ import java.util.concurrent.ExecutionException;
 import org.opendaylight.controller.sal.connection.ConnectionConstants;
 import org.opendaylight.controller.sal.core.Node;
 
+import com.google.common.util.concurrent.ListenableFuture;
+
 public interface IConnectionServiceInternal {
     public Connection getConnection(Node node);
     public List<Node> getNodes();
     public Node connect(String identifier, Map<ConnectionConstants, String> params);
     public Boolean setOFController(Node node, String bridgeUUID) throws InterruptedException, ExecutionException;
+    public Map<Node, NodeUpdateExecutor.QueueStatistics> getUpdateQueueStatistics();
+    /**
+     * Returns a future completing once the updates received so far from the node have been
+     * applied to its cache, at once on the update thread of the node, and failing if the node
+     * is removed before.
+     */
+    public ListenableFuture<Void> syncUpdates(Node node);
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Applies the frames of an {@link InventoryReplicator} to the caches of a standby instance,
+ * which can then serve reads. The replicated changes are journaled by the standby but not
+ * notified to its listeners, the active instance being the one acting on them.
+ *
+ * The replicated nodes are handled like the nodes restored from a snapshot file: once the
+ * standby takes over, the monitor dump of every node is reconciled against the replicated
+ * cache. The replica is the in-process channel of the replication.
+ */
+public class InventoryReplica implements ReplicationChannel {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReplica.class);
+
+    private final InventoryService inventoryService;
+    /*
+     * Sequence number of the active instance every replicated node is at
+     */
+    private final Map<Node, Long> sequences = Maps.newHashMap();
+    private final Map<Node, DatabaseSchema> schemas = Maps.newHashMap();
+    private boolean closed;
+
+    public InventoryReplica(InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    @Override
+    public synchronized void send(byte[] frame) throws IOException {
+        if (closed) throw new IOException("Replica closed");
+        ByteBuffer in = ByteBuffer.wrap(frame);
+        try {
+            byte type = in.get();
+            if (type == InventoryReplicator.RESYNC) {
+                resync(in);
+                return;
+            }
+            Node node = readNode(in);
+            switch (type) {
+            case InventoryReplicator.SNAPSHOT:
+                long sequence = in.getLong();
+                DatabaseSchema schema = CacheSnapshotFile.readSchema(in);
+                inventoryService.loadReplicatedNode(node, schema, CacheSnapshotFile.readTables(in, schema));
+                sequences.put(node, sequence);
+                schemas.put(node, schema);
+                break;
+            case InventoryReplicator.CHANGES:
+                applyChanges(node, in);
+                break;
+            case InventoryReplicator.REMOVE:
+                inventoryService.removeReplicatedNode(node);
+                sequences.remove(node);
+                schemas.remove(node);
+                break;
+            default:
+                throw new IOException("Unknown replication frame " + type);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | ConstructionException e) {
+            throw new IOException("Invalid replication frame", e);
+        }
+    }
+
+    private static Node readNode(ByteBuffer in) throws ConstructionException {
+        return new Node(CacheSnapshotFile.readString(in), CacheSnapshotFile.readString(in));
+    }
+
+    /*
+     * The replication starts over, the nodes the active instance no longer has are dropped
+     */
+    private void resync(ByteBuffer in) throws ConstructionException {
+        int count = CacheSnapshotFile.readVarint(in);
+        Set<Node> nodes = Sets.newHashSet();
+        for (int i = 0; i < count; i++) {
+            nodes.add(readNode(in));
+        }
+        for (Node node : Lists.newArrayList(sequences.keySet())) {
+            if (nodes.contains(node)) continue;
+            logger.info("Node {} no longer replicated, removed", node);
+            inventoryService.removeReplicatedNode(node);
+            sequences.remove(node);
+            schemas.remove(node);
+        }
+    }
+
+    private void applyChanges(Node node, ByteBuffer in) throws IOException {
+        long fromSequence = in.getLong();
+        long sequence = in.getLong();
+        Long current = sequences.get(node);
+        if (current == null || current != fromSequence) {
+            // Some changes were lost, the active instance starts over from a snapshot
+            throw new IOException("Changes of node " + node + " from " + fromSequence
+                                  + " do not apply to the replicated sequence " + current);
+        }
+        DatabaseSchema schema = schemas.get(node);
+        int count = CacheSnapshotFile.readVarint(in);
+        List<RowChange> changes = new ArrayList<RowChange>(count);
+        for (int i = 0; i < count; i++) {
+            RowChange.Type type = RowChange.Type.values()[in.get()];
+            String tableName = CacheSnapshotFile.readString(in);
+            String uuid = CacheSnapshotFile.readString(in);
+            TableCodec codec = TableCodec.of(schema, tableName);
+            if (codec == null) throw new IllegalArgumentException("Table " + tableName + " not in the schema");
+            int rows = in.get();
+            Table<?> oldRow = (rows & InventoryReplicator.OLD_ROW) != 0 ? CacheSnapshotFile.readRow(in, codec) : null;
+            Table<?> newRow = (rows & InventoryReplicator.NEW_ROW) != 0 ? CacheSnapshotFile.readRow(in, codec) : null;
+            switch (type) {
+            case ADDED:
+                changes.add(RowChange.added(tableName, uuid, newRow));
+                break;
+            case UPDATED:
+                changes.add(RowChange.updated(tableName, uuid, oldRow, newRow));
+                break;
+            default:
+                changes.add(RowChange.removed(tableName, uuid, oldRow));
+                break;
+            }
+        }
+        inventoryService.applyReplicatedChanges(node, changes);
+        sequences.put(node, sequence);
+    }
+
+    /**
+     * Stops the replication, e.g. when the standby takes over. The replicated nodes that do
+     * not connect in time are dropped.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        inventoryService.replicaClosed();
+    }
+}
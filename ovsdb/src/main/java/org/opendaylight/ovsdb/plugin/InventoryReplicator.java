@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Streams the caches of the nodes of the active instance to a standby. A node is first sent
+ * as a snapshot of its tables, then as the changes of its journal in sequence order. A node
+ * is sent as a snapshot again when its changes are no longer journaled, e.g. after a table
+ * load, when its schema changes or after a transport failure.
+ *
+ * The replication starts, and starts over after a transport failure, with a resync frame
+ * listing the nodes of the active instance: the standby drops the nodes it holds that are
+ * not listed, e.g. the nodes removed while the standby could not be reached.
+ *
+ * The caches are replicated by a single thread woken up after every update. The frames use
+ * the row encoding of the snapshot files.
+ */
+public class InventoryReplicator {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReplicator.class);
+    static final byte SNAPSHOT = 1;
+    static final byte CHANGES = 2;
+    static final byte REMOVE = 3;
+    static final byte RESYNC = 4;
+    static final int OLD_ROW = 1;
+    static final int NEW_ROW = 2;
+    private static final long RETRY_SECONDS = 5;
+
+    private final Map<Node, NodeDB> dbs;
+    private final ReplicationChannel channel;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    /*
+     * What the standby holds of every node, only read and written by the replication thread
+     */
+    private final Map<Node, Replicated> replicated = Maps.newHashMap();
+    /*
+     * Whether the standby is to be told which nodes to keep before the next frames
+     */
+    private boolean resync = true;
+
+    private static final class Replicated {
+        final NodeDB db;
+        final DatabaseSchema schema;
+        final long sequence;
+
+        Replicated(NodeDB db, DatabaseSchema schema, long sequence) {
+            this.db = db;
+            this.schema = schema;
+            this.sequence = sequence;
+        }
+    }
+
+    public InventoryReplicator(Map<Node, NodeDB> dbs, ReplicationChannel channel, ScheduledExecutorService executor) {
+        this.dbs = dbs;
+        this.channel = channel;
+        this.executor = executor;
+    }
+
+    /**
+     * Schedules the replication of the changes applied since the last one.
+     */
+    public void wakeUp() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(replication);
+        }
+    }
+
+    public void close() {
+        channel.close();
+    }
+
+    private final Runnable replication = new Runnable() {
+        @Override
+        public void run() {
+            scheduled.set(false);
+            try {
+                replicate();
+            } catch (IOException e) {
+                logger.warn("Replication to the standby failed, starting over in {} seconds", RETRY_SECONDS, e);
+                replicated.clear();
+                resync = true;
+                executor.schedule(this, RETRY_SECONDS, TimeUnit.SECONDS);
+            } catch (RuntimeException e) {
+                logger.error("Unable to replicate the inventory", e);
+            }
+        }
+    };
+
+    private void replicate() throws IOException {
+        if (resync) {
+            List<Node> nodes = new ArrayList<Node>();
+            for (Map.Entry<Node, NodeDB> entry : dbs.entrySet()) {
+                if (entry.getValue().getSchema() != null) nodes.add(entry.getKey());
+            }
+            channel.send(resyncFrame(nodes));
+            resync = false;
+        }
+        for (Map.Entry<Node, NodeDB> entry : dbs.entrySet()) {
+            Node node = entry.getKey();
+            NodeDB db = entry.getValue();
+            DatabaseSchema schema = db.getSchema();
+            if (schema == null) continue;
+            Replicated previous = replicated.get(node);
+            boolean current = previous != null && previous.db == db && previous.schema == schema;
+            if (current && previous.sequence == db.getSequence()) continue;
+
+            ChangeJournal.Changes changes = current ? db.getChangesSince(previous.sequence) : null;
+            if (changes == null) {
+                NodeSnapshot snapshot = db.peekSnapshot();
+                channel.send(snapshotFrame(node, schema, snapshot));
+                replicated.put(node, new Replicated(db, schema, snapshot.getSequence()));
+            } else {
+                channel.send(changesFrame(node, schema, changes));
+                replicated.put(node, new Replicated(db, schema, changes.getSequence()));
+            }
+        }
+        for (Iterator<Node> nodes = replicated.keySet().iterator(); nodes.hasNext();) {
+            Node node = nodes.next();
+            if (dbs.containsKey(node)) continue;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(REMOVE);
+            writeNode(out, node);
+            channel.send(bytes.toByteArray());
+            nodes.remove();
+        }
+    }
+
+    static byte[] resyncFrame(Collection<Node> nodes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RESYNC);
+        CacheSnapshotFile.writeVarint(out, nodes.size());
+        for (Node node : nodes) {
+            writeNode(out, node);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] snapshotFrame(Node node, DatabaseSchema schema, NodeSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(SNAPSHOT);
+        writeNode(out, node);
+        out.writeLong(snapshot.getSequence());
+        CacheSnapshotFile.writeSchema(out, schema);
+        Map<String, Map<String, Table<?>>> tables = Maps.newLinkedHashMap();
+        for (String tableName : snapshot.getTableNames()) {
+            if (TableCodec.of(schema, tableName) != null) tables.put(tableName, snapshot.getRows(tableName));
+        }
+        CacheSnapshotFile.writeTables(out, schema, tables);
+        return bytes.toByteArray();
+    }
+
+    static byte[] changesFrame(Node node, DatabaseSchema schema, ChangeJournal.Changes changes) throws IOException {
+        List<RowChange> replicable = new ArrayList<RowChange>();
+        for (RowChange change : changes.getChanges()) {
+            if (TableCodec.of(schema, change.getTableName()) != null) replicable.add(change);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(CHANGES);
+        writeNode(out, node);
+        out.writeLong(changes.getFromSequence());
+        out.writeLong(changes.getSequence());
+        CacheSnapshotFile.writeVarint(out, replicable.size());
+        for (RowChange change : replicable) {
+            TableCodec codec = TableCodec.of(schema, change.getTableName());
+            out.writeByte(change.getType().ordinal());
+            CacheSnapshotFile.writeString(out, change.getTableName());
+            CacheSnapshotFile.writeString(out, change.getUuid());
+            out.writeByte((change.getOldRow() != null ? OLD_ROW : 0) | (change.getNewRow() != null ? NEW_ROW : 0));
+            if (change.getOldRow() != null) CacheSnapshotFile.writeRow(out, codec, change.getOldRow());
+            if (change.getNewRow() != null) CacheSnapshotFile.writeRow(out, codec, change.getNewRow());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeNode(DataOutputStream out, Node node) throws IOException {
+        CacheSnapshotFile.writeString(out, node.getType());
+        CacheSnapshotFile.writeString(out, node.getNodeIDString());
+    }
+}
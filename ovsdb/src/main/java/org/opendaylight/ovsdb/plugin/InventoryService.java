@@ -9,18 +9,30 @@
  */
 package org.opendaylight.ovsdb.plugin;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.opendaylight.controller.sal.core.ConstructionException;
 import org.opendaylight.controller.sal.core.Description;
@@ -36,13 +48,25 @@ import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
 import org.opendaylight.ovsdb.lib.message.TableUpdate;
 import org.opendaylight.ovsdb.lib.message.TableUpdate.Row;
 import org.opendaylight.ovsdb.lib.message.TableUpdates;
+import org.opendaylight.ovsdb.lib.message.TableUpdatesReader;
+import org.opendaylight.ovsdb.lib.message.operations.Operation;
+import org.opendaylight.ovsdb.lib.message.operations.OperationResult;
 import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
 import org.opendaylight.ovsdb.lib.table.Bridge;
+import org.opendaylight.ovsdb.lib.table.Open_vSwitch;
+import org.opendaylight.ovsdb.lib.table.internal.ColumnMask;
+import org.opendaylight.ovsdb.lib.table.internal.ColumnTypes;
 import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableColumns;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Predicate;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
 
 /**
  * Stub Implementation for IPluginInReadService used by SAL
@@ -52,12 +76,72 @@ import com.google.common.collect.Maps;
 public class InventoryService implements IPluginInInventoryService, InventoryServiceInternal {
     private static final Logger logger = LoggerFactory
             .getLogger(InventoryService.class);
+    private static final String OVSDB_BULK_LOAD_PARALLELISM = "ovsdb.bulkload.parallelism";
+    /*
+     * Number of rows below which a table of the initial dump is no longer split
+     */
+    private static final int BULK_LOAD_THRESHOLD = 256;
+    private static final String OVSDB_STATISTICS_LANE_CAPACITY = "ovsdb.statistics.lane.capacity";
+    private static final int defaultStatisticsLaneCapacity = 4096;
+    private static final String OVSDB_NODE_MAX_UPDATES = "ovsdb.node.maxUpdatesPerSecond";
+    private static final String OVSDB_NODE_MAX_BYTES = "ovsdb.node.maxBytesPerSecond";
+    private static final String OVSDB_NODE_MAX_CPU = "ovsdb.node.maxCpuMillisPerSecond";
+    private static final String OVSDB_NODE_OVER_BUDGET_ACTION = "ovsdb.node.overBudgetAction";
+    private static final String OVSDB_CACHE_COLUMNAR = "ovsdb.cache.columnar";
+    private static final String OVSDB_CACHE_INDEXES = "ovsdb.cache.indexes";
+    private static final String OVSDB_CACHE_LAZY_COLUMNS = "ovsdb.cache.lazyColumns";
+    private static final String OVSDB_JOURNAL_CAPACITY = "ovsdb.journal.capacity";
+    private static final String OVSDB_PUBLISHER_THREADS = "ovsdb.publisher.threads";
+    private static final String OVSDB_CACHE_SPILL_IDLE = "ovsdb.cache.spill.idle";
+    private static final String OVSDB_CACHE_SPILL_MIN_ROWS = "ovsdb.cache.spill.minRows";
+    private static final String OVSDB_REPLICATION_STANDBY = "ovsdb.replication.standby";
+    private static final String OVSDB_REPLICATION_LISTEN = "ovsdb.replication.listen";
+    private static final String OVSDB_REPLICATION_LISTEN_ADDRESS = "ovsdb.replication.listenAddress";
+    private static final String OVSDB_REPLICATION_ACTIVE = "ovsdb.replication.active";
+    private static final String OVSDB_SNAPSHOT_FILE = "ovsdb.snapshot.file";
+    private static final String OVSDB_SNAPSHOT_INTERVAL = "ovsdb.snapshot.interval";
+    private static final String OVSDB_SNAPSHOT_RESTORE_TIMEOUT = "ovsdb.snapshot.restoreTimeout";
+    private static final String OVSDB_NODECONNECTOR_BATCH_MILLIS = "ovsdb.nodeconnector.batchMillis";
     private final Set<IPluginOutInventoryService> pluginOutInventoryServices =
             new CopyOnWriteArraySet<IPluginOutInventoryService>();
+    private final Set<OVSDBInventoryListener> inventoryListeners =
+            new CopyOnWriteArraySet<OVSDBInventoryListener>();
+    private final Set<OVSDBBatchListener> batchListeners =
+            new CopyOnWriteArraySet<OVSDBBatchListener>();
     private ConcurrentMap<Node, Map<String, Property>> nodeProps;
     private ConcurrentMap<NodeConnector, Map<String, Property>> nodeConnectorProps;
+    private NodeConnectorInventory nodeConnectorInventory;
     private ConcurrentMap<Node, NodeDB> dbCache = Maps.newConcurrentMap();
+    private final GlobalRowIndex globalIndex = new GlobalRowIndex();
     private ScheduledExecutorService executor;
+    private ForkJoinPool bulkLoadPool;
+    private final ConcurrentMap<Node, StatisticsLane> statisticsLanes = Maps.newConcurrentMap();
+    private int statisticsLaneCapacity;
+    private volatile NodeUpdateExecutor updateExecutor;
+    private NodeUpdateAccounting updateAccounting;
+    private RowWatches rowWatches;
+    private boolean columnarCache;
+    /*
+     * Columns indexed in the cache of every node, written table/column or table/column:key
+     */
+    private final List<String> indexedColumns = new CopyOnWriteArrayList<String>(ColumnIndex.DEFAULT_INDEXES);
+    private boolean lazyColumns;
+    private int journalCapacity;
+    private ExecutorService publisherExecutor;
+    private RowChangePublisher publisher;
+    private long spillIdleNanos;
+    private int spillMinRows;
+    private File snapshotFile;
+    private ScheduledExecutorService replicationExecutor;
+    private volatile InventoryReplicator replicator;
+    private TcpReplicationChannel.Server replicationServer;
+    private Map<Node, Long> snapshotSequences;
+    /*
+     * Nodes restored from the snapshot file, mapped to true once they reconnected. A switch
+     * connecting passively comes back under a new node id, holding the port of the connection,
+     * its restored cache is found by the uuid of its Open_vSwitch row or its system-id.
+     */
+    private final ConcurrentMap<Node, Boolean> restoredNodes = Maps.newConcurrentMap();
 
     /**
      * Function called by the dependency manager when all the required
@@ -70,6 +154,91 @@ public class InventoryService implements IPluginInInventoryService, InventorySer
         Node.NodeIDType.registerIDType("OVS", String.class);
         NodeConnector.NodeConnectorIDType.registerIDType("OVS", String.class, "OVS");
         this.executor = Executors.newSingleThreadScheduledExecutor();
+        this.rowWatches = new RowWatches(executor);
+        this.nodeConnectorInventory = new NodeConnectorInventory(nodeConnectorProps, pluginOutInventoryServices,
+                executor, Math.max(0, Long.getLong(OVSDB_NODECONNECTOR_BATCH_MILLIS, 100)));
+        this.columnarCache = Boolean.getBoolean(OVSDB_CACHE_COLUMNAR);
+        this.lazyColumns = Boolean.getBoolean(OVSDB_CACHE_LAZY_COLUMNS);
+        String indexes = System.getProperty(OVSDB_CACHE_INDEXES);
+        if (indexes != null) {
+            indexedColumns.clear();
+            for (String indexedColumn : indexes.split(",")) {
+                indexedColumn = indexedColumn.trim();
+                if (indexedColumn.isEmpty()) continue;
+                try {
+                    ColumnIndex.parse(indexedColumn);
+                    indexedColumns.add(indexedColumn);
+                } catch (IllegalArgumentException e) {
+                    logger.error("Ignoring the index {} of {}", indexedColumn, OVSDB_CACHE_INDEXES, e);
+                }
+            }
+        }
+        this.journalCapacity = Integer.getInteger(OVSDB_JOURNAL_CAPACITY, NodeDB.DEFAULT_JOURNAL_CAPACITY);
+        this.publisherExecutor = Executors.newFixedThreadPool(
+                Math.max(1, Integer.getInteger(OVSDB_PUBLISHER_THREADS, 2)));
+        this.publisher = new RowChangePublisher(publisherExecutor);
+        int parallelism = Integer.getInteger(OVSDB_BULK_LOAD_PARALLELISM,
+                Runtime.getRuntime().availableProcessors());
+        this.bulkLoadPool = new ForkJoinPool(Math.max(1, parallelism));
+        this.statisticsLaneCapacity = Integer.getInteger(OVSDB_STATISTICS_LANE_CAPACITY, defaultStatisticsLaneCapacity);
+
+        NodeUpdateAccounting.OverBudgetAction overBudgetAction = NodeUpdateAccounting.OverBudgetAction.COALESCE;
+        String action = System.getProperty(OVSDB_NODE_OVER_BUDGET_ACTION);
+        if (action != null) {
+            try {
+                overBudgetAction = NodeUpdateAccounting.OverBudgetAction.valueOf(action.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid {} : {}, using {}", OVSDB_NODE_OVER_BUDGET_ACTION, action, overBudgetAction);
+            }
+        }
+        this.updateAccounting = new NodeUpdateAccounting(Long.getLong(OVSDB_NODE_MAX_UPDATES, 0),
+                                                         Long.getLong(OVSDB_NODE_MAX_BYTES, 0),
+                                                         Long.getLong(OVSDB_NODE_MAX_CPU, 0),
+                                                         overBudgetAction);
+
+        long spillIdle = Long.getLong(OVSDB_CACHE_SPILL_IDLE, 0);
+        if (spillIdle > 0) {
+            this.spillIdleNanos = TimeUnit.SECONDS.toNanos(spillIdle);
+            this.spillMinRows = Integer.getInteger(OVSDB_CACHE_SPILL_MIN_ROWS, 100);
+            long period = Math.max(1, Math.min(60, spillIdle / 4));
+            executor.scheduleWithFixedDelay(idleSpiller, period, period, TimeUnit.SECONDS);
+        }
+
+        String standby = System.getProperty(OVSDB_REPLICATION_STANDBY);
+        if (standby != null) {
+            int colon = standby.lastIndexOf(':');
+            try {
+                replicateTo(new TcpReplicationChannel(new InetSocketAddress(standby.substring(0, colon),
+                        Integer.parseInt(standby.substring(colon + 1)))));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                logger.warn("Invalid {} : {}, expecting host:port", OVSDB_REPLICATION_STANDBY, standby);
+            }
+        }
+        Integer listen = Integer.getInteger(OVSDB_REPLICATION_LISTEN);
+        if (listen != null) {
+            // Local only unless an address to listen on and the address of the active instance are set
+            String listenAddress = System.getProperty(OVSDB_REPLICATION_LISTEN_ADDRESS);
+            String active = System.getProperty(OVSDB_REPLICATION_ACTIVE);
+            try {
+                this.replicationServer = new TcpReplicationChannel.Server(
+                        listenAddress != null ? new InetSocketAddress(InetAddress.getByName(listenAddress), listen)
+                                              : new InetSocketAddress(InetAddress.getLoopbackAddress(), listen),
+                        active != null ? InetAddress.getByName(active) : null,
+                        new InventoryReplica(this));
+            } catch (IOException e) {
+                logger.error("Unable to receive the replicated inventory on port {}", listen, e);
+            }
+        }
+
+        String snapshotPath = System.getProperty(OVSDB_SNAPSHOT_FILE);
+        if (snapshotPath != null) {
+            this.snapshotFile = new File(snapshotPath);
+            restoreSnapshot();
+            long interval = Long.getLong(OVSDB_SNAPSHOT_INTERVAL, 60);
+            if (interval > 0) {
+                executor.scheduleWithFixedDelay(snapshotWriter, interval, interval, TimeUnit.SECONDS);
+            }
+        }
     }
 
     /**
@@ -96,7 +265,13 @@ public class InventoryService implements IPluginInInventoryService, InventorySer
      *
      */
     public void stop() {
+        if (snapshotFile != null) writeSnapshot();
+        if (replicator != null) replicator.close();
+        if (replicationExecutor != null) replicationExecutor.shutdownNow();
+        if (replicationServer != null) replicationServer.close();
         this.executor.shutdownNow();
+        this.bulkLoadPool.shutdownNow();
+        this.publisherExecutor.shutdownNow();
     }
 
     public void setPluginOutInventoryServices(IPluginOutInventoryService service) {
@@ -107,6 +282,22 @@ public class InventoryService implements IPluginInInventoryService, InventorySer
             this.pluginOutInventoryServices.remove(service);
     }
 
+    public void setInventoryListener(OVSDBInventoryListener listener) {
+        this.inventoryListeners.add(listener);
+    }
+
+    public void unsetInventoryListener(OVSDBInventoryListener listener) {
+        this.inventoryListeners.remove(listener);
+    }
+
+    public void setBatchListener(OVSDBBatchListener listener) {
+        this.batchListeners.add(listener);
+    }
+
+    public void unsetBatchListener(OVSDBBatchListener listener) {
+        this.batchListeners.remove(listener);
+    }
+
     /**
      * Retrieve nodes from openflow
      */
@@ -116,7 +307,7 @@ public class InventoryService implements IPluginInInventoryService, InventorySer
     }
 
     /**
-     * Retrieve nodeConnectors from openflow
+     * Retrieve the nodeConnectors derived from the Interface rows of the nodes
      */
     @Override
     public ConcurrentMap<NodeConnector, Map<String, Property>> getNodeConnectorProps(
@@ -149,62 +340,833 @@ public class InventoryService implements IPluginInInventoryService, InventorySer
     }
 
     @Override
-    public void updateRow(Node n, String tableName, String uuid, Table<?> row) {
+    public Set<String> getIndexedUuids(Node n, String tableName, String column, String value) {
         NodeDB db = dbCache.get(n);
-        if (db == null) {
-            db = new NodeDB();
-            dbCache.put(n, db);
+        if (db == null) return null;
+        return db.getIndexedUuids(tableName, column, value);
+    }
+
+    @Override
+    public Set<String> getIndexedValues(Node n, String tableName, String column) {
+        NodeDB db = dbCache.get(n);
+        if (db == null) return null;
+        return db.getIndexedValues(tableName, column);
+    }
+
+    @Override
+    public void addIndex(String tableName, String column) {
+        String indexedColumn = tableName + "/" + column;
+        ColumnIndex.parse(indexedColumn);
+        if (!indexedColumns.contains(indexedColumn)) indexedColumns.add(indexedColumn);
+        for (NodeDB db : dbCache.values()) {
+            db.addIndex(indexedColumn);
         }
+    }
+
+    @Override
+    public NodeSnapshot getSnapshot(Node n) {
+        NodeDB db = dbCache.get(n);
+        if (db == null) return null;
+        return db.getSnapshot();
+    }
+
+    @Override
+    public ChangeJournal.Changes getChangesSince(Node n, long sequence) {
+        NodeDB db = dbCache.get(n);
+        if (db == null) return null;
+        return db.getChangesSince(sequence);
+    }
+
+    @Override
+    public RowChangeSubscription subscribe(RowChangeSubscriber subscriber, RowChangeFilter filter,
+                                           RowChangePublisher.Overflow overflow, int capacity) {
+        return publisher.subscribe(subscriber, filter, overflow, capacity);
+    }
+
+    @Override
+    public List<OperationResult> transactLocally(Node n, List<Operation> operations) {
+        NodeDB db = dbCache.get(n);
+        if (db == null) return null;
+        return CacheQuery.execute(db, operations);
+    }
+
+    @Override
+    public Set<GlobalRowIndex.Location> findRows(String column, String value) {
+        return globalIndex.get(column, value);
+    }
+
+    @Override
+    public Set<ReferenceIndex.Reference> getParents(Node n, String uuid) {
+        NodeDB db = dbCache.get(n);
+        if (db == null) return Collections.emptySet();
+        return db.getParents(uuid);
+    }
+
+    @Override
+    public Set<ReferenceIndex.Reference> getChildren(Node n, String uuid) {
+        NodeDB db = dbCache.get(n);
+        if (db == null) return Collections.emptySet();
+        return db.getChildren(uuid);
+    }
+
+    @Override
+    public void updateRow(Node n, String tableName, String uuid, Table<?> row) {
+        NodeDB db = getOrCreateNodeDB(n);
         db.updateRow(tableName, uuid, row);
+        replicationChanged();
     }
 
     @Override
     public void removeRow(Node n, String tableName, String uuid) {
         NodeDB db = dbCache.get(n);
         if (db != null) db.removeRow(tableName, uuid);
+        replicationChanged();
     }
 
     @Override
-    public void processTableUpdates(Node n, TableUpdates tableUpdates) {
-        NodeDB db = dbCache.get(n);
-        if (db == null) {
-            db = new NodeDB();
-            dbCache.put(n, db);
-        }
+    public void processTableUpdates(final Node n, TableUpdates tableUpdates) {
+        final NodeDB db = getOrCreateNodeDB(n);
+        final List<DecodedRow> decoded = new ArrayList<DecodedRow>();
 
-        OVSDBInventoryListener inventoryListener = (OVSDBInventoryListener)ServiceHelper.getGlobalInstance(OVSDBInventoryListener.class, this);
         Set<Table.Name> available = tableUpdates.availableUpdates();
+        ColumnTypes columnTypes = ColumnTypes.of(db.getSchema());
         for (Table.Name name : available) {
             TableUpdate tableUpdate = tableUpdates.getUpdate(name);
             Collection<TableUpdate.Row<?>> rows = tableUpdate.getRows();
             for (Row<?> row : rows) {
-                String uuid = row.getId();
-                Table<?> newRow = (Table<?>)row.getNew();
-                Table<?> oldRow = (Table<?>)row.getOld();
-                if (newRow != null) {
-                    db.updateRow(name.getName(), uuid, newRow);
-                    if (name.getName().equalsIgnoreCase("bridge")) {
-                        logger.debug("Received Bridge Table udpate for node {}", n);
-                        // OVSDB has the Bridge name info while OpenFlow Spec is not
-                        // Clear on that. From a user/manageability standpoint, it is easier
-                        // to handle Bridge names compared to dpids.
-                        // Updating the Openflow bridge name via the SAL Description update.
-
-                        // updateOFBridgeName(n, (Bridge)newRow);
-                    }
-                    if ((oldRow == null) && (inventoryListener != null)) {
-                        inventoryListener.rowAdded(n, name.getName(), uuid, newRow);
-                    } else if (inventoryListener != null) {
-                        inventoryListener.rowUpdated(n, name.getName(), uuid, oldRow, newRow);
+                // Rows decoded beforehand, the changed columns are those the old row holds
+                Table<?> oldRow = columnTypes.coerce(name.getName(), (Table<?>)row.getOld());
+                decoded.add(new DecodedRow(name.getName(), row.getId(), oldRow,
+                                           columnTypes.coerce(name.getName(), (Table<?>)row.getNew()),
+                                           oldRow != null ? ColumnMask.present(oldRow) : ColumnMask.NONE));
+            }
+        }
+        TableUpdatesReader.read(schemaUpdates(tableUpdates), db.getSchema(), false, new DecodedRowHandler(decoded));
+
+        List<RowChange> changes = applyRows(n, db, decoded);
+        completeRowWatches(n, changes);
+        notifyRowChanges(n, changes);
+    }
+
+    /*
+     * The updates of the tables without a Table class as a table-updates object, decoded by
+     * TableUpdatesReader from the schema of the node.
+     */
+    private static JsonNode schemaUpdates(TableUpdates tableUpdates) {
+        ObjectNode updates = JsonNodeFactory.instance.objectNode();
+        updates.setAll(tableUpdates.getSchemaUpdates());
+        return updates;
+    }
+
+    @Override
+    public void processUpdateNotification(final Node n, JsonNode params) {
+        long startCpu = NodeUpdateAccounting.currentCpuTime();
+        long start = System.nanoTime();
+        final NodeDB db = getOrCreateNodeDB(n);
+        List<DecodedRow> decoded = new ArrayList<DecodedRow>();
+        int rows = TableUpdatesReader.readParams(params, db.getSchema(), lazyColumns, new DecodedRowHandler(decoded));
+        long applyStart = System.nanoTime();
+        long decodeNanos = applyStart - start;
+
+        List<RowChange> changes = applyRows(n, db, decoded);
+        completeRowWatches(n, changes);
+        notifyRowChanges(n, changes);
+
+        updateAccounting.recordProcessing(n, rows, decodeNanos, System.nanoTime() - applyStart,
+                                          NodeUpdateAccounting.currentCpuTime() - startCpu);
+    }
+
+    /*
+     * A row of an update, decoded but not applied yet. The whole update is decoded before any
+     * of its rows is applied, so that a row failing to decode leaves the cache untouched.
+     */
+    private static final class DecodedRow {
+        final String tableName;
+        final String uuid;
+        final Table<?> oldRow;
+        final Table<?> newRow;
+        final long changedColumns;
+
+        DecodedRow(String tableName, String uuid, Table<?> oldRow, Table<?> newRow, long changedColumns) {
+            this.tableName = tableName;
+            this.uuid = uuid;
+            this.oldRow = oldRow;
+            this.newRow = newRow;
+            this.changedColumns = changedColumns;
+        }
+    }
+
+    private static final class DecodedRowHandler implements TableUpdatesReader.RowHandler {
+        private final List<DecodedRow> decoded;
+
+        DecodedRowHandler(List<DecodedRow> decoded) {
+            this.decoded = decoded;
+        }
+
+        @Override
+        public void row(Table.Name<?> name, String uuid, Table<?> oldRow, Table<?> newRow, long changedColumns) {
+            decoded.add(new DecodedRow(name.getName(), uuid, oldRow, newRow, changedColumns));
+        }
+    }
+
+    /*
+     * Applies the rows of an update in a batch. Should applying a row fail, the changes
+     * already applied are still journaled.
+     */
+    private List<RowChange> applyRows(Node n, NodeDB db, List<DecodedRow> decoded) {
+        List<RowChange> changes = new ArrayList<RowChange>(decoded.size());
+        db.beginBatch();
+        try {
+            for (DecodedRow row : decoded) {
+                RowChange change = applyRow(n, db, row);
+                if (change != null) changes.add(change);
+            }
+        } finally {
+            db.recordChanges(changes);
+            db.endBatch();
+        }
+        return changes;
+    }
+
+    private RowChange applyRow(Node n, NodeDB db, DecodedRow row) {
+        String tableName = row.tableName;
+        String uuid = row.uuid;
+        Table<?> oldRow = row.oldRow;
+        Table<?> newRow = row.newRow;
+        if (newRow != null) {
+            db.updateRow(tableName, uuid, newRow);
+            if (tableName.equalsIgnoreCase("bridge")) {
+                logger.debug("Received Bridge Table udpate for node {}", n);
+                // OVSDB has the Bridge name info while OpenFlow Spec is not
+                // Clear on that. From a user/manageability standpoint, it is easier
+                // to handle Bridge names compared to dpids.
+                // Updating the Openflow bridge name via the SAL Description update.
+
+                // updateOFBridgeName(n, (Bridge)newRow);
+            }
+            if (oldRow == null) return RowChange.added(tableName, uuid, newRow);
+            return RowChange.updated(tableName, uuid, oldRow, newRow, row.changedColumns);
+        } else if (oldRow != null) {
+            db.removeRow(tableName, uuid);
+            return RowChange.removed(tableName, uuid, oldRow);
+        }
+        return null;
+    }
+
+    @Override
+    public ListenableFuture<Table<?>> watchRow(Node n, String tableName, String uuid,
+                                               Predicate<Table<?>> predicate, long timeout, TimeUnit unit) {
+        ListenableFuture<Table<?>> future = rowWatches.watch(n, tableName, uuid, predicate, timeout, unit);
+        NodeDB db = dbCache.get(n);
+        if (db != null) rowWatches.rowChanged(n, tableName, uuid, db.getRow(tableName, uuid));
+        return future;
+    }
+
+    private void completeRowWatches(Node n, List<RowChange> changes) {
+        if (!rowWatches.hasWatches(n)) return;
+        for (RowChange change : changes) {
+            if (change.getType() == RowChange.Type.REMOVED) continue;
+            rowWatches.rowChanged(n, change.getTableName(), change.getUuid(), change.getNewRow());
+        }
+    }
+
+    /*
+     * The listeners are notified once the whole update has been applied to the cache. Batch
+     * listeners get all the changes in one call, subscribers have them queued for delivery at
+     * their own pace. Inserts, deletes and configuration changes are
+     * notified right away to the inventory listeners, statistics only updates go through the
+     * coalescing lane of the node so that they never delay the former. The updates of a node
+     * over its budget are deferred along with them, merged per row but never dropped. Changes to
+     * columns an OVSDBColumnSubscriber did not ask for are dropped first. The node connectors
+     * of the SAL inventory are derived from the same changes.
+     */
+    private void notifyRowChanges(Node n, List<RowChange> changes) {
+        replicationChanged();
+        if (changes.isEmpty()) return;
+        NodeDB db = dbCache.get(n);
+        if (db != null) nodeConnectorInventory.rowsChanged(n, db, changes);
+        publisher.publish(n, changes);
+        if (!batchListeners.isEmpty()) {
+            List<RowChange> batch = Collections.unmodifiableList(changes);
+            for (OVSDBBatchListener listener : batchListeners) {
+                try {
+                    listener.rowsChanged(n, batch);
+                } catch (Exception e) {
+                    logger.error("Exception caught while notifying the changes of node " + n, e);
+                }
+            }
+        }
+        if (inventoryListeners.isEmpty()) return;
+        StatisticsLane statisticsLane = getStatisticsLane(n);
+        boolean statisticsQueued = false;
+        boolean coalesceUpdates = updateAccounting.getOverBudgetAction() == NodeUpdateAccounting.OverBudgetAction.COALESCE
+                                  && updateAccounting.isOverBudget(n);
+        for (RowChange change : changes) {
+            if (!isWanted(change)) continue;
+            if (statisticsLane.offer(change, coalesceUpdates)) {
+                statisticsQueued = true;
+                continue;
+            }
+            for (OVSDBInventoryListener listener : inventoryListeners) {
+                if (wants(listener, change)) notifyRowChange(listener, n, change);
+            }
+        }
+        if (statisticsQueued) statisticsLane.scheduleDrain();
+    }
+
+    private static boolean wants(OVSDBInventoryListener listener, RowChange change) {
+        if (!(listener instanceof OVSDBColumnSubscriber)) return true;
+        long mask = ((OVSDBColumnSubscriber)listener).getColumnMask(change.getTableName());
+        return (change.getChangedColumns() & mask) != 0;
+    }
+
+    private boolean isWanted(RowChange change) {
+        for (OVSDBInventoryListener listener : inventoryListeners) {
+            if (wants(listener, change)) return true;
+        }
+        return false;
+    }
+
+    private static void notifyRowChange(OVSDBInventoryListener listener, Node n, RowChange change) {
+        try {
+            switch (change.getType()) {
+            case ADDED:
+                listener.rowAdded(n, change.getTableName(), change.getUuid(), change.getNewRow());
+                break;
+            case UPDATED:
+                listener.rowUpdated(n, change.getTableName(), change.getUuid(), change.getOldRow(), change.getNewRow());
+                break;
+            case REMOVED:
+                listener.rowRemoved(n, change.getTableName(), change.getUuid(), change.getOldRow());
+                break;
+            }
+        } catch (Exception e) {
+            logger.error("Exception caught while notifying a change of node " + n, e);
+        }
+    }
+
+    private StatisticsLane getStatisticsLane(Node n) {
+        StatisticsLane lane = statisticsLanes.get(n);
+        if (lane == null) {
+            lane = new StatisticsLane(n);
+            StatisticsLane existing = statisticsLanes.putIfAbsent(n, lane);
+            if (existing != null) lane = existing;
+        }
+        return lane;
+    }
+
+    /*
+     * The statistics only updates of a node waiting to be notified, coalesced per row, and the
+     * configuration updates deferred while the node is over its budget. The statistics lane
+     * drops its oldest rows once full, the deferred updates are merged per row but never
+     * dropped, and every later change of a row with a deferred update is merged into it so
+     * that the listeners still see the changes of the row in order. They
+     * are drained on the update thread of the node, behind the updates already queued, so
+     * that every listener call for a node comes from that thread and an update never reaches
+     * a listener after a newer change of the same row. Without an update executor, i.e. when
+     * updates are not applied through the ConnectionService, the executor drains the lanes.
+     */
+    private final class StatisticsLane implements Runnable {
+        final Node node;
+        final PriorityLaneQueue<String, RowChange> lane = new PriorityLaneQueue<String, RowChange>(statisticsLaneCapacity);
+        final Map<String, RowChange> deferred = new LinkedHashMap<String, RowChange>();
+        final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+        StatisticsLane(Node node) {
+            this.node = node;
+        }
+
+        /*
+         * Queues a change for the drain, returns false if it is to be notified right away
+         */
+        boolean offer(RowChange change, boolean coalesceUpdates) {
+            String uuid = change.getUuid();
+            synchronized (deferred) {
+                RowChange pending = deferred.get(uuid);
+                if (pending != null || (coalesceUpdates && change.getType() == RowChange.Type.UPDATED
+                                        && !change.isStatisticsOnly())) {
+                    // The pending statistics of the row are older than the deferred update
+                    RowChange statistics = lane.removeLow(uuid);
+                    if (pending == null) pending = statistics;
+                    RowChange merged = pending == null ? change : RowChangePublisher.merge(pending, change);
+                    if (merged == null) {
+                        deferred.remove(uuid);
+                    } else {
+                        deferred.put(uuid, merged);
                     }
-                } else if (oldRow != null) {
-                    if (inventoryListener != null) {
-                        inventoryListener.rowRemoved(n, name.getName(), uuid, oldRow);
+                    return true;
+                }
+            }
+            if (change.isStatisticsOnly()) {
+                lane.offerLow(uuid, change);
+                return true;
+            }
+            // The pending statistics are older than this change
+            lane.removeLow(uuid);
+            return false;
+        }
+
+        void scheduleDrain() {
+            if (!drainScheduled.compareAndSet(false, true)) return;
+            NodeUpdateExecutor current = updateExecutor;
+            if (current != null) {
+                // Done at once when rejected by a full stripe, the next change schedules it again
+                if (current.execute(node, null, this).isDone()) drainScheduled.set(false);
+            } else {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            drainScheduled.set(false);
+            List<RowChange> updates;
+            synchronized (deferred) {
+                updates = new ArrayList<RowChange>(deferred.values());
+                deferred.clear();
+            }
+            for (RowChange change : updates) {
+                for (OVSDBInventoryListener listener : inventoryListeners) {
+                    if (wants(listener, change)) notifyRowChange(listener, node, change);
+                }
+            }
+            RowChange change;
+            while ((change = lane.poll()) != null) {
+                for (OVSDBInventoryListener listener : inventoryListeners) {
+                    if (wants(listener, change)) notifyRowChange(listener, node, change);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void setUpdateExecutor(NodeUpdateExecutor updateExecutor) {
+        this.updateExecutor = updateExecutor;
+    }
+
+    @Override
+    public PriorityLaneQueue.LaneStatistics getStatisticsLaneStatistics() {
+        List<PriorityLaneQueue.LaneStatistics> lanes = new ArrayList<PriorityLaneQueue.LaneStatistics>();
+        for (StatisticsLane lane : statisticsLanes.values()) {
+            lanes.add(lane.lane.getStatistics());
+        }
+        return PriorityLaneQueue.LaneStatistics.sum(lanes, statisticsLaneCapacity);
+    }
+
+    @Override
+    public NodeUpdateAccounting getUpdateAccounting() {
+        return updateAccounting;
+    }
+
+    @Override
+    public List<NodeUpdateAccounting.UsageStatistics> getNoisiestNodes(int count) {
+        return updateAccounting.getNoisiestNodes(count);
+    }
+
+    /*
+     * Spills the caches of the nodes whose rows were neither read nor updated for a while.
+     */
+    private final Runnable idleSpiller = new Runnable() {
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            for (Map.Entry<Node, NodeDB> entry : dbCache.entrySet()) {
+                NodeDB db = entry.getValue();
+                if (db.isSpilled() || now - db.getLastAccess() < spillIdleNanos) continue;
+                if (db.getRowCount() < spillMinRows) continue;
+                try {
+                    if (db.spill()) {
+                        logger.debug("Spilled the cache of idle node {} : {} bytes off-heap, {} bytes of heap saved",
+                                     entry.getKey(), db.getOffHeapBytes(), db.getHeapBytesSaved());
                     }
-                    db.removeRow(name.getName(), uuid);
+                } catch (RuntimeException e) {
+                    logger.warn("Unable to spill the cache of node {}", entry.getKey(), e);
+                }
+            }
+        }
+    };
+
+    @Override
+    public NodeDB.SpillStatistics getSpillStatistics() {
+        int nodes = 0;
+        int spilledNodes = 0;
+        long spilledRows = 0;
+        long offHeapBytes = 0;
+        long heapBytesSaved = 0;
+        long spills = 0;
+        long rehydrations = 0;
+        for (NodeDB db : dbCache.values()) {
+            nodes++;
+            if (db.isSpilled()) {
+                spilledNodes++;
+                spilledRows += db.getRowCount();
+                offHeapBytes += db.getOffHeapBytes();
+                heapBytesSaved += db.getHeapBytesSaved();
+            }
+            spills += db.getSpills();
+            rehydrations += db.getRehydrations();
+        }
+        return new NodeDB.SpillStatistics(nodes, spilledNodes, spilledRows, offHeapBytes, heapBytesSaved,
+                                          spills, rehydrations);
+    }
+
+    /**
+     * Streams the caches of the nodes to a standby instance through the channel, e.g. an
+     * {@link InventoryReplica} of the standby in the same process.
+     */
+    public synchronized InventoryReplicator replicateTo(ReplicationChannel channel) {
+        if (replicator != null) throw new IllegalStateException("Already replicating the inventory");
+        if (replicationExecutor == null) replicationExecutor = Executors.newSingleThreadScheduledExecutor();
+        replicator = new InventoryReplicator(dbCache, channel, replicationExecutor);
+        replicator.wakeUp();
+        return replicator;
+    }
+
+    private void replicationChanged() {
+        InventoryReplicator current = replicator;
+        if (current != null) current.wakeUp();
+    }
+
+    /*
+     * Replaces the cache of a node with a snapshot replicated from the active instance. The
+     * node is reconciled like a restored node once it connects to this instance.
+     */
+    void loadReplicatedNode(Node n, DatabaseSchema schema, Map<String, ConcurrentMap<String, Table<?>>> tables) {
+        NodeDB db = getOrCreateNodeDB(n);
+        db.setSchema(schema);
+        db.beginBatch();
+        try {
+            List<RowChange> changes = reconcile(db, tables);
+            for (Map.Entry<String, ConcurrentMap<String, Table<?>>> table : tables.entrySet()) {
+                db.loadTable(table.getKey(), table.getValue());
+            }
+            db.recordChanges(changes);
+        } finally {
+            db.endBatch();
+        }
+        restoredNodes.put(n, Boolean.FALSE);
+        replicationChanged();
+    }
+
+    void applyReplicatedChanges(Node n, List<RowChange> changes) {
+        NodeDB db = dbCache.get(n);
+        if (db == null) return;
+        db.beginBatch();
+        try {
+            for (RowChange change : changes) {
+                if (change.getType() == RowChange.Type.REMOVED) {
+                    db.removeRow(change.getTableName(), change.getUuid());
+                } else {
+                    db.updateRow(change.getTableName(), change.getUuid(), change.getNewRow());
+                }
+            }
+            db.recordChanges(changes);
+        } finally {
+            db.endBatch();
+        }
+        replicationChanged();
+    }
+
+    void removeReplicatedNode(Node n) {
+        restoredNodes.remove(n);
+        NodeDB db = dbCache.remove(n);
+        if (db != null) db.removeFromGlobalIndex();
+        replicationChanged();
+    }
+
+    /*
+     * The replication stopped, the replicated nodes that do not connect in time are dropped.
+     */
+    void replicaClosed() {
+        long timeout = Long.getLong(OVSDB_SNAPSHOT_RESTORE_TIMEOUT, 300);
+        if (timeout > 0 && !executor.isShutdown()) {
+            executor.schedule(restoreExpiry, timeout, TimeUnit.SECONDS);
+        }
+    }
+
+    /*
+     * Loads the caches of the snapshot file so that they can be read before the nodes
+     * reconnect. A node that does not reconnect in time is dropped.
+     */
+    private void restoreSnapshot() {
+        List<CacheSnapshotFile.NodeCache> nodes;
+        try {
+            nodes = CacheSnapshotFile.read(snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Unable to read the inventory snapshot {}, starting with empty caches", snapshotFile, e);
+            return;
+        }
+        for (CacheSnapshotFile.NodeCache cache : nodes) {
+            NodeDB db = getOrCreateNodeDB(cache.getNode());
+            db.setSchema(cache.getSchema());
+            db.beginBatch();
+            try {
+                for (Map.Entry<String, ConcurrentMap<String, Table<?>>> table : cache.getTables().entrySet()) {
+                    db.loadTable(table.getKey(), table.getValue());
+                }
+            } finally {
+                db.endBatch();
+            }
+            restoredNodes.put(cache.getNode(), Boolean.FALSE);
+        }
+        logger.info("Restored the caches of {} nodes from {}", nodes.size(), snapshotFile);
+        long timeout = Long.getLong(OVSDB_SNAPSHOT_RESTORE_TIMEOUT, 300);
+        if (!nodes.isEmpty() && timeout > 0) {
+            executor.schedule(restoreExpiry, timeout, TimeUnit.SECONDS);
+        }
+    }
+
+    /*
+     * Returns the node, under another id, whose restored cache holds the switch of the given
+     * Open_vSwitch rows, null if none does.
+     */
+    private Node findRestoredNode(Node n, Map<String, Table<?>> openVSwitch) {
+        if (openVSwitch == null || openVSwitch.isEmpty()) return null;
+        Set<String> identity = switchIdentity(openVSwitch);
+        for (Map.Entry<Node, Boolean> restored : restoredNodes.entrySet()) {
+            if (restored.getKey().equals(n) || restored.getValue()) continue;
+            NodeDB db = dbCache.get(restored.getKey());
+            Map<String, Table<?>> rows = db != null ? db.getTableCache(Open_vSwitch.NAME.getName()) : null;
+            if (rows != null && !Collections.disjoint(identity, switchIdentity(rows))) return restored.getKey();
+        }
+        return null;
+    }
+
+    private static Set<String> switchIdentity(Map<String, Table<?>> openVSwitch) {
+        Set<String> identity = new HashSet<String>();
+        for (Map.Entry<String, Table<?>> row : openVSwitch.entrySet()) {
+            identity.add(row.getKey());
+            if (!(row.getValue() instanceof Open_vSwitch)) continue;
+            Map<String, String> externalIds = ((Open_vSwitch)row.getValue()).getExternal_ids();
+            if (externalIds != null && externalIds.get("system-id") != null) {
+                identity.add("system-id:" + externalIds.get("system-id"));
+            }
+        }
+        return identity;
+    }
+
+    /*
+     * Moves the restored cache of a node reconnecting under a new id to its new database,
+     * returns false if the cache expired in between.
+     */
+    private boolean moveRestoredCache(Node previous, Node n, NodeDB db) {
+        if (!restoredNodes.remove(previous, Boolean.FALSE)) return false;
+        NodeDB restored = dbCache.remove(previous);
+        if (restored == null) return false;
+        for (Map.Entry<String, ConcurrentMap<String, Table<?>>> table : restored.getTableCache().entrySet()) {
+            if (db.getTableCache(table.getKey()) != null) continue;
+            ConcurrentMap<String, Table<?>> rows = Maps.newConcurrentMap();
+            rows.putAll(table.getValue());
+            db.loadTable(table.getKey(), rows);
+        }
+        restored.removeFromGlobalIndex();
+        replicationChanged();
+        logger.info("Node {} reconnected as {}, moved its restored cache", previous, n);
+        return true;
+    }
+
+    private final Runnable restoreExpiry = new Runnable() {
+        @Override
+        public void run() {
+            for (Node node : restoredNodes.keySet()) {
+                if (!restoredNodes.remove(node, Boolean.FALSE)) continue;
+                logger.info("Node {} did not reconnect, dropping its restored cache", node);
+                NodeDB db = dbCache.remove(node);
+                if (db != null) db.removeFromGlobalIndex();
+            }
+        }
+    };
+
+    private final Runnable snapshotWriter = new Runnable() {
+        @Override
+        public void run() {
+            writeSnapshot();
+        }
+    };
+
+    /*
+     * Writes the caches to the snapshot file unless no node changed since the last write.
+     */
+    private synchronized void writeSnapshot() {
+        Map<Node, Long> sequences = new HashMap<Node, Long>();
+        for (Map.Entry<Node, NodeDB> entry : dbCache.entrySet()) {
+            sequences.put(entry.getKey(), entry.getValue().getSequence());
+        }
+        if (sequences.equals(snapshotSequences)) return;
+        try {
+            long size = CacheSnapshotFile.write(snapshotFile, dbCache);
+            snapshotSequences = sequences;
+            logger.debug("Wrote the caches of {} nodes to {} ({} bytes)", sequences.size(), snapshotFile, size);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to write the inventory snapshot {}", snapshotFile, e);
+        }
+    }
+
+    /*
+     * Brings the cache restored for a node in line with its fresh dump: rows that are gone
+     * are removed and the differences are returned as the changes of the load.
+     */
+    private static List<RowChange> reconcile(NodeDB db, Map<String, ConcurrentMap<String, Table<?>>> tableCaches) {
+        List<RowChange> changes = new ArrayList<RowChange>();
+        for (Map.Entry<String, ConcurrentMap<String, Table<?>>> table : db.getTableCache().entrySet()) {
+            Map<String, Table<?>> fresh = tableCaches.get(table.getKey());
+            for (String uuid : new ArrayList<String>(table.getValue().keySet())) {
+                if (fresh != null && fresh.containsKey(uuid)) continue;
+                Table<?> row = db.getRow(table.getKey(), uuid);
+                db.removeRow(table.getKey(), uuid);
+                if (row != null) changes.add(RowChange.removed(table.getKey(), uuid, row));
+            }
+        }
+        for (Map.Entry<String, ConcurrentMap<String, Table<?>>> table : tableCaches.entrySet()) {
+            for (Map.Entry<String, Table<?>> row : table.getValue().entrySet()) {
+                Table<?> cached = db.getRow(table.getKey(), row.getKey());
+                if (cached == null) {
+                    changes.add(RowChange.added(table.getKey(), row.getKey(), row.getValue()));
+                    continue;
                 }
+                Table<?> changed = TableColumns.getChangedColumns(cached, row.getValue());
+                if (changed != null) changes.add(RowChange.updated(table.getKey(), row.getKey(), changed, row.getValue()));
             }
         }
+        return changes;
+    }
+
+    @Override
+    public void processInitialTableUpdates(Node n, TableUpdates tableUpdates) {
+        NodeDB db = getOrCreateNodeDB(n);
+        ColumnTypes columnTypes = ColumnTypes.of(db.getSchema());
+
+        final List<TableLoader> loaders = new ArrayList<TableLoader>();
+        final Map<String, ConcurrentMap<String, Table<?>>> tableCaches = new HashMap<String, ConcurrentMap<String, Table<?>>>();
+        for (Table.Name name : tableUpdates.availableUpdates()) {
+            List<Row<?>> rows = new ArrayList<Row<?>>(tableUpdates.getUpdate(name).getRows());
+            ConcurrentMap<String, Table<?>> tableCache = new ConcurrentHashMap<String, Table<?>>(
+                    rows.size() * 4 / 3 + 1, 0.75f, bulkLoadPool.getParallelism());
+            loaders.add(new TableLoader(name.getName(), columnTypes, rows, 0, rows.size(), tableCache));
+            tableCaches.put(name.getName(), tableCache);
+        }
+        TableUpdatesReader.read(schemaUpdates(tableUpdates), db.getSchema(), false, new TableUpdatesReader.RowHandler() {
+            @Override
+            public void row(Table.Name<?> name, String uuid, Table<?> oldRow, Table<?> newRow, long changedColumns) {
+                if (newRow == null) return;
+                ConcurrentMap<String, Table<?>> tableCache = tableCaches.get(name.getName());
+                if (tableCache == null) {
+                    tableCache = new ConcurrentHashMap<String, Table<?>>();
+                    tableCaches.put(name.getName(), tableCache);
+                }
+                tableCache.put(uuid, newRow);
+            }
+        });
+
+        bulkLoadPool.invoke(new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected void compute() {
+                invokeAll(loaders);
+            }
+        });
+
+        Map<String, Map<String, Table<?>>> snapshot = new HashMap<String, Map<String, Table<?>>>();
+        boolean restored = restoredNodes.remove(n) != null;
+        Node previous = restored ? null : findRestoredNode(n, tableCaches.get(Open_vSwitch.NAME.getName()));
+        db.beginBatch();
+        try {
+            if (previous != null) restored = moveRestoredCache(previous, n, db);
+            List<RowChange> reconciled = restored ? reconcile(db, tableCaches) : null;
+            for (Map.Entry<String, ConcurrentMap<String, Table<?>>> entry : tableCaches.entrySet()) {
+                db.loadTable(entry.getKey(), entry.getValue());
+                snapshot.put(entry.getKey(), Collections.unmodifiableMap(entry.getValue()));
+            }
+            if (reconciled != null) {
+                db.recordChanges(Collections.unmodifiableList(reconciled));
+                logger.info("Reconciled the restored cache of node {} : {} changes", n, reconciled.size());
+            }
+        } finally {
+            db.endBatch();
+        }
+        logger.debug("Loaded initial snapshot of {} tables for node {}", snapshot.size(), n);
+        nodeConnectorInventory.tablesLoaded(n, db);
+        if (rowWatches.hasWatches(n)) {
+            for (Map.Entry<String, Map<String, Table<?>>> table : snapshot.entrySet()) {
+                for (Map.Entry<String, Table<?>> row : table.getValue().entrySet()) {
+                    rowWatches.rowChanged(n, table.getKey(), row.getKey(), row.getValue());
+                }
+            }
+        }
+
+        for (OVSDBInventoryListener listener : inventoryListeners) {
+            if (listener instanceof OVSDBSnapshotListener) {
+                try {
+                    ((OVSDBSnapshotListener)listener).initialSnapshotReady(n, Collections.unmodifiableMap(snapshot));
+                } catch (Exception e) {
+                    logger.error("Exception caught while notifying the initial snapshot of node " + n, e);
+                }
+                continue;
+            }
+            for (Map.Entry<String, Map<String, Table<?>>> table : snapshot.entrySet()) {
+                for (Map.Entry<String, Table<?>> row : table.getValue().entrySet()) {
+                    RowChange change = RowChange.added(table.getKey(), row.getKey(), row.getValue());
+                    if (wants(listener, change)) notifyRowChange(listener, n, change);
+                }
+            }
+        }
+        if (!batchListeners.isEmpty() || publisher.hasSubscriptions()) {
+            List<RowChange> changes = new ArrayList<RowChange>();
+            for (Map.Entry<String, Map<String, Table<?>>> table : snapshot.entrySet()) {
+                for (Map.Entry<String, Table<?>> row : table.getValue().entrySet()) {
+                    changes.add(RowChange.added(table.getKey(), row.getKey(), row.getValue()));
+                }
+            }
+            changes = Collections.unmodifiableList(changes);
+            publisher.publish(n, changes);
+            for (OVSDBBatchListener listener : batchListeners) {
+                try {
+                    listener.initialSnapshotReady(n, changes);
+                } catch (Exception e) {
+                    logger.error("Exception caught while notifying the initial snapshot of node " + n, e);
+                }
+            }
+        }
+        replicationChanged();
+    }
+
+    /*
+     * Fills the cache of a table from a slice of the rows of the initial dump,
+     * splitting the slice until it is small enough.
+     */
+    private static class TableLoader extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final String tableName;
+        private final ColumnTypes columnTypes;
+        private final List<Row<?>> rows;
+        private final int from;
+        private final int to;
+        private final ConcurrentMap<String, Table<?>> tableCache;
+
+        TableLoader(String tableName, ColumnTypes columnTypes, List<Row<?>> rows, int from, int to,
+                    ConcurrentMap<String, Table<?>> tableCache) {
+            this.tableName = tableName;
+            this.columnTypes = columnTypes;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.tableCache = tableCache;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BULK_LOAD_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    Row<?> row = rows.get(i);
+                    Table<?> newRow = columnTypes.coerce(tableName, (Table<?>)row.getNew());
+                    if (newRow != null) tableCache.put(row.getId(), newRow);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TableLoader(tableName, columnTypes, rows, from, middle, tableCache),
+                      new TableLoader(tableName, columnTypes, rows, middle, to, tableCache));
+        }
     }
 
     private void updateOFBridgeName(final Node node, final Bridge bridge) {
@@ -256,9 +1218,8 @@ public class InventoryService implements IPluginInInventoryService, InventorySer
 
     @Override
     public void notifyNodeAdded(Node node) {
-        OVSDBInventoryListener inventoryListener = (OVSDBInventoryListener)ServiceHelper.getGlobalInstance(OVSDBInventoryListener.class, this);
-        if (inventoryListener != null) {
-            inventoryListener.nodeAdded(node);
+        for (OVSDBInventoryListener listener : inventoryListeners) {
+            listener.nodeAdded(node);
         }
     }
 
@@ -284,26 +1245,50 @@ public class InventoryService implements IPluginInInventoryService, InventorySer
 
     @Override
     public void updateDatabaseSchema(Node n, DatabaseSchema schema) {
+        restoredNodes.replace(n, Boolean.FALSE, Boolean.TRUE);
+        NodeDB db = getOrCreateNodeDB(n);
+        db.setSchema(schema);
+        replicationChanged();
+    }
+
+    /*
+     * Updates of different nodes are applied concurrently, the NodeDB creation must not race.
+     */
+    private NodeDB getOrCreateNodeDB(Node n) {
         NodeDB db = dbCache.get(n);
         if (db == null) {
-            db = new NodeDB();
-            dbCache.put(n, db);
+            db = new NodeDB(columnarCache, journalCapacity, n, globalIndex, indexedColumns);
+            NodeDB existing = dbCache.putIfAbsent(n, db);
+            if (existing != null) {
+                db = existing;
+            } else {
+                // An index added while the NodeDB was created may have missed it
+                for (String indexedColumn : indexedColumns) {
+                    db.addIndex(indexedColumn);
+                }
+            }
         }
-        db.setSchema(schema);
+        return db;
     }
 
     @Override
     public void removeNode(Node node) {
-        OVSDBInventoryListener inventoryListener = (OVSDBInventoryListener)ServiceHelper.getGlobalInstance(OVSDBInventoryListener.class, this);
-        if (inventoryListener != null) {
-            inventoryListener.nodeRemoved(node);
+        for (OVSDBInventoryListener listener : inventoryListeners) {
+            listener.nodeRemoved(node);
         }
 
         for (IPluginOutInventoryService service : pluginOutInventoryServices) {
             service.updateNode(node, UpdateType.REMOVED, null);
         }
         nodeProps.remove(node);
-        dbCache.remove(node);
+        nodeConnectorInventory.removeNode(node);
+        statisticsLanes.remove(node);
+        restoredNodes.remove(node);
+        NodeDB db = dbCache.remove(node);
+        if (db != null) db.removeFromGlobalIndex();
+        replicationChanged();
+        updateAccounting.removeNode(node);
+        rowWatches.removeNode(node);
     }
 
     @Override
@@ -9,8 +9,10 @@
  */
 package org.opendaylight.ovsdb.plugin;
 
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import org.opendaylight.controller.sal.core.Node;
 import org.opendaylight.controller.sal.core.Property;
@@ -18,18 +20,103 @@ import org.opendaylight.controller.sal.core.UpdateType;
 import org.opendaylight.controller.sal.inventory.IPluginInInventoryService;
 import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
 import org.opendaylight.ovsdb.lib.message.TableUpdates;
+import org.opendaylight.ovsdb.lib.message.operations.Operation;
+import org.opendaylight.ovsdb.lib.message.operations.OperationResult;
 import org.opendaylight.ovsdb.lib.table.internal.Table;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ListenableFuture;
+
 public interface InventoryServiceInternal extends IPluginInInventoryService {
     public ConcurrentMap<String, ConcurrentMap<String, Table<?>>> getCache(Node n);
     public ConcurrentMap<String, Table<?>> getTableCache(Node n, String tableName);
     public Table<?> getRow (Node n, String tableName, String uuid);
+    /**
+     * Returns an immutable snapshot of the database of a node, null if the node is unknown.
+     */
+    public NodeSnapshot getSnapshot(Node n);
+    /**
+     * Returns the changes applied to the cache of a node after a sequence number, null if the
+     * node is unknown or the changes are no longer all journaled.
+     */
+    public ChangeJournal.Changes getChangesSince(Node n, long sequence);
+    /**
+     * Subscribes to the changes applied to the cache of the nodes accepted by the filter, the
+     * initial dumps included. The subscriber is delivered as many changes as it requested
+     * through the subscription, on a thread of its own, the others are buffered up to capacity
+     * and then handled according to the overflow policy. Updates are never held up by a
+     * subscriber.
+     */
+    public RowChangeSubscription subscribe(RowChangeSubscriber subscriber, RowChangeFilter filter,
+                                           RowChangePublisher.Overflow overflow, int capacity);
+    /**
+     * Returns a future completing with a row once it is in the cache of the node and matches
+     * the predicate, null to wait for the row to be present. The future fails with a
+     * TimeoutException after the timeout, or with an IllegalStateException if the node is
+     * removed. It is completed from the update thread of the node, its listeners should not block.
+     */
+    public ListenableFuture<Table<?>> watchRow(Node n, String tableName, String uuid,
+                                               Predicate<Table<?>> predicate, long timeout, TimeUnit unit);
+    /**
+     * Returns the uuids of the rows whose column, given as column or column:key, holds the value,
+     * or null if the column is not indexed or the node unknown.
+     */
+    public Set<String> getIndexedUuids(Node n, String tableName, String column, String value);
+    /**
+     * Returns the values held by the column, given as column or column:key, of a table,
+     * or null if the column is not indexed or the node unknown.
+     */
+    public Set<String> getIndexedValues(Node n, String tableName, String column);
+    /**
+     * Indexes the column, given as column or column:key, of a table in the cache of every node,
+     * connected or connecting later.
+     */
+    public void addIndex(String tableName, String column);
+    /**
+     * Executes a transaction of selects and waits against the cache of a node, see
+     * {@link CacheQuery}. Returns null if it has to be sent to the node.
+     */
+    public List<OperationResult> transactLocally(Node n, List<Operation> operations);
+    /**
+     * Returns the rows of every node whose column, given as external_ids:key or name for the
+     * interfaces, holds the value.
+     */
+    public Set<GlobalRowIndex.Location> findRows(String column, String value);
+    /**
+     * Returns the rows referencing the row with the given uuid, empty if the node is unknown.
+     */
+    public Set<ReferenceIndex.Reference> getParents(Node n, String uuid);
+    /**
+     * Returns the rows referenced by the row with the given uuid, empty if the node is unknown.
+     */
+    public Set<ReferenceIndex.Reference> getChildren(Node n, String uuid);
     public void updateRow(Node n, String tableName, String uuid, Table<?> row);
     public void removeRow(Node n, String tableName, String uuid);
     public void processTableUpdates(Node n, TableUpdates tableUpdates);
+    public void processInitialTableUpdates(Node n, TableUpdates tableUpdates);
+    public void processUpdateNotification(Node n, JsonNode params);
     public void updateDatabaseSchema(Node n, DatabaseSchema schema);
     public DatabaseSchema getDatabaseSchema(Node n);
     public void printCache(Node n);
+    /**
+     * Returns the statistics of the statistics lanes of the nodes added up.
+     */
+    public PriorityLaneQueue.LaneStatistics getStatisticsLaneStatistics();
+    /**
+     * Sets the executor applying the updates of the nodes, on which the statistics only
+     * updates of a node are notified.
+     */
+    public void setUpdateExecutor(NodeUpdateExecutor updateExecutor);
+    public NodeUpdateAccounting getUpdateAccounting();
+    /**
+     * Returns the usage of the nodes sending the most update notifications.
+     */
+    public List<NodeUpdateAccounting.UsageStatistics> getNoisiestNodes(int count);
+    /**
+     * Returns the statistics of the caches of idle nodes spilled out of the heap.
+     */
+    public NodeDB.SpillStatistics getSpillStatistics();
 
     public void addNode(Node n, Set<Property> props);
     public void notifyNodeAdded(Node n);
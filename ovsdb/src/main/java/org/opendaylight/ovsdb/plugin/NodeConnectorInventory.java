@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.MacAddress;
+import org.opendaylight.controller.sal.core.Name;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.core.Property;
+import org.opendaylight.controller.sal.core.UpdateType;
+import org.opendaylight.controller.sal.inventory.IPluginOutInventoryService;
+import org.opendaylight.controller.sal.utils.HexEncode;
+import org.opendaylight.ovsdb.lib.notation.UUID;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableColumns;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Derives the NodeConnectors of the nodes from their Interface rows and publishes them to
+ * the SAL inventory. Every interface of a port is a NodeConnector identified by the uuid of
+ * its row, which unlike its name never changes, with its name, ofport and MAC address as
+ * properties.
+ *
+ * The connectors are derived again from the changes of every update, only for the interfaces
+ * and ports it touched. The properties map of the inventory service is updated right away,
+ * the SAL is notified after a delay so that the changes of a burst are published once per
+ * connector: an add followed by changes is published as an add, an add followed by a remove
+ * not at all.
+ */
+public class NodeConnectorInventory {
+    private static final Logger logger = LoggerFactory.getLogger(NodeConnectorInventory.class);
+    static final String INTERFACE = "Interface";
+    static final String PORT = "Port";
+    private static final String ATTACHED_MAC = "attached-mac";
+
+    private final ConcurrentMap<NodeConnector, Map<String, Property>> nodeConnectorProps;
+    private final Set<IPluginOutInventoryService> services;
+    private final ScheduledExecutorService executor;
+    private final long batchMillis;
+    /*
+     * Changes not published yet, in the order of their connectors' first change
+     */
+    private final Map<NodeConnector, Pending> pending = new LinkedHashMap<NodeConnector, Pending>();
+    private boolean flushScheduled;
+
+    private static final class Pending {
+        final UpdateType type;
+        final Map<String, Property> props;
+
+        Pending(UpdateType type, Map<String, Property> props) {
+            this.type = type;
+            this.props = props;
+        }
+    }
+
+    public NodeConnectorInventory(ConcurrentMap<NodeConnector, Map<String, Property>> nodeConnectorProps,
+                                  Set<IPluginOutInventoryService> services,
+                                  ScheduledExecutorService executor, long batchMillis) {
+        this.nodeConnectorProps = nodeConnectorProps;
+        this.services = services;
+        this.executor = executor;
+        this.batchMillis = batchMillis;
+    }
+
+    /**
+     * Derives again the connectors of the interfaces touched by the changes of an update,
+     * once they are applied to the cache of the node.
+     */
+    public void rowsChanged(Node node, NodeDB db, List<RowChange> changes) {
+        Set<String> uuids = new HashSet<String>();
+        for (RowChange change : changes) {
+            if (change.isStatisticsOnly()) continue;
+            if (INTERFACE.equals(change.getTableName())) {
+                uuids.add(change.getUuid());
+            } else if (PORT.equals(change.getTableName())) {
+                // The interfaces added to or removed from the port
+                addUuids(uuids, change.getOldRow());
+                addUuids(uuids, change.getNewRow());
+            }
+        }
+        if (uuids.isEmpty()) return;
+        for (String uuid : uuids) {
+            NodeConnector connector = connector(node, uuid);
+            if (connector != null) update(connector, deriveProps(db, uuid));
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Derives all the connectors of a node, after its tables have been loaded.
+     */
+    public void tablesLoaded(Node node, NodeDB db) {
+        Set<NodeConnector> previous = getConnectors(node);
+        Map<String, Table<?>> interfaces = db.getTableCache(INTERFACE);
+        if (interfaces != null) {
+            for (String uuid : interfaces.keySet()) {
+                NodeConnector connector = connector(node, uuid);
+                if (connector == null) continue;
+                previous.remove(connector);
+                update(connector, deriveProps(db, uuid));
+            }
+        }
+        for (NodeConnector connector : previous) {
+            update(connector, null);
+        }
+        scheduleFlush();
+    }
+
+    public void removeNode(Node node) {
+        for (NodeConnector connector : getConnectors(node)) {
+            update(connector, null);
+        }
+        scheduleFlush();
+    }
+
+    private Set<NodeConnector> getConnectors(Node node) {
+        Set<NodeConnector> connectors = new HashSet<NodeConnector>();
+        for (NodeConnector connector : nodeConnectorProps.keySet()) {
+            if (node.equals(connector.getNode())) connectors.add(connector);
+        }
+        return connectors;
+    }
+
+    private static NodeConnector connector(Node node, String uuid) {
+        try {
+            return new NodeConnector("OVS", uuid, node);
+        } catch (ConstructionException e) {
+            logger.error("Failed to construct the node connector of interface {} of node {}", uuid, node, e);
+            return null;
+        }
+    }
+
+    private static void addUuids(Set<String> uuids, Table<?> portRow) {
+        if (portRow == null) return;
+        Object interfaces = TableColumns.getColumn(portRow, "interfaces");
+        if (interfaces instanceof UUID) {
+            uuids.add(interfaces.toString());
+        } else if (interfaces instanceof Collection) {
+            for (Object uuid : (Collection<?>)interfaces) {
+                if (uuid instanceof UUID) uuids.add(uuid.toString());
+            }
+        }
+    }
+
+    /*
+     * The properties of the connector of an interface, null if the interface is gone or
+     * not attached to a port.
+     */
+    static Map<String, Property> deriveProps(NodeDB db, String uuid) {
+        Table<?> row = db.getRow(INTERFACE, uuid);
+        if (row == null || !hasPort(db, uuid)) return null;
+        Map<String, Property> props = Maps.newHashMap();
+        Object name = TableColumns.getColumn(row, "name");
+        if (name != null) props.put(Name.NamePropName, new Name(name.toString()));
+        Long ofport = toLong(first(TableColumns.getColumn(row, "ofport")));
+        // -1 when the switch failed to add the interface
+        if (ofport != null && ofport >= 0) props.put(OfPortProperty.name, new OfPortProperty(ofport));
+        MacAddress mac = toMac(first(TableColumns.getColumn(row, "mac_in_use")));
+        if (mac == null) mac = toMac(first(TableColumns.getColumn(row, "mac")));
+        if (mac == null) {
+            Object externalIds = TableColumns.getColumn(row, "external_ids");
+            if (externalIds instanceof Map) mac = toMac(((Map<?, ?>)externalIds).get(ATTACHED_MAC));
+        }
+        if (mac != null) props.put(MacAddress.propertyName, mac);
+        return props;
+    }
+
+    private static boolean hasPort(NodeDB db, String uuid) {
+        for (ReferenceIndex.Reference parent : db.getParents(uuid)) {
+            if (PORT.equals(parent.getTableName())) return true;
+        }
+        return false;
+    }
+
+    private static Object first(Object value) {
+        if (!(value instanceof Collection)) return value;
+        Collection<?> values = (Collection<?>)value;
+        return values.isEmpty() ? null : values.iterator().next();
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number ? ((Number)value).longValue() : null;
+    }
+
+    private static MacAddress toMac(Object value) {
+        if (value == null) return null;
+        try {
+            byte[] bytes = HexEncode.bytesFromHexString(value.toString());
+            if (bytes != null && bytes.length == 6) return new MacAddress(bytes);
+        } catch (RuntimeException e) {
+            // Not a MAC address
+        }
+        logger.debug("Ignoring invalid MAC address {}", value);
+        return null;
+    }
+
+    /*
+     * Records the new properties of a connector, null once removed, and queues its change
+     * if they differ from the previous ones.
+     */
+    private void update(NodeConnector connector, Map<String, Property> props) {
+        Map<String, Property> previous = props == null ? nodeConnectorProps.remove(connector)
+                                                       : nodeConnectorProps.put(connector, props);
+        UpdateType type;
+        if (previous == null) {
+            if (props == null) return;
+            type = UpdateType.ADDED;
+        } else if (props == null) {
+            type = UpdateType.REMOVED;
+        } else if (sameValues(previous, props)) {
+            return;
+        } else {
+            type = UpdateType.CHANGED;
+        }
+        synchronized (pending) {
+            Pending queued = pending.get(connector);
+            if (queued != null) {
+                if (queued.type == UpdateType.ADDED) {
+                    type = type == UpdateType.REMOVED ? null : UpdateType.ADDED;
+                } else if (queued.type == UpdateType.REMOVED && type == UpdateType.ADDED) {
+                    type = UpdateType.CHANGED;
+                }
+            }
+            if (type == null) {
+                pending.remove(connector);
+            } else {
+                pending.put(connector, new Pending(type, props));
+            }
+        }
+    }
+
+    /*
+     * Properties do not all compare their values, their string values are compared instead.
+     */
+    private static boolean sameValues(Map<String, Property> props1, Map<String, Property> props2) {
+        if (!props1.keySet().equals(props2.keySet())) return false;
+        for (Map.Entry<String, Property> prop : props1.entrySet()) {
+            String value = prop.getValue().getStringValue();
+            String other = props2.get(prop.getKey()).getStringValue();
+            if (value == null ? other != null : !value.equals(other)) return false;
+        }
+        return true;
+    }
+
+    private void scheduleFlush() {
+        synchronized (pending) {
+            if (flushScheduled || pending.isEmpty()) return;
+            try {
+                executor.schedule(flush, batchMillis, TimeUnit.MILLISECONDS);
+                flushScheduled = true;
+            } catch (RejectedExecutionException e) {
+                logger.debug("Not publishing the node connector changes, shutting down");
+            }
+        }
+    }
+
+    private final Runnable flush = new Runnable() {
+        @Override
+        public void run() {
+            Map<NodeConnector, Pending> batch;
+            synchronized (pending) {
+                batch = new LinkedHashMap<NodeConnector, Pending>(pending);
+                pending.clear();
+                flushScheduled = false;
+            }
+            logger.debug("Publishing {} node connector changes", batch.size());
+            for (Map.Entry<NodeConnector, Pending> change : batch.entrySet()) {
+                Pending update = change.getValue();
+                Set<Property> props = update.props != null ? new HashSet<Property>(update.props.values()) : null;
+                for (IPluginOutInventoryService service : services) {
+                    try {
+                        service.updateNodeConnector(change.getKey(), update.type, props);
+                    } catch (Exception e) {
+                        logger.error("Exception caught while publishing node connector " + change.getKey(), e);
+                    }
+                }
+            }
+        }
+    };
+}
@@ -9,18 +9,113 @@
  */
 package org.opendaylight.ovsdb.plugin;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 
 import org.apache.commons.collections.MapUtils;
+import org.opendaylight.controller.sal.core.Node;
 import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
 import org.opendaylight.ovsdb.lib.table.internal.Table;
 
 public class NodeDB {
     private DatabaseSchema schema;
-    ConcurrentMap<String, ConcurrentMap<String, Table<?>>> cache = Maps.newConcurrentMap();
+    /*
+     * Keep the rows of the tables in ColumnarTableCache rather than as Table objects
+     */
+    private final boolean columnar;
+    /*
+     * The tables, null while they are spilled off-heap. The tables are spilled and loaded back
+     * under the batch lock, readers holding the tables of before a spill keep reading them.
+     */
+    private volatile ConcurrentMap<String, ConcurrentMap<String, Table<?>>> cache = Maps.newConcurrentMap();
+    private SpilledTables spilled;
+    private volatile long lastAccess = System.nanoTime();
+    private volatile long spills;
+    private volatile long rehydrations;
+    /*
+     * Secondary indexes, by table and by table/column. Indexes are added under the batch lock
+     * and read without it.
+     */
+    private final ConcurrentMap<String, List<ColumnIndex>> tableIndexes = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, ColumnIndex> indexes = Maps.newConcurrentMap();
+    private final ReferenceIndex references = new ReferenceIndex();
+    /*
+     * Index shared by the nodes, with the node this NodeDB caches, or null
+     */
+    private final Node node;
+    private final GlobalRowIndex globalIndex;
+    private boolean removedFromGlobalIndex;
+
+    /*
+     * Updates are applied in batches under the batch lock, the version is bumped at the end of
+     * a batch that changed something. Snapshots are built on demand, at most once per version,
+     * copying only the rows changed since the previous snapshot, recorded per table until the
+     * next snapshot. Past MAX_CHANGED_ROWS changed rows a table is copied in full.
+     */
+    private static final int MAX_CHANGED_ROWS = 4096;
+    private static final Set<String> ALL_ROWS = Collections.unmodifiableSet(new HashSet<String>());
+    private final ReentrantLock batchLock = new ReentrantLock();
+    private final Map<String, Long> tableVersions = Maps.newHashMap();
+    private final Map<String, Set<String>> changedRows = Maps.newHashMap();
+    private volatile long version;
+    private boolean dirty;
+    private volatile NodeSnapshot snapshot;
+
+    /*
+     * The changes of every batch are journaled under a sequence number, the version of the batch
+     * offset by a base unique to this NodeDB so that a node connecting again never reuses the
+     * sequence numbers of its previous NodeDB.
+     */
+    static final int DEFAULT_JOURNAL_CAPACITY = 4096;
+    private static final AtomicLong journalEpochs = new AtomicLong();
+    private final long sequenceBase = journalEpochs.incrementAndGet() << 32;
+    private final ChangeJournal journal;
+    private List<RowChange> batchChanges;
+
+    public NodeDB() {
+        this(false);
+    }
+
+    public NodeDB(boolean columnar) {
+        this(columnar, DEFAULT_JOURNAL_CAPACITY);
+    }
+
+    public NodeDB(boolean columnar, int journalCapacity) {
+        this(columnar, journalCapacity, null, null);
+    }
+
+    /**
+     * Creates the cache of a node, keeping the rows of the node in the global index as well.
+     */
+    public NodeDB(boolean columnar, int journalCapacity, Node node, GlobalRowIndex globalIndex) {
+        this(columnar, journalCapacity, node, globalIndex, ColumnIndex.DEFAULT_INDEXES);
+    }
+
+    /**
+     * Creates the cache of a node with secondary indexes on the given columns, written
+     * table/column or table/column:key.
+     */
+    public NodeDB(boolean columnar, int journalCapacity, Node node, GlobalRowIndex globalIndex,
+                  Collection<String> indexedColumns) {
+        this.columnar = columnar;
+        this.node = node;
+        this.globalIndex = globalIndex;
+        this.journal = new ChangeJournal(journalCapacity, sequenceBase);
+        for (String indexedColumn : indexedColumns) {
+            addIndex(ColumnIndex.parse(indexedColumn));
+        }
+    }
 
     public DatabaseSchema getSchema() {
         return schema;
@@ -28,18 +123,147 @@ public class NodeDB {
 
     public void setSchema(DatabaseSchema schema) {
         this.schema = schema;
+        references.setSchema(schema);
     }
 
     public ConcurrentMap<String, ConcurrentMap<String, Table<?>>> getTableCache() {
-        return cache;
+        return tables();
     }
 
     public ConcurrentMap<String, Table<?>> getTableCache(String tableName) {
-        return cache.get(tableName);
+        return tables().get(tableName);
     }
 
     private void setTableCache(String tableName,  ConcurrentMap<String, Table<?>> tableCache) {
-        cache.put(tableName, tableCache);
+        tables().put(tableName, tableCache);
+    }
+
+    /*
+     * Returns the tables, loading them back if they were spilled, and records the access.
+     */
+    private ConcurrentMap<String, ConcurrentMap<String, Table<?>>> tables() {
+        lastAccess = System.nanoTime();
+        ConcurrentMap<String, ConcurrentMap<String, Table<?>>> tables = cache;
+        if (tables != null) return tables;
+        batchLock.lock();
+        try {
+            if (cache == null) {
+                tables = Maps.newConcurrentMap();
+                for (Map.Entry<String, ConcurrentMap<String, Table<?>>> table : spilled.load().entrySet()) {
+                    ConcurrentMap<String, Table<?>> rows = table.getValue();
+                    if (columnar && !rows.isEmpty()) {
+                        rows = newTableCache(rows.values().iterator().next());
+                        rows.putAll(table.getValue());
+                    }
+                    tables.put(table.getKey(), rows);
+                }
+                spilled = null;
+                cache = tables;
+                rehydrations++;
+            }
+            return cache;
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    /**
+     * Moves the tables out of the heap until the next access to the node. Nothing is spilled
+     * if the tables are empty or not all described by the schema.
+     *
+     * @return true if the tables were spilled
+     */
+    public boolean spill() {
+        batchLock.lock();
+        try {
+            ConcurrentMap<String, ConcurrentMap<String, Table<?>>> tables = cache;
+            if (tables == null || tables.isEmpty() || schema == null) return false;
+            SpilledTables spilledTables;
+            try {
+                spilledTables = SpilledTables.spill(schema, tables);
+            } catch (OutOfMemoryError e) {
+                // Out of direct memory, the tables stay on the heap
+                return false;
+            }
+            if (spilledTables == null) return false;
+            spilled = spilledTables;
+            cache = null;
+            snapshot = null;
+            changedRows.clear();
+            spills++;
+            return true;
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    public boolean isSpilled() {
+        return cache == null;
+    }
+
+    /**
+     * Returns the System.nanoTime() of the last read or update of the rows.
+     */
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * Returns the number of rows, without loading back spilled tables.
+     */
+    public int getRowCount() {
+        batchLock.lock();
+        try {
+            if (cache == null) return spilled.getRowCount();
+            int count = 0;
+            for (Map<String, Table<?>> table : cache.values()) {
+                count += table.size();
+            }
+            return count;
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the size of the spilled tables out of the heap, 0 if they are not spilled.
+     */
+    public long getOffHeapBytes() {
+        batchLock.lock();
+        try {
+            return spilled != null ? spilled.getOffHeapBytes() : 0;
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the estimated heap held by the rows before they were spilled, 0 if they are
+     * not spilled.
+     */
+    public long getHeapBytesSaved() {
+        batchLock.lock();
+        try {
+            return spilled != null ? spilled.getHeapBytes() : 0;
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    public long getSpills() {
+        return spills;
+    }
+
+    public long getRehydrations() {
+        return rehydrations;
+    }
+
+    private ConcurrentMap<String, Table<?>> newTableCache(Table<?> row) {
+        if (columnar) {
+            ConcurrentMap<String, Table<?>> tableCache = ColumnarTableCache.create(row.getClass());
+            if (tableCache != null) return tableCache;
+        }
+        return Maps.newConcurrentMap();
     }
 
     public Table<?> getRow (String tableName, String uuid) {
@@ -51,23 +275,379 @@ public class NodeDB {
     }
 
     public void updateRow(String tableName, String uuid, Table<?> row) {
-        ConcurrentMap<String, Table<?>> tableCache = getTableCache(tableName);
-        if (tableCache == null) {
-            tableCache = Maps.newConcurrentMap();
-            setTableCache(tableName, tableCache);
+        boolean standalone = beginUpdate();
+        try {
+            ConcurrentMap<String, Table<?>> tableCache = getTableCache(tableName);
+            if (tableCache == null) {
+                tableCache = newTableCache(row);
+                setTableCache(tableName, tableCache);
+            }
+            updateIndexes(tableName, uuid, putRow(tableCache, uuid, row), row);
+        } finally {
+            endUpdate(standalone);
+        }
+    }
+
+    /**
+     * Installs a table cache built off-line, e.g. from the initial monitor dump.
+     * Rows already cached for the table are kept unless present in the new cache.
+     */
+    public void loadTable(String tableName, ConcurrentMap<String, Table<?>> tableCache) {
+        boolean standalone = beginUpdate();
+        try {
+            ConcurrentMap<String, Table<?>> existing = tables().get(tableName);
+            if (existing == null) {
+                ConcurrentMap<String, Table<?>> rows = tableCache;
+                if (columnar && !tableCache.isEmpty()) {
+                    rows = newTableCache(tableCache.values().iterator().next());
+                    rows.putAll(tableCache);
+                }
+                setTableCache(tableName, rows);
+                for (Map.Entry<String, Table<?>> row : tableCache.entrySet()) {
+                    updateIndexes(tableName, row.getKey(), null, row.getValue());
+                }
+                return;
+            }
+            for (Map.Entry<String, Table<?>> row : tableCache.entrySet()) {
+                updateIndexes(tableName, row.getKey(), putRow(existing, row.getKey(), row.getValue()), row.getValue());
+            }
+        } finally {
+            endUpdate(standalone);
         }
-        tableCache.put(uuid, row);
+    }
+
+    /*
+     * Caches a row and returns what the indexes need of the row it replaces. A columnar cache
+     * only returns the previous values of the columns that changed, the indexes keep the
+     * values of the columns that did not.
+     */
+    private static Table<?> putRow(ConcurrentMap<String, Table<?>> tableCache, String uuid, Table<?> row) {
+        if (tableCache instanceof ColumnarTableCache) return ((ColumnarTableCache)tableCache).update(uuid, row);
+        return tableCache.put(uuid, row);
     }
 
     public void removeRow(String tableName, String uuid) {
-        Map<String, Table<?>> tableCache = getTableCache(tableName);
-        if (tableCache != null) {
-            tableCache.remove(uuid);
+        boolean standalone = beginUpdate();
+        try {
+            Map<String, Table<?>> tableCache = getTableCache(tableName);
+            if (tableCache != null) {
+                Table<?> oldRow = tableCache.remove(uuid);
+                if (oldRow != null) updateIndexes(tableName, uuid, oldRow, null);
+            }
+        } finally {
+            endUpdate(standalone);
+        }
+    }
+
+    /**
+     * Starts a batch of updates, e.g. the rows of one update notification. The batch is
+     * published as a whole to the snapshot readers by {@link #endBatch()}.
+     */
+    public void beginBatch() {
+        batchLock.lock();
+    }
+
+    public void endBatch() {
+        try {
+            if (dirty) {
+                version++;
+                dirty = false;
+                if (batchChanges != null) {
+                    journal.append(sequenceBase + version, batchChanges);
+                } else {
+                    journal.truncate(sequenceBase + version);
+                }
+            }
+        } finally {
+            batchChanges = null;
+            batchLock.unlock();
+        }
+    }
+
+    /**
+     * Records the changes applied by the current batch, journaled when the batch ends. The
+     * changes of a batch that records none, e.g. a table load, are not journaled and the
+     * consumers of the journal start over from a snapshot.
+     */
+    public void recordChanges(List<RowChange> changes) {
+        if (!batchLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("Changes recorded outside of a batch");
+        }
+        batchChanges = changes;
+    }
+
+    /**
+     * Returns the sequence number of the last complete batch, the one of the current snapshot.
+     */
+    public long getSequence() {
+        return sequenceBase + version;
+    }
+
+    /**
+     * Returns the changes applied after a sequence number, null if they are not all in the
+     * journal any more.
+     */
+    public ChangeJournal.Changes getChangesSince(long sequence) {
+        return journal.since(sequence);
+    }
+
+    private boolean beginUpdate() {
+        if (batchLock.isHeldByCurrentThread()) return false;
+        beginBatch();
+        return true;
+    }
+
+    private void endUpdate(boolean standalone) {
+        if (standalone) endBatch();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns a consistent, immutable view of the database as of the last complete batch.
+     */
+    public NodeSnapshot getSnapshot() {
+        lastAccess = System.nanoTime();
+        return currentSnapshot();
+    }
+
+    private NodeSnapshot currentSnapshot() {
+        NodeSnapshot current = snapshot;
+        if (current != null && current.getVersion() == version) return current;
+        batchLock.lock();
+        try {
+            ConcurrentMap<String, ConcurrentMap<String, Table<?>>> cache = this.cache;
+            if (cache == null) cache = tables();
+            current = snapshot;
+            if (current != null && current.getVersion() == version) return current;
+            ImmutableMap.Builder<String, SnapshotRows> tables = ImmutableMap.builder();
+            for (Map.Entry<String, ConcurrentMap<String, Table<?>>> table : cache.entrySet()) {
+                SnapshotRows rows = current != null ? current.getTable(table.getKey()) : null;
+                Long tableVersion = tableVersions.get(table.getKey());
+                if (rows == null || tableVersion == null) {
+                    rows = SnapshotRows.copyOf(table.getValue());
+                } else if (tableVersion > current.getVersion()) {
+                    Set<String> changed = changedRows.get(table.getKey());
+                    rows = changed != null && changed != ALL_ROWS ? rows.update(table.getValue(), changed)
+                                                                  : SnapshotRows.copyOf(table.getValue());
+                }
+                tables.put(table.getKey(), rows);
+            }
+            changedRows.clear();
+            current = new NodeSnapshot(version, sequenceBase + version, tables.build());
+            snapshot = current;
+            return current;
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current snapshot like {@link #getSnapshot()}, decoding spilled tables without
+     * loading them back. This does not count as an access, e.g. for the snapshot files.
+     */
+    NodeSnapshot peekSnapshot() {
+        batchLock.lock();
+        try {
+            if (cache != null) return currentSnapshot();
+            ImmutableMap.Builder<String, SnapshotRows> tables = ImmutableMap.builder();
+            for (Map.Entry<String, ConcurrentMap<String, Table<?>>> table : spilled.load().entrySet()) {
+                tables.put(table.getKey(), SnapshotRows.copyOf(table.getValue()));
+            }
+            return new NodeSnapshot(version, sequenceBase + version, tables.build());
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    private void updateIndexes(String tableName, String uuid, Table<?> oldRow, Table<?> newRow) {
+        tableVersions.put(tableName, version + 1);
+        dirty = true;
+        if (snapshot != null) recordChangedRow(tableName, uuid);
+        references.update(tableName, uuid, oldRow, newRow);
+        if (globalIndex != null && !removedFromGlobalIndex) globalIndex.update(node, tableName, uuid, oldRow, newRow);
+        List<ColumnIndex> list = tableIndexes.get(tableName);
+        if (list == null) return;
+        for (ColumnIndex index : list) {
+            index.update(uuid, oldRow, newRow);
+        }
+    }
+
+    private void recordChangedRow(String tableName, String uuid) {
+        Set<String> changed = changedRows.get(tableName);
+        if (changed == ALL_ROWS) return;
+        if (changed == null) {
+            changed = new HashSet<String>();
+            changedRows.put(tableName, changed);
+        }
+        changed.add(uuid);
+        if (changed.size() > MAX_CHANGED_ROWS) changedRows.put(tableName, ALL_ROWS);
+    }
+
+    /**
+     * Removes the rows of the node from the global index, once the node is gone.
+     */
+    public void removeFromGlobalIndex() {
+        if (globalIndex == null) return;
+        batchLock.lock();
+        try {
+            removedFromGlobalIndex = true;
+            for (Map.Entry<String, ConcurrentMap<String, Table<?>>> table : tables().entrySet()) {
+                for (Map.Entry<String, Table<?>> row : table.getValue().entrySet()) {
+                    globalIndex.update(node, table.getKey(), row.getKey(), row.getValue(), null);
+                }
+            }
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    /**
+     * Adds a secondary index on the column, given as column or column:key, of the table and
+     * fills it with the rows already cached. Returns false if the column was already indexed.
+     */
+    public boolean addIndex(String tableName, String column) {
+        return addIndex(tableName + "/" + column);
+    }
+
+    /*
+     * Adds an index on a column written table/column or table/column:key.
+     */
+    boolean addIndex(String indexedColumn) {
+        return addIndex(ColumnIndex.parse(indexedColumn));
+    }
+
+    private boolean addIndex(ColumnIndex index) {
+        batchLock.lock();
+        try {
+            String key = index.getTableName() + "/" + index.getSpec();
+            if (indexes.containsKey(key)) return false;
+            ConcurrentMap<String, Table<?>> rows = tables().get(index.getTableName());
+            if (rows != null) {
+                for (Map.Entry<String, Table<?>> row : rows.entrySet()) {
+                    index.update(row.getKey(), null, row.getValue());
+                }
+            }
+            List<ColumnIndex> list = tableIndexes.get(index.getTableName());
+            if (list == null) {
+                list = new CopyOnWriteArrayList<ColumnIndex>();
+                tableIndexes.put(index.getTableName(), list);
+            }
+            list.add(index);
+            indexes.put(key, index);
+            return true;
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    /**
+     * Returns true if the column, given as column or column:key, of the table is indexed.
+     */
+    public boolean isIndexed(String tableName, String column) {
+        return indexes.containsKey(tableName + "/" + column);
+    }
+
+    /**
+     * Returns the uuids of the rows of the table whose column, given as column or column:key,
+     * holds the value, or null if the column is not indexed.
+     */
+    public Set<String> getIndexedUuids(String tableName, String column, String value) {
+        ColumnIndex index = indexes.get(tableName + "/" + column);
+        if (index == null) return null;
+        return index.get(value);
+    }
+
+    /**
+     * Returns the distinct values held by the column, given as column or column:key, of
+     * the table, or null if the column is not indexed.
+     */
+    public Set<String> getIndexedValues(String tableName, String column) {
+        ColumnIndex index = indexes.get(tableName + "/" + column);
+        if (index == null) return null;
+        return index.getValues();
+    }
+
+    /**
+     * Returns the rows referencing the row with the given uuid.
+     */
+    public Set<ReferenceIndex.Reference> getParents(String uuid) {
+        return references.getParents(uuid);
+    }
+
+    /**
+     * Returns the rows referenced by the row with the given uuid.
+     */
+    public Set<ReferenceIndex.Reference> getChildren(String uuid) {
+        return references.getChildren(uuid);
+    }
+
+    /**
+     * Point in time view of the spilled caches of the nodes.
+     */
+    public static class SpillStatistics {
+        private final int nodes;
+        private final int spilledNodes;
+        private final long spilledRows;
+        private final long offHeapBytes;
+        private final long heapBytesSaved;
+        private final long spills;
+        private final long rehydrations;
+
+        SpillStatistics(int nodes, int spilledNodes, long spilledRows, long offHeapBytes, long heapBytesSaved,
+                        long spills, long rehydrations) {
+            this.nodes = nodes;
+            this.spilledNodes = spilledNodes;
+            this.spilledRows = spilledRows;
+            this.offHeapBytes = offHeapBytes;
+            this.heapBytesSaved = heapBytesSaved;
+            this.spills = spills;
+            this.rehydrations = rehydrations;
+        }
+
+        public int getNodes() {
+            return nodes;
+        }
+
+        public int getSpilledNodes() {
+            return spilledNodes;
+        }
+
+        public long getSpilledRows() {
+            return spilledRows;
+        }
+
+        public long getOffHeapBytes() {
+            return offHeapBytes;
+        }
+
+        /**
+         * Returns the estimated heap the spilled rows would take.
+         */
+        public long getHeapBytesSaved() {
+            return heapBytesSaved;
+        }
+
+        public long getSpills() {
+            return spills;
+        }
+
+        public long getRehydrations() {
+            return rehydrations;
+        }
+
+        @Override
+        public String toString() {
+            return "SpillStatistics [nodes=" + nodes + ", spilledNodes=" + spilledNodes + ", spilledRows="
+                    + spilledRows + ", offHeapBytes=" + offHeapBytes + ", heapBytesSaved=" + heapBytesSaved
+                    + ", spills=" + spills + ", rehydrations=" + rehydrations + "]";
         }
     }
 
     public void printTableCache() {
         MapUtils.debugPrint(System.out, null, schema.getTables());
-        MapUtils.debugPrint(System.out, null, cache);
+        MapUtils.debugPrint(System.out, null, tables());
     }
 }
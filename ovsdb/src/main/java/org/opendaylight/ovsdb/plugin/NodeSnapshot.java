@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Immutable view of the database of a node as it was after an update was applied in full.
+ * Reads spanning several tables see a consistent state and never take a lock.
+ *
+ * Successive snapshots share the tables that did not change in between, and the unchanged
+ * rows of the ones that did, see {@link SnapshotRows}. The version
+ * increases with every update applied to the node. The sequence number is the one of the
+ * {@link ChangeJournal} of the node the changes after the snapshot are read from.
+ */
+public final class NodeSnapshot {
+    private final long version;
+    private final long sequence;
+    private final ImmutableMap<String, SnapshotRows> tables;
+
+    NodeSnapshot(long version, long sequence, ImmutableMap<String, SnapshotRows> tables) {
+        this.version = version;
+        this.sequence = sequence;
+        this.tables = tables;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Set<String> getTableNames() {
+        return tables.keySet();
+    }
+
+    /**
+     * Returns the rows of a table keyed by uuid, empty if the node has none.
+     */
+    public Map<String, Table<?>> getRows(String tableName) {
+        SnapshotRows rows = tables.get(tableName);
+        if (rows == null) return SnapshotRows.empty();
+        return rows;
+    }
+
+    public Table<?> getRow(String tableName, String uuid) {
+        SnapshotRows rows = tables.get(tableName);
+        if (rows == null) return null;
+        return rows.get(uuid);
+    }
+
+    SnapshotRows getTable(String tableName) {
+        return tables.get(tableName);
+    }
+
+    @Override
+    public String toString() {
+        return "NodeSnapshot [version=" + version + ", sequence=" + sequence + ", tables=" + tables.keySet() + "]";
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.opendaylight.controller.sal.core.Node;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Accounts, per node, the update notifications received, the bytes read and the time spent
+ * decoding and applying them, over fixed windows of one second.
+ *
+ * A node going beyond one of the configured per second limits is over budget for the rest of
+ * the window. What happens to the updates of such a node is up to the caller, see
+ * {@link OverBudgetAction}. A limit of 0 disables it.
+ */
+public class NodeUpdateAccounting {
+    public enum OverBudgetAction {
+        /** Configuration updates of the node are deferred, merged per row, along with the statistics */
+        COALESCE,
+        /** Reads from the node are suspended until the end of the window */
+        DEFER
+    };
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private final long maxNotifications;
+    private final long maxBytes;
+    private final long maxCpuNanos;
+    private final OverBudgetAction overBudgetAction;
+    private final ConcurrentMap<Node, NodeUsage> usages = Maps.newConcurrentMap();
+
+    public NodeUpdateAccounting(long maxNotificationsPerSecond, long maxBytesPerSecond,
+                                long maxCpuMillisPerSecond, OverBudgetAction overBudgetAction) {
+        this.maxNotifications = maxNotificationsPerSecond;
+        this.maxBytes = maxBytesPerSecond;
+        this.maxCpuNanos = TimeUnit.MILLISECONDS.toNanos(maxCpuMillisPerSecond);
+        this.overBudgetAction = overBudgetAction;
+    }
+
+    public OverBudgetAction getOverBudgetAction() {
+        return overBudgetAction;
+    }
+
+    /**
+     * Records an update notification.
+     *
+     * @param node Node the notification comes from
+     * @param bytesRead Total number of bytes read so far from the connection of the node
+     * @return true if the node is over budget
+     */
+    public boolean recordNotification(Node node, long bytesRead) {
+        NodeUsage usage = getUsage(node);
+        synchronized (usage) {
+            usage.roll(System.nanoTime());
+            long bytes = Math.max(0, bytesRead - usage.lastBytesRead);
+            usage.lastBytesRead = bytesRead;
+            usage.notifications++;
+            usage.bytes += bytes;
+            usage.windowNotifications++;
+            usage.windowBytes += bytes;
+            return usage.checkBudget();
+        }
+    }
+
+    /**
+     * Records the processing of an update notification by the current thread.
+     *
+     * @param cpuNanos CPU time spent, see {@link #currentCpuTime()}
+     */
+    public void recordProcessing(Node node, int rows, long decodeNanos, long applyNanos, long cpuNanos) {
+        NodeUsage usage = getUsage(node);
+        synchronized (usage) {
+            usage.roll(System.nanoTime());
+            usage.rows += rows;
+            usage.decodeNanos += decodeNanos;
+            usage.applyNanos += applyNanos;
+            usage.cpuNanos += cpuNanos;
+            usage.windowCpuNanos += cpuNanos;
+            usage.checkBudget();
+        }
+    }
+
+    public boolean isOverBudget(Node node) {
+        NodeUsage usage = usages.get(node);
+        if (usage == null) return false;
+        synchronized (usage) {
+            usage.roll(System.nanoTime());
+            return usage.overBudget;
+        }
+    }
+
+    /**
+     * Returns the nanoseconds left in the current window of a node.
+     */
+    public long getWindowRemainingNanos(Node node) {
+        NodeUsage usage = usages.get(node);
+        if (usage == null) return 0;
+        synchronized (usage) {
+            return Math.max(0, usage.windowStart + WINDOW_NANOS - System.nanoTime());
+        }
+    }
+
+    public void removeNode(Node node) {
+        usages.remove(node);
+    }
+
+    /**
+     * Returns the nodes that sent the most notifications over the last complete window,
+     * ties broken by CPU time.
+     */
+    public List<UsageStatistics> getNoisiestNodes(int count) {
+        List<UsageStatistics> stats = new ArrayList<UsageStatistics>();
+        long now = System.nanoTime();
+        for (NodeUsage usage : usages.values()) {
+            synchronized (usage) {
+                usage.roll(now);
+                stats.add(new UsageStatistics(usage));
+            }
+        }
+        Collections.sort(stats, new Comparator<UsageStatistics>() {
+            @Override
+            public int compare(UsageStatistics o1, UsageStatistics o2) {
+                if (o1.notificationRate != o2.notificationRate) {
+                    return o1.notificationRate > o2.notificationRate ? -1 : 1;
+                }
+                if (o1.cpuMillisRate != o2.cpuMillisRate) {
+                    return o1.cpuMillisRate > o2.cpuMillisRate ? -1 : 1;
+                }
+                return 0;
+            }
+        });
+        return stats.size() > count ? new ArrayList<UsageStatistics>(stats.subList(0, count)) : stats;
+    }
+
+    /**
+     * Returns the CPU time of the current thread, or the wall clock time if the JVM
+     * does not measure thread CPU time.
+     */
+    public static long currentCpuTime() {
+        if (threadMXBean.isCurrentThreadCpuTimeSupported()) {
+            return threadMXBean.getCurrentThreadCpuTime();
+        }
+        return System.nanoTime();
+    }
+
+    private NodeUsage getUsage(Node node) {
+        NodeUsage usage = usages.get(node);
+        if (usage == null) {
+            usage = new NodeUsage(node);
+            NodeUsage existing = usages.putIfAbsent(node, usage);
+            if (existing != null) usage = existing;
+        }
+        return usage;
+    }
+
+    private class NodeUsage {
+        final Node node;
+        long lastBytesRead;
+        long notifications;
+        long bytes;
+        long rows;
+        long decodeNanos;
+        long applyNanos;
+        long cpuNanos;
+        long overBudgetWindows;
+
+        long windowStart = System.nanoTime();
+        long windowNotifications;
+        long windowBytes;
+        long windowCpuNanos;
+        boolean overBudget;
+
+        // Figures of the last complete window
+        long notificationRate;
+        long byteRate;
+        long cpuNanosRate;
+
+        NodeUsage(Node node) {
+            this.node = node;
+        }
+
+        void roll(long now) {
+            long elapsed = now - windowStart;
+            if (elapsed < WINDOW_NANOS) return;
+            if (elapsed < 2 * WINDOW_NANOS) {
+                notificationRate = windowNotifications;
+                byteRate = windowBytes;
+                cpuNanosRate = windowCpuNanos;
+            } else {
+                // The node was quiet for at least a whole window
+                notificationRate = byteRate = cpuNanosRate = 0;
+            }
+            windowStart = now - (elapsed % WINDOW_NANOS);
+            windowNotifications = windowBytes = windowCpuNanos = 0;
+            overBudget = false;
+        }
+
+        boolean checkBudget() {
+            if (!overBudget && ((maxNotifications > 0 && windowNotifications > maxNotifications)
+                                || (maxBytes > 0 && windowBytes > maxBytes)
+                                || (maxCpuNanos > 0 && windowCpuNanos > maxCpuNanos))) {
+                overBudget = true;
+                overBudgetWindows++;
+            }
+            return overBudget;
+        }
+    }
+
+    /**
+     * Point in time view of the usage of a node.
+     */
+    public static class UsageStatistics {
+        private final Node node;
+        private final long notifications;
+        private final long bytes;
+        private final long rows;
+        private final long decodeMillis;
+        private final long applyMillis;
+        private final long cpuMillis;
+        private final long notificationRate;
+        private final long byteRate;
+        private final long cpuMillisRate;
+        private final long overBudgetWindows;
+        private final boolean overBudget;
+
+        UsageStatistics(NodeUsage usage) {
+            this.node = usage.node;
+            this.notifications = usage.notifications;
+            this.bytes = usage.bytes;
+            this.rows = usage.rows;
+            this.decodeMillis = TimeUnit.NANOSECONDS.toMillis(usage.decodeNanos);
+            this.applyMillis = TimeUnit.NANOSECONDS.toMillis(usage.applyNanos);
+            this.cpuMillis = TimeUnit.NANOSECONDS.toMillis(usage.cpuNanos);
+            this.notificationRate = usage.notificationRate;
+            this.byteRate = usage.byteRate;
+            this.cpuMillisRate = TimeUnit.NANOSECONDS.toMillis(usage.cpuNanosRate);
+            this.overBudgetWindows = usage.overBudgetWindows;
+            this.overBudget = usage.overBudget;
+        }
+
+        public Node getNode() {
+            return node;
+        }
+
+        public long getNotifications() {
+            return notifications;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getDecodeMillis() {
+            return decodeMillis;
+        }
+
+        public long getApplyMillis() {
+            return applyMillis;
+        }
+
+        public long getCpuMillis() {
+            return cpuMillis;
+        }
+
+        /**
+         * Notifications per second over the last complete window.
+         */
+        public long getNotificationRate() {
+            return notificationRate;
+        }
+
+        /**
+         * Bytes per second over the last complete window.
+         */
+        public long getByteRate() {
+            return byteRate;
+        }
+
+        /**
+         * CPU milliseconds per second over the last complete window.
+         */
+        public long getCpuMillisRate() {
+            return cpuMillisRate;
+        }
+
+        public long getOverBudgetWindows() {
+            return overBudgetWindows;
+        }
+
+        public boolean isOverBudget() {
+            return overBudget;
+        }
+
+        @Override
+        public String toString() {
+            return "UsageStatistics [node=" + node + ", notifications=" + notifications + ", bytes=" + bytes
+                    + ", rows=" + rows + ", decodeMillis=" + decodeMillis + ", applyMillis=" + applyMillis
+                    + ", cpuMillis=" + cpuMillis + ", notificationRate=" + notificationRate + ", byteRate="
+                    + byteRate + ", cpuMillisRate=" + cpuMillisRate + ", overBudgetWindows="
+                    + overBudgetWindows + ", overBudget=" + overBudget + "]";
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import io.netty.channel.Channel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opendaylight.controller.sal.core.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Applies the updates received from the OVSDB servers away from the Netty I/O threads.
+ *
+ * Every node is bound to one of a fixed number of single threaded stripes, so the updates
+ * of a node are applied in the order they were received while different nodes are processed
+ * in parallel. The number of pending updates is tracked per node : once a node goes beyond the
+ * high watermark the auto-read of its channel is suspended, and it is resumed as soon as the
+ * backlog drains down to the low watermark, unless the reads of the node are held for another
+ * reason, see {@link #setReadHold(Predicate)}.
+ *
+ * The tasks of a node still pending when the node is removed are skipped, as are the tasks
+ * of a channel already closed, so that they cannot recreate the cache of a disconnected node.
+ * Only the tasks of an open channel create the queue of a node, a late task of a removed node
+ * is not tracked. The queue of every stripe is bounded: a task beyond it is rejected and, as an
+ * update is then lost, the channel of the node is closed so that it resyncs on reconnection.
+ */
+public class NodeUpdateExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(NodeUpdateExecutor.class);
+
+    static final int DEFAULT_QUEUE_CAPACITY = 65536;
+
+    private final ThreadPoolExecutor[] stripes;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final ConcurrentMap<Node, NodeQueue> queues = Maps.newConcurrentMap();
+    private volatile Predicate<Node> readHold = Predicates.alwaysFalse();
+    /*
+     * Index of the stripe the current thread runs, null outside of the stripes
+     */
+    private final ThreadLocal<Integer> currentStripe = new ThreadLocal<Integer>();
+
+    public NodeUpdateExecutor(int threads, int highWatermark, int lowWatermark) {
+        this(threads, highWatermark, lowWatermark, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param queueCapacity Number of tasks a stripe holds at most, beyond which they are rejected
+     */
+    public NodeUpdateExecutor(int threads, int highWatermark, int lowWatermark, int queueCapacity) {
+        if (threads < 1) threads = 1;
+        if (lowWatermark >= highWatermark) lowWatermark = highWatermark / 2;
+        if (queueCapacity < 1) queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.stripes = new ThreadPoolExecutor[threads];
+        for (int i = 0; i < threads; i++) {
+            final int index = i;
+            final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                    .setNameFormat("ovsdb-update-" + i)
+                    .setDaemon(true)
+                    .build();
+            stripes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(queueCapacity), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(final Runnable worker) {
+                            return threadFactory.newThread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    currentStripe.set(index);
+                                    worker.run();
+                                }
+                            });
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Sets the nodes whose reads stay suspended once their backlog is drained, whoever holds
+     * them being in charge of resuming them.
+     */
+    public void setReadHold(Predicate<Node> readHold) {
+        this.readHold = readHold != null ? readHold : Predicates.<Node>alwaysFalse();
+    }
+
+    /**
+     * Queues a task on the stripe of the node.
+     *
+     * @param node Node the task belongs to
+     * @param channel Channel to throttle when the node falls behind, can be null
+     * @param task Task to run
+     * @return Future completing once the task has run, failing if the task failed, was skipped
+     *         because the node is disconnected or was rejected by a full stripe
+     */
+    public ListenableFuture<Void> execute(final Node node, final Channel channel, final Runnable task) {
+        final SettableFuture<Void> done = SettableFuture.create();
+        final NodeQueue queue = getQueue(node, channel);
+        if (queue != null) {
+            int depth = queue.pending.incrementAndGet();
+            queue.submitted.incrementAndGet();
+            queue.updateMaxDepth(depth);
+            if (depth >= highWatermark && channel != null && queue.paused.compareAndSet(false, true)) {
+                logger.debug("Node {} has {} pending updates, pausing reads", node, depth);
+                queue.pauses.incrementAndGet();
+                channel.config().setAutoRead(false);
+            }
+        }
+
+        UpdateTask update = new UpdateTask(node, queue, channel, task);
+        try {
+            stripeFor(node).execute(update);
+        } catch (RejectedExecutionException e) {
+            if (channel != null && channel.isActive()) {
+                logger.error("Update queue of node {} is full, closing its channel to resync it", node);
+                channel.close();
+            }
+            update.reject(e);
+        }
+        return update.done;
+    }
+
+    /**
+     * Returns true if the current thread is the one applying the updates of the node, the
+     * tasks queued for the node then only run once the current one is done.
+     */
+    public boolean inStripeOf(Node node) {
+        Integer stripe = currentStripe.get();
+        return stripe != null && stripe == stripeIndex(node);
+    }
+
+    /**
+     * Removes the queue of a node, skipping its pending tasks, and runs a last task on the
+     * stripe of the node once they are done.
+     *
+     * @param node Node to remove
+     * @param removal Task removing the node, run after the pending tasks of the node
+     * @return Future completing once the removal has run
+     */
+    public ListenableFuture<Void> removeNode(final Node node, final Runnable removal) {
+        NodeQueue queue = queues.remove(node);
+        if (queue != null) queue.removed = true;
+        return execute(node, null, removal);
+    }
+
+    public int getQueueDepth(Node node) {
+        NodeQueue queue = queues.get(node);
+        if (queue == null) return 0;
+        return queue.pending.get();
+    }
+
+    /**
+     * Returns true if the reads of the node are suspended because of its backlog.
+     */
+    public boolean isPaused(Node node) {
+        NodeQueue queue = queues.get(node);
+        return queue != null && queue.paused.get();
+    }
+
+    public Map<Node, QueueStatistics> getQueueStatistics() {
+        Map<Node, QueueStatistics> stats = new HashMap<Node, QueueStatistics>();
+        for (NodeQueue queue : queues.values()) {
+            stats.put(queue.node, new QueueStatistics(queue));
+        }
+        return stats;
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor stripe : stripes) {
+            for (Runnable pending : stripe.shutdownNow()) {
+                ((UpdateTask)pending).reject(new RejectedExecutionException("Update executor shut down"));
+            }
+        }
+    }
+
+    private ThreadPoolExecutor stripeFor(Node node) {
+        return stripes[stripeIndex(node)];
+    }
+
+    int stripeIndex(Node node) {
+        return (node.hashCode() & Integer.MAX_VALUE) % stripes.length;
+    }
+
+    /*
+     * Returns the queue of the node, created only for an open channel so that a task of a node
+     * already removed does not leave a queue behind, null if the task is not to be tracked
+     */
+    private NodeQueue getQueue(Node node, Channel channel) {
+        NodeQueue queue = queues.get(node);
+        if (queue == null) {
+            if (channel == null || !channel.isActive()) return null;
+            queue = new NodeQueue(node);
+            NodeQueue existing = queues.putIfAbsent(node, queue);
+            if (existing != null) queue = existing;
+        }
+        return queue;
+    }
+
+    private class UpdateTask implements Runnable {
+        final Node node;
+        final NodeQueue queue;
+        final Channel channel;
+        final Runnable task;
+        final SettableFuture<Void> done = SettableFuture.create();
+
+        UpdateTask(Node node, NodeQueue queue, Channel channel, Runnable task) {
+            this.node = node;
+            this.queue = queue;
+            this.channel = channel;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if ((queue != null && queue.removed) || (channel != null && !channel.isActive())) {
+                    logger.debug("Node {} is disconnected, skipping its pending update", node);
+                    done.setException(new RejectedExecutionException("Node " + node + " is disconnected"));
+                    return;
+                }
+                task.run();
+                done.set(null);
+            } catch (Exception e) {
+                logger.error("Exception caught while applying update for node " + node, e);
+                done.setException(e);
+            } finally {
+                dequeued();
+            }
+        }
+
+        /*
+         * The task is not run, its caller is told why
+         */
+        void reject(RejectedExecutionException e) {
+            dequeued();
+            done.setException(e);
+        }
+
+        private void dequeued() {
+            if (queue == null) return;
+            int depth = queue.pending.decrementAndGet();
+            if (depth <= lowWatermark && channel != null && queue.paused.compareAndSet(true, false)) {
+                if (readHold.apply(node)) {
+                    logger.debug("Node {} is down to {} pending updates, its reads are still held", node, depth);
+                } else {
+                    logger.debug("Node {} is down to {} pending updates, resuming reads", node, depth);
+                    channel.config().setAutoRead(true);
+                }
+            }
+        }
+    }
+
+    private static class NodeQueue {
+        final Node node;
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicInteger maxDepth = new AtomicInteger();
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong pauses = new AtomicLong();
+        final AtomicBoolean paused = new AtomicBoolean();
+        volatile boolean removed;
+
+        NodeQueue(Node node) {
+            this.node = node;
+        }
+
+        void updateMaxDepth(int depth) {
+            int max = maxDepth.get();
+            while (depth > max && !maxDepth.compareAndSet(max, depth)) {
+                max = maxDepth.get();
+            }
+        }
+    }
+
+    /**
+     * Point in time view of the update queue of a node.
+     */
+    public static class QueueStatistics {
+        private final int depth;
+        private final int maxDepth;
+        private final long submitted;
+        private final long pauses;
+        private final boolean paused;
+
+        QueueStatistics(NodeQueue queue) {
+            this.depth = queue.pending.get();
+            this.maxDepth = queue.maxDepth.get();
+            this.submitted = queue.submitted.get();
+            this.pauses = queue.pauses.get();
+            this.paused = queue.paused.get();
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        public long getPauses() {
+            return pauses;
+        }
+
+        public boolean isPaused() {
+            return paused;
+        }
+
+        @Override
+        public String toString() {
+            return "QueueStatistics [depth=" + depth + ", maxDepth=" + maxDepth + ", submitted="
+                    + submitted + ", pauses=" + pauses + ", paused=" + paused + "]";
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.util.List;
+
+import org.opendaylight.controller.sal.core.Node;
+
+/**
+ * Receives the changes applied to the cache of a node one update at a time. An update of the
+ * OVSDB server holds every row a transaction changed across tables, the listener sees them
+ * together in a single call, once they are all in the cache.
+ *
+ * Any number of batch listeners may be registered as services along with the
+ * {@link OVSDBInventoryListener}s, they get every change, statistics included, without the
+ * column filtering and coalescing applied to the latter.
+ */
+public interface OVSDBBatchListener {
+    /**
+     * Called once the initial monitor dump of a node has been loaded, with a change adding
+     * each of its rows.
+     */
+    public void initialSnapshotReady(Node node, List<RowChange> changes);
+
+    /**
+     * Called once an update of a node has been applied to the cache, with its changes in the
+     * order they were applied. The list must not be modified.
+     */
+    public void rowsChanged(Node node, List<RowChange> changes);
+}
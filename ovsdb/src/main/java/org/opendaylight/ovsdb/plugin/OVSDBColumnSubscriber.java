@@ -0,0 +1,25 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+/**
+ * Implemented by an {@link OVSDBInventoryListener} only interested in some columns.
+ * A row change is notified only if one of the columns it changed is in the mask of its
+ * table, inserts and deletes changing all the columns. Other changes are dropped before
+ * any event is built.
+ */
+public interface OVSDBColumnSubscriber {
+    /**
+     * Returns the {@link org.opendaylight.ovsdb.lib.table.internal.ColumnMask} of the columns
+     * of interest of a table, ColumnMask.ALL for any change and ColumnMask.NONE to ignore the table.
+     * Called for every change, it should not compute the mask each time.
+     */
+    public long getColumnMask(String tableName);
+}
@@ -10,19 +10,106 @@
 package org.opendaylight.ovsdb.plugin;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import org.opendaylight.controller.sal.core.Node;
 import org.opendaylight.controller.sal.utils.Status;
+import org.opendaylight.ovsdb.lib.message.TransactBuilder;
+import org.opendaylight.ovsdb.lib.message.operations.OperationResult;
 import org.opendaylight.ovsdb.lib.table.internal.Table;
 
+import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ListenableFuture;
+
 public interface OVSDBConfigService {
     public StatusWithUuid insertRow (Node node, String tableName, String parentUUID, Table<?> row);
     public Status deleteRow (Node node, String tableName, String rowUUID);
     public Status updateRow (Node node, String tableName, String parentUUID, String rowUUID, Table<?> row);
+    /**
+     * Same as {@link #insertRow(Node, String, String, Table)}, with readYourWrites the call only
+     * returns once the update sent by the node for the transaction has been applied to the cache.
+     */
+    public StatusWithUuid insertRow (Node node, String tableName, String parentUUID, Table<?> row, boolean readYourWrites);
+    public Status deleteRow (Node node, String tableName, String rowUUID, boolean readYourWrites);
+    public Status updateRow (Node node, String tableName, String parentUUID, String rowUUID, Table<?> row, boolean readYourWrites);
     public String getSerializedRow(Node node, String tableName, String uuid) throws Exception;
     public String getSerializedRows(Node node, String tableName) throws Exception;
     public Table<?> getRow(Node node, String tableName, String uuid) throws Exception;
     public ConcurrentMap<String, Table<?>> getRows(Node node, String tableName) throws Exception;
+    /**
+     * Returns an immutable snapshot of the database of a node as of its last applied update,
+     * for consistent reads across tables, or null if the node is unknown.
+     */
+    public NodeSnapshot getSnapshot(Node node) throws Exception;
+    /**
+     * Returns the changes applied to the cache of a node after a sequence number, from a
+     * previous call or from {@link NodeSnapshot#getSequence()}. Returns null when they are
+     * no longer all journaled, the caller then starts over from {@link #getSnapshot(Node)}.
+     */
+    public ChangeJournal.Changes getChangesSince(Node node, long sequence) throws Exception;
+    /**
+     * Returns a future completing with a row once it is in the cache and matches the predicate,
+     * null to wait for the row to be present, or failing with a TimeoutException after the timeout.
+     * The future completes on the update thread of the node, its listeners should not block.
+     */
+    public ListenableFuture<Table<?>> watchRow(Node node, String tableName, String uuid,
+                                               Predicate<Table<?>> predicate, long timeout, TimeUnit unit) throws Exception;
     public List<String> getTables(Node node) throws Exception;
+    /**
+     * Sends a transaction to a node. A transaction made only of selects and waits is answered
+     * from the cache when it holds every table and column the operations refer to, and only
+     * sent to the node otherwise. A wait that does not hold yet is still sent to the node,
+     * unless its timeout is 0. Such a transaction waits for the updates already received from
+     * the node to be applied to the cache, so it sees the writes the node acknowledged to the
+     * caller, and is sent to the node if they are not applied within
+     * ovsdb.transact.syncTimeoutMillis.
+     */
+    public ListenableFuture<List<OperationResult>> transact(Node node, TransactBuilder transaction) throws Exception;
+    /**
+     * Returns the rows of a table, keyed by uuid, whose column holds the value. A map column
+     * is looked up by key with column:key, e.g. external_ids:iface-id, and a set column matches
+     * if any of its elements does. Values are compared by their string form.
+     * Indexed columns are looked up directly, the other ones by a scan of the table.
+     *
+     * @return the matching rows, or null if the table is not cached for the node
+     */
+    public Map<String, Table<?>> getRowsByColumn(Node node, String tableName, String column, String value) throws Exception;
+    /**
+     * Returns the distinct values, in their string form, held by a column of a table.
+     * The column is given as in {@link #getRowsByColumn(Node, String, String, String)}.
+     *
+     * @return the values, or null if the table is not cached for the node
+     */
+    public Set<String> getColumnValues(Node node, String tableName, String column) throws Exception;
+    /**
+     * Indexes a column of a table, given as in {@link #getRowsByColumn(Node, String, String, String)},
+     * for every node. The names of Bridge, Port and Interface, the ofport of Interface and
+     * external_ids:iface-id of Interface are indexed by default, ovsdb.cache.indexes overrides
+     * them with a comma separated list of table/column or table/column:key.
+     */
+    public void addIndex(String tableName, String column) throws Exception;
+    /**
+     * Returns the rows, across every connected node, whose column holds the value, e.g. the
+     * interfaces of a Neutron port with external_ids:iface-id or of a MAC address with
+     * external_ids:attached-mac. The external_ids of every table are indexed, written
+     * external_ids:key, as are the interfaces by name. The lookup does not depend on the
+     * number of nodes.
+     */
+    public Set<GlobalRowIndex.Location> findRows(String column, String value) throws Exception;
+    /**
+     * Returns the rows, keyed by uuid, referencing the row with the given uuid through one of
+     * their uuid columns, e.g. the Port of an Interface or the Bridge of a Port.
+     *
+     * @param parentTableName table of the referencing rows, or null for any table
+     */
+    public Map<String, Table<?>> getParentRows(Node node, String parentTableName, String uuid) throws Exception;
+    /**
+     * Returns the rows, keyed by uuid, referenced by the row with the given uuid.
+     *
+     * @param column referencing column, e.g. interfaces for a Port, or null for any column
+     */
+    public Map<String, Table<?>> getChildRows(Node node, String uuid, String column) throws Exception;
 }
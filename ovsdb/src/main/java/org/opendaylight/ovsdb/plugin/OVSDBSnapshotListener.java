@@ -0,0 +1,28 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.util.Map;
+
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+
+/**
+ * Implemented by an {@link OVSDBInventoryListener} taking the initial monitor dump of a node
+ * in a single call. The other listeners get a rowAdded call per row of the dump.
+ */
+public interface OVSDBSnapshotListener {
+    /**
+     * Called once the initial monitor dump of a node has been loaded, in place of
+     * a rowAdded call per row. The snapshot maps table names to rows keyed by uuid,
+     * it must not be retained once the call returns.
+     */
+    public void initialSnapshotReady(Node node, Map<String, Map<String, Table<?>>> snapshot);
+}
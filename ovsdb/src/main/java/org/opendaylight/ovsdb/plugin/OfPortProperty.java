@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+
+package org.opendaylight.ovsdb.plugin;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.opendaylight.controller.sal.core.Property;
+
+/**
+ * OpenFlow port number assigned by the switch to an interface, the ofport column.
+ */
+@XmlRootElement
+@XmlAccessorType(XmlAccessType.NONE)
+public class OfPortProperty extends Property implements Cloneable {
+    private static final long serialVersionUID = 1L;
+    @XmlElement(name="value")
+    private final long ofport;
+    public static final String name = "OfPort";
+
+    /*
+     * Private constructor used for JAXB mapping
+     */
+    private OfPortProperty() {
+        super(name);
+        this.ofport = 0;
+    }
+
+    public OfPortProperty(long ofport) {
+        super(name);
+        this.ofport = ofport;
+    }
+
+    @Override
+    public String getStringValue() {
+        return ofport+"";
+    }
+
+    @Override
+    public Property clone() {
+        return new OfPortProperty(ofport);
+    }
+
+    public long getOfport() {
+        return ofport;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Queue made of two lanes. The high priority lane is a plain FIFO. The low priority lane
+ * keeps a single entry per key, a new entry replacing the pending one of the same key, and
+ * holds at most capacity entries : the oldest entry is dropped to make room for a new key.
+ * The low priority lane is only served when the high priority lane is empty.
+ *
+ * @param <K> Coalescing key of the low priority entries
+ * @param <E> Entries
+ */
+public class PriorityLaneQueue<K, E> {
+    private final Queue<E> high = new ArrayDeque<E>();
+    private final LinkedHashMap<K, E> low = new LinkedHashMap<K, E>();
+    private final int lowCapacity;
+
+    private long highOffered;
+    private long lowOffered;
+    private long lowCoalesced;
+    private long lowDropped;
+    private int maxHighDepth;
+    private int maxLowDepth;
+
+    public PriorityLaneQueue(int lowCapacity) {
+        this.lowCapacity = Math.max(1, lowCapacity);
+    }
+
+    public synchronized void offerHigh(E entry) {
+        high.add(entry);
+        highOffered++;
+        maxHighDepth = Math.max(maxHighDepth, high.size());
+        notifyAll();
+    }
+
+    /**
+     * Queues an entry on the low priority lane.
+     *
+     * @return false if the entry replaced a pending entry of the same key or if an older
+     *         entry had to be dropped
+     */
+    public synchronized boolean offerLow(K key, E entry) {
+        lowOffered++;
+        boolean clean = true;
+        if (low.containsKey(key)) {
+            lowCoalesced++;
+            clean = false;
+        } else if (low.size() >= lowCapacity) {
+            Iterator<K> eldest = low.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            lowDropped++;
+            clean = false;
+        }
+        // The replaced entry keeps its position in the lane
+        low.put(key, entry);
+        maxLowDepth = Math.max(maxLowDepth, low.size());
+        notifyAll();
+        return clean;
+    }
+
+    /**
+     * Discards the pending low priority entry of a key, e.g. once a high priority entry
+     * made it obsolete.
+     */
+    public synchronized E removeLow(K key) {
+        return low.remove(key);
+    }
+
+    /**
+     * Returns the next entry, waiting for one if both lanes are empty.
+     */
+    public synchronized E take() throws InterruptedException {
+        E entry;
+        while ((entry = poll()) == null) {
+            wait();
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the next entry, or null if both lanes are empty.
+     */
+    public synchronized E poll() {
+        E entry = high.poll();
+        if (entry != null) return entry;
+        Iterator<Map.Entry<K, E>> eldest = low.entrySet().iterator();
+        if (!eldest.hasNext()) return null;
+        entry = eldest.next().getValue();
+        eldest.remove();
+        return entry;
+    }
+
+    public synchronized boolean isEmpty() {
+        return high.isEmpty() && low.isEmpty();
+    }
+
+    public synchronized LaneStatistics getStatistics() {
+        return new LaneStatistics(high.size(), maxHighDepth, highOffered,
+                                  low.size(), maxLowDepth, lowOffered, lowCoalesced, lowDropped, lowCapacity);
+    }
+
+    /**
+     * Point in time view of the two lanes.
+     */
+    public static class LaneStatistics {
+        private final int highDepth;
+        private final int maxHighDepth;
+        private final long highOffered;
+        private final int lowDepth;
+        private final int maxLowDepth;
+        private final long lowOffered;
+        private final long lowCoalesced;
+        private final long lowDropped;
+        private final int lowCapacity;
+
+        LaneStatistics(int highDepth, int maxHighDepth, long highOffered, int lowDepth, int maxLowDepth,
+                       long lowOffered, long lowCoalesced, long lowDropped, int lowCapacity) {
+            this.highDepth = highDepth;
+            this.maxHighDepth = maxHighDepth;
+            this.highOffered = highOffered;
+            this.lowDepth = lowDepth;
+            this.maxLowDepth = maxLowDepth;
+            this.lowOffered = lowOffered;
+            this.lowCoalesced = lowCoalesced;
+            this.lowDropped = lowDropped;
+            this.lowCapacity = lowCapacity;
+        }
+
+        public int getHighDepth() {
+            return highDepth;
+        }
+
+        public int getMaxHighDepth() {
+            return maxHighDepth;
+        }
+
+        public long getHighOffered() {
+            return highOffered;
+        }
+
+        public int getLowDepth() {
+            return lowDepth;
+        }
+
+        public int getMaxLowDepth() {
+            return maxLowDepth;
+        }
+
+        public long getLowOffered() {
+            return lowOffered;
+        }
+
+        public long getLowCoalesced() {
+            return lowCoalesced;
+        }
+
+        public long getLowDropped() {
+            return lowDropped;
+        }
+
+        public int getLowCapacity() {
+            return lowCapacity;
+        }
+
+        /**
+         * Adds up the statistics of several queues of the same capacity, the max depths
+         * being the largest ones.
+         */
+        public static LaneStatistics sum(Collection<LaneStatistics> queues, int lowCapacity) {
+            int highDepth = 0, maxHighDepth = 0, lowDepth = 0, maxLowDepth = 0;
+            long highOffered = 0, lowOffered = 0, lowCoalesced = 0, lowDropped = 0;
+            for (LaneStatistics queue : queues) {
+                highDepth += queue.highDepth;
+                maxHighDepth = Math.max(maxHighDepth, queue.maxHighDepth);
+                highOffered += queue.highOffered;
+                lowDepth += queue.lowDepth;
+                maxLowDepth = Math.max(maxLowDepth, queue.maxLowDepth);
+                lowOffered += queue.lowOffered;
+                lowCoalesced += queue.lowCoalesced;
+                lowDropped += queue.lowDropped;
+            }
+            return new LaneStatistics(highDepth, maxHighDepth, highOffered, lowDepth, maxLowDepth,
+                                      lowOffered, lowCoalesced, lowDropped, Math.max(1, lowCapacity));
+        }
+
+        @Override
+        public String toString() {
+            return "LaneStatistics [highDepth=" + highDepth + ", maxHighDepth=" + maxHighDepth
+                    + ", highOffered=" + highOffered + ", lowDepth=" + lowDepth + ", maxLowDepth="
+                    + maxLowDepth + ", lowOffered=" + lowOffered + ", lowCoalesced=" + lowCoalesced
+                    + ", lowDropped=" + lowDropped + ", lowCapacity=" + lowCapacity + "]";
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.opendaylight.ovsdb.lib.database.ColumnSchema;
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
+import org.opendaylight.ovsdb.lib.database.OvsdbType;
+import org.opendaylight.ovsdb.lib.database.TableSchema;
+import org.opendaylight.ovsdb.lib.notation.UUID;
+import org.opendaylight.ovsdb.lib.table.internal.GenericTable;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableColumns;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Maps;
+
+/**
+ * Graph of the references between the rows of a node, built from the uuid valued columns
+ * (Open_vSwitch.bridges, Bridge.ports, Port.interfaces...), in both directions. The table
+ * of a referenced row is taken from the refTable of the column in the schema, when known.
+ *
+ * The uuid columns of every table are worked out once from the schema, or without one from
+ * the column types of the Table class, and only these columns are read. A column of a lazily
+ * decoded row still in its JSON form is read as such, indexing a row does not decode it.
+ *
+ * OVSDB uuids are unique across the tables of a database, so rows are identified by their
+ * uuid alone, held as a UUID rather than a string. The index is updated by a single writer at a time, the update thread of the
+ * node, and can be read concurrently.
+ */
+public class ReferenceIndex {
+    private final ConcurrentMap<UUID, Set<Reference>> parents = Maps.newConcurrentMap();
+    private final ConcurrentMap<UUID, Set<Reference>> children = Maps.newConcurrentMap();
+    /*
+     * The uuid columns of the tables of the schema, null without a schema
+     */
+    private volatile Map<String, List<RefColumn>> schemaColumns;
+    /*
+     * The uuid columns of the tables not in the schema, per Table class or TableCodec
+     */
+    private final ConcurrentMap<Object, List<RefColumn>> rowColumns = Maps.newConcurrentMap();
+
+    private static final class RefColumn {
+        final String name;
+        final String refTable;
+
+        RefColumn(String name, String refTable) {
+            this.name = name;
+            this.refTable = refTable;
+        }
+    }
+
+    ReferenceIndex() {
+    }
+
+    void setSchema(DatabaseSchema schema) {
+        if (schema == null || schema.getTables() == null) {
+            schemaColumns = null;
+            return;
+        }
+        Map<String, List<RefColumn>> columns = Maps.newHashMap();
+        for (Map.Entry<String, TableSchema> table : schema.getTables().entrySet()) {
+            columns.put(table.getKey(), refColumns(table.getValue()));
+        }
+        schemaColumns = columns;
+    }
+
+    synchronized void update(String tableName, String rowUuid, Table<?> oldRow, Table<?> newRow) {
+        UUID uuid = new UUID(rowUuid);
+        Set<Reference> oldRefs = oldRow != null ? references(tableName, oldRow) : Collections.<Reference>emptySet();
+        Set<Reference> newRefs = newRow != null ? references(tableName, newRow) : Collections.<Reference>emptySet();
+        for (Reference child : oldRefs) {
+            if (newRefs.contains(child)) continue;
+            remove(children, uuid, child);
+            remove(parents, child.uuid, new Reference(tableName, uuid, child.getColumn()));
+        }
+        for (Reference child : newRefs) {
+            add(children, uuid, child);
+            add(parents, child.uuid, new Reference(tableName, uuid, child.getColumn()));
+        }
+    }
+
+    /**
+     * Returns the rows referencing the row, the column of a reference being the column of the
+     * referencing row.
+     */
+    public Set<Reference> getParents(String uuid) {
+        Set<Reference> refs = parents.get(new UUID(uuid));
+        if (refs == null) return Collections.emptySet();
+        return Collections.unmodifiableSet(refs);
+    }
+
+    /**
+     * Returns the rows referenced by the row.
+     */
+    public Set<Reference> getChildren(String uuid) {
+        Set<Reference> refs = children.get(new UUID(uuid));
+        if (refs == null) return Collections.emptySet();
+        return Collections.unmodifiableSet(refs);
+    }
+
+    private Set<Reference> references(String tableName, Table<?> row) {
+        List<RefColumn> columns = refColumns(tableName, row);
+        if (columns.isEmpty()) return Collections.emptySet();
+        Set<Reference> refs = new HashSet<Reference>();
+        for (RefColumn column : columns) {
+            for (UUID child : columnUuids(row, column.name)) {
+                refs.add(new Reference(column.refTable, child, column.name));
+            }
+        }
+        return refs;
+    }
+
+    private List<RefColumn> refColumns(String tableName, Table<?> row) {
+        Map<String, List<RefColumn>> columns = schemaColumns;
+        List<RefColumn> tableColumns = columns != null ? columns.get(tableName) : null;
+        if (tableColumns != null) return tableColumns;
+        Object key = row instanceof GenericTable ? ((GenericTable)row).codec() : row.getClass();
+        tableColumns = rowColumns.get(key);
+        if (tableColumns == null) {
+            tableColumns = row instanceof GenericTable ? refColumns(((GenericTable)row).codec().getSchema())
+                                                       : refColumns(row.getClass());
+            rowColumns.putIfAbsent(key, tableColumns);
+        }
+        return tableColumns;
+    }
+
+    /*
+     * The columns of a table whose key or value atoms are uuids
+     */
+    private static List<RefColumn> refColumns(TableSchema tableSchema) {
+        List<RefColumn> columns = new ArrayList<RefColumn>();
+        if (tableSchema == null || tableSchema.getColumns() == null) return columns;
+        for (Map.Entry<String, ColumnSchema> column : tableSchema.getColumns().entrySet()) {
+            OvsdbType type = column.getValue() != null ? column.getValue().getType() : null;
+            if (type == null || !(isUuid(type.key) || isUuid(type.value))) continue;
+            String refTable = null;
+            if (type.key != null && type.key.refTable != null) {
+                refTable = type.key.refTable;
+            } else if (type.value != null) {
+                refTable = type.value.refTable;
+            }
+            columns.add(new RefColumn(column.getKey(), refTable));
+        }
+        return columns;
+    }
+
+    private static boolean isUuid(OvsdbType.BaseType type) {
+        return type != null && "uuid".equals(type.type);
+    }
+
+    /*
+     * The columns of a Table class holding a UUID, a set of UUID or a map with UUID keys or
+     * values, their referenced table unknown
+     */
+    private static List<RefColumn> refColumns(Class<?> tableClass) {
+        List<RefColumn> columns = new ArrayList<RefColumn>();
+        for (Map.Entry<String, Method> getter : TableColumns.getGetters(tableClass).entrySet()) {
+            Type type = getter.getValue().getGenericReturnType();
+            boolean uuid = type == UUID.class;
+            if (type instanceof ParameterizedType) {
+                uuid = Arrays.asList(((ParameterizedType)type).getActualTypeArguments()).contains(UUID.class);
+            }
+            if (uuid) columns.add(new RefColumn(getter.getKey(), null));
+        }
+        return columns;
+    }
+
+    private static Collection<UUID> columnUuids(Table<?> row, String column) {
+        JsonNode pending = row.getPendingColumn(column);
+        if (pending != null) {
+            Collection<UUID> uuids = new HashSet<UUID>();
+            addUuids(uuids, pending);
+            return uuids;
+        }
+        Object value = TableColumns.getColumn(row, column);
+        return value != null ? uuids(value) : Collections.<UUID>emptySet();
+    }
+
+    /*
+     * Adds the uuids of a column in its JSON form : an atom, ["set", [atoms]] or
+     * ["map", [[key, value]...]], a uuid atom being ["uuid", ...] or ["named-uuid", ...]
+     */
+    private static void addUuids(Collection<UUID> uuids, JsonNode value) {
+        if (!value.isArray() || value.size() != 2) return;
+        String tag = value.get(0).asText();
+        if (tag.equals("uuid") || tag.equals("named-uuid")) {
+            uuids.add(UUID.parse(value.get(1).asText()));
+        } else if (tag.equals("set")) {
+            for (JsonNode atom : value.get(1)) {
+                addUuids(uuids, atom);
+            }
+        } else if (tag.equals("map")) {
+            for (JsonNode pair : value.get(1)) {
+                for (JsonNode atom : pair) {
+                    addUuids(uuids, atom);
+                }
+            }
+        }
+    }
+
+    private static Collection<UUID> uuids(Object value) {
+        if (value instanceof UUID) return Collections.singleton((UUID)value);
+        if (value instanceof Map) {
+            Collection<UUID> uuids = uuids(((Map<?, ?>)value).keySet());
+            uuids.addAll(uuids(((Map<?, ?>)value).values()));
+            return uuids;
+        }
+        Collection<UUID> uuids = new HashSet<UUID>();
+        if (value instanceof Collection) {
+            for (Object element : (Collection<?>)value) {
+                if (element instanceof UUID) uuids.add((UUID)element);
+            }
+        }
+        return uuids;
+    }
+
+    private static void add(ConcurrentMap<UUID, Set<Reference>> map, UUID uuid, Reference ref) {
+        Set<Reference> refs = map.get(uuid);
+        if (refs == null) {
+            refs = Collections.newSetFromMap(new ConcurrentHashMap<Reference, Boolean>());
+            map.put(uuid, refs);
+        }
+        refs.add(ref);
+    }
+
+    private static void remove(ConcurrentMap<UUID, Set<Reference>> map, UUID uuid, Reference ref) {
+        Set<Reference> refs = map.get(uuid);
+        if (refs == null) return;
+        refs.remove(ref);
+        if (refs.isEmpty()) map.remove(uuid);
+    }
+
+    /**
+     * One end of a reference : the table, possibly unknown, and uuid of a row and the
+     * referencing column.
+     */
+    public static final class Reference {
+        private final String tableName;
+        private final UUID uuid;
+        private final String column;
+
+        Reference(String tableName, UUID uuid, String column) {
+            this.tableName = tableName;
+            this.uuid = uuid;
+            this.column = column;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public String getUuid() {
+            return uuid.toString();
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        @Override
+        public int hashCode() {
+            return uuid.hashCode() * 31 + column.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Reference)) return false;
+            Reference other = (Reference) obj;
+            return uuid.equals(other.uuid) && column.equals(other.column);
+        }
+
+        @Override
+        public String toString() {
+            return "Reference [tableName=" + tableName + ", uuid=" + uuid + ", column=" + column + "]";
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.io.IOException;
+
+/**
+ * Ordered transport of the replication frames from the active instance to a standby. The
+ * {@link InventoryReplica} of the standby is itself the in-process channel,
+ * {@link TcpReplicationChannel} carries the frames over a TCP connection.
+ */
+public interface ReplicationChannel {
+    /**
+     * Sends a frame, after the frames sent before it.
+     *
+     * @throws IOException if the frame cannot be sent, the following frames must then start
+     *         over from snapshots
+     */
+    public void send(byte[] frame) throws IOException;
+
+    public void close();
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.util.Map;
+
+import org.opendaylight.ovsdb.lib.table.internal.ColumnMask;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.Tables;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Change applied to the cache of a node. The old row only holds the columns that changed,
+ * as sent by the OVSDB server. Their {@link ColumnMask} comes from the fields of the old row as
+ * it was decoded, it is only computed from the old row for the changes built otherwise.
+ */
+public final class RowChange {
+    public enum Type { ADDED, UPDATED, REMOVED };
+
+    /*
+     * Columns maintained by ovs-vswitchd itself, a change limited to them carries no configuration.
+     */
+    private static final String[] STATISTICS_COLUMNS = {"statistics", "status", "curr_cfg", "next_cfg"};
+    private static final Map<String, Long> statisticsMasks;
+
+    static {
+        ImmutableMap.Builder<String, Long> masks = ImmutableMap.builder();
+        for (Table<?> table : Tables.getTables()) {
+            String tableName = table.getTableName().getName();
+            masks.put(tableName, ColumnMask.of(tableName, STATISTICS_COLUMNS));
+        }
+        statisticsMasks = masks.build();
+    }
+
+    private final Type type;
+    private final String tableName;
+    private final String uuid;
+    private final Table<?> oldRow;
+    private final Table<?> newRow;
+    private final long changedColumns;
+    private final boolean statisticsOnly;
+
+    private RowChange(Type type, String tableName, String uuid, Table<?> oldRow, Table<?> newRow,
+                      long changedColumns) {
+        this.type = type;
+        this.tableName = tableName;
+        this.uuid = uuid;
+        this.oldRow = oldRow;
+        this.newRow = newRow;
+        this.changedColumns = changedColumns;
+        this.statisticsOnly = type == Type.UPDATED && isStatisticsOnly(tableName, changedColumns);
+    }
+
+    public static RowChange added(String tableName, String uuid, Table<?> row) {
+        return new RowChange(Type.ADDED, tableName, uuid, null, row, ColumnMask.ALL);
+    }
+
+    /**
+     * Returns an update whose changed columns are the columns the old row holds.
+     */
+    public static RowChange updated(String tableName, String uuid, Table<?> oldRow, Table<?> newRow) {
+        return updated(tableName, uuid, oldRow, newRow, ColumnMask.present(oldRow));
+    }
+
+    /**
+     * Returns an update whose changed columns are known, e.g. from the fields of the old row
+     * as it was decoded.
+     */
+    public static RowChange updated(String tableName, String uuid, Table<?> oldRow, Table<?> newRow,
+                                    long changedColumns) {
+        return new RowChange(Type.UPDATED, tableName, uuid, oldRow, newRow, changedColumns);
+    }
+
+    public static RowChange removed(String tableName, String uuid, Table<?> row) {
+        return new RowChange(Type.REMOVED, tableName, uuid, row, null, ColumnMask.ALL);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public Table<?> getOldRow() {
+        return oldRow;
+    }
+
+    public Table<?> getNewRow() {
+        return newRow;
+    }
+
+    /**
+     * Returns the row as it is after the change, or as it was before a removal.
+     */
+    public Table<?> getRow() {
+        return newRow != null ? newRow : oldRow;
+    }
+
+    /**
+     * Returns the mask of the columns that changed, all of them for an insert or a delete.
+     */
+    public long getChangedColumns() {
+        return changedColumns;
+    }
+
+    /**
+     * Returns true for an update that only changed statistics and status columns.
+     */
+    public boolean isStatisticsOnly() {
+        return statisticsOnly;
+    }
+
+    /**
+     * Returns true if the old row of an update only holds statistics and status columns,
+     * i.e. if nothing but these columns changed.
+     */
+    public static boolean isStatisticsOnly(Table<?> oldRow) {
+        if (oldRow == null) return false;
+        return isStatisticsOnly(oldRow.getTableName().getName(), ColumnMask.present(oldRow));
+    }
+
+    /**
+     * Returns true if the changed columns of an update of the table are all statistics
+     * and status columns.
+     */
+    public static boolean isStatisticsOnly(String tableName, long changedColumns) {
+        Long statistics = statisticsMasks.get(tableName);
+        if (statistics == null) return false;
+        return (changedColumns & ~statistics) == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RowChange [type=" + type + ", tableName=" + tableName + ", uuid=" + uuid
+                + ", changedColumns=" + ColumnMask.getColumnNames(tableName, changedColumns)
+                + ", statisticsOnly=" + statisticsOnly + "]";
+    }
+}
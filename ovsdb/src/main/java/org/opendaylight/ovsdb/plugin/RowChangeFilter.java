@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.ovsdb.lib.table.internal.ColumnMask;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Selects the changes delivered to a subscription by node, table and columns. Filters are
+ * immutable, each method returning a narrower filter, e.g.
+ * {@code RowChangeFilter.all().node(node).table("Interface", "ofport", "external_ids")}.
+ */
+public final class RowChangeFilter {
+    private static final RowChangeFilter ALL = new RowChangeFilter(null, null);
+
+    /*
+     * null for any node, any table
+     */
+    private final Set<Node> nodes;
+    private final Map<String, Long> tableMasks;
+
+    private RowChangeFilter(Set<Node> nodes, Map<String, Long> tableMasks) {
+        this.nodes = nodes;
+        this.tableMasks = tableMasks;
+    }
+
+    public static RowChangeFilter all() {
+        return ALL;
+    }
+
+    /**
+     * Returns a filter also accepting the changes of a node, the changes of the other nodes
+     * being dropped unless accepted as well.
+     */
+    public RowChangeFilter node(Node node) {
+        ImmutableSet.Builder<Node> builder = ImmutableSet.builder();
+        if (nodes != null) builder.addAll(nodes);
+        return new RowChangeFilter(builder.add(node).build(), tableMasks);
+    }
+
+    /**
+     * Returns a filter also accepting the changes of a table changing one of the columns, any
+     * column if none is given. Inserts and deletes change every column. Columns are told apart
+     * for the tables with a Table class, see {@link ColumnMask}.
+     */
+    public RowChangeFilter table(String tableName, String... columns) {
+        long mask = columns.length == 0 ? ColumnMask.ALL : ColumnMask.of(tableName, columns);
+        Map<String, Long> masks = tableMasks != null ? tableMasks : Collections.<String, Long>emptyMap();
+        Long existing = masks.get(tableName);
+        if (existing != null) mask |= existing;
+        ImmutableMap.Builder<String, Long> builder = ImmutableMap.builder();
+        for (Map.Entry<String, Long> entry : masks.entrySet()) {
+            if (!entry.getKey().equals(tableName)) builder.put(entry);
+        }
+        return new RowChangeFilter(nodes, builder.put(tableName, mask).build());
+    }
+
+    public boolean accepts(Node node) {
+        return nodes == null || nodes.contains(node);
+    }
+
+    public boolean accepts(Node node, RowChange change) {
+        if (!accepts(node)) return false;
+        if (tableMasks == null) return true;
+        Long mask = tableMasks.get(change.getTableName());
+        return mask != null && (change.getChangedColumns() & mask) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RowChangeFilter [nodes=" + nodes + ", tables=" + (tableMasks != null ? tableMasks.keySet() : null) + "]";
+    }
+}
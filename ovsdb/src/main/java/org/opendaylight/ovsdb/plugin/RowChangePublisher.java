@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.ovsdb.lib.table.internal.TableColumns;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the changes applied to the cache of the nodes to subscribers pulling them at
+ * their own pace. A subscriber is delivered as many changes as it requested, the other ones
+ * wait in a buffer of the subscription. Publishing only appends to these buffers and never
+ * waits for a subscriber, the changes are delivered by the executor.
+ *
+ * When the buffer of a subscription is full, what happens is up to its {@link Overflow}.
+ */
+public class RowChangePublisher {
+    private static final Logger logger = LoggerFactory.getLogger(RowChangePublisher.class);
+
+    public enum Overflow {
+        /** The subscription fails once its buffer is full */
+        BUFFER,
+        /** A change replaces the pending change of its row, the oldest change is dropped for a new row */
+        COALESCE,
+        /** The oldest change is dropped */
+        DROP_OLDEST
+    }
+
+    private final Executor executor;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<Subscription>();
+
+    public RowChangePublisher(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Subscribes to the changes accepted by the filter, buffering at most capacity of them.
+     */
+    public RowChangeSubscription subscribe(RowChangeSubscriber subscriber, RowChangeFilter filter,
+                                           Overflow overflow, int capacity) {
+        Subscription subscription = new Subscription(subscriber, filter, overflow, Math.max(1, capacity));
+        subscriber.onSubscribe(subscription);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public boolean hasSubscriptions() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Publishes the changes of an update of a node, called on the update thread of the node.
+     */
+    public void publish(Node node, List<RowChange> changes) {
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.filter.accepts(node)) continue;
+            boolean offered = false;
+            for (RowChange change : changes) {
+                if (subscription.filter.accepts(node, change)) {
+                    offered = true;
+                    if (!subscription.offer(node, change)) break;
+                }
+            }
+            if (offered) subscription.schedule();
+        }
+    }
+
+    private static final class Pending {
+        final Node node;
+        final RowChange change;
+
+        Pending(Node node, RowChange change) {
+            this.node = node;
+            this.change = change;
+        }
+    }
+
+    private final class Subscription implements RowChangeSubscription, Runnable {
+        private final RowChangeSubscriber subscriber;
+        private final RowChangeFilter filter;
+        private final Overflow overflow;
+        private final int capacity;
+        /*
+         * Pending changes keyed by row, in the order their rows first changed. The keys of a
+         * subscription that does not coalesce are unique.
+         */
+        private final LinkedHashMap<Object, Pending> pending = new LinkedHashMap<Object, Pending>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private long demand;
+        private long sequence;
+        private long dropped;
+        private boolean overflowing;
+        private volatile boolean cancelled;
+        private Throwable error;
+
+        Subscription(RowChangeSubscriber subscriber, RowChangeFilter filter, Overflow overflow, int capacity) {
+            this.subscriber = subscriber;
+            this.filter = filter;
+            this.overflow = overflow;
+            this.capacity = capacity;
+        }
+
+        /*
+         * Returns false once the subscription failed or was cancelled
+         */
+        synchronized boolean offer(Node node, RowChange change) {
+            if (cancelled || error != null) return false;
+            if (overflow == Overflow.COALESCE) {
+                List<Object> key = Arrays.<Object>asList(node, change.getTableName(), change.getUuid());
+                Pending previous = pending.get(key);
+                if (previous != null) {
+                    dropped++;
+                    RowChange merged = merge(previous.change, change);
+                    if (merged == null) {
+                        pending.remove(key);
+                    } else {
+                        pending.put(key, new Pending(node, merged));
+                    }
+                    return true;
+                }
+                if (pending.size() >= capacity) dropOldest();
+                pending.put(key, new Pending(node, change));
+                return true;
+            }
+            if (pending.size() >= capacity) {
+                if (overflow == Overflow.BUFFER) {
+                    error = new IllegalStateException("More than " + capacity + " changes pending delivery");
+                    pending.clear();
+                    return false;
+                }
+                dropOldest();
+            }
+            pending.put(sequence++, new Pending(node, change));
+            return true;
+        }
+
+        private void dropOldest() {
+            Iterator<Pending> eldest = pending.values().iterator();
+            Pending oldest = eldest.next();
+            eldest.remove();
+            dropped++;
+            if (!overflowing) {
+                // Logged once until the subscriber catches up
+                overflowing = true;
+                logger.warn("Buffer of {} is full, dropping its oldest changes starting with {} of node {}",
+                            subscriber, oldest.change, oldest.node);
+            } else {
+                logger.debug("Buffer of {} is full, dropping {} of node {}", subscriber, oldest.change, oldest.node);
+            }
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) executor.execute(this);
+        }
+
+        /*
+         * Delivers the pending changes the subscriber asked for. A single run of a subscription
+         * is scheduled at a time, so the calls to the subscriber are never concurrent.
+         */
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Pending next;
+                    Throwable failure;
+                    synchronized (this) {
+                        failure = error;
+                        next = null;
+                        if (failure == null && !cancelled && demand > 0 && !pending.isEmpty()) {
+                            Iterator<Pending> eldest = pending.values().iterator();
+                            next = eldest.next();
+                            eldest.remove();
+                            demand--;
+                            if (pending.isEmpty()) overflowing = false;
+                        }
+                    }
+                    if (failure != null) {
+                        subscriptions.remove(this);
+                        cancelled = true;
+                        subscriber.onError(failure);
+                        return;
+                    }
+                    if (next == null) break;
+                    subscriber.onNext(next.node, next.change);
+                }
+            } catch (Exception e) {
+                logger.error("Exception caught while delivering changes to " + subscriber + ", cancelling its subscription", e);
+                cancel();
+            } finally {
+                scheduled.set(false);
+            }
+            // Changes or demand may have come in after the last check
+            synchronized (this) {
+                if (cancelled || (error == null && (demand == 0 || pending.isEmpty()))) return;
+            }
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) throw new IllegalArgumentException("Requested " + n + " changes");
+            synchronized (this) {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            synchronized (this) {
+                pending.clear();
+            }
+        }
+
+        @Override
+        public synchronized int getPending() {
+            return pending.size();
+        }
+
+        @Override
+        public synchronized long getDropped() {
+            return dropped;
+        }
+    }
+
+    /*
+     * Merges two successive changes of a row, null if they cancel out. Merged updates hold
+     * the columns changed by either of them, with their value from before the first one.
+     */
+    static RowChange merge(RowChange older, RowChange newer) {
+        switch (newer.getType()) {
+        case REMOVED:
+            if (older.getType() == RowChange.Type.ADDED) return null;
+            return newer;
+        case UPDATED:
+            if (older.getType() == RowChange.Type.ADDED) {
+                return RowChange.added(newer.getTableName(), newer.getUuid(), newer.getNewRow());
+            }
+            if (older.getType() == RowChange.Type.UPDATED) {
+                return RowChange.updated(newer.getTableName(), newer.getUuid(),
+                                         TableColumns.mergeOldColumns(older.getOldRow(), newer.getOldRow()),
+                                         newer.getNewRow(), older.getChangedColumns() | newer.getChangedColumns());
+            }
+            return newer;
+        default:
+            if (older.getType() == RowChange.Type.REMOVED) {
+                return RowChange.updated(newer.getTableName(), newer.getUuid(), older.getOldRow(), newer.getNewRow());
+            }
+            return newer;
+        }
+    }
+}
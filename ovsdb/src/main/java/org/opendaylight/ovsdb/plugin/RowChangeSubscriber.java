@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import org.opendaylight.controller.sal.core.Node;
+
+/**
+ * Receives the changes of a {@link RowChangePublisher} subscription, as many as it requested
+ * through its {@link RowChangeSubscription}. The calls of a subscription are never concurrent,
+ * they come from a thread of the publisher and not from the update thread of the node.
+ */
+public interface RowChangeSubscriber {
+    /**
+     * Called first, nothing is delivered until the subscriber requests changes.
+     */
+    public void onSubscribe(RowChangeSubscription subscription);
+
+    public void onNext(Node node, RowChange change);
+
+    /**
+     * Called once the subscription failed, e.g. its buffer overflowed, nothing is delivered
+     * afterwards.
+     */
+    public void onError(Throwable error);
+}
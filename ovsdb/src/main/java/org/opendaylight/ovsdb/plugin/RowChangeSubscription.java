@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+/**
+ * Subscription of a {@link RowChangeSubscriber} to a {@link RowChangePublisher}.
+ */
+public interface RowChangeSubscription {
+    /**
+     * Allows the delivery of n more changes.
+     */
+    public void request(long n);
+
+    /**
+     * Stops the delivery of changes and drops the pending ones.
+     */
+    public void cancel();
+
+    /**
+     * Returns the number of changes pending delivery.
+     */
+    public int getPending();
+
+    /**
+     * Returns the number of changes dropped on overflow or merged into a later change of their
+     * row.
+     */
+    public long getDropped();
+}
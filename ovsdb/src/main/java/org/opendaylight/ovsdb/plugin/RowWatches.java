@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Pending watches on rows of the node caches. A watch completes with the row once the row is
+ * in the cache and matches the predicate of the watch, or fails with a TimeoutException.
+ *
+ * Watches are registered before the cache is checked and the cache is updated before the
+ * watches are, so that a row showing up concurrently is never missed.
+ */
+class RowWatches {
+    private final ConcurrentMap<Node, ConcurrentMap<String, Set<Watch>>> watches = Maps.newConcurrentMap();
+    private final ScheduledExecutorService timer;
+
+    RowWatches(ScheduledExecutorService timer) {
+        this.timer = timer;
+    }
+
+    /**
+     * Registers a watch, the caller then checks the current row with {@link #rowChanged}.
+     *
+     * @param predicate condition on the row, null to wait for the row to be present
+     * @param timeout time to wait for, 0 or less to wait until the node goes away
+     */
+    ListenableFuture<Table<?>> watch(final Node node, String tableName, final String uuid,
+                                     Predicate<Table<?>> predicate, long timeout, TimeUnit unit) {
+        final Watch watch = new Watch(tableName, predicate);
+        synchronized (this) {
+            ConcurrentMap<String, Set<Watch>> nodeWatches = watches.get(node);
+            if (nodeWatches == null) {
+                nodeWatches = Maps.newConcurrentMap();
+                watches.put(node, nodeWatches);
+            }
+            Set<Watch> rowWatches = nodeWatches.get(uuid);
+            if (rowWatches == null) {
+                rowWatches = Collections.newSetFromMap(new ConcurrentHashMap<Watch, Boolean>());
+                nodeWatches.put(uuid, rowWatches);
+            }
+            rowWatches.add(watch);
+        }
+
+        if (timeout > 0) {
+            timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    remove(node, uuid, watch);
+                    watch.future.setException(new TimeoutException("Row " + uuid + " not seen in time"));
+                }
+            }, timeout, unit);
+        }
+        return watch.future;
+    }
+
+    boolean hasWatches(Node node) {
+        ConcurrentMap<String, Set<Watch>> nodeWatches = watches.get(node);
+        return nodeWatches != null && !nodeWatches.isEmpty();
+    }
+
+    /**
+     * Completes the watches on a row satisfied by its current value, null if the row is not
+     * in the cache.
+     */
+    void rowChanged(Node node, String tableName, String uuid, Table<?> row) {
+        if (row == null) return;
+        ConcurrentMap<String, Set<Watch>> nodeWatches = watches.get(node);
+        if (nodeWatches == null) return;
+        Set<Watch> rowWatches = nodeWatches.get(uuid);
+        if (rowWatches == null) return;
+        for (Watch watch : rowWatches) {
+            if (!watch.tableName.equals(tableName)) continue;
+            try {
+                if (watch.predicate != null && !watch.predicate.apply(row)) continue;
+                watch.future.set(row);
+            } catch (RuntimeException e) {
+                watch.future.setException(e);
+            }
+            remove(node, uuid, watch);
+        }
+    }
+
+    /**
+     * Fails the watches of a node that went away.
+     */
+    void removeNode(Node node) {
+        ConcurrentMap<String, Set<Watch>> nodeWatches;
+        synchronized (this) {
+            nodeWatches = watches.remove(node);
+        }
+        if (nodeWatches == null) return;
+        for (Set<Watch> rowWatches : nodeWatches.values()) {
+            for (Watch watch : rowWatches) {
+                watch.future.setException(new IllegalStateException("Node " + node + " was removed"));
+            }
+        }
+    }
+
+    private synchronized void remove(Node node, String uuid, Watch watch) {
+        ConcurrentMap<String, Set<Watch>> nodeWatches = watches.get(node);
+        if (nodeWatches == null) return;
+        Set<Watch> rowWatches = nodeWatches.get(uuid);
+        if (rowWatches == null) return;
+        rowWatches.remove(watch);
+        if (rowWatches.isEmpty()) nodeWatches.remove(uuid);
+    }
+
+    private static class Watch {
+        final String tableName;
+        final Predicate<Table<?>> predicate;
+        final SettableFuture<Table<?>> future = SettableFuture.create();
+
+        Watch(String tableName, Predicate<Table<?>> predicate) {
+            this.tableName = tableName;
+            this.predicate = predicate;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+
+/**
+ * Immutable rows of a table of a {@link NodeSnapshot}, keyed by uuid. The rows are split into
+ * buckets by the hash of their uuid, about the square root of the number of rows of them. The
+ * snapshot following an update copies the buckets of the rows the update changed and shares
+ * the other ones with the previous snapshot, rather than copying the whole table.
+ */
+final class SnapshotRows extends AbstractMap<String, Table<?>> {
+    private static final int MAX_BUCKETS = 1024;
+    private static final SnapshotRows EMPTY = copyOf(ImmutableMap.<String, Table<?>>of());
+
+    private final ImmutableMap<String, Table<?>>[] buckets;
+    private final int size;
+
+    private SnapshotRows(ImmutableMap<String, Table<?>>[] buckets) {
+        this.buckets = buckets;
+        int size = 0;
+        for (ImmutableMap<String, Table<?>> bucket : buckets) {
+            size += bucket.size();
+        }
+        this.size = size;
+    }
+
+    static SnapshotRows empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a copy of the rows of a table.
+     */
+    static SnapshotRows copyOf(Map<String, Table<?>> rows) {
+        int count = bucketCount(rows.size());
+        List<ImmutableMap.Builder<String, Table<?>>> builders = new ArrayList<ImmutableMap.Builder<String, Table<?>>>(count);
+        for (int i = 0; i < count; i++) {
+            builders.add(ImmutableMap.<String, Table<?>>builder());
+        }
+        for (Map.Entry<String, Table<?>> row : rows.entrySet()) {
+            builders.get(bucket(row.getKey(), count)).put(row.getKey(), row.getValue());
+        }
+        ImmutableMap<String, Table<?>>[] buckets = newBuckets(count);
+        for (int i = 0; i < count; i++) {
+            buckets[i] = builders.get(i).build();
+        }
+        return new SnapshotRows(buckets);
+    }
+
+    /**
+     * Returns the rows once the given rows changed, copying only their buckets.
+     *
+     * @param rows Current rows of the table
+     * @param changed Uuids of the rows added, updated or removed since these rows
+     */
+    SnapshotRows update(Map<String, Table<?>> rows, Collection<String> changed) {
+        int count = buckets.length;
+        if (count < MAX_BUCKETS && bucketCount(rows.size()) > 2 * count) {
+            // Grown too large for its buckets
+            return copyOf(rows);
+        }
+        List<List<String>> changedBuckets = new ArrayList<List<String>>(count);
+        for (int i = 0; i < count; i++) {
+            changedBuckets.add(null);
+        }
+        for (String uuid : changed) {
+            int index = bucket(uuid, count);
+            if (changedBuckets.get(index) == null) changedBuckets.set(index, new ArrayList<String>());
+            changedBuckets.get(index).add(uuid);
+        }
+        ImmutableMap<String, Table<?>>[] updated = buckets.clone();
+        for (int i = 0; i < count; i++) {
+            List<String> uuids = changedBuckets.get(i);
+            if (uuids == null) continue;
+            ImmutableMap.Builder<String, Table<?>> bucket = ImmutableMap.builder();
+            for (Map.Entry<String, Table<?>> row : buckets[i].entrySet()) {
+                if (!uuids.contains(row.getKey())) bucket.put(row);
+            }
+            for (String uuid : uuids) {
+                Table<?> row = rows.get(uuid);
+                if (row != null) bucket.put(uuid, row);
+            }
+            updated[i] = bucket.build();
+        }
+        return new SnapshotRows(updated);
+    }
+
+    /*
+     * Whether the bucket of the given uuid is shared with the other rows
+     */
+    boolean sharesBucket(SnapshotRows other, String uuid) {
+        return buckets.length == other.buckets.length
+               && buckets[bucket(uuid, buckets.length)] == other.buckets[bucket(uuid, buckets.length)];
+    }
+
+    private static int bucketCount(int rows) {
+        return Math.min(MAX_BUCKETS, Integer.highestOneBit(Math.max(1, (int)Math.sqrt(rows))));
+    }
+
+    private static int bucket(Object uuid, int count) {
+        int hash = uuid.hashCode();
+        return (hash ^ (hash >>> 16)) & (count - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ImmutableMap<String, Table<?>>[] newBuckets(int count) {
+        return new ImmutableMap[count];
+    }
+
+    @Override
+    public Table<?> get(Object uuid) {
+        if (uuid == null) return null;
+        return buckets[bucket(uuid, buckets.length)].get(uuid);
+    }
+
+    @Override
+    public boolean containsKey(Object uuid) {
+        return get(uuid) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Table<?>>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Table<?>>>() {
+            @Override
+            public Iterator<Map.Entry<String, Table<?>>> iterator() {
+                List<Iterator<Map.Entry<String, Table<?>>>> iterators =
+                        new ArrayList<Iterator<Map.Entry<String, Table<?>>>>(buckets.length);
+                for (ImmutableMap<String, Table<?>> bucket : buckets) {
+                    if (!bucket.isEmpty()) iterators.add(bucket.entrySet().iterator());
+                }
+                return Iterators.concat(iterators.iterator());
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
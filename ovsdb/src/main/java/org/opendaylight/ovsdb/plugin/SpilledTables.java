@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
+import org.opendaylight.ovsdb.lib.notation.UUID;
+import org.opendaylight.ovsdb.lib.table.internal.GenericTable;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableCodec;
+
+/**
+ * The tables of an idle node serialized to a direct buffer, out of the heap, in the row
+ * encoding of the snapshot files. They are decoded again when the node is accessed.
+ *
+ * The heap held by the rows is estimated when they are spilled, from the size of their
+ * values, as the heap the spill saves.
+ */
+final class SpilledTables {
+    /*
+     * Estimated sizes of a cached row besides its values (map entry, uuid key, row object)
+     * and of the values themselves
+     */
+    private static final int ROW_OVERHEAD = 48 + 112 + 16;
+    private static final int COLUMN_OVERHEAD = 8;
+    private static final int BOXED_SIZE = 16;
+    private static final int COLLECTION_OVERHEAD = 64;
+    private static final int ELEMENT_OVERHEAD = 32;
+
+    private final DatabaseSchema schema;
+    private final ByteBuffer buffer;
+    private final int rowCount;
+    private final long heapBytes;
+
+    private SpilledTables(DatabaseSchema schema, ByteBuffer buffer, int rowCount, long heapBytes) {
+        this.schema = schema;
+        this.buffer = buffer;
+        this.rowCount = rowCount;
+        this.heapBytes = heapBytes;
+    }
+
+    /**
+     * Serializes the tables, or returns null if a table is not described by the schema.
+     */
+    static SpilledTables spill(DatabaseSchema schema, Map<String, ? extends Map<String, Table<?>>> tables) {
+        int rowCount = 0;
+        long heapBytes = 0;
+        for (Map.Entry<String, ? extends Map<String, Table<?>>> table : tables.entrySet()) {
+            TableCodec codec = TableCodec.of(schema, table.getKey());
+            if (codec == null) return null;
+            for (Table<?> row : table.getValue().values()) {
+                GenericTable columns = codec.fromTable(row);
+                heapBytes += ROW_OVERHEAD;
+                for (int index = 0; index < codec.getColumnCount(); index++) {
+                    heapBytes += COLUMN_OVERHEAD + estimate(columns.get(index));
+                }
+                rowCount++;
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            CacheSnapshotFile.writeTables(new DataOutputStream(bytes), schema, tables);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to serialize the tables", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size());
+        buffer.put(bytes.toByteArray());
+        buffer.flip();
+        return new SpilledTables(schema, buffer, rowCount, heapBytes);
+    }
+
+    /**
+     * Decodes the tables, the buffer is left as is.
+     */
+    Map<String, ConcurrentMap<String, Table<?>>> load() {
+        return CacheSnapshotFile.readTables(buffer.duplicate(), schema);
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    long getOffHeapBytes() {
+        return buffer.capacity();
+    }
+
+    long getHeapBytes() {
+        return heapBytes;
+    }
+
+    private static long estimate(Object value) {
+        if (value == null) return 0;
+        if (value instanceof String) return 40 + 2L * ((String)value).length();
+        if (value instanceof UUID) {
+            // A canonical uuid is held as two longs
+            UUID uuid = (UUID)value;
+            return uuid.isNamed() ? BOXED_SIZE + estimate(uuid.toString()) : BOXED_SIZE + 24;
+        }
+        if (value instanceof Map) {
+            long size = COLLECTION_OVERHEAD;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                size += ELEMENT_OVERHEAD + estimate(entry.getKey()) + estimate(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Collection) {
+            long size = COLLECTION_OVERHEAD;
+            for (Object element : (Collection<?>)value) {
+                size += ELEMENT_OVERHEAD + estimate(element);
+            }
+            return size;
+        }
+        return BOXED_SIZE;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replication channel to a standby over TCP, the frames being sent with their length. The
+ * connection is opened on the first frame and again on the frame following a failure.
+ */
+public class TcpReplicationChannel implements ReplicationChannel {
+    private static final Logger logger = LoggerFactory.getLogger(TcpReplicationChannel.class);
+    private static final int CONNECT_TIMEOUT = 5000;
+    /*
+     * Frames larger than this are taken for a corrupted stream
+     */
+    static final int MAX_FRAME_SIZE = 64 << 20;
+    /*
+     * A frame is read in chunks growing with the bytes received, not allocated at once from
+     * the length sent by the peer
+     */
+    private static final int FRAME_CHUNK_SIZE = 64 << 10;
+
+    private final InetSocketAddress address;
+    private Socket socket;
+    private DataOutputStream out;
+
+    public TcpReplicationChannel(InetSocketAddress address) {
+        this.address = address;
+    }
+
+    @Override
+    public synchronized void send(byte[] frame) throws IOException {
+        if (out == null) {
+            socket = new Socket();
+            try {
+                socket.connect(address, CONNECT_TIMEOUT);
+                socket.setTcpNoDelay(true);
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+            logger.info("Replicating the inventory to {}", address);
+        }
+        try {
+            out.writeInt(frame.length);
+            out.write(frame);
+            out.flush();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        out = null;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("Unable to close the replication connection to {}", address, e);
+            }
+            socket = null;
+        }
+    }
+
+    static byte[] readFrame(DataInputStream in, int length) throws IOException {
+        byte[] frame = new byte[Math.min(length, FRAME_CHUNK_SIZE)];
+        int read = 0;
+        while (read < length) {
+            if (read == frame.length) frame = Arrays.copyOf(frame, (int)Math.min(length, 2L * frame.length));
+            int count = in.read(frame, read, frame.length - read);
+            if (count < 0) throw new EOFException();
+            read += count;
+        }
+        return frame;
+    }
+
+    /**
+     * Accepts the replication connections of the active instance on the standby, handing
+     * their frames to a channel, usually the replica. The connections are served one at a
+     * time, the active instance starting over from snapshots on every connection.
+     *
+     * The frames replace the inventory of the standby and are not authenticated, so only the
+     * connections of the address of the active instance are accepted, and the server listens
+     * on the loopback interface unless given another address.
+     */
+    public static class Server implements Runnable {
+        private final ServerSocket serverSocket;
+        private final InetAddress peer;
+        private final ReplicationChannel target;
+        private volatile boolean closed;
+        private volatile Socket connection;
+
+        /**
+         * Listens on the loopback interface for an active instance on the same host.
+         */
+        public Server(int port, ReplicationChannel target) throws IOException {
+            this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), null, target);
+        }
+
+        /**
+         * @param address Address to listen on
+         * @param peer Address of the active instance, null to only accept local connections
+         * @param target Channel handed the frames received
+         */
+        public Server(InetSocketAddress address, InetAddress peer, ReplicationChannel target) throws IOException {
+            this.serverSocket = new ServerSocket();
+            serverSocket.bind(address);
+            this.peer = peer;
+            this.target = target;
+            Thread thread = new Thread(this, "OVSDB replication listener");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        public int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        @Override
+        public void run() {
+            while (!closed) {
+                try (Socket socket = serverSocket.accept()) {
+                    connection = socket;
+                    if (closed) break;
+                    if (!accepts(socket.getInetAddress())) {
+                        logger.warn("Replication connection from {} refused, not the active instance",
+                                    socket.getRemoteSocketAddress());
+                        continue;
+                    }
+                    logger.info("Receiving the inventory from {}", socket.getRemoteSocketAddress());
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    while (!closed) {
+                        int length = in.readInt();
+                        if (length < 0 || length > MAX_FRAME_SIZE) throw new IOException("Invalid frame length " + length);
+                        target.send(readFrame(in, length));
+                    }
+                } catch (EOFException e) {
+                    logger.info("Replication connection closed by the active instance");
+                } catch (IOException e) {
+                    if (!closed) logger.warn("Replication connection failed", e);
+                }
+            }
+        }
+
+        private boolean accepts(InetAddress address) {
+            return peer != null ? peer.equals(address) : address.isLoopbackAddress();
+        }
+
+        public void close() {
+            closed = true;
+            try {
+                serverSocket.close();
+                Socket socket = connection;
+                if (socket != null) socket.close();
+            } catch (IOException e) {
+                logger.debug("Unable to close the replication listener", e);
+            }
+            target.close();
+        }
+    }
+}
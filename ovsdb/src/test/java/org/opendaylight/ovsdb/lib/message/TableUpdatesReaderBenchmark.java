@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.lib.message;
+
+import java.util.UUID;
+
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.ovsdb.lib.table.Interface;
+import org.opendaylight.ovsdb.lib.table.Port;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.plugin.InventoryService;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Compares the time taken to decode a monitor dump of a hypervisor and read the columns most
+ * consumers read (name, external_ids and ofport of the interfaces, name and interfaces of the
+ * ports), decoding the rows at once and decoding their columns on first access. The dump is
+ * also applied as an update notification to the cache of a node, which decodes it, indexes
+ * its rows and derives the node connectors of its interfaces, the path the updates take.
+ *
+ * Arguments : number of ports (default 2000), iterations (default 20).
+ */
+public class TableUpdatesReaderBenchmark {
+    private static final JsonNodeFactory factory = JsonNodeFactory.instance;
+    private static final String[] STATISTICS = {
+        "collisions", "rx_bytes", "rx_crc_err", "rx_dropped", "rx_errors", "rx_frame_err",
+        "rx_over_err", "rx_packets", "tx_bytes", "tx_dropped", "tx_errors", "tx_packets"
+    };
+
+    public static void main(String[] args) throws Exception {
+        int ports = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        JsonNode dump = monitorDump(ports);
+
+        // Warm up both paths before measuring
+        run(dump, false, iterations);
+        run(dump, true, iterations);
+        long eager = run(dump, false, iterations);
+        long lazy = run(dump, true, iterations);
+        System.out.println(String.format("%d ports, %d iterations", ports, iterations));
+        System.out.println(String.format("Eager columns : %,d us per dump", eager / iterations / 1000));
+        System.out.println(String.format("Lazy columns  : %,d us per dump", lazy / iterations / 1000));
+
+        Node.NodeIDType.registerIDType("OVS", String.class);
+        InventoryService eagerService = inventoryService(false);
+        InventoryService lazyService = inventoryService(true);
+        apply(eagerService, dump, iterations);
+        apply(lazyService, dump, iterations);
+        eager = apply(eagerService, dump, iterations);
+        lazy = apply(lazyService, dump, iterations);
+        System.out.println(String.format("Update notification, eager columns : %,d us per dump", eager / iterations / 1000));
+        System.out.println(String.format("Update notification, lazy columns  : %,d us per dump", lazy / iterations / 1000));
+        eagerService.stop();
+        lazyService.stop();
+    }
+
+    private static InventoryService inventoryService(boolean lazyColumns) {
+        System.setProperty("ovsdb.cache.lazyColumns", Boolean.toString(lazyColumns));
+        try {
+            InventoryService inventoryService = new InventoryService();
+            inventoryService.init();
+            return inventoryService;
+        } finally {
+            System.clearProperty("ovsdb.cache.lazyColumns");
+        }
+    }
+
+    /*
+     * Applies the dump to the cache of a new node, the node is removed once measured
+     */
+    private static long apply(InventoryService inventoryService, JsonNode dump, int iterations) throws Exception {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            JsonNode params = factory.arrayNode().add(factory.nullNode()).add(dump.deepCopy());
+            Node node = new Node("OVS", "benchmark" + i);
+            long start = System.nanoTime();
+            inventoryService.processUpdateNotification(node, params);
+            total += System.nanoTime() - start;
+            inventoryService.removeNode(node);
+        }
+        return total;
+    }
+
+    private static long run(JsonNode dump, final boolean lazyColumns, int iterations) {
+        long total = 0;
+        final long[] checksum = new long[1];
+        for (int i = 0; i < iterations; i++) {
+            JsonNode copy = dump.deepCopy();
+            long start = System.nanoTime();
+            TableUpdatesReader.read(copy, null, lazyColumns, new TableUpdatesReader.RowHandler() {
+                @Override
+                public void row(Table.Name<?> name, String uuid, Table<?> oldRow, Table<?> newRow, long changedColumns) {
+                    if (newRow instanceof Interface) {
+                        Interface intf = (Interface)newRow;
+                        checksum[0] += intf.getName().length() + intf.getExternal_ids().size() + intf.getOfportValue();
+                    } else if (newRow instanceof Port) {
+                        Port port = (Port)newRow;
+                        checksum[0] += port.getName().length() + port.getInterfaces().size();
+                    }
+                }
+            });
+            total += System.nanoTime() - start;
+        }
+        if (checksum[0] == 0) throw new IllegalStateException();
+        return total;
+    }
+
+    private static JsonNode monitorDump(int ports) {
+        ObjectNode portTable = factory.objectNode();
+        ObjectNode interfaceTable = factory.objectNode();
+        for (int i = 0; i < ports; i++) {
+            String interfaceUuid = UUID.randomUUID().toString();
+            String name = "tap" + Integer.toHexString(i);
+
+            ObjectNode intf = factory.objectNode();
+            intf.put("name", name);
+            intf.put("type", "");
+            intf.put("ofport", i + 1);
+            intf.set("mac", set());
+            intf.set("options", map());
+            intf.set("other_config", map());
+            intf.set("status", map("driver_name", "tun", "driver_version", "1.6", "firmware_version", ""));
+            intf.set("external_ids", map("iface-id", UUID.randomUUID().toString(), "iface-status", "active",
+                                         "attached-mac", String.format("fa:16:3e:00:%02x:%02x", i >> 8, i & 0xff),
+                                         "vm-uuid", UUID.randomUUID().toString()));
+            ArrayNode counters = factory.arrayNode();
+            for (String counter : STATISTICS) {
+                counters.add(factory.arrayNode().add(counter).add(i * 1000L + counter.length()));
+            }
+            intf.set("statistics", factory.arrayNode().add("map").add(counters));
+            interfaceTable.set(interfaceUuid, factory.objectNode().set("new", intf));
+
+            ObjectNode port = factory.objectNode();
+            port.put("name", name);
+            port.set("interfaces", factory.arrayNode().add("uuid").add(interfaceUuid));
+            port.set("tag", set());
+            port.set("trunks", set());
+            port.set("mac", set());
+            port.set("qos", set());
+            port.set("other_config", map());
+            port.set("external_ids", map());
+            portTable.set(UUID.randomUUID().toString(), factory.objectNode().set("new", port));
+        }
+        ObjectNode dump = factory.objectNode();
+        dump.set("Interface", interfaceTable);
+        dump.set("Port", portTable);
+        return dump;
+    }
+
+    private static ArrayNode set() {
+        return factory.arrayNode().add("set").add(factory.arrayNode());
+    }
+
+    private static ArrayNode map(String... keysAndValues) {
+        ArrayNode pairs = factory.arrayNode();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            pairs.add(factory.arrayNode().add(keysAndValues[i]).add(keysAndValues[i + 1]));
+        }
+        return factory.arrayNode().add("map").add(pairs);
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.lib.message;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Resources;
+
+import junit.framework.TestCase;
+
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
+import org.opendaylight.ovsdb.lib.table.Bridge;
+import org.opendaylight.ovsdb.lib.table.Interface;
+import org.opendaylight.ovsdb.lib.notation.UUID;
+import org.opendaylight.ovsdb.lib.table.Port;
+import org.opendaylight.ovsdb.lib.table.internal.ColumnMask;
+import org.opendaylight.ovsdb.lib.table.internal.GenericTable;
+import org.opendaylight.ovsdb.lib.table.internal.LazyColumns;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableCodec;
+import org.opendaylight.ovsdb.lib.table.internal.TableColumns;
+import org.opendaylight.ovsdb.lib.table.internal.Tables;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+public class TableUpdatesReaderTest extends TestCase {
+
+    public void testRead() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode tableUpdates = mapper.readTree(Resources.getResource(TableUpdatesReaderTest.class, "monitor_response1.json"));
+        ArrayNode params = mapper.createArrayNode();
+        params.add((JsonNode) null);
+        params.add(tableUpdates);
+
+        final Map<String, Table<?>> rows = Maps.newHashMap();
+        int count = TableUpdatesReader.readParams(params, new TableUpdatesReader.RowHandler() {
+            @Override
+            public void row(Table.Name<?> name, String uuid, Table<?> oldRow, Table<?> newRow, long changedColumns) {
+                assertNull(oldRow);
+                assertEquals(name, newRow.getTableName());
+                rows.put(uuid, newRow);
+            }
+        });
+        assertEquals(rows.size(), count);
+
+        Bridge bridge = (Bridge) rows.get("788de61c-0e4f-43d8-a068-259e75aabbba");
+        assertNotNull(bridge);
+        assertEquals(2, bridge.getPorts().size());
+
+        Port port = (Port) rows.get("f6018e7a-7ca5-4e72-a744-a9b434f47011");
+        assertNotNull(port);
+        assertEquals("13548b08-dca3-4d4b-9e9b-f50c237dcb9e", port.getInterfaces().iterator().next().toString());
+    }
+
+    public void testNumbers() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode tableUpdates = mapper.readTree("{\"Interface\" : {\"uuid1\" : {\"new\" : {"
+                + "\"name\" : \"tap0\", \"ofport\" : 3,"
+                + "\"statistics\" : [\"map\", [[\"rx_packets\", 12], [\"rx_bytes\", 3000000000]]]}}},"
+                + "\"Port\" : {\"uuid2\" : {\"new\" : {\"tag\" : 10, \"trunks\" : [\"set\", [20, 10]]}}}}");
+        final Map<String, Table<?>> rows = Maps.newHashMap();
+        TableUpdatesReader.RowHandler handler = new TableUpdatesReader.RowHandler() {
+            @Override
+            public void row(Table.Name<?> name, String uuid, Table<?> oldRow, Table<?> newRow, long changedColumns) {
+                rows.put(uuid, newRow);
+            }
+        };
+
+        TableUpdatesReader.read(tableUpdates, handler);
+        Interface intf = (Interface) rows.get("uuid1");
+        assertEquals(Collections.singleton(3L), intf.getOfport());
+        assertEquals(3, intf.getOfportValue());
+        assertEquals(3000000000L, intf.getStatisticsValue("rx_bytes"));
+        assertEquals(0, intf.getStatisticsValue("tx_bytes"));
+        Port port = (Port) rows.get("uuid2");
+        assertEquals(10, port.getTagValue());
+        assertTrue(Arrays.equals(new long[] {10, 20}, port.getTrunksValues()));
+
+        // A schema holding reals in the statistics turns the integral values into Double
+        DatabaseSchema schema = mapper.readValue("{\"name\" : \"Open_vSwitch\", \"tables\" : {\"Interface\" : {"
+                + "\"columns\" : {\"statistics\" : {\"type\" : {\"key\" : \"string\", \"value\" : \"real\","
+                + "\"min\" : 0, \"max\" : \"unlimited\"}},"
+                + "\"ofport\" : {\"type\" : {\"key\" : \"integer\", \"min\" : 0, \"max\" : 1}}}}}}", DatabaseSchema.class);
+        TableUpdatesReader.read(tableUpdates, schema, false, handler);
+        Map<?, ?> statistics = ((Interface) rows.get("uuid1")).getStatistics();
+        assertEquals(12.0, statistics.get("rx_packets"));
+        assertEquals(Collections.singleton(3L), ((Interface) rows.get("uuid1")).getOfport());
+    }
+
+    public void testLazyColumns() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode tableUpdates = mapper.readTree(Resources.getResource(TableUpdatesReaderTest.class, "monitor_response1.json"));
+        final Map<String, Table<?>> eager = Maps.newHashMap();
+        final Map<String, Table<?>> lazy = Maps.newHashMap();
+        TableUpdatesReader.read(tableUpdates, null, false, new TableUpdatesReader.RowHandler() {
+            @Override
+            public void row(Table.Name<?> name, String uuid, Table<?> oldRow, Table<?> newRow, long changedColumns) {
+                eager.put(uuid, newRow);
+            }
+        });
+        TableUpdatesReader.read(tableUpdates.deepCopy(), null, true, new TableUpdatesReader.RowHandler() {
+            @Override
+            public void row(Table.Name<?> name, String uuid, Table<?> oldRow, Table<?> newRow, long changedColumns) {
+                assertTrue(newRow.hasPendingColumns());
+                lazy.put(uuid, newRow);
+            }
+        });
+        Port port = (Port) lazy.get("f6018e7a-7ca5-4e72-a744-a9b434f47011");
+        assertEquals(((Port) eager.get("f6018e7a-7ca5-4e72-a744-a9b434f47011")).getInterfaces(), port.getInterfaces());
+        assertTrue(port.hasPendingColumns());
+        Bridge bridge = (Bridge) lazy.get("788de61c-0e4f-43d8-a068-259e75aabbba");
+        bridge.setName("br-test");
+        assertEquals("br-test", bridge.getName());
+        bridge.setName(((Bridge) eager.get("788de61c-0e4f-43d8-a068-259e75aabbba")).getName());
+
+        assertEquals(eager.keySet(), lazy.keySet());
+        for (String uuid : eager.keySet()) {
+            assertEquals(eager.get(uuid).toString(), lazy.get(uuid).toString());
+            assertFalse(lazy.get(uuid).hasPendingColumns());
+        }
+
+        // A mapper with the LazyColumns module decodes the rows of the monitor reply lazily
+        mapper.registerModule(LazyColumns.module());
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        TableUpdates updates = mapper.treeToValue(tableUpdates, TableUpdates.class);
+        bridge = updates.getUpdate(Bridge.NAME).get("788de61c-0e4f-43d8-a068-259e75aabbba").getNew();
+        assertTrue(bridge.hasPendingColumns());
+        assertEquals(2, bridge.getPorts().size());
+    }
+
+    public void testGenericTables() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        DatabaseSchema schema = mapper.readValue("{\"name\" : \"Open_vSwitch\", \"tables\" : {"
+                + "\"Datapath\" : {\"isRoot\" : true, \"columns\" : {"
+                + "\"datapath_version\" : {\"type\" : \"string\"},"
+                + "\"ct_zones\" : {\"type\" : {\"key\" : {\"type\" : \"integer\"},"
+                + "\"value\" : {\"type\" : \"uuid\", \"refTable\" : \"CT_Zone\"}, \"min\" : 0, \"max\" : \"unlimited\"}},"
+                + "\"capabilities\" : {\"type\" : {\"key\" : \"string\", \"value\" : \"string\","
+                + "\"min\" : 0, \"max\" : \"unlimited\"}}}},"
+                + "\"Interface\" : {\"columns\" : {\"name\" : {\"type\" : \"string\"},"
+                + "\"ofport\" : {\"type\" : {\"key\" : \"integer\", \"min\" : 0, \"max\" : 1}},"
+                + "\"options\" : {\"type\" : {\"key\" : \"string\", \"value\" : \"string\","
+                + "\"min\" : 0, \"max\" : \"unlimited\"}}}}}}", DatabaseSchema.class);
+        JsonNode tableUpdates = mapper.readTree("{\"Datapath\" : {\"uuid1\" : {\"new\" : {"
+                + "\"datapath_version\" : \"<unknown>\", \"unknown_column\" : 1,"
+                + "\"ct_zones\" : [\"map\", [[1, [\"uuid\", \"4bd5e4e8-7fbb-4d5a-9b07-66c2ef4a3fd6\"]]]],"
+                + "\"capabilities\" : [\"map\", [[\"recirc\", \"true\"]]]}}}}");
+
+        final Map<String, Table<?>> rows = Maps.newHashMap();
+        int count = TableUpdatesReader.read(tableUpdates, schema, false, new TableUpdatesReader.RowHandler() {
+            @Override
+            public void row(Table.Name<?> name, String uuid, Table<?> oldRow, Table<?> newRow, long changedColumns) {
+                assertEquals("Datapath", name.getName());
+                rows.put(uuid, newRow);
+            }
+        });
+        assertEquals(1, count);
+        GenericTable datapath = (GenericTable) rows.get("uuid1");
+        assertSame(GenericTable.nameOf("Datapath"), datapath.getTableName());
+        assertEquals("<unknown>", datapath.get("datapath_version"));
+        assertEquals(new UUID("4bd5e4e8-7fbb-4d5a-9b07-66c2ef4a3fd6"), ((Map<?, ?>) datapath.get("ct_zones")).get(1L));
+        assertEquals(Collections.singletonMap("recirc", "true"), datapath.get("capabilities"));
+        assertNull(datapath.get("unknown_column"));
+        assertEquals(Sets.newHashSet("capabilities", "ct_zones", "datapath_version"),
+                     TableColumns.getPresentColumns(datapath));
+
+        // Without the schema the table is unknown
+        assertEquals(0, TableUpdatesReader.read(tableUpdates, null, false, new TableUpdatesReader.RowHandler() {
+            @Override
+            public void row(Table.Name<?> name, String uuid, Table<?> oldRow, Table<?> newRow, long changedColumns) {
+                fail();
+            }
+        }));
+
+        // A row is written the way it was read
+        TableCodec codec = TableCodec.of(schema, "Datapath");
+        JsonNode encoded = mapper.valueToTree(datapath);
+        assertFalse(encoded.has("unknown_column"));
+        assertEquals(datapath.toString(), codec.decode(encoded).toString());
+
+        // The Table classes are typed views of the rows of their table
+        TableCodec interfaceCodec = TableCodec.of(schema, "Interface");
+        GenericTable row = interfaceCodec.decode(mapper.readTree("{\"name\" : \"tap0\", \"ofport\" : 7,"
+                + "\"options\" : [\"map\", [[\"remote_ip\", \"10.0.0.1\"]]]}"));
+        Interface intf = (Interface) interfaceCodec.toTable(row, new Interface());
+        assertEquals("tap0", intf.getName());
+        assertEquals(7, intf.getOfportValue());
+        assertEquals("10.0.0.1", intf.getOptions().get("remote_ip"));
+        assertEquals(row.toString(), interfaceCodec.fromTable(intf).toString());
+    }
+
+    public void testColumnAccessors() throws Exception {
+        for (Table<?> table : Tables.getTables()) {
+            for (Map.Entry<String, Method> setter : TableColumns.getSetters(table.getClass()).entrySet()) {
+                Class<?> type = setter.getValue().getParameterTypes()[0];
+                Object value;
+                if (type == String.class) {
+                    value = "value";
+                } else if (type == Integer.class) {
+                    value = 1;
+                } else if (type == Boolean.class) {
+                    value = true;
+                } else {
+                    value = type.newInstance();
+                }
+                Table<?> row = table.getClass().newInstance();
+                setter.getValue().invoke(row, value);
+                assertSame(value, TableColumns.getColumn(row, setter.getKey()));
+                assertTrue(TableColumns.setColumn(row, setter.getKey(), null));
+                assertNull(TableColumns.getColumn(row, setter.getKey()));
+            }
+        }
+    }
+
+    public void testChangedColumns() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        DatabaseSchema schema = mapper.readValue("{\"name\" : \"Open_vSwitch\", \"tables\" : {"
+                + "\"Datapath\" : {\"columns\" : {\"datapath_version\" : {\"type\" : \"string\"},"
+                + "\"capabilities\" : {\"type\" : {\"key\" : \"string\", \"value\" : \"string\","
+                + "\"min\" : 0, \"max\" : \"unlimited\"}}}},"
+                + "\"Interface\" : {\"columns\" : {\"name\" : {\"type\" : \"string\"},"
+                + "\"ofport\" : {\"type\" : {\"key\" : \"integer\", \"min\" : 0, \"max\" : 1}}}}}}", DatabaseSchema.class);
+        JsonNode tableUpdates = mapper.readTree("{\"Interface\" : {\"uuid1\" : {"
+                + "\"old\" : {\"ofport\" : 3, \"unknown_column\" : 1}, \"new\" : {\"name\" : \"tap0\", \"ofport\" : 4}},"
+                + "\"uuid2\" : {\"new\" : {\"name\" : \"tap1\"}}},"
+                + "\"Datapath\" : {\"uuid3\" : {\"old\" : {\"capabilities\" : [\"map\", []]},"
+                + "\"new\" : {\"datapath_version\" : \"1\"}}}}");
+        final Map<String, Long> masks = Maps.newHashMap();
+        TableUpdatesReader.RowHandler handler = new TableUpdatesReader.RowHandler() {
+            @Override
+            public void row(Table.Name<?> name, String uuid, Table<?> oldRow, Table<?> newRow, long changedColumns) {
+                masks.put(uuid, changedColumns);
+            }
+        };
+
+        TableUpdatesReader.read(tableUpdates, schema, false, handler);
+        assertEquals(ColumnMask.of("Interface", "ofport"), masks.get("uuid1").longValue());
+        assertEquals(ColumnMask.NONE, masks.get("uuid2").longValue());
+        // The columns of a table without a Table class are numbered by its codec
+        assertEquals(Collections.singleton("capabilities"),
+                     ColumnMask.getColumnNames("Datapath", masks.get("uuid3")));
+
+        masks.clear();
+        TableUpdatesReader.read(tableUpdates, null, false, handler);
+        assertEquals(ColumnMask.of("Interface", "ofport"), masks.get("uuid1").longValue());
+        assertEquals(ColumnMask.NONE, masks.get("uuid2").longValue());
+    }
+
+    public void testReadIgnoresMalformedParams() {
+        ObjectMapper mapper = new ObjectMapper();
+        TableUpdatesReader.RowHandler failing = new TableUpdatesReader.RowHandler() {
+            @Override
+            public void row(Table.Name<?> name, String uuid, Table<?> oldRow, Table<?> newRow, long changedColumns) {
+                fail("No row expected");
+            }
+        };
+        assertEquals(0, TableUpdatesReader.readParams(null, failing));
+        assertEquals(0, TableUpdatesReader.readParams(mapper.createObjectNode(), failing));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.lib.notation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+
+public class OvsDBCollectionsTest extends TestCase {
+
+    public void testCompactSets() {
+        OvsDBSet<String> empty = OvsDBSet.copyOf(Collections.<String>emptyList());
+        assertTrue(empty.isEmpty());
+        assertFalse(empty.delegate() instanceof HashSet);
+
+        OvsDBSet<String> single = OvsDBSet.copyOf(Arrays.asList("secure"));
+        assertEquals(Collections.singleton("secure"), single);
+        assertFalse(single.delegate() instanceof HashSet);
+
+        OvsDBSet<String> small = OvsDBSet.copyOf(Arrays.asList("OpenFlow10", "OpenFlow13", "OpenFlow10"));
+        assertEquals(Sets.newHashSet("OpenFlow10", "OpenFlow13"), small);
+        assertEquals(Sets.newHashSet("OpenFlow10", "OpenFlow13").hashCode(), small.hashCode());
+        assertTrue(small.contains("OpenFlow13"));
+        assertFalse(small.delegate() instanceof HashSet);
+
+        OvsDBSet<Integer> large = OvsDBSet.copyOf(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9));
+        assertTrue(large.delegate() instanceof HashSet);
+    }
+
+    public void testSetChanges() {
+        OvsDBSet<String> set = OvsDBSet.copyOf(Arrays.asList("a", "b"));
+        assertFalse(set.remove("c"));
+        assertFalse(set.delegate() instanceof HashSet);
+        assertTrue(set.add("c"));
+        assertTrue(set.delegate() instanceof HashSet);
+        assertEquals(Sets.newHashSet("a", "b", "c"), set);
+
+        set = OvsDBSet.copyOf(Arrays.asList("a", "b", "c"));
+        for (Iterator<String> iterator = set.iterator(); iterator.hasNext();) {
+            if (!iterator.next().equals("b")) iterator.remove();
+        }
+        assertEquals(Collections.singleton("b"), set);
+
+        set = new OvsDBSet<String>();
+        set.add("a");
+        set.clear();
+        assertTrue(set.isEmpty());
+    }
+
+    public void testCompactMaps() {
+        OvsDBMap<String, String> map = OvsDBMap.copyOf(Arrays.asList("iface-id", "attached-mac", "iface-id"),
+                                                       Arrays.asList("1", "fa:16:3e:00:00:01", "2"));
+        assertEquals(ImmutableMap.of("iface-id", "2", "attached-mac", "fa:16:3e:00:00:01"), map);
+        assertEquals("2", map.get("iface-id"));
+        assertNull(map.get("vm-id"));
+        assertFalse(map.delegate() instanceof HashMap);
+
+        assertNull(map.remove("vm-id"));
+        assertFalse(map.delegate() instanceof HashMap);
+        assertEquals("2", map.remove("iface-id"));
+        assertTrue(map.delegate() instanceof HashMap);
+        map.put("vm-id", "3");
+        assertEquals(ImmutableMap.of("attached-mac", "fa:16:3e:00:00:01", "vm-id", "3"), map);
+
+        OvsDBMap<String, String> single = OvsDBMap.copyOf(Arrays.asList("key"), Arrays.asList("flow"));
+        assertEquals(Collections.singletonMap("key", "flow"), single);
+    }
+
+    public void testSerialization() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        OvsDBSet<String> set = OvsDBSet.copyOf(Arrays.asList("secure"));
+        assertEquals("[\"set\",[\"secure\"]]", mapper.writeValueAsString(set));
+
+        OvsDBSet<String> decoded = mapper.readValue("[\"set\",[\"a\",\"b\"]]", mapper.getTypeFactory()
+                .constructParametricType(OvsDBSet.class, String.class));
+        assertEquals(Sets.newHashSet("a", "b"), decoded);
+        assertFalse(decoded.delegate() instanceof HashSet);
+
+        Map<Object, Object> decodedMap = mapper.readValue("[\"map\",[[\"key\",\"flow\"]]]", OvsDBMap.class);
+        assertEquals(Collections.singletonMap("key", "flow"), decodedMap);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.lib.notation;
+
+import junit.framework.TestCase;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class UUIDTest extends TestCase {
+
+    public void testCanonical() {
+        String value = "0f1e2d3c-4b5a-6978-8796-a5b4c3d2e1f0";
+        UUID uuid = new UUID(value);
+        assertFalse(uuid.isNamed());
+        assertEquals(value, uuid.toString());
+        assertEquals(0x0f1e2d3c4b5a6978L, uuid.getMostSignificantBits());
+        assertEquals(0x8796a5b4c3d2e1f0L, uuid.getLeastSignificantBits());
+        assertEquals(uuid, UUID.parse(new StringBuilder(value)));
+        assertEquals(uuid.hashCode(), new UUID(value).hashCode());
+        assertEquals(java.util.UUID.fromString(value),
+                     new java.util.UUID(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+    }
+
+    public void testNamed() {
+        UUID uuid = new UUID("new_bridge");
+        assertTrue(uuid.isNamed());
+        assertEquals("new_bridge", uuid.toString());
+        assertEquals(uuid, new UUID("new_bridge"));
+        assertFalse(uuid.equals(new UUID("new_port")));
+
+        UUID upperCase = new UUID("0F1E2D3C-4B5A-6978-8796-A5B4C3D2E1F0");
+        assertTrue(upperCase.isNamed());
+        assertFalse(upperCase.equals(new UUID("0f1e2d3c-4b5a-6978-8796-a5b4c3d2e1f0")));
+        assertNull(new UUID(null).toString());
+    }
+
+    public void testSerialization() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals("[\"uuid\",\"0f1e2d3c-4b5a-6978-8796-a5b4c3d2e1f0\"]",
+                     mapper.writeValueAsString(new UUID("0f1e2d3c-4b5a-6978-8796-a5b4c3d2e1f0")));
+        assertEquals("[\"named-uuid\",\"new_bridge\"]", mapper.writeValueAsString(new UUID("new_bridge")));
+
+        UUID uuid = mapper.readValue("[\"uuid\",\"0f1e2d3c-4b5a-6978-8796-a5b4c3d2e1f0\"]", UUID.class);
+        assertFalse(uuid.isNamed());
+        assertEquals(new UUID("0f1e2d3c-4b5a-6978-8796-a5b4c3d2e1f0"), uuid);
+        assertEquals(uuid, mapper.readValue("\"0f1e2d3c-4b5a-6978-8796-a5b4c3d2e1f0\"", UUID.class));
+        assertEquals(new UUID("new_bridge"), mapper.readValue("[\"named-uuid\",\"new_bridge\"]", UUID.class));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.ovsdb.lib.message.operations.Operation;
+import org.opendaylight.ovsdb.lib.message.operations.OperationResult;
+import org.opendaylight.ovsdb.lib.message.operations.SelectOperation;
+import org.opendaylight.ovsdb.lib.message.operations.UpdateOperation;
+import org.opendaylight.ovsdb.lib.message.operations.WaitOperation;
+import org.opendaylight.ovsdb.lib.notation.Condition;
+import org.opendaylight.ovsdb.lib.notation.Function;
+import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
+import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
+import org.opendaylight.ovsdb.lib.notation.UUID;
+import org.opendaylight.ovsdb.lib.table.Interface;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+
+public class CacheQueryTest {
+    private static final String TABLE = Interface.NAME.getName();
+    private NodeDB db;
+
+    private static Interface newInterface(String name, long ofport, String ifaceId, String mac) {
+        Interface intf = new Interface();
+        intf.setName(name);
+        intf.setType("");
+        OvsDBSet<Long> ofports = new OvsDBSet<Long>();
+        ofports.add(ofport);
+        intf.setOfport(ofports);
+        OvsDBMap<String, String> externalIds = new OvsDBMap<String, String>();
+        externalIds.put("iface-id", ifaceId);
+        externalIds.put("attached-mac", mac);
+        intf.setExternal_ids(externalIds);
+        return intf;
+    }
+
+    @Before
+    public void setUp() {
+        db = new NodeDB();
+        db.updateRow(TABLE, "11111111-0000-0000-0000-000000000001", newInterface("tap1", 1, "port1", "fa:16:3e:00:00:01"));
+        db.updateRow(TABLE, "11111111-0000-0000-0000-000000000002", newInterface("tap2", 2, "port2", "fa:16:3e:00:00:02"));
+        db.updateRow(TABLE, "11111111-0000-0000-0000-000000000003", newInterface("tap3", 3, "port3", "fa:16:3e:00:00:03"));
+    }
+
+    private Set<String> select(Condition... where) {
+        Map<String, Table<?>> rows = CacheQuery.select(db, TABLE, Arrays.asList(where));
+        return rows != null ? rows.keySet() : null;
+    }
+
+    private static Map<String, String> map(String key, String value) {
+        OvsDBMap<String, String> map = new OvsDBMap<String, String>();
+        map.put(key, value);
+        return map;
+    }
+
+    @Test
+    public void testFunctions() {
+        assertEquals(Collections.singleton("11111111-0000-0000-0000-000000000002"),
+                     select(new Condition("name", Function.EQUALS, "tap2")));
+        assertEquals(2, select(new Condition("name", Function.NOT_EQUALS, "tap2")).size());
+        assertEquals(1, select(new Condition("ofport", Function.LESS_THAN, 2)).size());
+        assertEquals(2, select(new Condition("ofport", Function.LESS_THAN_OR_EQUALS, 2L)).size());
+        assertEquals(1, select(new Condition("ofport", Function.GREATER_THAN, 2.0)).size());
+        assertEquals(2, select(new Condition("ofport", Function.GREATER_THAN_OR_EQUALS, 2)).size());
+        // A scalar is a set of one element
+        assertEquals(1, select(new Condition("ofport", Function.EQUALS, 3)).size());
+        assertEquals(1, select(new Condition("ofport", Function.INCLUDES, 3)).size());
+        assertEquals(2, select(new Condition("ofport", Function.EXCLUDES, 3)).size());
+
+        // Maps are tested pair by pair, the whole map for ==
+        assertEquals(1, select(new Condition("external_ids", Function.INCLUDES,
+                                             map("attached-mac", "fa:16:3e:00:00:01"))).size());
+        assertEquals(2, select(new Condition("external_ids", Function.EXCLUDES,
+                                             map("attached-mac", "fa:16:3e:00:00:01"))).size());
+        assertEquals(0, select(new Condition("external_ids", Function.EQUALS,
+                                             map("attached-mac", "fa:16:3e:00:00:01"))).size());
+
+        // Every condition must hold
+        assertEquals(0, select(new Condition("name", Function.EQUALS, "tap1"),
+                               new Condition("ofport", Function.GREATER_THAN, 1)).size());
+        assertEquals(3, select().size());
+    }
+
+    @Test
+    public void testLookups() {
+        assertEquals(Collections.singleton("11111111-0000-0000-0000-000000000003"),
+                     select(new Condition("_uuid", Function.EQUALS, new UUID("11111111-0000-0000-0000-000000000003"))));
+        assertEquals(Collections.singleton("11111111-0000-0000-0000-000000000001"),
+                     select(new Condition("external_ids", Function.INCLUDES, map("iface-id", "port1"))));
+        assertEquals(0, select(new Condition("name", Function.EQUALS, "tap9")).size());
+    }
+
+    @Test
+    public void testNotCached() {
+        // Unknown table, column not in the Table class, column not set
+        assertNull(CacheQuery.select(db, "Bridge", Collections.<Condition>emptyList()));
+        assertNull(select(new Condition("bfd_status", Function.EQUALS, "up")));
+        assertNull(select(new Condition("options", Function.INCLUDES, map("remote_ip", "10.0.0.1"))));
+        assertNull(select(new Condition("name", Function.LESS_THAN, "tap2")));
+    }
+
+    @Test
+    public void testExecute() {
+        List<Condition> where = Arrays.asList(new Condition("name", Function.EQUALS, "tap1"));
+        List<OperationResult> results = CacheQuery.execute(db, Arrays.<Operation>asList(
+                new SelectOperation(TABLE, where, Arrays.asList("_uuid", "name", "ofport"))));
+        assertNotNull(results);
+        Map<?, ?> row = (Map<?, ?>)results.get(0).getRows().get(0);
+        assertEquals(Arrays.asList("uuid", "11111111-0000-0000-0000-000000000001"), row.get("_uuid"));
+        assertEquals("tap1", row.get("name"));
+        assertEquals(3, row.size());
+
+        // Writes go to the server
+        assertNull(CacheQuery.execute(db, Arrays.<Operation>asList(new UpdateOperation(TABLE, where, new Interface()))));
+    }
+
+    @Test
+    public void testWait() {
+        List<Condition> where = Arrays.asList(new Condition("name", Function.EQUALS, "tap1"));
+        Interface expected = new Interface();
+        OvsDBSet<Long> ofports = new OvsDBSet<Long>();
+        ofports.add(1L);
+        expected.setOfport(ofports);
+        List<Table<?>> rows = Arrays.<Table<?>>asList(expected);
+
+        List<OperationResult> results = CacheQuery.execute(db, Arrays.<Operation>asList(
+                new WaitOperation(TABLE, where, Arrays.asList("ofport"), WaitOperation.EQUALS, rows, null)));
+        assertNotNull(results);
+        assertNull(results.get(0).getError());
+
+        results = CacheQuery.execute(db, Arrays.<Operation>asList(
+                new WaitOperation(TABLE, where, Arrays.asList("ofport"), WaitOperation.NOT_EQUALS, rows, 0L)));
+        assertEquals("timed out", results.get(0).getError());
+
+        // The server waits for a condition that does not hold yet
+        assertNull(CacheQuery.execute(db, Arrays.<Operation>asList(
+                new WaitOperation(TABLE, where, Arrays.asList("ofport"), WaitOperation.NOT_EQUALS, rows, 1000L))));
+        assertTrue(CacheQuery.matches("11111111-0000-0000-0000-000000000001",
+                                      db.getRow(TABLE, "11111111-0000-0000-0000-000000000001"), where));
+    }
+}
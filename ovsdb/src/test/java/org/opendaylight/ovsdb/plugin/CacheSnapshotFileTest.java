@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
+import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
+import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
+import org.opendaylight.ovsdb.lib.notation.UUID;
+import org.opendaylight.ovsdb.lib.table.Interface;
+import org.opendaylight.ovsdb.lib.table.internal.GenericTable;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableCodec;
+import org.opendaylight.ovsdb.lib.table.internal.TableColumns;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CacheSnapshotFileTest {
+    static final String SCHEMA = "{\"name\" : \"Open_vSwitch\", \"tables\" : {"
+            + "\"Interface\" : {\"columns\" : {"
+            + "\"name\" : {\"type\" : \"string\"},"
+            + "\"ofport\" : {\"type\" : {\"key\" : \"integer\", \"min\" : 0, \"max\" : 1}},"
+            + "\"external_ids\" : {\"type\" : {\"key\" : \"string\", \"value\" : \"string\","
+            + "\"min\" : 0, \"max\" : \"unlimited\"}}}},"
+            + "\"Sample\" : {\"columns\" : {"
+            + "\"id\" : {\"type\" : \"integer\"},"
+            + "\"ratio\" : {\"type\" : \"real\"},"
+            + "\"enabled\" : {\"type\" : \"boolean\"},"
+            + "\"peers\" : {\"type\" : {\"key\" : \"uuid\", \"min\" : 0, \"max\" : \"unlimited\"}}}}}}";
+
+    private File file;
+    private Node node;
+    private DatabaseSchema schema;
+
+    @Before
+    public void setUp() throws Exception {
+        Node.NodeIDType.registerIDType("OVS", String.class);
+        node = new Node("OVS", "node1");
+        file = File.createTempFile("inventory", ".snapshot");
+        file.delete();
+        schema = new ObjectMapper().readValue(SCHEMA, DatabaseSchema.class);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    static Interface newInterface(String name, long ofport, String ifaceId) {
+        Interface intf = new Interface();
+        intf.setName(name);
+        OvsDBSet<Long> ofports = new OvsDBSet<Long>();
+        ofports.add(ofport);
+        intf.setOfport(ofports);
+        OvsDBMap<String, String> externalIds = new OvsDBMap<String, String>();
+        externalIds.put("iface-id", ifaceId);
+        intf.setExternal_ids(externalIds);
+        return intf;
+    }
+
+    private NodeDB newNodeDB() {
+        NodeDB db = new NodeDB();
+        db.setSchema(schema);
+        db.updateRow("Interface", "11111111-0000-0000-0000-000000000001", newInterface("tap1", 1, "port1"));
+        db.updateRow("Interface", "11111111-0000-0000-0000-000000000002", newInterface("tap2", -2, "port2"));
+        GenericTable sample = TableCodec.of(schema, "Sample").newRow();
+        sample.set("id", 1L << 40);
+        sample.set("ratio", 0.25);
+        sample.set("enabled", true);
+        OvsDBSet<UUID> peers = new OvsDBSet<UUID>();
+        peers.add(new UUID("11111111-0000-0000-0000-000000000001"));
+        sample.set("peers", peers);
+        db.updateRow("Sample", "22222222-0000-0000-0000-000000000001", sample);
+        return db;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        NodeDB db = newNodeDB();
+        Map<Node, NodeDB> dbs = new LinkedHashMap<Node, NodeDB>();
+        dbs.put(node, db);
+        // Nodes without a schema are left out
+        dbs.put(new Node("OVS", "node2"), new NodeDB());
+        assertTrue(CacheSnapshotFile.write(file, dbs) > 0);
+
+        List<CacheSnapshotFile.NodeCache> caches = CacheSnapshotFile.read(file);
+        assertEquals(1, caches.size());
+        CacheSnapshotFile.NodeCache cache = caches.get(0);
+        assertEquals(node, cache.getNode());
+        assertEquals(schema.getTables().keySet(), cache.getSchema().getTables().keySet());
+        assertEquals(2, cache.getTables().size());
+        NodeSnapshot snapshot = db.getSnapshot();
+        for (String tableName : snapshot.getTableNames()) {
+            Map<String, Table<?>> rows = cache.getTables().get(tableName);
+            assertEquals(snapshot.getRows(tableName).keySet(), rows.keySet());
+            for (Map.Entry<String, Table<?>> row : snapshot.getRows(tableName).entrySet()) {
+                Table<?> restored = rows.get(row.getKey());
+                assertEquals(row.getValue().getClass(), restored.getClass());
+                assertNull(TableColumns.getChangedColumns(row.getValue(), restored));
+                assertNull(TableColumns.getChangedColumns(restored, row.getValue()));
+            }
+        }
+    }
+
+    @Test
+    public void testCorrupted() throws Exception {
+        assertTrue(CacheSnapshotFile.read(file).isEmpty());
+
+        Map<Node, NodeDB> dbs = new LinkedHashMap<Node, NodeDB>();
+        dbs.put(node, newNodeDB());
+        long size = CacheSnapshotFile.write(file, dbs);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(size / 2);
+            int b = raf.read();
+            raf.seek(size / 2);
+            raf.write(b ^ 0xff);
+        }
+        try {
+            CacheSnapshotFile.read(file);
+            fail("Corrupted snapshot read");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
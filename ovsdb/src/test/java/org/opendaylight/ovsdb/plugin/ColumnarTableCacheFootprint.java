@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
+import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
+import org.opendaylight.ovsdb.lib.table.Interface;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Compares the heap held by the Interface tables of a number of nodes kept as Table objects
+ * and kept in ColumnarTableCache. The rows look like the ones of a hypervisor managed by the
+ * neutron service, every string is a distinct copy and every set and map is in the compact
+ * form, as they are when decoded off the wire.
+ *
+ * Run with -Xmx2g, arguments : number of nodes (default 200), interfaces per node (default 200).
+ */
+public class ColumnarTableCacheFootprint {
+    private static final String[] STATISTICS = {
+        "collisions", "rx_bytes", "rx_crc_err", "rx_dropped", "rx_errors", "rx_frame_err",
+        "rx_over_err", "rx_packets", "tx_bytes", "tx_dropped", "tx_errors", "tx_packets"
+    };
+
+    public static void main(String[] args) throws Exception {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int interfaces = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        long objects = footprint(nodes, interfaces, false);
+        long columnar = footprint(nodes, interfaces, true);
+        System.out.println(String.format("%d nodes x %d interfaces", nodes, interfaces));
+        System.out.println(String.format("Table objects      : %,d bytes, %,d per row",
+                                         objects, objects / (nodes * interfaces)));
+        System.out.println(String.format("ColumnarTableCache : %,d bytes, %,d per row",
+                                         columnar, columnar / (nodes * interfaces)));
+    }
+
+    private static long footprint(int nodes, int interfaces, boolean columnarCache) {
+        long before = usedMemory();
+        List<ConcurrentMap<String, Table<?>>> tables = new ArrayList<ConcurrentMap<String, Table<?>>>();
+        for (int n = 0; n < nodes; n++) {
+            ConcurrentMap<String, Table<?>> table = columnarCache ? ColumnarTableCache.create(Interface.class)
+                                                                   : Maps.<String, Table<?>>newConcurrentMap();
+            for (int i = 0; i < interfaces; i++) {
+                table.put(copy(java.util.UUID.randomUUID().toString()), newInterface(n, i));
+            }
+            tables.add(table);
+        }
+        long after = usedMemory();
+        if (tables.size() != nodes) throw new IllegalStateException();
+        return after - before;
+    }
+
+    private static Interface newInterface(int node, int index) {
+        Interface intf = new Interface();
+        intf.setName(copy("tap" + Integer.toHexString(node) + "-" + index));
+        intf.setType(copy(""));
+        intf.setOfport(OvsDBSet.copyOf(Arrays.asList(index + 1L)));
+        intf.setMac(OvsDBSet.copyOf(Collections.<String>emptyList()));
+        intf.setExternal_ids(OvsDBMap.copyOf(
+                Arrays.asList(copy("iface-id"), copy("iface-status"), copy("attached-mac"), copy("vm-uuid")),
+                Arrays.asList(copy(java.util.UUID.randomUUID().toString()), copy("active"),
+                              copy(String.format("fa:16:3e:%02x:%02x:%02x", node & 0xff, index >> 8, index & 0xff)),
+                              copy(java.util.UUID.randomUUID().toString()))));
+        intf.setStatus(OvsDBMap.copyOf(Arrays.asList(copy("driver_name"), copy("driver_version"), copy("firmware_version")),
+                                       Arrays.asList(copy("tun"), copy("1.6"), copy(""))));
+        intf.setOptions(OvsDBMap.copyOf(Collections.<String>emptyList(), Collections.<String>emptyList()));
+        intf.setOther_config(OvsDBMap.copyOf(Collections.<String>emptyList(), Collections.<String>emptyList()));
+        List<String> counters = new ArrayList<String>();
+        List<Long> values = new ArrayList<Long>();
+        for (String counter : STATISTICS) {
+            counters.add(copy(counter));
+            values.add(index * 1000L + counter.length());
+        }
+        intf.setStatistics(OvsDBMap.copyOf(counters, values));
+        return intf;
+    }
+
+    private static String copy(String value) {
+        return new String(value.toCharArray());
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
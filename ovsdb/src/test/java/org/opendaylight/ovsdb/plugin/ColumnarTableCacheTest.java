@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
+import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
+import org.opendaylight.ovsdb.lib.notation.UUID;
+import org.opendaylight.ovsdb.lib.table.Bridge;
+import org.opendaylight.ovsdb.lib.table.Interface;
+import org.opendaylight.ovsdb.lib.table.NetFlow;
+import org.opendaylight.ovsdb.lib.table.Open_vSwitch;
+import org.opendaylight.ovsdb.lib.table.Port;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+import org.opendaylight.ovsdb.lib.table.internal.TableColumns;
+import org.opendaylight.ovsdb.lib.table.internal.Tables;
+
+import com.google.common.collect.Sets;
+
+public class ColumnarTableCacheTest {
+
+    @Test
+    public void testInterfaceRoundTrip() throws Exception {
+        ColumnarTableCache cache = ColumnarTableCache.create(Interface.class);
+        Interface intf = newInterface("tap0", 7);
+        OvsDBMap<String, Long> statistics = new OvsDBMap<String, Long>();
+        statistics.put("rx_packets", 12L);
+        intf.setStatistics(statistics);
+        OvsDBSet<String> mac = new OvsDBSet<String>();
+        intf.setMac(mac);
+
+        assertNull(cache.put("uuid1", intf));
+        Interface row = (Interface)cache.get("uuid1");
+        assertNotSame(intf, row);
+        assertEquals("tap0", row.getName());
+        assertEquals("internal", row.getType());
+        assertEquals(intf.getOptions(), row.getOptions());
+        assertEquals(intf.getExternal_ids(), row.getExternal_ids());
+        assertEquals(Sets.newHashSet(7L), row.getOfport());
+        assertEquals(7, row.getOfportValue());
+        assertEquals(statistics, row.getStatistics());
+        assertTrue(row.getMac().isEmpty());
+        assertNull(row.getStatus());
+        assertTrue(cache.remove("uuid1", row));
+        assertTrue(cache.isEmpty());
+    }
+
+    @Test
+    public void testUuids() throws Exception {
+        ColumnarTableCache cache = ColumnarTableCache.create(Port.class);
+        Port port = new Port();
+        port.setName("port1");
+        OvsDBSet<UUID> interfaces = new OvsDBSet<UUID>();
+        interfaces.add(new UUID("0f1e2d3c-4b5a-6978-8796-a5b4c3d2e1f0"));
+        interfaces.add(new UUID("ffffffff-0000-0000-0000-000000000001"));
+        port.setInterfaces(interfaces);
+        OvsDBSet<Long> trunks = new OvsDBSet<Long>();
+        trunks.add(10L);
+        trunks.add(20L);
+        port.setTrunks(trunks);
+        cache.put("uuid1", port);
+
+        Port named = new Port();
+        OvsDBSet<UUID> namedInterfaces = new OvsDBSet<UUID>();
+        namedInterfaces.add(new UUID("new_interface"));
+        named.setInterfaces(namedInterfaces);
+        cache.put("uuid2", named);
+
+        assertEquals(interfaces, ((Port)cache.get("uuid1")).getInterfaces());
+        assertEquals(trunks, ((Port)cache.get("uuid1")).getTrunks());
+        assertEquals(namedInterfaces, ((Port)cache.get("uuid2")).getInterfaces());
+
+        ColumnarTableCache bridges = ColumnarTableCache.create(Bridge.class);
+        Bridge bridge = new Bridge();
+        bridge.setFlow(interfaces);
+        bridges.put("uuid3", bridge);
+        assertEquals(interfaces, ((Bridge)bridges.get("uuid3")).getSflow());
+    }
+
+    @Test
+    public void testScalars() throws Exception {
+        ColumnarTableCache cache = ColumnarTableCache.create(Open_vSwitch.class);
+        Open_vSwitch ovs = new Open_vSwitch();
+        ovs.setCurr_cfg(42);
+        cache.put("uuid1", ovs);
+        assertEquals(Integer.valueOf(42), ((Open_vSwitch)cache.get("uuid1")).getCurr_cfg());
+        assertNull(((Open_vSwitch)cache.get("uuid1")).getNext_cfg());
+    }
+
+    @Test
+    public void testSlotReuse() throws Exception {
+        ColumnarTableCache cache = ColumnarTableCache.create(Interface.class);
+        for (int i = 0; i < 100; i++) {
+            cache.put("uuid" + i, newInterface("tap" + i, i));
+        }
+        for (int i = 0; i < 100; i += 2) {
+            assertEquals("tap" + i, ((Interface)cache.remove("uuid" + i)).getName());
+        }
+        for (int i = 100; i < 150; i++) {
+            cache.put("uuid" + i, newInterface("tap" + i, i));
+        }
+        assertEquals(100, cache.size());
+        int count = 0;
+        for (Map.Entry<String, Table<?>> row : cache.entrySet()) {
+            int i = Integer.parseInt(row.getKey().substring(4));
+            assertTrue(i % 2 == 1 || i >= 100);
+            assertEquals("tap" + i, ((Interface)row.getValue()).getName());
+            count++;
+        }
+        assertEquals(100, count);
+
+        Interface oldRow = (Interface)cache.put("uuid1", newInterface("tap1-renamed", 1));
+        assertEquals("tap1", oldRow.getName());
+        assertFalse(cache.replace("uuid1", oldRow, newInterface("tap1", 1)));
+        assertEquals("tap1-renamed", ((Interface)cache.get("uuid1")).getName());
+    }
+
+    @Test
+    public void testCanonicalUuids() throws Exception {
+        ColumnarTableCache cache = ColumnarTableCache.create(Interface.class);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(uuid(i), newInterface("tap" + i, i));
+        }
+        for (int i = 0; i < 1000; i += 3) {
+            assertEquals("tap" + i, ((Interface)cache.remove(uuid(i))).getName());
+        }
+        assertEquals(666, cache.size());
+        for (int i = 0; i < 1000; i++) {
+            Interface row = (Interface)cache.get(uuid(i));
+            if (i % 3 == 0) {
+                assertNull(row);
+            } else {
+                assertEquals("tap" + i, row.getName());
+            }
+        }
+        int count = 0;
+        for (Map.Entry<String, Table<?>> row : cache.entrySet()) {
+            assertEquals(row.getKey(), uuid((int)((Interface)row.getValue()).getOfportValue()));
+            count++;
+        }
+        assertEquals(666, count);
+        cache.clear();
+        assertTrue(cache.isEmpty());
+        assertNull(cache.get(uuid(1)));
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        ColumnarTableCache cache = ColumnarTableCache.create(Interface.class);
+        assertNull(cache.update(uuid(1), newInterface("tap1", 1)));
+
+        Interface renamed = newInterface("tap1-renamed", 1);
+        renamed.setExternal_ids(null);
+        Interface oldRow = (Interface)cache.update(uuid(1), renamed);
+        assertEquals("tap1", oldRow.getName());
+        assertEquals("port-tap1", oldRow.getExternal_ids().get("iface-id"));
+        assertNull(oldRow.getType());
+        assertNull(oldRow.getOptions());
+        assertEquals("tap1-renamed", ((Interface)cache.get(uuid(1))).getName());
+
+        // The external ids were unset, they have no previous value
+        assertTrue(TableColumns.getPresentColumns(cache.update(uuid(1), newInterface("tap1-renamed", 1))).isEmpty());
+        assertTrue(TableColumns.getPresentColumns(cache.update(uuid(1), newInterface("tap1-renamed", 1))).isEmpty());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testAllTables() throws Exception {
+        for (Table<?> table : Tables.getTables()) {
+            if (table instanceof NetFlow) continue;
+            assertNotNull(table.getClass().getName(), ColumnarTableCache.create(table.getClass()));
+        }
+        assertNull(ColumnarTableCache.create(NetFlow.class));
+    }
+
+    @Test
+    public void testNodeDB() throws Exception {
+        NodeDB db = new NodeDB(true);
+        db.updateRow(Interface.NAME.getName(), "uuid1", newInterface("tap0", 3));
+        assertTrue(db.getTableCache(Interface.NAME.getName()) instanceof ColumnarTableCache);
+        assertEquals("tap0", ((Interface)db.getRow(Interface.NAME.getName(), "uuid1")).getName());
+        assertEquals(Sets.newHashSet("uuid1"), db.getIndexedUuids(Interface.NAME.getName(), "ofport", "3"));
+        assertEquals(Sets.newHashSet("uuid1"),
+                     db.getIndexedUuids(Interface.NAME.getName(), "external_ids:iface-id", "port-tap0"));
+
+        // The indexes drop the previous values of the changed columns and keep the others
+        db.updateRow(Interface.NAME.getName(), "uuid1", newInterface("tap1", 3));
+        assertTrue(db.getIndexedUuids(Interface.NAME.getName(), "external_ids:iface-id", "port-tap0").isEmpty());
+        assertEquals(Sets.newHashSet("uuid1"),
+                     db.getIndexedUuids(Interface.NAME.getName(), "external_ids:iface-id", "port-tap1"));
+        assertEquals(Sets.newHashSet("uuid1"), db.getIndexedUuids(Interface.NAME.getName(), "ofport", "3"));
+        db.removeRow(Interface.NAME.getName(), "uuid1");
+        assertTrue(db.getIndexedUuids(Interface.NAME.getName(), "name", "tap0").isEmpty());
+    }
+
+    private static String uuid(int i) {
+        return String.format("%08x-0000-4000-8000-%012x", i, i * 31L);
+    }
+
+    private static Interface newInterface(String name, int ofport) {
+        Interface intf = new Interface();
+        intf.setName(name);
+        intf.setType("internal");
+        OvsDBSet<Long> ofports = new OvsDBSet<Long>();
+        ofports.add((long)ofport);
+        intf.setOfport(ofports);
+        OvsDBMap<String, String> options = new OvsDBMap<String, String>();
+        options.put("key", "flow");
+        options.put("remote_ip", "10.0.0." + ofport);
+        intf.setOptions(options);
+        OvsDBMap<String, String> externalIds = new OvsDBMap<String, String>();
+        externalIds.put("iface-id", "port-" + name);
+        intf.setExternal_ids(externalIds);
+        return intf;
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.connection.ConnectionConstants;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.utils.StatusCode;
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
+import org.opendaylight.ovsdb.lib.message.OvsdbRPC;
+import org.opendaylight.ovsdb.lib.message.TransactBuilder;
+import org.opendaylight.ovsdb.lib.message.operations.DeleteOperation;
+import org.opendaylight.ovsdb.lib.message.operations.InsertOperation;
+import org.opendaylight.ovsdb.lib.message.operations.MutateOperation;
+import org.opendaylight.ovsdb.lib.message.operations.Operation;
+import org.opendaylight.ovsdb.lib.message.operations.OperationResult;
+import org.opendaylight.ovsdb.lib.message.operations.SelectOperation;
+import org.opendaylight.ovsdb.lib.notation.Condition;
+import org.opendaylight.ovsdb.lib.notation.Function;
+import org.opendaylight.ovsdb.lib.notation.UUID;
+import org.opendaylight.ovsdb.lib.table.Bridge;
+import org.opendaylight.ovsdb.lib.table.Port;
+import org.opendaylight.ovsdb.lib.table.Queue;
+import org.opendaylight.ovsdb.lib.table.internal.TableCodec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+public class ConfigurationServiceTest {
+    private static final String SCHEMA = "{\"name\" : \"Open_vSwitch\", \"tables\" : {"
+            + "\"Open_vSwitch\" : {\"maxRows\" : 1, \"isRoot\" : true, \"columns\" : {"
+            + "\"bridges\" : {\"type\" : {\"key\" : {\"type\" : \"uuid\", \"refTable\" : \"Bridge\"},"
+            + " \"min\" : 0, \"max\" : \"unlimited\"}}}},"
+            + "\"Bridge\" : {\"isRoot\" : false, \"columns\" : {"
+            + "\"name\" : {\"type\" : \"string\"},"
+            + "\"ports\" : {\"type\" : {\"key\" : {\"type\" : \"uuid\", \"refTable\" : \"Port\"},"
+            + " \"min\" : 0, \"max\" : \"unlimited\"}}}},"
+            + "\"Port\" : {\"isRoot\" : false, \"columns\" : {"
+            + "\"name\" : {\"type\" : \"string\"},"
+            + "\"interfaces\" : {\"type\" : {\"key\" : {\"type\" : \"uuid\", \"refTable\" : \"Interface\"},"
+            + " \"min\" : 1, \"max\" : \"unlimited\"}},"
+            + "\"qos\" : {\"type\" : {\"key\" : {\"type\" : \"uuid\", \"refTable\" : \"QoS\"},"
+            + " \"min\" : 0, \"max\" : 1}}}},"
+            + "\"Interface\" : {\"isRoot\" : false, \"columns\" : {"
+            + "\"name\" : {\"type\" : \"string\"}}},"
+            + "\"QoS\" : {\"isRoot\" : true, \"columns\" : {"
+            + "\"type\" : {\"type\" : \"string\"},"
+            + "\"queues\" : {\"type\" : {\"key\" : {\"type\" : \"integer\"},"
+            + " \"value\" : {\"type\" : \"uuid\", \"refTable\" : \"Queue\"}, \"min\" : 0, \"max\" : \"unlimited\"}}}},"
+            + "\"Queue\" : {\"isRoot\" : true, \"columns\" : {"
+            + "\"dscp\" : {\"type\" : {\"key\" : \"integer\", \"min\" : 0, \"max\" : 1}}}},"
+            + "\"Sampler\" : {\"isRoot\" : true, \"columns\" : {"
+            + "\"collectors\" : {\"type\" : {\"key\" : {\"type\" : \"uuid\", \"refTable\" : \"Collector\"},"
+            + " \"min\" : 0, \"max\" : \"unlimited\"}},"
+            + "\"backups\" : {\"type\" : {\"key\" : {\"type\" : \"uuid\", \"refTable\" : \"Collector\"},"
+            + " \"min\" : 0, \"max\" : \"unlimited\"}}}},"
+            + "\"Collector\" : {\"isRoot\" : false, \"columns\" : {"
+            + "\"target\" : {\"type\" : \"string\"}}}}}";
+    private static final String OVS = "11111111-0000-0000-0000-000000000001";
+    private static final String BRIDGE = "22222222-0000-0000-0000-000000000001";
+    private static final String PORT = "33333333-0000-0000-0000-000000000001";
+    private static final String INTERFACE = "44444444-0000-0000-0000-000000000001";
+    private static final String QOS = "55555555-0000-0000-0000-000000000001";
+    private static final String QUEUE = "66666666-0000-0000-0000-000000000001";
+    private static final String SAMPLER = "77777777-0000-0000-0000-000000000001";
+    private static final String COLLECTOR = "88888888-0000-0000-0000-000000000001";
+    private static final String NEW_ROW = "99999999-0000-0000-0000-000000000001";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<TransactBuilder> transactions = new ArrayList<TransactBuilder>();
+    private ListenableFuture<Void> updatesApplied = Futures.immediateFuture(null);
+    private InventoryService inventoryService;
+    private ConfigurationService configurationService;
+    private DatabaseSchema schema;
+    private Node node;
+
+    @Before
+    public void setUp() throws Exception {
+        Node.NodeIDType.registerIDType("OVS", String.class);
+        node = new Node("OVS", "node1");
+        inventoryService = new InventoryService();
+        inventoryService.init();
+        schema = mapper.readValue(SCHEMA, DatabaseSchema.class);
+        inventoryService.updateDatabaseSchema(node, schema);
+        inventoryService.processUpdateNotification(node, mapper.readTree("[null, {"
+                + "\"Open_vSwitch\" : {\"" + OVS + "\" : {\"new\" : {\"bridges\" : [\"uuid\", \"" + BRIDGE + "\"]}}},"
+                + "\"Bridge\" : {\"" + BRIDGE + "\" : {\"new\" : {\"name\" : \"br-int\","
+                + " \"ports\" : [\"uuid\", \"" + PORT + "\"]}}},"
+                + "\"Port\" : {\"" + PORT + "\" : {\"new\" : {\"name\" : \"tap1\","
+                + " \"interfaces\" : [\"uuid\", \"" + INTERFACE + "\"], \"qos\" : [\"uuid\", \"" + QOS + "\"]}}},"
+                + "\"Interface\" : {\"" + INTERFACE + "\" : {\"new\" : {\"name\" : \"tap1\"}}},"
+                + "\"QoS\" : {\"" + QOS + "\" : {\"new\" : {\"type\" : \"linux-htb\","
+                + " \"queues\" : [\"map\", [[0, [\"uuid\", \"" + QUEUE + "\"]]]]}}},"
+                + "\"Queue\" : {\"" + QUEUE + "\" : {\"new\" : {\"dscp\" : 10}}},"
+                + "\"Sampler\" : {\"" + SAMPLER + "\" : {\"new\" : {\"collectors\" : [\"uuid\", \"" + COLLECTOR + "\"],"
+                + " \"backups\" : [\"uuid\", \"" + COLLECTOR + "\"]}}},"
+                + "\"Collector\" : {\"" + COLLECTOR + "\" : {\"new\" : {\"target\" : \"10.0.0.1:6343\"}}}}]"));
+
+        Connection connection = new Connection("node1", new EmbeddedChannel(new ChannelInboundHandlerAdapter()));
+        connection.setRpc((OvsdbRPC)Proxy.newProxyInstance(OvsdbRPC.class.getClassLoader(), new Class<?>[] {OvsdbRPC.class},
+                                                            new RecordingRpc()));
+        configurationService = new ConfigurationService();
+        configurationService.setInventoryServiceInternal(inventoryService);
+        configurationService.setConnectionServiceInternal(new SingleConnectionService(connection));
+    }
+
+    @After
+    public void tearDown() {
+        inventoryService.stop();
+    }
+
+    @Test
+    public void testInsertSchemaRow() throws Exception {
+        // Without a parent, a bridge goes to the single Open_vSwitch row
+        Bridge bridge = new Bridge();
+        bridge.setName("br-ex");
+        StatusWithUuid status = configurationService.insertRow(node, Bridge.NAME.getName(), null, bridge);
+        assertTrue(status.isSuccess());
+        assertEquals(new UUID(NEW_ROW), status.getUuid());
+        assertEquals(Arrays.asList("insert Bridge", "mutate Open_vSwitch bridges insert"), operations(0));
+
+        // A port comes with an interface named after it
+        Port port = new Port();
+        port.setName("tap2");
+        assertTrue(configurationService.insertRow(node, Port.NAME.getName(), BRIDGE, port).isSuccess());
+        assertEquals(Arrays.asList("insert Interface", "insert Port", "mutate Bridge ports insert"), operations(1));
+
+        // A root row referenced by a map is inserted on its own
+        assertTrue(configurationService.insertRow(node, Queue.NAME.getName(), QOS, new Queue()).isSuccess());
+        assertEquals(Arrays.asList("insert Queue"), operations(2));
+
+        // The column referencing the row is ambiguous, nothing is sent
+        TableCodec codec = TableCodec.of(schema, "Collector");
+        status = configurationService.insertRow(node, "Collector", SAMPLER, codec.newRow());
+        assertEquals(StatusCode.BADREQUEST, status.getCode());
+        assertTrue(status.getDescription().contains("Sampler.collectors"));
+        assertTrue(status.getDescription().contains("Sampler.backups"));
+        status = configurationService.insertRow(node, "Collector", null, codec.newRow());
+        assertEquals(StatusCode.BADREQUEST, status.getCode());
+        assertEquals(StatusCode.NOTFOUND, configurationService.insertRow(node, Port.NAME.getName(), QUEUE, port).getCode());
+        assertEquals(3, transactions.size());
+    }
+
+    @Test
+    public void testDeleteSchemaRow() throws Exception {
+        // A row of a non root table is removed from its parents, the server collects it
+        assertTrue(configurationService.deleteRow(node, Port.NAME.getName(), PORT).isSuccess());
+        assertEquals(Arrays.asList("mutate Bridge ports delete"), operations(0));
+
+        // A row of a root table is removed from its parents, then deleted
+        assertTrue(configurationService.deleteRow(node, "QoS", QOS).isSuccess());
+        assertEquals(Arrays.asList("mutate Port qos delete", "delete QoS"), operations(1));
+        assertTrue(configurationService.deleteRow(node, Queue.NAME.getName(), QUEUE).isSuccess());
+        assertEquals(Arrays.asList("delete Queue"), operations(2));
+
+        // From every column referencing it
+        assertTrue(configurationService.deleteRow(node, "Collector", COLLECTOR).isSuccess());
+        List<String> operations = operations(3);
+        assertEquals(2, operations.size());
+        assertTrue(operations.contains("mutate Sampler collectors delete"));
+        assertTrue(operations.contains("mutate Sampler backups delete"));
+
+        assertEquals(StatusCode.NOTIMPLEMENTED, configurationService.deleteRow(node, "Open_vSwitch", OVS).getCode());
+        assertEquals(StatusCode.NOTFOUND, configurationService.deleteRow(node, Port.NAME.getName(), INTERFACE).getCode());
+        assertEquals(4, transactions.size());
+    }
+
+    @Test
+    public void testTransactFromCache() throws Exception {
+        TransactBuilder transaction = new TransactBuilder();
+        List<Condition> where = new ArrayList<Condition>();
+        where.add(new Condition("name", Function.EQUALS, "br-int"));
+        transaction.addOperation(new SelectOperation(Bridge.NAME.getName(), where, Arrays.asList("name")));
+        ListenableFuture<List<OperationResult>> results = configurationService.transact(node, transaction);
+
+        // A select is answered from the cache once the updates already received are applied
+        assertTrue(results.isDone());
+        assertEquals(1, results.get().get(0).getRows().size());
+        assertTrue(transactions.isEmpty());
+
+        // It goes to the node when they are not applied in time
+        updatesApplied = SettableFuture.create();
+        System.setProperty("ovsdb.transact.syncTimeoutMillis", "50");
+        try {
+            configurationService.transact(node, transaction).get();
+        } finally {
+            System.clearProperty("ovsdb.transact.syncTimeoutMillis");
+        }
+        assertEquals(1, transactions.size());
+
+        // As when the node is removed before they are
+        updatesApplied = Futures.immediateFailedFuture(new RejectedExecutionException("Node removed"));
+        configurationService.transact(node, transaction).get();
+        assertEquals(2, transactions.size());
+        transactions.clear();
+
+        // A select the cache cannot answer goes to the node
+        transaction = new TransactBuilder();
+        transaction.addOperation(new SelectOperation("Manager", new ArrayList<Condition>(), Arrays.asList("target")));
+        configurationService.transact(node, transaction).get();
+        assertEquals(1, transactions.size());
+    }
+
+    private List<String> operations(int transaction) {
+        List<String> operations = new ArrayList<String>();
+        for (Operation operation : transactions.get(transaction).getRequests()) {
+            if (operation instanceof InsertOperation) {
+                operations.add("insert " + ((InsertOperation)operation).getTable());
+            } else if (operation instanceof MutateOperation) {
+                MutateOperation mutate = (MutateOperation)operation;
+                operations.add("mutate " + mutate.getTable() + " " + mutate.getMutations().get(0).getColumn()
+                               + " " + mutate.getMutations().get(0).getMutator());
+            } else if (operation instanceof DeleteOperation) {
+                operations.add("delete " + ((DeleteOperation)operation).getTable());
+            }
+        }
+        return operations;
+    }
+
+    /*
+     * Records the transactions, each insert returns the same uuid
+     */
+    private class RecordingRpc implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (!method.getName().equals("transact")) throw new UnsupportedOperationException(method.getName());
+            TransactBuilder transaction = (TransactBuilder)args[0];
+            transactions.add(transaction);
+            List<OperationResult> results = new ArrayList<OperationResult>();
+            for (Operation operation : transaction.getRequests()) {
+                OperationResult result = new OperationResult();
+                if (operation instanceof InsertOperation) result.setUuid(Arrays.asList("uuid", NEW_ROW));
+                results.add(result);
+            }
+            return Futures.immediateFuture(results);
+        }
+    }
+
+    private class SingleConnectionService implements IConnectionServiceInternal {
+        private final Connection connection;
+
+        SingleConnectionService(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Connection getConnection(Node node) {
+            return connection;
+        }
+
+        @Override
+        public List<Node> getNodes() {
+            return Arrays.asList(connection.getNode());
+        }
+
+        @Override
+        public Node connect(String identifier, Map<ConnectionConstants, String> params) {
+            return null;
+        }
+
+        @Override
+        public Boolean setOFController(Node node, String bridgeUUID) {
+            return false;
+        }
+
+        @Override
+        public Map<Node, NodeUpdateExecutor.QueueStatistics> getUpdateQueueStatistics() {
+            return null;
+        }
+
+        @Override
+        public ListenableFuture<Void> syncUpdates(Node node) {
+            return updatesApplied;
+        }
+    }
+}
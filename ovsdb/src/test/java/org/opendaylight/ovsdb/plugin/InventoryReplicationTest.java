@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
+import org.opendaylight.ovsdb.lib.message.TableUpdates;
+import org.opendaylight.ovsdb.lib.table.Interface;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class InventoryReplicationTest {
+    private static final String UUID1 = "11111111-0000-0000-0000-000000000001";
+    private static final String UUID2 = "11111111-0000-0000-0000-000000000002";
+    private final ObjectMapper mapper = new ObjectMapper();
+    private InventoryService active;
+    private InventoryService standby;
+    private Node node;
+
+    @Before
+    public void setUp() throws Exception {
+        active = new InventoryService();
+        active.init();
+        standby = new InventoryService();
+        standby.init();
+        node = new Node("OVS", "node1");
+        active.updateDatabaseSchema(node, mapper.readValue(CacheSnapshotFileTest.SCHEMA, DatabaseSchema.class));
+        active.processUpdateNotification(node, mapper.readTree("[null, {\"Interface\" : {"
+                + "\"" + UUID1 + "\" : {\"new\" : {\"name\" : \"tap1\","
+                + " \"external_ids\" : [\"map\", [[\"iface-id\", \"port1\"]]]}}}}]"));
+    }
+
+    @After
+    public void tearDown() {
+        active.stop();
+        standby.stop();
+    }
+
+    static void waitFor(Callable<Boolean> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.call()) {
+            assertTrue("Timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void assertReplicated() throws Exception {
+        waitFor(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return standby.getRow(node, "Interface", UUID1) != null;
+            }
+        });
+        assertEquals("tap1", ((Interface)standby.getRow(node, "Interface", UUID1)).getName());
+        waitFor(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return standby.findRows("external_ids:iface-id", "port1").size() == 1;
+            }
+        });
+
+        // Then the changes
+        active.processUpdateNotification(node, mapper.readTree("[null, {\"Interface\" : {"
+                + "\"" + UUID1 + "\" : {\"old\" : {\"name\" : \"tap1\"}, \"new\" : {\"name\" : \"tap9\","
+                + " \"external_ids\" : [\"map\", [[\"iface-id\", \"port1\"]]]}},"
+                + "\"" + UUID2 + "\" : {\"new\" : {\"name\" : \"tap2\"}}}}]"));
+        waitFor(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return standby.getRow(node, "Interface", UUID2) != null;
+            }
+        });
+        assertEquals("tap9", ((Interface)standby.getRow(node, "Interface", UUID1)).getName());
+
+        active.processUpdateNotification(node, mapper.readTree("[null, {\"Interface\" : {"
+                + "\"" + UUID1 + "\" : {\"old\" : {\"name\" : \"tap9\"}}}}]"));
+        waitFor(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return standby.getRow(node, "Interface", UUID1) == null
+                       && standby.findRows("external_ids:iface-id", "port1").isEmpty();
+            }
+        });
+
+        active.removeNode(node);
+        waitFor(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return standby.getSnapshot(node) == null;
+            }
+        });
+    }
+
+    @Test
+    public void testInProcess() throws Exception {
+        active.replicateTo(new InventoryReplica(standby));
+        assertReplicated();
+    }
+
+    @Test
+    public void testTcp() throws Exception {
+        TcpReplicationChannel.Server server = new TcpReplicationChannel.Server(0, new InventoryReplica(standby));
+        try {
+            active.replicateTo(new TcpReplicationChannel(new InetSocketAddress("127.0.0.1", server.getPort())));
+            assertReplicated();
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testTcpOtherPeer() throws Exception {
+        // The connections of other hosts than the active instance are closed at once
+        TcpReplicationChannel.Server server = new TcpReplicationChannel.Server(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), InetAddress.getByName("192.0.2.1"),
+                new InventoryReplica(standby));
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            socket.setSoTimeout(10000);
+            assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testTcpFrameLength() throws Exception {
+        TcpReplicationChannel.Server server = new TcpReplicationChannel.Server(0, new InventoryReplica(standby));
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            // A length beyond the limit closes the connection before anything is allocated
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(TcpReplicationChannel.MAX_FRAME_SIZE + 1);
+            out.flush();
+            socket.setSoTimeout(10000);
+            assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            server.close();
+        }
+
+        // A frame is read as its bytes arrive
+        byte[] frame = new byte[200000];
+        Arrays.fill(frame, (byte)7);
+        byte[] read = TcpReplicationChannel.readFrame(new DataInputStream(new ByteArrayInputStream(frame)), frame.length);
+        assertTrue(Arrays.equals(frame, read));
+        try {
+            TcpReplicationChannel.readFrame(new DataInputStream(new ByteArrayInputStream(frame)), frame.length + 1);
+            fail("Truncated frame read");
+        } catch (EOFException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testResync() throws Exception {
+        final Node node2 = new Node("OVS", "node2");
+        active.updateDatabaseSchema(node2, mapper.readValue(CacheSnapshotFileTest.SCHEMA, DatabaseSchema.class));
+        active.processUpdateNotification(node2, mapper.readTree("[null, {\"Interface\" : {"
+                + "\"" + UUID2 + "\" : {\"new\" : {\"name\" : \"tap2\"}}}}]"));
+        final FailingChannel channel = new FailingChannel(new InventoryReplica(standby));
+        active.replicateTo(channel);
+        waitFor(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return standby.getRow(node, "Interface", UUID1) != null
+                       && standby.getRow(node2, "Interface", UUID2) != null;
+            }
+        });
+
+        // The removal of node2 is lost with the connection to the standby
+        channel.failing = true;
+        active.removeNode(node2);
+        waitFor(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return channel.failures > 0;
+            }
+        });
+        channel.failing = false;
+
+        // The next replication lists the nodes to keep, node2 is dropped by the standby
+        active.processUpdateNotification(node, mapper.readTree("[null, {\"Interface\" : {"
+                + "\"" + UUID1 + "\" : {\"old\" : {\"name\" : \"tap1\"}, \"new\" : {\"name\" : \"tap9\"}}}}]"));
+        waitFor(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return standby.getSnapshot(node2) == null
+                       && "tap9".equals(((Interface)standby.getRow(node, "Interface", UUID1)).getName());
+            }
+        });
+    }
+
+    @Test
+    public void testChangesOutOfSequence() throws Exception {
+        DatabaseSchema schema = mapper.readValue(CacheSnapshotFileTest.SCHEMA, DatabaseSchema.class);
+        InventoryReplica replica = new InventoryReplica(standby);
+        NodeSnapshot snapshot = active.getSnapshot(node);
+        replica.send(InventoryReplicator.snapshotFrame(node, schema, snapshot));
+
+        active.processUpdateNotification(node, mapper.readTree("[null, {\"Interface\" : {"
+                + "\"" + UUID2 + "\" : {\"new\" : {\"name\" : \"tap2\"}}}}]"));
+        long sequence = active.getSnapshot(node).getSequence();
+        active.processUpdateNotification(node, mapper.readTree("[null, {\"Interface\" : {"
+                + "\"" + UUID1 + "\" : {\"old\" : {\"name\" : \"tap1\"}}}}]"));
+
+        // The changes following the ones not received are refused
+        try {
+            replica.send(InventoryReplicator.changesFrame(node, schema, active.getChangesSince(node, sequence)));
+            fail("Changes applied out of sequence");
+        } catch (IOException e) {
+            // expected
+        }
+        assertNotNull(standby.getRow(node, "Interface", UUID1));
+        replica.send(InventoryReplicator.changesFrame(node, schema, active.getChangesSince(node, snapshot.getSequence())));
+        assertNull(standby.getRow(node, "Interface", UUID1));
+        assertNotNull(standby.getRow(node, "Interface", UUID2));
+    }
+
+    /*
+     * Channel failing like a lost connection while asked to
+     */
+    private static class FailingChannel implements ReplicationChannel {
+        private final ReplicationChannel target;
+        volatile boolean failing;
+        volatile int failures;
+
+        FailingChannel(ReplicationChannel target) {
+            this.target = target;
+        }
+
+        @Override
+        public void send(byte[] frame) throws IOException {
+            if (failing) {
+                failures++;
+                throw new IOException("Connection lost");
+            }
+            target.send(frame);
+        }
+
+        @Override
+        public void close() {
+            target.close();
+        }
+    }
+
+    @Test
+    public void testTakeOver() throws Exception {
+        InventoryReplica replica = new InventoryReplica(standby);
+        active.replicateTo(replica);
+        waitFor(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return standby.getRow(node, "Interface", UUID1) != null;
+            }
+        });
+        replica.close();
+
+        // The monitor dump received by the standby is reconciled against the replicated cache
+        long sequence = standby.getSnapshot(node).getSequence();
+        standby.processInitialTableUpdates(node, mapper.convertValue(mapper.readTree("{\"Interface\" : {"
+                + "\"" + UUID2 + "\" : {\"new\" : {\"name\" : \"tap2\"}}}}"),
+                TableUpdates.class));
+        assertNull(standby.getRow(node, "Interface", UUID1));
+        assertEquals(2, standby.getChangesSince(node, sequence).getChanges().size());
+    }
+}
@@ -0,0 +1,584 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.core.Property;
+import org.opendaylight.controller.sal.core.UpdateType;
+import org.opendaylight.controller.sal.inventory.IPluginOutInventoryService;
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
+import org.opendaylight.ovsdb.lib.message.TableUpdates;
+import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
+import org.opendaylight.ovsdb.lib.table.Interface;
+import org.opendaylight.ovsdb.lib.table.Open_vSwitch;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class InventoryServiceTest {
+    private InventoryService inventoryService;
+    private Node node;
+
+    @Before
+    public void setUp() throws Exception {
+        inventoryService = new InventoryService();
+        inventoryService.init();
+        node = new Node("OVS", "node1");
+    }
+
+    @Test
+    public void testBatchListeners() throws Exception {
+        RecordingBatchListener batchListener = new RecordingBatchListener();
+        RecordingInventoryListener listener1 = new RecordingInventoryListener();
+        RecordingInventoryListener listener2 = new RecordingInventoryListener();
+        inventoryService.setBatchListener(batchListener);
+        inventoryService.setInventoryListener(listener1);
+        inventoryService.setInventoryListener(listener2);
+
+        JsonNode params = new ObjectMapper().readTree("[null, {"
+                + "\"Bridge\" : {\"b1\" : {\"new\" : {\"name\" : \"br-int\", \"ports\" : [\"uuid\", \"11111111-2222-3333-4444-555555555555\"]}}},"
+                + "\"Port\" : {\"11111111-2222-3333-4444-555555555555\" : {\"new\" : {\"name\" : \"tap0\"}}}}]");
+        inventoryService.processUpdateNotification(node, params);
+
+        // The batch listener sees the changes of both tables in one call
+        assertEquals(1, batchListener.batches.size());
+        List<RowChange> batch = batchListener.batches.get(0);
+        assertEquals(2, batch.size());
+        for (RowChange change : batch) {
+            assertEquals(RowChange.Type.ADDED, change.getType());
+            assertTrue(inventoryService.getRow(node, change.getTableName(), change.getUuid()) != null);
+        }
+
+        // Every inventory listener gets a call per row
+        assertEquals(2, listener1.added.size());
+        assertEquals(2, listener2.added.size());
+
+        inventoryService.unsetInventoryListener(listener2);
+        inventoryService.processUpdateNotification(node, new ObjectMapper().readTree("[null, {"
+                + "\"Port\" : {\"11111111-2222-3333-4444-555555555555\" : {\"old\" : {\"name\" : \"tap0\"}}}}]"));
+        assertEquals(2, batchListener.batches.size());
+        assertEquals(RowChange.Type.REMOVED, batchListener.batches.get(1).get(0).getType());
+        assertEquals(1, listener1.removed.size());
+        assertEquals(0, listener2.removed.size());
+    }
+
+    @Test
+    public void testFindRows() throws Exception {
+        Node node2 = new Node("OVS", "node2");
+        ObjectMapper mapper = new ObjectMapper();
+        inventoryService.processUpdateNotification(node, mapper.readTree("[null, {"
+                + "\"Interface\" : {\"11111111-2222-3333-4444-555555555555\" : {\"new\" : {\"name\" : \"tap0\","
+                + " \"external_ids\" : [\"map\", [[\"iface-id\", \"port1\"], [\"attached-mac\", \"fa:16:3e:00:00:01\"]]]}}}}]"));
+        inventoryService.processUpdateNotification(node2, mapper.readTree("[null, {"
+                + "\"Interface\" : {\"66666666-2222-3333-4444-555555555555\" : {\"new\" : {\"name\" : \"tap1\","
+                + " \"external_ids\" : [\"map\", [[\"iface-id\", \"port2\"]]]}}}}]"));
+
+        Set<GlobalRowIndex.Location> locations = inventoryService.findRows("external_ids:iface-id", "port1");
+        assertEquals(1, locations.size());
+        GlobalRowIndex.Location location = locations.iterator().next();
+        assertEquals(node, location.getNode());
+        assertEquals("Interface", location.getTableName());
+        assertEquals("11111111-2222-3333-4444-555555555555", location.getUuid());
+        assertEquals(1, inventoryService.findRows("external_ids:attached-mac", "fa:16:3e:00:00:01").size());
+        assertEquals(node2, inventoryService.findRows("name", "tap1").iterator().next().getNode());
+
+        // The port moves to node2
+        inventoryService.processUpdateNotification(node, mapper.readTree("[null, {"
+                + "\"Interface\" : {\"11111111-2222-3333-4444-555555555555\" : {\"old\" : {\"name\" : \"tap0\"}}}}]"));
+        inventoryService.processUpdateNotification(node2, mapper.readTree("[null, {"
+                + "\"Interface\" : {\"66666666-2222-3333-4444-555555555555\" : {\"old\" : {"
+                + " \"external_ids\" : [\"map\", [[\"iface-id\", \"port2\"]]]},"
+                + " \"new\" : {\"name\" : \"tap1\", \"external_ids\" : [\"map\", [[\"iface-id\", \"port1\"]]]}}}}]"));
+        assertEquals(node2, inventoryService.findRows("external_ids:iface-id", "port1").iterator().next().getNode());
+        assertTrue(inventoryService.findRows("external_ids:iface-id", "port2").isEmpty());
+        assertTrue(inventoryService.findRows("name", "tap0").isEmpty());
+
+        inventoryService.removeNode(node2);
+        assertTrue(inventoryService.findRows("external_ids:iface-id", "port1").isEmpty());
+        assertTrue(inventoryService.findRows("name", "tap1").isEmpty());
+    }
+
+    @Test
+    public void testStatisticsOrdering() throws Exception {
+        NodeUpdateExecutor updateExecutor = new NodeUpdateExecutor(1, 1000, 500);
+        inventoryService.setUpdateExecutor(updateExecutor);
+        final RecordingInventoryListener listener = new RecordingInventoryListener();
+        inventoryService.setInventoryListener(listener);
+        String uuid = "11111111-0000-0000-0000-000000000001";
+        String[] updates = {
+            "{\"new\" : {\"name\" : \"tap1\"}}",
+            "{\"old\" : {\"statistics\" : [\"map\", []]},"
+                    + " \"new\" : {\"name\" : \"tap1\", \"statistics\" : [\"map\", [[\"rx_packets\", 1]]]}}",
+            "{\"old\" : {\"name\" : \"tap1\"},"
+                    + " \"new\" : {\"name\" : \"tap2\", \"statistics\" : [\"map\", [[\"rx_packets\", 1]]]}}",
+            "{\"old\" : {\"statistics\" : [\"map\", [[\"rx_packets\", 1]]]},"
+                    + " \"new\" : {\"name\" : \"tap2\", \"statistics\" : [\"map\", [[\"rx_packets\", 2]]]}}"};
+        ObjectMapper mapper = new ObjectMapper();
+        try {
+            for (String update : updates) {
+                final JsonNode params = mapper.readTree("[null, {\"Interface\" : {\"" + uuid + "\" : " + update + "}}]");
+                updateExecutor.execute(node, null, new Runnable() {
+                    @Override
+                    public void run() {
+                        inventoryService.processUpdateNotification(node, params);
+                    }
+                });
+            }
+            InventoryReplicationTest.waitFor(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return listener.updated.contains("tap2 2 ovsdb-update-0");
+                }
+            });
+
+            // The statistics queued before the rename are either notified before it or dropped,
+            // every call comes from the update thread of the node
+            int renamed = listener.updated.indexOf("tap2 1 ovsdb-update-0");
+            assertTrue(renamed >= 0);
+            for (int i = 0; i < listener.updated.size(); i++) {
+                String update = listener.updated.get(i);
+                assertTrue(update, update.endsWith("ovsdb-update-0"));
+                assertEquals(update, i >= renamed, update.startsWith("tap2"));
+            }
+        } finally {
+            updateExecutor.shutdown();
+        }
+    }
+
+    private static JsonNode interfaceUpdate(int row, String update) throws Exception {
+        return new ObjectMapper().readTree("[null, {\"Interface\" : {\"11111111-0000-0000-0000-00000000000" + row
+                                           + "\" : " + update + "}}]");
+    }
+
+    private static JsonNode statisticsUpdate(int row, String name, long rxPackets) throws Exception {
+        return interfaceUpdate(row, "{\"old\" : {\"statistics\" : [\"map\", []]}, \"new\" : {\"name\" : \"" + name
+                                    + "\", \"statistics\" : [\"map\", [[\"rx_packets\", " + rxPackets + "]]]}}");
+    }
+
+    @Test
+    public void testOverBudgetUpdates() throws Exception {
+        System.setProperty("ovsdb.statistics.lane.capacity", "2");
+        System.setProperty("ovsdb.node.maxUpdatesPerSecond", "1");
+        final InventoryService inventoryService = new InventoryService();
+        NodeUpdateExecutor updateExecutor = new NodeUpdateExecutor(1, 1000, 500);
+        try {
+            inventoryService.init();
+            inventoryService.setUpdateExecutor(updateExecutor);
+            final RecordingInventoryListener listener = new RecordingInventoryListener();
+            inventoryService.setInventoryListener(listener);
+            for (int row = 1; row <= 5; row++) {
+                inventoryService.processUpdateNotification(node, interfaceUpdate(row, "{\"new\" : {\"name\" : \"tap" + row + "\"}}"));
+            }
+            assertEquals(5, listener.added.size());
+
+            // The node goes over its budget, its updates are deferred
+            inventoryService.getUpdateAccounting().recordNotification(node, 0);
+            assertTrue(inventoryService.getUpdateAccounting().recordNotification(node, 0));
+            final List<JsonNode> updates = Arrays.asList(
+                    interfaceUpdate(1, "{\"old\" : {\"name\" : \"tap1\"}, \"new\" : {\"name\" : \"tap1b\"}}"),
+                    interfaceUpdate(2, "{\"old\" : {\"name\" : \"tap2\"}, \"new\" : {\"name\" : \"tap2b\"}}"),
+                    interfaceUpdate(2, "{\"old\" : {\"name\" : \"tap2b\"}, \"new\" : {\"name\" : \"tap2c\"}}"),
+                    statisticsUpdate(3, "tap3", 1),
+                    statisticsUpdate(4, "tap4", 1),
+                    statisticsUpdate(5, "tap5", 1),
+                    statisticsUpdate(1, "tap1b", 5));
+            updateExecutor.execute(node, null, new Runnable() {
+                @Override
+                public void run() {
+                    for (JsonNode update : updates) {
+                        inventoryService.processUpdateNotification(node, update);
+                    }
+                }
+            });
+            InventoryReplicationTest.waitFor(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return listener.updated.size() >= 4;
+                }
+            });
+
+            // The statistics of the oldest row are dropped once the lane is full, the
+            // configuration updates are merged per row but never dropped
+            assertEquals(Arrays.asList("tap1b 5 ovsdb-update-0", "tap2c 0 ovsdb-update-0",
+                                       "tap4 1 ovsdb-update-0", "tap5 1 ovsdb-update-0"), listener.updated);
+            assertEquals(1, inventoryService.getStatisticsLaneStatistics().getLowDropped());
+        } finally {
+            System.clearProperty("ovsdb.statistics.lane.capacity");
+            System.clearProperty("ovsdb.node.maxUpdatesPerSecond");
+            updateExecutor.shutdown();
+            inventoryService.destroy();
+        }
+    }
+
+    @Test
+    public void testMalformedUpdate() throws Exception {
+        RecordingBatchListener batchListener = new RecordingBatchListener();
+        inventoryService.setBatchListener(batchListener);
+        ObjectMapper mapper = new ObjectMapper();
+        inventoryService.processUpdateNotification(node, mapper.readTree("[null, {\"Interface\" : {"
+                + "\"11111111-0000-0000-0000-000000000001\" : {\"new\" : {\"name\" : \"tap1\"}}}}]"));
+        long sequence = inventoryService.getSnapshot(node).getSequence();
+
+        // The second row fails to decode, none of the update is applied
+        try {
+            inventoryService.processUpdateNotification(node, mapper.readTree("[null, {\"Interface\" : {"
+                    + "\"11111111-0000-0000-0000-000000000001\" : {\"old\" : {\"name\" : \"tap1\"},"
+                    + " \"new\" : {\"name\" : \"tap9\"}},"
+                    + "\"11111111-0000-0000-0000-000000000002\" : {\"new\" : {\"name\" : {\"bad\" : true}}}}}]"));
+            fail("Malformed update applied");
+        } catch (RuntimeException e) {
+            // Expected
+        }
+        assertEquals("tap1", ((Interface)inventoryService.getRow(node, "Interface",
+                                                                 "11111111-0000-0000-0000-000000000001")).getName());
+        assertEquals(null, inventoryService.getRow(node, "Interface", "11111111-0000-0000-0000-000000000002"));
+        assertEquals(0, inventoryService.getChangesSince(node, sequence).getChanges().size());
+        assertEquals(1, batchListener.batches.size());
+    }
+
+    @Test
+    public void testInitialLoad() throws Exception {
+        RecordingInventoryListener listener = new RecordingInventoryListener();
+        RecordingSnapshotListener snapshotListener = new RecordingSnapshotListener();
+        inventoryService.setInventoryListener(listener);
+        inventoryService.setInventoryListener(snapshotListener);
+
+        // Enough rows for the load to be split across the bulk load pool
+        ObjectMapper mapper = new ObjectMapper();
+        StringBuilder dump = new StringBuilder("{\"Interface\" : {");
+        for (int i = 0; i < 1000; i++) {
+            if (i > 0) dump.append(", ");
+            dump.append(String.format("\"%08x-0000-0000-0000-000000000000\" : {\"new\" : {\"name\" : \"tap%d\"}}", i, i));
+        }
+        dump.append("}}");
+        inventoryService.processInitialTableUpdates(node, mapper.convertValue(mapper.readTree(dump.toString()),
+                                                                              TableUpdates.class));
+
+        assertEquals(1000, inventoryService.getTableCache(node, "Interface").size());
+        for (int i = 0; i < 1000; i++) {
+            Interface row = (Interface)inventoryService.getRow(node, "Interface",
+                                                               String.format("%08x-0000-0000-0000-000000000000", i));
+            assertEquals("tap" + i, row.getName());
+        }
+
+        // The snapshot listener gets the whole dump in one call, the others a call per row
+        assertEquals(1, snapshotListener.snapshots.size());
+        assertEquals(1000, snapshotListener.snapshots.get(0).get("Interface").size());
+        assertTrue(snapshotListener.added.isEmpty());
+        assertEquals(1000, listener.added.size());
+    }
+
+    @Test
+    public void testInitialLoadFailingListener() throws Exception {
+        inventoryService.setInventoryListener(new RecordingSnapshotListener() {
+            @Override
+            public void initialSnapshotReady(Node node, Map<String, Map<String, Table<?>>> snapshot) {
+                throw new IllegalStateException("Failing listener");
+            }
+        });
+        inventoryService.setBatchListener(new RecordingBatchListener() {
+            @Override
+            public void initialSnapshotReady(Node node, List<RowChange> changes) {
+                throw new IllegalStateException("Failing listener");
+            }
+        });
+        RecordingSnapshotListener snapshotListener = new RecordingSnapshotListener();
+        RecordingInventoryListener listener = new RecordingInventoryListener();
+        RecordingBatchListener batchListener = new RecordingBatchListener();
+        inventoryService.setInventoryListener(snapshotListener);
+        inventoryService.setInventoryListener(listener);
+        inventoryService.setBatchListener(batchListener);
+
+        ObjectMapper mapper = new ObjectMapper();
+        inventoryService.processInitialTableUpdates(node, mapper.convertValue(mapper.readTree(
+                "{\"Interface\" : {\"11111111-0000-0000-0000-000000000001\" : {\"new\" : {\"name\" : \"tap1\"}}}}"),
+                TableUpdates.class));
+
+        // The listeners following a failing one are still notified
+        assertEquals(1, snapshotListener.snapshots.size());
+        assertEquals(1, listener.added.size());
+        assertEquals(1, batchListener.snapshots.size());
+    }
+
+    @Test
+    public void testRestoreSnapshot() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        File file = File.createTempFile("inventory", ".snapshot");
+        NodeDB db = new NodeDB();
+        db.setSchema(mapper.readValue(CacheSnapshotFileTest.SCHEMA, DatabaseSchema.class));
+        db.updateRow("Interface", "11111111-0000-0000-0000-000000000001",
+                     CacheSnapshotFileTest.newInterface("tap1", 1, "port1"));
+        db.updateRow("Interface", "11111111-0000-0000-0000-000000000002",
+                     CacheSnapshotFileTest.newInterface("tap2", 2, "port2"));
+        CacheSnapshotFile.write(file, Collections.singletonMap(node, db));
+
+        System.setProperty("ovsdb.snapshot.file", file.getPath());
+        InventoryService restored = new InventoryService();
+        try {
+            restored.init();
+            // The cache is readable before the node reconnects
+            assertEquals("tap2", ((Interface)restored.getRow(node, "Interface",
+                                                             "11111111-0000-0000-0000-000000000002")).getName());
+            assertEquals(1, restored.findRows("external_ids:iface-id", "port1").size());
+
+            long sequence = restored.getSnapshot(node).getSequence();
+            restored.processInitialTableUpdates(node, mapper.convertValue(mapper.readTree("{\"Interface\" : {"
+                    + "\"11111111-0000-0000-0000-000000000001\" : {\"new\" : {\"name\" : \"tap9\", \"ofport\" : 1,"
+                    + " \"external_ids\" : [\"map\", [[\"iface-id\", \"port1\"]]]}},"
+                    + "\"11111111-0000-0000-0000-000000000003\" : {\"new\" : {\"name\" : \"tap3\"}}}}"),
+                    TableUpdates.class));
+
+            // The rows gone while disconnected are removed, the load is journaled as a diff
+            assertEquals(null, restored.getRow(node, "Interface", "11111111-0000-0000-0000-000000000002"));
+            assertTrue(restored.findRows("external_ids:iface-id", "port2").isEmpty());
+            List<RowChange> changes = restored.getChangesSince(node, sequence).getChanges();
+            assertEquals(3, changes.size());
+            for (RowChange change : changes) {
+                if (change.getUuid().endsWith("1")) {
+                    assertEquals(RowChange.Type.UPDATED, change.getType());
+                    assertEquals("tap1", ((Interface)change.getOldRow()).getName());
+                    assertEquals(null, ((Interface)change.getOldRow()).getOfport());
+                } else if (change.getUuid().endsWith("2")) {
+                    assertEquals(RowChange.Type.REMOVED, change.getType());
+                } else {
+                    assertEquals(RowChange.Type.ADDED, change.getType());
+                }
+            }
+
+            restored.removeNode(node);
+            restored.stop();
+            assertTrue(CacheSnapshotFile.read(file).isEmpty());
+        } finally {
+            System.clearProperty("ovsdb.snapshot.file");
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRestoreSnapshotNewNodeId() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        File file = File.createTempFile("inventory", ".snapshot");
+        DatabaseSchema schema = mapper.readValue(CacheSnapshotFileTest.SCHEMA.replace("\"tables\" : {",
+                "\"tables\" : {\"Open_vSwitch\" : {\"maxRows\" : 1, \"isRoot\" : true, \"columns\" : {"
+                + "\"external_ids\" : {\"type\" : {\"key\" : \"string\", \"value\" : \"string\","
+                + "\"min\" : 0, \"max\" : \"unlimited\"}}}},"), DatabaseSchema.class);
+        Node previous = new Node("OVS", "10.0.0.1:40001");
+        NodeDB db = new NodeDB();
+        db.setSchema(schema);
+        Open_vSwitch ovs = new Open_vSwitch();
+        OvsDBMap<String, String> externalIds = new OvsDBMap<String, String>();
+        externalIds.put("system-id", "host1");
+        ovs.setExternal_ids(externalIds);
+        db.updateRow("Open_vSwitch", "00000000-0000-0000-0000-000000000001", ovs);
+        db.updateRow("Interface", "11111111-0000-0000-0000-000000000001",
+                     CacheSnapshotFileTest.newInterface("tap1", 1, "port1"));
+        db.updateRow("Interface", "11111111-0000-0000-0000-000000000002",
+                     CacheSnapshotFileTest.newInterface("tap2", 2, "port2"));
+        CacheSnapshotFile.write(file, Collections.singletonMap(previous, db));
+
+        System.setProperty("ovsdb.snapshot.file", file.getPath());
+        InventoryService restored = new InventoryService();
+        try {
+            restored.init();
+            assertNotNull(restored.getRow(previous, "Interface", "11111111-0000-0000-0000-000000000002"));
+
+            // The switch connects back from another port, its database was recreated meanwhile
+            Node reconnected = new Node("OVS", "10.0.0.1:40002");
+            restored.updateDatabaseSchema(reconnected, schema);
+            restored.processInitialTableUpdates(reconnected, mapper.convertValue(mapper.readTree("{"
+                    + "\"Open_vSwitch\" : {\"00000000-0000-0000-0000-000000000009\" : {\"new\" : {"
+                    + " \"external_ids\" : [\"map\", [[\"system-id\", \"host1\"]]]}}},"
+                    + "\"Interface\" : {"
+                    + "\"11111111-0000-0000-0000-000000000001\" : {\"new\" : {\"name\" : \"tap9\", \"ofport\" : 1,"
+                    + " \"external_ids\" : [\"map\", [[\"iface-id\", \"port1\"]]]}},"
+                    + "\"11111111-0000-0000-0000-000000000003\" : {\"new\" : {\"name\" : \"tap3\"}}}}"),
+                    TableUpdates.class));
+
+            // The restored cache moved to the new node id and was reconciled with the dump
+            assertNull(restored.getRow(previous, "Interface", "11111111-0000-0000-0000-000000000001"));
+            assertNull(restored.getRow(reconnected, "Interface", "11111111-0000-0000-0000-000000000002"));
+            assertEquals("tap9", ((Interface)restored.getRow(reconnected, "Interface",
+                                                             "11111111-0000-0000-0000-000000000001")).getName());
+            assertEquals(reconnected, restored.findRows("external_ids:iface-id", "port1").iterator().next().getNode());
+            assertTrue(restored.findRows("external_ids:iface-id", "port2").isEmpty());
+            NodeSnapshot snapshot = restored.getSnapshot(reconnected);
+            List<RowChange> changes = restored.getChangesSince(reconnected, snapshot.getSequence() - 1).getChanges();
+            assertEquals(5, changes.size());
+
+            restored.removeNode(reconnected);
+            restored.stop();
+        } finally {
+            System.clearProperty("ovsdb.snapshot.file");
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testNodeConnectors() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        RecordingPluginOutInventoryService sal = new RecordingPluginOutInventoryService();
+        System.setProperty("ovsdb.nodeconnector.batchMillis", "300");
+        InventoryService service = new InventoryService();
+        try {
+            service.init();
+            service.setPluginOutInventoryServices(sal);
+
+            // An add followed by a change within the batch is published as an add, interfaces
+            // without a port are not connectors
+            service.processUpdateNotification(node, mapper.readTree("[null, {"
+                    + "\"Port\" : {\"p1\" : {\"new\" : {\"name\" : \"tap1\","
+                    + " \"interfaces\" : [\"uuid\", \"11111111-0000-0000-0000-000000000001\"]}}},"
+                    + "\"Interface\" : {\"11111111-0000-0000-0000-000000000001\" : {\"new\" : {\"name\" : \"tap1\","
+                    + " \"ofport\" : 1, \"external_ids\" : [\"map\", [[\"attached-mac\", \"fa:16:3e:00:00:01\"]]]}},"
+                    + "\"11111111-0000-0000-0000-000000000002\" : {\"new\" : {\"name\" : \"orphan\"}}}}]"));
+            service.processUpdateNotification(node, mapper.readTree("[null, {"
+                    + "\"Interface\" : {\"11111111-0000-0000-0000-000000000001\" : {\"old\" : {\"ofport\" : 1},"
+                    + " \"new\" : {\"name\" : \"tap1\", \"ofport\" : 2,"
+                    + " \"external_ids\" : [\"map\", [[\"attached-mac\", \"fa:16:3e:00:00:01\"]]]}}}}]"));
+            Map<String, String> update = sal.next();
+            assertEquals("ADDED 11111111-0000-0000-0000-000000000001", update.get("update"));
+            assertEquals("tap1", update.get("name"));
+            assertEquals("2", update.get(OfPortProperty.name));
+            assertEquals("fa:16:3e:00:00:01", update.get("macAddress"));
+            assertEquals(1, service.getNodeConnectorProps(false).size());
+
+            service.processUpdateNotification(node, mapper.readTree("[null, {"
+                    + "\"Interface\" : {\"11111111-0000-0000-0000-000000000001\" : {\"old\" : {\"name\" : \"tap1\"},"
+                    + " \"new\" : {\"name\" : \"tap9\", \"ofport\" : 2,"
+                    + " \"external_ids\" : [\"map\", [[\"attached-mac\", \"fa:16:3e:00:00:01\"]]]}}}}]"));
+            update = sal.next();
+            assertEquals("CHANGED 11111111-0000-0000-0000-000000000001", update.get("update"));
+            assertEquals("tap9", update.get("name"));
+
+            // An add followed by a remove within the batch is not published
+            service.processUpdateNotification(node, mapper.readTree("[null, {"
+                    + "\"Port\" : {\"p3\" : {\"new\" : {\"name\" : \"tap3\","
+                    + " \"interfaces\" : [\"uuid\", \"11111111-0000-0000-0000-000000000003\"]}}},"
+                    + "\"Interface\" : {\"11111111-0000-0000-0000-000000000003\" : {\"new\" : {\"name\" : \"tap3\"}}}}]"));
+            service.processUpdateNotification(node, mapper.readTree("[null, {"
+                    + "\"Port\" : {\"p3\" : {\"old\" : {\"name\" : \"tap3\","
+                    + " \"interfaces\" : [\"uuid\", \"11111111-0000-0000-0000-000000000003\"]}}},"
+                    + "\"Interface\" : {\"11111111-0000-0000-0000-000000000003\" : {\"old\" : {\"name\" : \"tap3\"}}}}]"));
+            service.removeNode(node);
+            assertEquals("REMOVED 11111111-0000-0000-0000-000000000001", sal.next().get("update"));
+            assertTrue(service.getNodeConnectorProps(false).isEmpty());
+            Thread.sleep(500);
+            assertTrue(sal.updates.isEmpty());
+        } finally {
+            System.clearProperty("ovsdb.nodeconnector.batchMillis");
+            service.stop();
+        }
+    }
+
+    private static class RecordingPluginOutInventoryService implements IPluginOutInventoryService {
+        final BlockingQueue<Map<String, String>> updates = new LinkedBlockingQueue<Map<String, String>>();
+
+        @Override
+        public void updateNode(Node node, UpdateType type, Set<Property> props) {
+        }
+
+        @Override
+        public void updateNodeConnector(NodeConnector nodeConnector, UpdateType type, Set<Property> props) {
+            Map<String, String> update = new HashMap<String, String>();
+            update.put("update", type + " " + nodeConnector.getID());
+            if (props != null) {
+                for (Property prop : props) {
+                    update.put(prop.getName(), prop.getStringValue());
+                }
+            }
+            updates.add(update);
+        }
+
+        Map<String, String> next() throws InterruptedException {
+            Map<String, String> update = updates.poll(10, TimeUnit.SECONDS);
+            assertTrue("Timed out", update != null);
+            return update;
+        }
+    }
+
+    private static class RecordingBatchListener implements OVSDBBatchListener {
+        final List<List<RowChange>> batches = new ArrayList<List<RowChange>>();
+        final List<List<RowChange>> snapshots = new ArrayList<List<RowChange>>();
+
+        @Override
+        public void initialSnapshotReady(Node node, List<RowChange> changes) {
+            snapshots.add(changes);
+        }
+
+        @Override
+        public void rowsChanged(Node node, List<RowChange> changes) {
+            batches.add(changes);
+        }
+    }
+
+    private static class RecordingInventoryListener implements OVSDBInventoryListener {
+        final List<String> added = new ArrayList<String>();
+        final List<String> removed = new ArrayList<String>();
+        final List<String> updated = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void nodeAdded(Node node) {
+        }
+
+        @Override
+        public void nodeRemoved(Node node) {
+        }
+
+        @Override
+        public void rowAdded(Node node, String tableName, String uuid, Table<?> row) {
+            added.add(uuid);
+        }
+
+        @Override
+        public void rowUpdated(Node node, String tableName, String uuid, Table<?> old, Table<?> row) {
+            if (row instanceof Interface) {
+                updated.add(((Interface)row).getName() + " " + ((Interface)row).getStatisticsValue("rx_packets")
+                            + " " + Thread.currentThread().getName());
+            }
+        }
+
+        @Override
+        public void rowRemoved(Node node, String tableName, String uuid, Table<?> row) {
+            removed.add(uuid);
+        }
+    }
+
+    private static class RecordingSnapshotListener extends RecordingInventoryListener implements OVSDBSnapshotListener {
+        final List<Map<String, Map<String, Table<?>>>> snapshots = new ArrayList<Map<String, Map<String, Table<?>>>>();
+
+        @Override
+        public void initialSnapshotReady(Node node, Map<String, Map<String, Table<?>>> snapshot) {
+            snapshots.add(snapshot);
+        }
+    }
+}
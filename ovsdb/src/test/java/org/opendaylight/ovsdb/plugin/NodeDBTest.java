@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+
+import org.junit.Test;
+import org.opendaylight.ovsdb.lib.database.DatabaseSchema;
+import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
+import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
+import org.opendaylight.ovsdb.lib.notation.UUID;
+import org.opendaylight.ovsdb.lib.table.Bridge;
+import org.opendaylight.ovsdb.lib.table.Interface;
+import org.opendaylight.ovsdb.lib.table.Port;
+import org.opendaylight.ovsdb.lib.table.internal.LazyColumns;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Maps;
+
+public class NodeDBTest {
+
+    private Interface newInterface(String name, String ifaceId) {
+        Interface intf = new Interface();
+        intf.setName(name);
+        if (ifaceId != null) {
+            OvsDBMap<String, String> externalIds = new OvsDBMap<String, String>();
+            externalIds.put("iface-id", ifaceId);
+            intf.setExternal_ids(externalIds);
+        }
+        return intf;
+    }
+
+    @Test
+    public void testColumnIndex() {
+        NodeDB db = new NodeDB();
+        String table = Interface.NAME.getName();
+        db.updateRow(table, "uuid1", newInterface("tap1", "port1"));
+        db.updateRow(table, "uuid2", newInterface("tap2", "port2"));
+
+        assertTrue(db.isIndexed(table, "name"));
+        assertEquals(1, db.getIndexedUuids(table, "name", "tap1").size());
+        assertTrue(db.getIndexedUuids(table, "external_ids:iface-id", "port2").contains("uuid2"));
+        assertEquals(2, db.getIndexedValues(table, "external_ids:iface-id").size());
+
+        db.updateRow(table, "uuid1", newInterface("tap3", null));
+        assertTrue(db.getIndexedUuids(table, "name", "tap1").isEmpty());
+        assertTrue(db.getIndexedUuids(table, "name", "tap3").contains("uuid1"));
+        assertFalse(db.getIndexedValues(table, "external_ids:iface-id").contains("port1"));
+
+        db.removeRow(table, "uuid2");
+        assertTrue(db.getIndexedUuids(table, "name", "tap2").isEmpty());
+        assertTrue(db.getIndexedValues(table, "external_ids:iface-id").isEmpty());
+    }
+
+    @Test
+    public void testAddIndex() {
+        String table = Interface.NAME.getName();
+        NodeDB db = new NodeDB(false, NodeDB.DEFAULT_JOURNAL_CAPACITY, null, null,
+                Arrays.asList(table + "/name"));
+        db.updateRow(table, "uuid1", newInterface("tap1", "port1"));
+        assertNull(db.getIndexedUuids(table, "external_ids:iface-id", "port1"));
+
+        assertTrue(db.addIndex(table, "external_ids:iface-id"));
+        assertFalse(db.addIndex(table, "external_ids:iface-id"));
+        assertTrue(db.getIndexedUuids(table, "external_ids:iface-id", "port1").contains("uuid1"));
+        db.updateRow(table, "uuid2", newInterface("tap2", "port2"));
+        assertTrue(db.getIndexedUuids(table, "external_ids:iface-id", "port2").contains("uuid2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidIndex() {
+        ColumnIndex.parse("Interface/external_ids:");
+    }
+
+    @Test
+    public void testLoadTable() {
+        NodeDB db = new NodeDB();
+        String table = Bridge.NAME.getName();
+        Bridge bridge = new Bridge();
+        bridge.setName("br-int");
+        ConcurrentMap<String, Table<?>> rows = Maps.newConcurrentMap();
+        rows.put("uuid1", bridge);
+        db.loadTable(table, rows);
+
+        assertTrue(db.getIndexedUuids(table, "name", "br-int").contains("uuid1"));
+        assertNull(db.getIndexedUuids(table, "datapath_id", "0"));
+    }
+
+    @Test
+    public void testReferences() {
+        NodeDB db = new NodeDB();
+        Port port = new Port();
+        port.setName("tap1");
+        OvsDBSet<UUID> interfaces = new OvsDBSet<UUID>();
+        interfaces.add(new UUID("intf1"));
+        interfaces.add(new UUID("intf2"));
+        port.setInterfaces(interfaces);
+        db.updateRow(Port.NAME.getName(), "port1", port);
+
+        assertEquals(1, db.getParents("intf1").size());
+        ReferenceIndex.Reference parent = db.getParents("intf2").iterator().next();
+        assertEquals("port1", parent.getUuid());
+        assertEquals(Port.NAME.getName(), parent.getTableName());
+        assertEquals("interfaces", parent.getColumn());
+        assertEquals(2, db.getChildren("port1").size());
+
+        Port updated = new Port();
+        updated.setName("tap1");
+        OvsDBSet<UUID> remaining = new OvsDBSet<UUID>();
+        remaining.add(new UUID("intf2"));
+        updated.setInterfaces(remaining);
+        db.updateRow(Port.NAME.getName(), "port1", updated);
+        assertTrue(db.getParents("intf1").isEmpty());
+        assertEquals(1, db.getChildren("port1").size());
+
+        db.removeRow(Port.NAME.getName(), "port1");
+        assertTrue(db.getParents("intf2").isEmpty());
+        assertTrue(db.getChildren("port1").isEmpty());
+    }
+
+    @Test
+    public void testLazyReferences() throws Exception {
+        NodeDB db = new NodeDB();
+        ObjectMapper mapper = new ObjectMapper();
+        db.setSchema(mapper.readValue("{\"name\" : \"Open_vSwitch\", \"tables\" : {\"Port\" : {\"columns\" : {"
+                + "\"name\" : {\"type\" : \"string\"},"
+                + "\"interfaces\" : {\"type\" : {\"key\" : {\"type\" : \"uuid\", \"refTable\" : \"Interface\"},"
+                + " \"min\" : 1, \"max\" : \"unlimited\"}},"
+                + "\"external_ids\" : {\"type\" : {\"key\" : \"string\", \"value\" : \"string\","
+                + " \"min\" : 0, \"max\" : \"unlimited\"}}}}}}", DatabaseSchema.class));
+        Port port = LazyColumns.defer((ObjectNode)mapper.readTree("{\"name\" : \"tap1\","
+                + " \"external_ids\" : [\"map\", [[\"iface-id\", \"port1\"]]],"
+                + " \"interfaces\" : [\"set\", [[\"uuid\", \"11111111-0000-0000-0000-000000000001\"],"
+                + " [\"uuid\", \"11111111-0000-0000-0000-000000000002\"]]]}"), Port.class);
+        db.updateRow(Port.NAME.getName(), "port1", port);
+
+        // The references are read off the JSON form of the column, left to be decoded on first access
+        assertEquals(2, db.getChildren("port1").size());
+        ReferenceIndex.Reference parent = db.getParents("11111111-0000-0000-0000-000000000001").iterator().next();
+        assertEquals("port1", parent.getUuid());
+        assertEquals("Interface", db.getChildren("port1").iterator().next().getTableName());
+        assertNotNull(port.getPendingColumn("interfaces"));
+        assertNotNull(port.getPendingColumn("external_ids"));
+        assertEquals(2, port.getInterfaces().size());
+    }
+
+    @Test
+    public void testSnapshots() {
+        NodeDB db = new NodeDB();
+        Bridge bridge = new Bridge();
+        bridge.setName("br-int");
+        db.updateRow(Bridge.NAME.getName(), "bridge1", bridge);
+        db.updateRow(Interface.NAME.getName(), "uuid1", newInterface("tap1", "port1"));
+
+        NodeSnapshot first = db.getSnapshot();
+        assertEquals(2, first.getVersion());
+        assertSame(first, db.getSnapshot());
+
+        db.beginBatch();
+        db.updateRow(Interface.NAME.getName(), "uuid2", newInterface("tap2", "port2"));
+        db.removeRow(Interface.NAME.getName(), "uuid1");
+        db.endBatch();
+
+        NodeSnapshot second = db.getSnapshot();
+        assertEquals(3, second.getVersion());
+        assertEquals(1, first.getRows(Interface.NAME.getName()).size());
+        assertNotNull(first.getRow(Interface.NAME.getName(), "uuid1"));
+        assertNull(second.getRow(Interface.NAME.getName(), "uuid1"));
+        assertNotNull(second.getRow(Interface.NAME.getName(), "uuid2"));
+        // The untouched table is shared
+        assertSame(first.getRows(Bridge.NAME.getName()), second.getRows(Bridge.NAME.getName()));
+        assertNotSame(first.getRows(Interface.NAME.getName()), second.getRows(Interface.NAME.getName()));
+        assertTrue(second.getRows(Port.NAME.getName()).isEmpty());
+    }
+
+    @Test
+    public void testSnapshotRowSharing() {
+        NodeDB db = new NodeDB();
+        String table = Interface.NAME.getName();
+        for (int i = 0; i < 1000; i++) {
+            db.updateRow(table, "uuid" + i, newInterface("tap" + i, "port" + i));
+        }
+        NodeSnapshot first = db.getSnapshot();
+
+        db.beginBatch();
+        db.updateRow(table, "uuid1", newInterface("tap1b", "port1"));
+        db.removeRow(table, "uuid2");
+        db.updateRow(table, "uuid1000", newInterface("tap1000", "port1000"));
+        db.endBatch();
+        NodeSnapshot second = db.getSnapshot();
+
+        // Only the buckets of the changed rows are copied
+        SnapshotRows firstRows = first.getTable(table);
+        SnapshotRows secondRows = second.getTable(table);
+        int shared = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (secondRows.sharesBucket(firstRows, "uuid" + i)) shared++;
+        }
+        assertTrue(shared > 500);
+        assertFalse(secondRows.sharesBucket(firstRows, "uuid1"));
+        assertEquals("tap1", ((Interface)first.getRow(table, "uuid1")).getName());
+        assertEquals("tap1b", ((Interface)second.getRow(table, "uuid1")).getName());
+        assertNotNull(first.getRow(table, "uuid2"));
+        assertNull(second.getRow(table, "uuid2"));
+        assertEquals(1000, firstRows.size());
+        assertEquals(1000, secondRows.size());
+        assertEquals(Maps.newHashMap(db.getTableCache(table)), Maps.newHashMap(secondRows));
+    }
+
+    @Test
+    public void testChangeJournal() {
+        NodeDB db = new NodeDB(false, 3);
+        // Rows loaded without recording their changes are not journaled
+        db.updateRow(Interface.NAME.getName(), "uuid1", newInterface("tap1", "port1"));
+        NodeSnapshot snapshot = db.getSnapshot();
+        assertEquals(db.getSequence(), snapshot.getSequence());
+        assertNull(db.getChangesSince(snapshot.getSequence() - 1));
+        assertTrue(db.getChangesSince(snapshot.getSequence()).getChanges().isEmpty());
+
+        long sequence = snapshot.getSequence();
+        for (int i = 2; i <= 4; i++) {
+            db.beginBatch();
+            Interface intf = newInterface("tap" + i, "port" + i);
+            db.updateRow(Interface.NAME.getName(), "uuid" + i, intf);
+            db.recordChanges(Arrays.asList(RowChange.added(Interface.NAME.getName(), "uuid" + i, intf)));
+            db.endBatch();
+        }
+        ChangeJournal.Changes changes = db.getChangesSince(sequence);
+        assertEquals(sequence, changes.getFromSequence());
+        assertEquals(sequence + 3, changes.getSequence());
+        assertEquals(3, changes.getChanges().size());
+        assertEquals("uuid2", changes.getChanges().get(0).getUuid());
+        assertEquals(1, db.getChangesSince(sequence + 2).getChanges().size());
+
+        // The oldest changes are dropped beyond the capacity, the consumer starts over from a snapshot
+        db.beginBatch();
+        db.removeRow(Interface.NAME.getName(), "uuid2");
+        db.recordChanges(Arrays.asList(RowChange.removed(Interface.NAME.getName(), "uuid2", newInterface("tap2", "port2"))));
+        db.endBatch();
+        assertNull(db.getChangesSince(sequence));
+        assertEquals(3, db.getChangesSince(sequence + 1).getChanges().size());
+        assertEquals(db.getSnapshot().getSequence(), db.getChangesSince(sequence + 1).getSequence());
+
+        // Sequence numbers are not reused by the database of a node connecting again
+        assertTrue(new NodeDB().getSequence() > db.getSequence());
+    }
+
+    @Test
+    public void testSpill() throws Exception {
+        NodeDB db = new NodeDB(true);
+        String table = Interface.NAME.getName();
+        assertFalse(db.spill());
+        db.setSchema(new ObjectMapper().readValue(CacheSnapshotFileTest.SCHEMA, DatabaseSchema.class));
+        db.updateRow(table, "uuid1", newInterface("tap1", "port1"));
+        db.updateRow(table, "uuid2", newInterface("tap2", "port2"));
+        long version = db.getVersion();
+
+        assertTrue(db.spill());
+        assertTrue(db.isSpilled());
+        assertEquals(2, db.getRowCount());
+        assertTrue(db.getOffHeapBytes() > 0);
+        assertTrue(db.getHeapBytesSaved() > db.getOffHeapBytes());
+        // The indexes stay on the heap, a peek does not load the rows back
+        assertTrue(db.getIndexedUuids(table, "external_ids:iface-id", "port2").contains("uuid2"));
+        assertEquals("tap1", ((Interface)db.peekSnapshot().getRow(table, "uuid1")).getName());
+        assertTrue(db.isSpilled());
+
+        // Any access loads the rows back, unchanged
+        assertEquals("tap2", ((Interface)db.getRow(table, "uuid2")).getName());
+        assertFalse(db.isSpilled());
+        assertEquals(0, db.getOffHeapBytes());
+        assertEquals(version, db.getVersion());
+        assertEquals(1, db.getRehydrations());
+
+        assertTrue(db.spill());
+        db.removeRow(table, "uuid1");
+        assertFalse(db.isSpilled());
+        assertNull(db.getRow(table, "uuid1"));
+        assertEquals(1, db.getSnapshot().getRows(table).size());
+        assertEquals(2, db.getSpills());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Node;
+
+public class NodeUpdateAccountingTest {
+
+    @BeforeClass
+    public static void registerNodeType() {
+        Node.NodeIDType.registerIDType("OVS", String.class);
+    }
+
+    @Test
+    public void testNotificationBudget() throws Exception {
+        NodeUpdateAccounting accounting = new NodeUpdateAccounting(2, 0, 0, NodeUpdateAccounting.OverBudgetAction.DEFER);
+        Node node = new Node("OVS", "node1");
+
+        assertFalse(accounting.recordNotification(node, 100));
+        assertFalse(accounting.recordNotification(node, 200));
+        assertTrue(accounting.recordNotification(node, 300));
+        assertTrue(accounting.isOverBudget(node));
+    }
+
+    @Test
+    public void testByteAccounting() throws Exception {
+        NodeUpdateAccounting accounting = new NodeUpdateAccounting(0, 250, 0, NodeUpdateAccounting.OverBudgetAction.COALESCE);
+        Node node = new Node("OVS", "node1");
+
+        assertFalse(accounting.recordNotification(node, 100));
+        assertFalse(accounting.recordNotification(node, 250));
+        assertTrue(accounting.recordNotification(node, 400));
+        assertEquals(400, accounting.getNoisiestNodes(1).get(0).getBytes());
+    }
+
+    @Test
+    public void testNoisiestNodes() throws Exception {
+        NodeUpdateAccounting accounting = new NodeUpdateAccounting(0, 0, 0, NodeUpdateAccounting.OverBudgetAction.COALESCE);
+        Node quiet = new Node("OVS", "quiet");
+        Node noisy = new Node("OVS", "noisy");
+        accounting.recordNotification(quiet, 0);
+        for (int i = 0; i < 5; i++) {
+            accounting.recordNotification(noisy, 0);
+        }
+        accounting.recordProcessing(noisy, 10, 1000, 2000, 3000);
+
+        // Nodes are ranked on their last complete window
+        Thread.sleep(1100);
+        List<NodeUpdateAccounting.UsageStatistics> top = accounting.getNoisiestNodes(2);
+        assertEquals(2, top.size());
+        assertEquals(noisy, top.get(0).getNode());
+        assertEquals(quiet, top.get(1).getNode());
+        assertEquals(5, top.get(0).getNotificationRate());
+        assertEquals(1, accounting.getNoisiestNodes(1).size());
+        assertEquals(noisy, accounting.getNoisiestNodes(1).get(0).getNode());
+        for (NodeUpdateAccounting.UsageStatistics usage : top) {
+            if (usage.getNode().equals(noisy)) {
+                assertEquals(5, usage.getNotifications());
+                assertEquals(10, usage.getRows());
+                assertFalse(usage.isOverBudget());
+            }
+        }
+    }
+}
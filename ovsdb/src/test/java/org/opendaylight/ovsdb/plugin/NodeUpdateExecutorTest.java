@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Node;
+
+import com.google.common.base.Predicate;
+
+public class NodeUpdateExecutorTest {
+    private NodeUpdateExecutor executor;
+
+    @BeforeClass
+    public static void registerNodeType() {
+        Node.NodeIDType.registerIDType("OVS", String.class);
+    }
+
+    @Before
+    public void setUp() {
+        executor = new NodeUpdateExecutor(2, 4, 2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private static Runnable await(final CountDownLatch latch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testOrdering() throws Exception {
+        Node node = new Node("OVS", "node1");
+        final List<Integer> applied = Collections.synchronizedList(new ArrayList<Integer>());
+        Future<?> last = null;
+        for (int i = 0; i < 1000; i++) {
+            final int update = i;
+            last = executor.execute(node, null, new Runnable() {
+                @Override
+                public void run() {
+                    if (update == 10) throw new IllegalStateException("Failing update");
+                    applied.add(update);
+                }
+            });
+        }
+        last.get(10, TimeUnit.SECONDS);
+
+        // A failing update does not stop the following ones
+        assertEquals(999, applied.size());
+        for (int i = 1; i < applied.size(); i++) {
+            assertTrue(applied.get(i - 1) < applied.get(i));
+        }
+    }
+
+    @Test
+    public void testIsolation() throws Exception {
+        Node slow = new Node("OVS", "slow");
+        Node fast = null;
+        for (int i = 0; fast == null; i++) {
+            Node candidate = new Node("OVS", "node" + i);
+            if (executor.stripeIndex(candidate) != executor.stripeIndex(slow)) fast = candidate;
+        }
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(slow, new EmbeddedChannel(new ChannelInboundHandlerAdapter()), await(release));
+        final AtomicBoolean applied = new AtomicBoolean();
+        executor.execute(fast, null, new Runnable() {
+            @Override
+            public void run() {
+                applied.set(true);
+            }
+        }).get(10, TimeUnit.SECONDS);
+
+        // The other node is applied while the slow node is stuck
+        assertTrue(applied.get());
+        assertEquals(1, executor.getQueueDepth(slow));
+        release.countDown();
+    }
+
+    @Test
+    public void testWatermarks() throws Exception {
+        Node node = new Node("OVS", "node1");
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(node, channel, await(release));
+        for (int i = 0; i < 2; i++) {
+            executor.execute(node, channel, await(release));
+        }
+        assertTrue(channel.config().isAutoRead());
+
+        // The high watermark suspends the reads of the node
+        executor.execute(node, channel, await(release));
+        assertFalse(channel.config().isAutoRead());
+        assertTrue(executor.isPaused(node));
+
+        // They are resumed once down to the low watermark
+        release.countDown();
+        final CountDownLatch drained = new CountDownLatch(1);
+        executor.execute(node, null, new Runnable() {
+            @Override
+            public void run() {
+                drained.countDown();
+            }
+        });
+        assertTrue(drained.await(10, TimeUnit.SECONDS));
+        assertTrue(channel.config().isAutoRead());
+        assertFalse(executor.isPaused(node));
+    }
+
+    @Test
+    public void testReadHold() throws Exception {
+        Node node = new Node("OVS", "node1");
+        final AtomicBoolean held = new AtomicBoolean(true);
+        executor.setReadHold(new Predicate<Node>() {
+            @Override
+            public boolean apply(Node input) {
+                return held.get();
+            }
+        });
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(node, channel, await(release));
+        }
+        assertFalse(channel.config().isAutoRead());
+        release.countDown();
+        executor.execute(node, null, await(release)).get(10, TimeUnit.SECONDS);
+
+        // The backlog is drained but the reads stay suspended while held
+        assertFalse(executor.isPaused(node));
+        assertFalse(channel.config().isAutoRead());
+
+        held.set(false);
+        release = new CountDownLatch(1);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(node, channel, await(release));
+        }
+        release.countDown();
+        executor.execute(node, null, await(release)).get(10, TimeUnit.SECONDS);
+        assertTrue(channel.config().isAutoRead());
+    }
+
+    @Test
+    public void testRemoveNode() throws Exception {
+        Node node = new Node("OVS", "node1");
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(node, channel, await(release));
+        final AtomicBoolean pendingApplied = new AtomicBoolean();
+        Future<?> pending = executor.execute(node, channel, new Runnable() {
+            @Override
+            public void run() {
+                pendingApplied.set(true);
+            }
+        });
+        final AtomicBoolean removed = new AtomicBoolean();
+        Future<?> removal = executor.removeNode(node, new Runnable() {
+            @Override
+            public void run() {
+                removed.set(!pendingApplied.get());
+            }
+        });
+        release.countDown();
+        removal.get(10, TimeUnit.SECONDS);
+
+        // The update pending at removal time is skipped, the removal runs after it
+        assertFalse(pendingApplied.get());
+        assertTrue(removed.get());
+        assertRejected(pending);
+
+        // So are the updates of the closed channel queued after the removal, which do not
+        // recreate the queue of the node
+        channel.close();
+        assertRejected(executor.execute(node, channel, new Runnable() {
+            @Override
+            public void run() {
+                pendingApplied.set(true);
+            }
+        }));
+        assertFalse(pendingApplied.get());
+        executor.execute(node, null, await(release)).get(10, TimeUnit.SECONDS);
+        assertFalse(executor.getQueueStatistics().containsKey(node));
+    }
+
+    private static void assertRejected(Future<?> future) throws Exception {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Task not rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void testInStripe() throws Exception {
+        final Node node = new Node("OVS", "node1");
+        Node other = null;
+        for (int i = 0; other == null; i++) {
+            Node candidate = new Node("OVS", "node" + i);
+            if (executor.stripeIndex(candidate) != executor.stripeIndex(node)) other = candidate;
+        }
+        final Node otherNode = other;
+        final List<Boolean> inStripe = Collections.synchronizedList(new ArrayList<Boolean>());
+        executor.execute(node, null, new Runnable() {
+            @Override
+            public void run() {
+                inStripe.add(executor.inStripeOf(node));
+                inStripe.add(executor.inStripeOf(otherNode));
+            }
+        }).get(10, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList(true, false), inStripe);
+        assertFalse(executor.inStripeOf(node));
+    }
+
+    @Test
+    public void testQueueCapacity() throws Exception {
+        executor.shutdown();
+        executor = new NodeUpdateExecutor(1, 100, 50, 2);
+        Node node = new Node("OVS", "node1");
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(node, channel, started(running, release));
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+        executor.execute(node, channel, await(release));
+        executor.execute(node, channel, await(release));
+
+        // Beyond the capacity of the stripe the update is lost, the node is to resync
+        assertRejected(executor.execute(node, channel, await(release)));
+        assertFalse(channel.isActive());
+        assertEquals(3, executor.getQueueDepth(node));
+        release.countDown();
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        Node node = new Node("OVS", "node1");
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(node, null, started(running, release));
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+        Future<?> pending = executor.execute(node, null, await(release));
+
+        // The tasks pending at shutdown fail, as do the ones submitted after it
+        executor.shutdown();
+        assertRejected(pending);
+        assertRejected(executor.execute(node, null, await(release)));
+    }
+
+    private static Runnable started(final CountDownLatch running, final CountDownLatch release) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                running.countDown();
+                await(release).run();
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class PriorityLaneQueueTest {
+
+    @Test
+    public void testHighLaneServedFirst() {
+        PriorityLaneQueue<String, String> queue = new PriorityLaneQueue<String, String>(10);
+        queue.offerLow("a", "stats-a");
+        queue.offerHigh("add-1");
+        queue.offerHigh("add-2");
+
+        assertEquals("add-1", queue.poll());
+        assertEquals("add-2", queue.poll());
+        assertEquals("stats-a", queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testLowLaneCoalescing() {
+        PriorityLaneQueue<String, String> queue = new PriorityLaneQueue<String, String>(10);
+        assertTrue(queue.offerLow("a", "stats-a1"));
+        assertTrue(queue.offerLow("b", "stats-b1"));
+        assertFalse(queue.offerLow("a", "stats-a2"));
+
+        assertEquals("stats-a2", queue.poll());
+        assertEquals("stats-b1", queue.poll());
+        assertEquals(1, queue.getStatistics().getLowCoalesced());
+    }
+
+    @Test
+    public void testLowLaneCapacity() {
+        PriorityLaneQueue<String, String> queue = new PriorityLaneQueue<String, String>(2);
+        queue.offerLow("a", "stats-a");
+        queue.offerLow("b", "stats-b");
+        assertFalse(queue.offerLow("c", "stats-c"));
+
+        PriorityLaneQueue.LaneStatistics stats = queue.getStatistics();
+        assertEquals(2, stats.getLowDepth());
+        assertEquals(1, stats.getLowDropped());
+        assertEquals("stats-b", queue.poll());
+        assertEquals("stats-c", queue.poll());
+    }
+
+    @Test
+    public void testSum() {
+        PriorityLaneQueue<String, String> queue1 = new PriorityLaneQueue<String, String>(2);
+        PriorityLaneQueue<String, String> queue2 = new PriorityLaneQueue<String, String>(2);
+        queue1.offerLow("a", "stats-a");
+        queue1.offerLow("b", "stats-b");
+        queue1.offerLow("c", "stats-c");
+        queue2.offerLow("a", "stats-a");
+
+        PriorityLaneQueue.LaneStatistics stats = PriorityLaneQueue.LaneStatistics.sum(
+                Arrays.asList(queue1.getStatistics(), queue2.getStatistics()), 2);
+        assertEquals(3, stats.getLowDepth());
+        assertEquals(2, stats.getMaxLowDepth());
+        assertEquals(4, stats.getLowOffered());
+        assertEquals(1, stats.getLowDropped());
+    }
+
+    @Test
+    public void testRemoveLow() {
+        PriorityLaneQueue<String, String> queue = new PriorityLaneQueue<String, String>(10);
+        queue.offerLow("a", "stats-a");
+        assertEquals("stats-a", queue.removeLow("a"));
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.ovsdb.lib.notation.OvsDBSet;
+import org.opendaylight.ovsdb.lib.table.Bridge;
+import org.opendaylight.ovsdb.lib.table.Port;
+import org.opendaylight.ovsdb.lib.table.internal.ColumnMask;
+
+public class RowChangePublisherTest {
+    private final Executor sameThread = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+    private RowChangePublisher publisher;
+    private Node node1;
+    private Node node2;
+
+    @Before
+    public void setUp() throws Exception {
+        Node.NodeIDType.registerIDType("OVS", String.class);
+        publisher = new RowChangePublisher(sameThread);
+        node1 = new Node("OVS", "node1");
+        node2 = new Node("OVS", "node2");
+    }
+
+    private static Port port(String name) {
+        Port port = new Port();
+        port.setName(name);
+        return port;
+    }
+
+    @Test
+    public void testDemand() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        RowChangeSubscription subscription = publisher.subscribe(subscriber, RowChangeFilter.all(),
+                                                                 RowChangePublisher.Overflow.BUFFER, 10);
+        assertTrue(subscriber.subscription == subscription);
+
+        publisher.publish(node1, Arrays.asList(RowChange.added("Port", "p1", port("tap1")),
+                                               RowChange.added("Port", "p2", port("tap2")),
+                                               RowChange.added("Port", "p3", port("tap3"))));
+        assertEquals(0, subscriber.changes.size());
+        assertEquals(3, subscription.getPending());
+
+        subscription.request(2);
+        assertEquals(Arrays.asList("p1", "p2"), subscriber.uuids());
+        assertEquals(1, subscription.getPending());
+
+        subscription.request(Long.MAX_VALUE);
+        subscription.request(Long.MAX_VALUE);
+        assertEquals(Arrays.asList("p1", "p2", "p3"), subscriber.uuids());
+        publisher.publish(node1, Arrays.asList(RowChange.removed("Port", "p1", port("tap1"))));
+        assertEquals(4, subscriber.changes.size());
+
+        subscription.cancel();
+        assertTrue(!publisher.hasSubscriptions());
+        publisher.publish(node1, Arrays.asList(RowChange.removed("Port", "p2", port("tap2"))));
+        assertEquals(4, subscriber.changes.size());
+    }
+
+    @Test
+    public void testFilter() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber, RowChangeFilter.all().node(node1).table("Port", "name"),
+                            RowChangePublisher.Overflow.BUFFER, 10).request(Long.MAX_VALUE);
+
+        // The old row of an update only holds the columns that changed
+        Port untagged = new Port();
+        untagged.setTag(new OvsDBSet<Long>());
+        Port tagged = port("tap1");
+        OvsDBSet<Long> tag = new OvsDBSet<Long>();
+        tag.add(10L);
+        tagged.setTag(tag);
+        publisher.publish(node2, Arrays.asList(RowChange.added("Port", "p1", port("tap1"))));
+        publisher.publish(node1, Arrays.asList(RowChange.added("Bridge", "b1", new Bridge()),
+                                               RowChange.added("Port", "p1", port("tap1")),
+                                               RowChange.updated("Port", "p1", untagged, tagged),
+                                               RowChange.updated("Port", "p1", port("tap1"), port("tap2"))));
+        assertEquals(Arrays.asList("p1", "p1"), subscriber.uuids());
+        assertEquals(RowChange.Type.ADDED, subscriber.changes.get(0).getType());
+        assertEquals(RowChange.Type.UPDATED, subscriber.changes.get(1).getType());
+        assertEquals(node1, subscriber.nodes.get(0));
+    }
+
+    @Test
+    public void testBufferOverflow() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        RowChangeSubscription subscription = publisher.subscribe(subscriber, RowChangeFilter.all(),
+                                                                 RowChangePublisher.Overflow.BUFFER, 2);
+        publisher.publish(node1, Arrays.asList(RowChange.added("Port", "p1", port("tap1")),
+                                               RowChange.added("Port", "p2", port("tap2"))));
+        assertNull(subscriber.error);
+        publisher.publish(node1, Arrays.asList(RowChange.added("Port", "p3", port("tap3"))));
+        assertNotNull(subscriber.error);
+        assertEquals(0, subscriber.changes.size());
+        assertEquals(0, subscription.getPending());
+        assertTrue(!publisher.hasSubscriptions());
+    }
+
+    @Test
+    public void testDropOldest() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        RowChangeSubscription subscription = publisher.subscribe(subscriber, RowChangeFilter.all(),
+                                                                 RowChangePublisher.Overflow.DROP_OLDEST, 2);
+        publisher.publish(node1, Arrays.asList(RowChange.added("Port", "p1", port("tap1")),
+                                               RowChange.added("Port", "p2", port("tap2")),
+                                               RowChange.added("Port", "p3", port("tap3"))));
+        assertEquals(1, subscription.getDropped());
+        subscription.request(10);
+        assertEquals(Arrays.asList("p2", "p3"), subscriber.uuids());
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void testCoalesce() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        RowChangeSubscription subscription = publisher.subscribe(subscriber, RowChangeFilter.all(),
+                                                                 RowChangePublisher.Overflow.COALESCE, 2);
+        Port tap1 = port("tap1");
+        Port renamed = port("tap9");
+        publisher.publish(node1, Arrays.asList(RowChange.added("Port", "p1", tap1),
+                                               RowChange.updated("Port", "p1", tap1, renamed),
+                                               RowChange.added("Port", "p2", port("tap2")),
+                                               RowChange.removed("Port", "p2", port("tap2"))));
+        // An insert followed by an update is still an insert, a deleted insert is gone
+        assertEquals(1, subscription.getPending());
+
+        publisher.publish(node2, Arrays.asList(RowChange.added("Port", "p1", port("tap1")),
+                                               RowChange.added("Port", "p3", port("tap3"))));
+        // The oldest row is dropped once the buffer is full
+        assertEquals(2, subscription.getPending());
+
+        subscription.request(10);
+        assertEquals(Arrays.asList("p1", "p3"), subscriber.uuids());
+        assertEquals(node2, subscriber.nodes.get(0));
+        assertEquals(3, subscription.getDropped());
+    }
+
+    @Test
+    public void testMerge() {
+        Port tap1 = port("tap1");
+        Port tap2 = port("tap2");
+        RowChange merged = RowChangePublisher.merge(RowChange.removed("Port", "p1", tap1),
+                                                    RowChange.added("Port", "p1", tap2));
+        assertEquals(RowChange.Type.UPDATED, merged.getType());
+        assertTrue(merged.getOldRow() == tap1);
+        assertTrue(merged.getNewRow() == tap2);
+        assertEquals(RowChange.Type.REMOVED,
+                     RowChangePublisher.merge(RowChange.updated("Port", "p1", tap1, tap2),
+                                              RowChange.removed("Port", "p1", tap2)).getType());
+
+        // Successive updates keep the oldest value of every column either of them changed
+        Port oldTag = new Port();
+        oldTag.setTag(tags(1L));
+        oldTag.setName("tap1");
+        Port oldName = new Port();
+        oldName.setName("tap2");
+        Port current = port("tap3");
+        current.setTag(tags(2L));
+        merged = RowChangePublisher.merge(RowChange.updated("Port", "p1", oldTag, tap2),
+                                          RowChange.updated("Port", "p1", oldName, current));
+        assertEquals(RowChange.Type.UPDATED, merged.getType());
+        assertEquals("tap1", ((Port)merged.getOldRow()).getName());
+        assertEquals(tags(1L), ((Port)merged.getOldRow()).getTag());
+        assertTrue(merged.getNewRow() == current);
+        assertEquals(ColumnMask.of("Port", "name", "tag"), merged.getChangedColumns());
+    }
+
+    private static OvsDBSet<Long> tags(Long tag) {
+        OvsDBSet<Long> tags = new OvsDBSet<Long>();
+        tags.add(tag);
+        return tags;
+    }
+
+    @Test
+    public void testFailingSubscriber() {
+        RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(Node node, RowChange change) {
+                throw new IllegalStateException();
+            }
+        };
+        publisher.subscribe(subscriber, RowChangeFilter.all(), RowChangePublisher.Overflow.BUFFER, 10)
+                 .request(1);
+        publisher.publish(node1, Arrays.asList(RowChange.added("Port", "p1", port("tap1"))));
+        assertTrue(!publisher.hasSubscriptions());
+    }
+
+    private static class RecordingSubscriber implements RowChangeSubscriber {
+        RowChangeSubscription subscription;
+        final List<Node> nodes = new ArrayList<Node>();
+        final List<RowChange> changes = new ArrayList<RowChange>();
+        Throwable error;
+
+        @Override
+        public void onSubscribe(RowChangeSubscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Node node, RowChange change) {
+            nodes.add(node);
+            changes.add(change);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+        }
+
+        List<String> uuids() {
+            List<String> uuids = new ArrayList<String>();
+            for (RowChange change : changes) uuids.add(change.getUuid());
+            return uuids;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.opendaylight.ovsdb.lib.notation.OvsDBMap;
+import org.opendaylight.ovsdb.lib.table.Interface;
+import org.opendaylight.ovsdb.lib.table.internal.ColumnMask;
+
+public class RowChangeTest {
+
+    @Test
+    public void testStatisticsOnlyChange() {
+        Interface oldRow = new Interface();
+        oldRow.setStatistics(new OvsDBMap<String, Long>());
+        assertTrue(RowChange.updated(Interface.NAME.getName(), "uuid", oldRow, new Interface()).isStatisticsOnly());
+
+        oldRow.setName("tap0");
+        assertFalse(RowChange.updated(Interface.NAME.getName(), "uuid", oldRow, new Interface()).isStatisticsOnly());
+        assertFalse(RowChange.added(Interface.NAME.getName(), "uuid", new Interface()).isStatisticsOnly());
+    }
+
+    @Test
+    public void testChangedColumns() {
+        String table = Interface.NAME.getName();
+        Interface oldRow = new Interface();
+        oldRow.setName("tap0");
+        oldRow.setStatistics(new OvsDBMap<String, Long>());
+        RowChange change = RowChange.updated(table, "uuid", oldRow, new Interface());
+
+        long mask = change.getChangedColumns();
+        assertEquals(ColumnMask.of(table, "name", "statistics"), mask);
+        assertTrue((mask & ColumnMask.of(table, "name", "ofport")) != 0);
+        assertEquals(0, mask & ColumnMask.of(table, "ofport", "external_ids"));
+        assertEquals(2, ColumnMask.getColumnNames(table, mask).size());
+        assertEquals(ColumnMask.ALL, RowChange.added(table, "uuid", new Interface()).getChangedColumns());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2014 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Authors : Madhu Venugopal, Brent Salisbury
+ */
+package org.opendaylight.ovsdb.plugin;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.ovsdb.lib.table.Bridge;
+import org.opendaylight.ovsdb.lib.table.internal.Table;
+
+import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ListenableFuture;
+
+public class RowWatchesTest {
+    private ScheduledExecutorService timer;
+    private RowWatches watches;
+    private Node node;
+
+    @BeforeClass
+    public static void registerNodeType() {
+        Node.NodeIDType.registerIDType("OVS", String.class);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        timer = Executors.newSingleThreadScheduledExecutor();
+        watches = new RowWatches(timer);
+        node = new Node("OVS", "node1");
+    }
+
+    @After
+    public void tearDown() {
+        timer.shutdownNow();
+    }
+
+    @Test
+    public void testPredicate() throws Exception {
+        ListenableFuture<Table<?>> future = watches.watch(node, "Bridge", "uuid1", new Predicate<Table<?>>() {
+            @Override
+            public boolean apply(Table<?> row) {
+                return "br-int".equals(((Bridge)row).getName());
+            }
+        }, 0, TimeUnit.MILLISECONDS);
+        assertTrue(watches.hasWatches(node));
+
+        watches.rowChanged(node, "Bridge", "uuid1", null);
+        Bridge other = new Bridge();
+        other.setName("br-tun");
+        watches.rowChanged(node, "Bridge", "uuid1", other);
+        assertFalse(future.isDone());
+
+        Bridge bridge = new Bridge();
+        bridge.setName("br-int");
+        watches.rowChanged(node, "Bridge", "uuid1", bridge);
+        assertSame(bridge, future.get());
+        assertFalse(watches.hasWatches(node));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        ListenableFuture<Table<?>> future = watches.watch(node, "Bridge", "uuid1", null, 10, TimeUnit.MILLISECONDS);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Watch did not time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertFalse(watches.hasWatches(node));
+    }
+
+    @Test
+    public void testRemoveNode() throws Exception {
+        ListenableFuture<Table<?>> future = watches.watch(node, "Bridge", "uuid1", null, 0, TimeUnit.MILLISECONDS);
+        watches.removeNode(node);
+        try {
+            future.get();
+            fail("Watch was not failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}